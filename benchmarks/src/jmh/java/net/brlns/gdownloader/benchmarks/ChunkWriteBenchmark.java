@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.brlns.gdownloader.downloader.http.ChunkManifest;
+import net.brlns.gdownloader.downloader.http.ChunkScheduler;
+import net.brlns.gdownloader.downloader.http.ChunkTransfer;
+import net.brlns.gdownloader.downloader.http.ChunkedFileSink;
+import net.brlns.gdownloader.downloader.http.HttpClientTransport;
+import net.brlns.gdownloader.downloader.http.IDownloadTransport;
+import net.brlns.gdownloader.testing.LocalHttpTestServer;
+import net.brlns.gdownloader.util.CancelHook;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A whole chunked download over loopback, run by the direct HTTP downloader's own {@link ChunkTransfer}
+ * workers, so the transport, scheduler, manifest and file sink are the production ones.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChunkWriteBenchmark {
+
+    private static final int FILE_BYTES = 64 * 1024 * 1024;// 64MB
+
+    // Same as the downloader's minimum chunk size
+    private static final long MIN_SPLIT_BYTES = 2L * 1024 * 1024;// 2MB
+
+    @Param({"1", "4", "8"})
+    public int chunks;
+
+    @Param({"false", "true"})
+    public boolean syncWrites;
+
+    private LocalHttpTestServer server;
+    private HttpClient client;
+    private ChunkTransfer chunkTransfer;
+    private ExecutorService workers;
+
+    private URL fileUrl;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] payload = new byte[FILE_BYTES];
+        new Random(42).nextBytes(payload);
+
+        server = new LocalHttpTestServer();
+        server.serve("/file.bin", payload);
+        fileUrl = server.getUrl("/file.bin");
+
+        client = HttpClient.newHttpClient();
+        IDownloadTransport transport = new HttpClientTransport(() -> client, Duration.ofSeconds(30));
+
+        chunkTransfer = ChunkTransfer.builder()
+            .transport(() -> transport)
+            .headerFactory((url, referer) -> new HashMap<>())
+            .maxAttempts(() -> 1)
+            .maxConnectionsPerHost(() -> chunks)
+            .build();
+
+        workers = Executors.newVirtualThreadPerTaskExecutor();
+
+        directory = Files.createTempDirectory("gdownloader-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        workers.close();
+        client.close();
+        server.close();
+
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public long download() throws Exception {
+        File target = directory.resolve("file.bin").toFile();
+
+        ChunkManifest manifest = ChunkManifest.create(target, FILE_BYTES, null,
+            ChunkTransfer.planRanges(FILE_BYTES, chunks));
+        ChunkScheduler scheduler = new ChunkScheduler(manifest, MIN_SPLIT_BYTES);
+
+        CancelHook abortHook = new CancelHook();
+        AtomicLong downloadedBytes = new AtomicLong();
+        AtomicInteger activeChunkCount = new AtomicInteger();
+
+        try {
+            try (ChunkedFileSink sink = ChunkedFileSink.open(target, FILE_BYTES, syncWrites)) {
+                List<Future<?>> futures = chunkTransfer.submitWorkers(workers, scheduler,
+                    scheduler.getWorkerCount(chunks), abortHook, activeChunkCount,
+                    (chunkId, lease) -> ChunkTransfer.Request.builder()
+                    .chunkId(chunkId)
+                    .abortHook(abortHook)
+                    .chunked(true)
+                    .soleChunk(chunks == 1)
+                    .fileUrl(fileUrl)
+                    .sink(sink)
+                    .startByte(lease.getRange().getStart())
+                    .endByte(lease.getRange().getEnd())
+                    .totalBytes(FILE_BYTES)
+                    .downloadedBytes(downloadedBytes)
+                    .activeChunkCount(activeChunkCount)
+                    .manifest(manifest)
+                    .lease(lease)
+                    .build());
+
+                ChunkTransfer.awaitWorkers(futures, abortHook);
+            }
+
+            if (!manifest.isComplete()) {
+                throw new IllegalStateException("Download finished with missing ranges");
+            }
+
+            return manifest.getCommittedBytes();
+        } finally {
+            manifest.delete();
+
+            Files.deleteIfExists(target.toPath());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import net.brlns.gdownloader.util.collection.ConcurrentLinkedHashMap;
+import net.brlns.gdownloader.util.collection.ConcurrentLinkedHashSet;
+import net.brlns.gdownloader.util.collection.ExpiringSet;
+import net.brlns.gdownloader.util.collection.LRUCache;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Mixed reads and writes against the shared collections, from several threads at once.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class CollectionsBenchmark {
+
+    private static final int KEY_COUNT = 4096;
+
+    // One write every this many operations
+    private static final int WRITE_RATIO = 8;
+
+    private final String[] keys = new String[KEY_COUNT];
+
+    private ConcurrentLinkedHashMap<String, String> linkedMap;
+    private ConcurrentLinkedHashSet<String> linkedSet;
+    private ExpiringSet<String> expiringSet;
+    private LRUCache<String, String> lruCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        linkedMap = new ConcurrentLinkedHashMap<>();
+        linkedSet = new ConcurrentLinkedHashSet<>();
+        expiringSet = new ExpiringSet<>(TimeUnit.MINUTES, 10);
+        // Half the keys fit, so lookups keep evicting
+        lruCache = new LRUCache<>(KEY_COUNT / 2);
+
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "https://example.com/media/" + i;
+
+            linkedMap.put(keys[i], keys[i]);
+            linkedSet.add(keys[i]);
+            expiringSet.add(keys[i]);
+            lruCache.put(keys[i], keys[i]);
+        }
+    }
+
+    private static boolean isWrite(int index) {
+        return index % WRITE_RATIO == 0;
+    }
+
+    private static int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(KEY_COUNT);
+    }
+
+    @Benchmark
+    public Object concurrentLinkedHashMap() {
+        int index = randomIndex();
+        if (isWrite(index)) {
+            return linkedMap.put(keys[index], keys[index]);
+        }
+
+        return linkedMap.get(keys[index]);
+    }
+
+    @Benchmark
+    public boolean concurrentLinkedHashSet() {
+        int index = randomIndex();
+        if (isWrite(index)) {
+            linkedSet.remove(keys[index]);
+
+            return linkedSet.add(keys[index]);
+        }
+
+        return linkedSet.contains(keys[index]);
+    }
+
+    @Benchmark
+    public boolean expiringSet() {
+        int index = randomIndex();
+        if (isWrite(index)) {
+            expiringSet.add(keys[index]);
+
+            return true;
+        }
+
+        return expiringSet.contains(keys[index]);
+    }
+
+    @Benchmark
+    public String lruCache() {
+        int index = randomIndex();
+
+        return lruCache.computeIfAbsent(keys[index], key -> key);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import net.brlns.gdownloader.downloader.DownloadSequencer;
+import net.brlns.gdownloader.downloader.QueueEntry;
+import net.brlns.gdownloader.downloader.enums.QueueCategoryEnum;
+import org.openjdk.jmh.annotations.*;
+
+import static net.brlns.gdownloader.downloader.enums.QueueCategoryEnum.*;
+
+/**
+ * The queue processor, the UI and user actions all hitting the sequencer at once.
+ *
+ * The contended group mirrors a busy session: workers fetching and handing entries back,
+ * downloads moving between categories, cards being dragged around and the UI taking snapshots.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DownloadSequencerBenchmark {
+
+    private static final QueueCategoryEnum[] CATEGORIES = {QUEUED, COMPLETED, QUEUED, FAILED};
+
+    @Param({"1000", "10000"})
+    public int entryCount;
+
+    private DownloadSequencer sequencer;
+    private QueueEntry[] entries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sequencer = new DownloadSequencer();
+        entries = new QueueEntry[entryCount];
+
+        for (int i = 0; i < entryCount; i++) {
+            String url = "https://example.com/watch?v=" + i;
+
+            entries[i] = sequencer.addNewEntry(
+                new QueueEntry(null, null, null, null, url, url, i, List.of()));
+        }
+    }
+
+    private QueueEntry randomEntry() {
+        return entries[ThreadLocalRandom.current().nextInt(entryCount)];
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public QueueEntry fetchNext() {
+        QueueEntry entry = sequencer.fetchNext();
+        if (entry != null) {
+            // Handed straight back, so the queue never drains
+            sequencer.changeCategory(entry, QUEUED);
+        }
+
+        return entry;
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(2)
+    public boolean changeCategory() {
+        QueueCategoryEnum category = CATEGORIES[ThreadLocalRandom.current().nextInt(CATEGORIES.length)];
+
+        return sequencer.changeCategory(randomEntry(), category);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public boolean reorder() {
+        return sequencer.reorderEntries(randomEntry(), randomEntry());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public List<QueueEntry> snapshot() {
+        return sequencer.getSnapshot();
+    }
+
+    @Benchmark
+    public boolean reorderUncontended() {
+        return sequencer.reorderEntries(randomEntry(), randomEntry());
+    }
+
+    @Benchmark
+    public List<QueueEntry> queuedEntriesUncontended() {
+        return sequencer.getEntries(QUEUED);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.brlns.gdownloader.downloader.structs.DownloadProgress;
+import net.brlns.gdownloader.process.ProgressLineScanner;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of the lines yt-dlp prints while downloading, which make up nearly all of its output.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OutputParserBenchmark {
+
+    private static final String[] OUTPUT_LINES = {
+        "[download]  45.3% of ~ 100.00MiB at  2.50MiB/s ETA 01:05 (frag 3/10)",
+        "[download]  12.0% of 1.21GiB at 10.31MiB/s ETA 01:48",
+        "[download] 100% of 12.00MiB in 01:02:03 at 800.00KB/s",
+        "[download]   0.0% of 1.00GiB at Unknown B/s ETA Unknown",
+        "[download] Destination: video 50%.mp4",
+        "[youtube] dQw4w9WgXcQ: Downloading webpage"
+    };
+
+    private static final String PROGRESS_RECORD = DownloadProgress.MARKER
+        + "{\"status\": \"downloading\", \"downloaded_bytes\": 5242880, \"total_bytes\": 104857600,"
+        + " \"total_bytes_estimate\": null, \"speed\": 2621440.5, \"eta\": 38.0,"
+        + " \"fragment_index\": 3, \"fragment_count\": 10,"
+        + " \"_default_template\": \"  5.0% of  100.00MiB at    2.50MiB/s ETA 00:38 (frag 3/10)\"}";
+
+    private final ProgressLineScanner scanner = new ProgressLineScanner();
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void scanOutputLines(Blackhole blackhole) {
+        for (String line : OUTPUT_LINES) {
+            blackhole.consume(scanner.scan(line));
+        }
+    }
+
+    @Benchmark
+    public DownloadProgress parseProgressRecord() {
+        return DownloadProgress.parse(PROGRESS_RECORD);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import net.brlns.gdownloader.util.StringUtils;
+import net.brlns.gdownloader.util.URLUtils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * URL and string helpers called once per link, card refresh or progress update.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TextUtilsBenchmark {
+
+    private static final String PAGE_URL = "https://www.example.com/gallery/2024/summer/index.html?page=3&sort=new#top";
+    private static final String MEDIA_URL = "https://cdn.example.com/media/2024/07/IMG_20240712_183355.HEIC?width=1920&token=abc123";
+    private static final String RELATIVE_URL = "../../2023/winter/IMG_0001.jpg";
+
+    private static final String LONG_TITLE = "A fairly long video title with some unicode — like this 🎵 and a few more words to wrap";
+
+    @Benchmark
+    public String getHost() {
+        return URLUtils.getHost(MEDIA_URL);
+    }
+
+    @Benchmark
+    public String getExtension() {
+        return URLUtils.getExtension(MEDIA_URL);
+    }
+
+    @Benchmark
+    public String getDisplayUrl() {
+        return URLUtils.getDisplayUrl(PAGE_URL);
+    }
+
+    @Benchmark
+    public String removeQueryParameters() {
+        return URLUtils.removeQueryParameters(PAGE_URL);
+    }
+
+    @Benchmark
+    public String resolve() {
+        return URLUtils.resolve(PAGE_URL, RELATIVE_URL);
+    }
+
+    @Benchmark
+    public String getFileName() {
+        return URLUtils.getFileName(MEDIA_URL);
+    }
+
+    @Benchmark
+    public String formatFileSize() {
+        return StringUtils.getHumanReadableFileSize(1_234_567_890L);
+    }
+
+    @Benchmark
+    public String formatETATime() {
+        return StringUtils.formatDownloadETATime(3_723_000L);
+    }
+
+    @Benchmark
+    public String safeTruncate() {
+        return StringUtils.safeTruncate(LONG_TITLE, 40);
+    }
+
+    @Benchmark
+    public Object wrapText() {
+        return StringUtils.wrapText(LONG_TITLE, 24);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.brlns.gdownloader.filters.AbstractUrlFilter;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Every captured link is matched against every filter, so this runs on each clipboard change.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UrlFilterBenchmark {
+
+    private static final String[] URLS = {
+        "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+        "https://www.youtube.com/watch?v=M494Ty2GlOA&list=PLDOjCqYj3ys3TEe8HCR7_cYH7X7dU28_B&index=21",
+        "https://youtu.be/dQw4w9WgXcQ",
+        "https://www.twitch.tv/videos/123456789",
+        "https://x.com/someone/status/1234567890123456789",
+        "https://www.reddit.com/r/videos/comments/abc123/some_title/",
+        "https://www.facebook.com/watch/?v=1234567890",
+        "https://www.crunchyroll.com/watch/GRDQPM1ZY/episode-title",
+        "https://open.spotify.com/track/4cOdK2wGLETKBW3PvgPWqT",
+        "https://example.com/files/archive.zip",
+        "https://example.com/a/very/long/path/that/matches/nothing/in/particular?with=query&and=more#fragment"
+    };
+
+    private List<AbstractUrlFilter> filters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filters = AbstractUrlFilter.getDefaultUrlFilters();
+
+        // Patterns are compiled lazily on first use
+        for (AbstractUrlFilter filter : filters) {
+            filter.matches(URLS[0]);
+        }
+    }
+
+    @Benchmark
+    public int matchAllFilters() {
+        int matches = 0;
+        for (String url : URLS) {
+            for (AbstractUrlFilter filter : filters) {
+                if (filter.matches(url)) {
+                    matches++;
+                }
+            }
+        }
+
+        return matches;
+    }
+}
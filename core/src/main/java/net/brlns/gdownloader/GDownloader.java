@@ -41,6 +41,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.UIManager;
@@ -319,12 +320,14 @@ public final class GDownloader {
         mainTicker.scheduleAtFixedRate(
             new LooperTask(clipboardManager::tickClipboard),
             0, 50, TimeUnit.MILLISECONDS);
-        mainTicker.scheduleAtFixedRate(
-            new LooperTask(downloadManager::processQueue),
-            0, 50, TimeUnit.MILLISECONDS);
         mainTicker.scheduleAtFixedRate(
             new LooperTask(downloadManager::processTaskbarProgress),
             0, 1, TimeUnit.SECONDS);
+        mainTicker.scheduleAtFixedRate(
+            new LooperTask(downloadManager::processThroughput),
+            0, 1, TimeUnit.SECONDS);
+
+        downloadManager.startQueueDispatcher();
     }
 
     public void runPostUpdateInitTasks() {
@@ -858,13 +861,27 @@ public final class GDownloader {
     }
 
     public List<String> readOutput(List<String> command, @Nullable Duration timeout)
+        throws IOException, InterruptedException {
+        List<String> list = new ArrayList<>();
+        if (!streamOutput(command, timeout, list::add)) {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Runs the command and hands each line of its output to the consumer as soon as it is read.
+     *
+     * @return false if the process was killed for exceeding the timeout.
+     */
+    public boolean streamOutput(List<String> command, @Nullable Duration timeout, Consumer<String> lineConsumer)
         throws IOException, InterruptedException {
         Process process = processMonitor.startProcess(command);
 
         long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : -1L;
         boolean timedOut = false;
 
-        List<String> list = new ArrayList<>();
         StringBuilder lineBuilder = new StringBuilder();
         char[] buffer = new char[1024];
 
@@ -881,7 +898,7 @@ public final class GDownloader {
                     for (int i = 0; i < charsRead; i++) {
                         char c = buffer[i];
                         if (c == '\n') {
-                            list.add(lineBuilder.toString().replace("\r", ""));
+                            lineConsumer.accept(lineBuilder.toString().replace("\r", ""));
                             lineBuilder.setLength(0);
                         } else {
                             lineBuilder.append(c);
@@ -903,12 +920,12 @@ public final class GDownloader {
         }
 
         if (!timedOut && lineBuilder.length() > 0) {
-            list.add(lineBuilder.toString().replace("\r", ""));
+            lineConsumer.accept(lineBuilder.toString().replace("\r", ""));
         }
 
         int exitCode = process.waitFor();
         if (timedOut) {
-            return Collections.emptyList();
+            return false;
         }
 
         if (exitCode != 0) {
@@ -918,7 +935,7 @@ public final class GDownloader {
             }
         }
 
-        return Collections.unmodifiableList(list);
+        return true;
     }
 
     public static boolean isFromJar() {
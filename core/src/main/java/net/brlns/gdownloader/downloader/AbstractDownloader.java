@@ -28,8 +28,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +44,7 @@ import net.brlns.gdownloader.downloader.structs.DownloadResult;
 import net.brlns.gdownloader.ffmpeg.enums.AudioBitrateEnum;
 import net.brlns.gdownloader.ffmpeg.enums.AudioCodecEnum;
 import net.brlns.gdownloader.ffmpeg.structs.FFmpegConfig;
+import net.brlns.gdownloader.process.ProcessOutputReader;
 import net.brlns.gdownloader.settings.QualitySettings;
 import net.brlns.gdownloader.settings.downloader.AbstractDownloaderSettings;
 import net.brlns.gdownloader.settings.enums.VideoContainerEnum;
@@ -83,6 +86,26 @@ public abstract class AbstractDownloader {
 
     protected abstract boolean tryQueryMetadata(QueueEntry queueEntry);
 
+    /**
+     * Whether {@link #tryQueryMetadataBatch} does better than querying the entries one at a time.
+     */
+    protected boolean supportsBatchMetadataQuery() {
+        return false;
+    }
+
+    /**
+     * Queries metadata for several entries at once, reporting each entry as soon as its metadata is set.
+     *
+     * Entries that are never reported fall back to the next downloader.
+     */
+    protected void tryQueryMetadataBatch(List<QueueEntry> entries, Consumer<QueueEntry> onQueried) {
+        for (QueueEntry entry : entries) {
+            if (tryQueryMetadata(entry)) {
+                onQueried.accept(entry);
+            }
+        }
+    }
+
     protected abstract DownloadResult tryDownload(QueueEntry entry) throws Exception;
 
     protected abstract void processMediaFiles(QueueEntry entry);
@@ -124,31 +147,54 @@ public abstract class AbstractDownloader {
         }
 
         long deadline = System.currentTimeMillis() + retryAfter.toMillis();
-        long lastStatusUpdate = 0;
-
-        while (System.currentTimeMillis() < deadline
-            && manager.isRunning() && !entry.getCancelHook().get()) {
-
-            long now = System.currentTimeMillis();
-            if (now - lastStatusUpdate > 500) {
-                long remainingMillis = Math.max(0, deadline - now);
+        CancelHook cancelHook = entry.getCancelHook().derive(manager.getStopHook());
 
+        try {
+            long remainingMillis;
+            while ((remainingMillis = deadline - System.currentTimeMillis()) > 0) {
                 entry.updateStatus(DownloadStatusEnum.WAITING,
                     l10n("gui.host_resolver.status.retry_later",
                         StringUtils.formatETATime(remainingMillis), e.getMessage()));
 
-                lastStatusUpdate = now;
+                // Wakes up right away when cancelled, otherwise refreshes the countdown twice a second.
+                if (cancelHook.await(Math.min(remainingMillis, 500), TimeUnit.MILLISECONDS)) {
+                    break;
+                }
             }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Rate limit the entry's next process should be given in bytes per second, zero when none should be added.
+     *
+     * Read every time a process is launched, the process then keeps that rate until it exits.
+     * A stricter {@code --limit-rate} among the given arguments stays in charge, zero is returned then too.
+     */
+    protected long getRateLimitBytesPerSecond(QueueEntry entry, List<String> arguments) {
+        long userLimit = findRateLimit(arguments);
+        long rate = manager.getBandwidthScheduler().getRateLimitArgument(entry, userLimit);
+
+        return rate == userLimit ? 0 : rate;
+    }
+
+    // The last occurrence wins, same as it does for the downloaders themselves.
+    private static long findRateLimit(List<String> arguments) {
+        long limit = 0;
+        for (int i = 0; i < arguments.size(); i++) {
+            String argument = arguments.get(i);
 
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                break;
+            if ((argument.equals("-r") || argument.equals("--limit-rate")) && i + 1 < arguments.size()) {
+                limit = BandwidthScheduler.parseRate(arguments.get(++i));
+            } else if (argument.startsWith("--limit-rate=")) {
+                limit = BandwidthScheduler.parseRate(argument.substring("--limit-rate=".length()));
             }
         }
 
-        return Optional.empty();
+        return limit;
     }
 
     @Nullable
@@ -267,7 +313,7 @@ public abstract class AbstractDownloader {
 
                     entry.updateStatus(DownloadStatusEnum.TRANSCODING, l10n("gui.transcode.starting"));
 
-                    CancelHook cancelHook = entry.getCancelHook().derive(manager::isRunning, true);
+                    CancelHook cancelHook = entry.getCancelHook().derive(manager.getStopHook());
                     int exitCode = manager.getMain().getFfmpegTranscoder().startTranscode(
                         config, inputFile, tmpFile, cancelHook,
                         (output, hasTaskStarted, progress) -> {
@@ -368,12 +414,11 @@ public abstract class AbstractDownloader {
         }
     }
 
-    protected String truncateLine(String line) {
-        if (line.length() <= MAX_OUTPUT_LINE_LENGTH) {
-            return line;
-        }
-
-        return line.substring(0, MAX_OUTPUT_LINE_LENGTH) + "... [truncated, " + line.length() + " chars]";
+    /**
+     * Streams the output of a download process line by line, see {@link ProcessOutputReader}.
+     */
+    protected ProcessOutputReader startOutputReader(Process process, Consumer<CharSequence> lineConsumer) {
+        return ProcessOutputReader.start(process, MAX_OUTPUT_LINE_LENGTH, lineConsumer);
     }
 
     protected File resolveOutputDirectory(QueueEntry entry) {
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.downloader.enums.DownloadPriorityEnum;
+
+/**
+ * Splits the global download speed limit across running downloads according to their priority.
+ *
+ * Each running entry owns a share of the total, in-process transfers draw from that share through
+ * a lock-free token bucket, and subprocess downloaders receive it as their rate-limit argument
+ * every time a process is launched.
+ *
+ * A subprocess keeps the rate it was launched with until it exits, so that rate is set aside and
+ * in-process transfers split whatever is left of the global limit.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public class BandwidthScheduler {
+
+    private static final long MAX_WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    // Subprocess downloaders treat tiny limits poorly, and in-process transfers must not stall
+    // once subprocesses have taken the whole pool. No share gets less than this.
+    private static final long MIN_SHARE_RATE = 16L * 1024;// 16KB/s
+
+    private static final Pattern RATE_PATTERN = Pattern.compile("(?i)^(\\d+(?:\\.\\d+)?)([kmgt]?)i?b?$");
+
+    private final Supplier<Long> globalLimit;
+
+    // Keyed by download id, entries hash on their mutable state.
+    private final Map<Long, Share> shares = new ConcurrentHashMap<>();
+
+    // Sum of the rates running subprocesses were launched with.
+    private volatile long pinnedTotal;
+
+    public BandwidthScheduler(Supplier<Long> globalLimitIn) {
+        globalLimit = globalLimitIn;
+    }
+
+    public Share register(QueueEntry entry) {
+        Share share = shares.computeIfAbsent(entry.getDownloadId(), id -> new Share(this, entry));
+        rebalance();
+
+        return share;
+    }
+
+    public void unregister(QueueEntry entry) {
+        if (shares.remove(entry.getDownloadId()) != null) {
+            rebalance();
+        }
+    }
+
+    /**
+     * Returns the share of a running entry, or a detached share that is only bound by per-download caps.
+     */
+    public Share getShare(QueueEntry entry) {
+        Share share = shares.get(entry.getDownloadId());
+
+        return share != null ? share : new Share(this, entry);
+    }
+
+    /**
+     * Rate a subprocess downloader should be launched with, zero meaning unlimited.
+     *
+     * The rate is reserved for the entry until its next launch or until it stops running.
+     *
+     * @param userLimit a limit found among the user's own arguments, zero for none. The stricter one wins.
+     */
+    public synchronized long getRateLimitArgument(QueueEntry entry, long userLimit) {
+        Share share = shares.get(entry.getDownloadId());
+
+        long rate = 0;
+
+        long global = getGlobalLimit();
+        if (global > 0) {
+            double fraction = share != null ? share.fraction : 1.0;
+            long available = global - pinnedTotal + (share != null ? share.pinnedRate : 0);
+
+            rate = Math.max(MIN_SHARE_RATE, Math.min((long)(global * fraction), available));
+        }
+
+        if (userLimit > 0) {
+            rate = rate > 0 ? Math.min(rate, userLimit) : userLimit;
+        }
+
+        if (share != null) {
+            share.pinnedRate = rate;
+            rebalance();
+        }
+
+        return rate;
+    }
+
+    /**
+     * Recomputes every share, called whenever entries start, stop or change priority.
+     */
+    public synchronized void rebalance() {
+        double totalWeight = 0;
+        double poolWeight = 0;
+        long pinned = 0;
+        for (Share share : shares.values()) {
+            double weight = getWeight(share.entry.getDownloadPriority());
+
+            totalWeight += weight;
+            if (share.pinnedRate > 0) {
+                pinned += share.pinnedRate;
+            } else {
+                poolWeight += weight;
+            }
+        }
+
+        for (Share share : shares.values()) {
+            double weight = getWeight(share.entry.getDownloadPriority());
+
+            share.fraction = totalWeight > 0 ? weight / totalWeight : 1.0;
+            share.poolFraction = share.pinnedRate > 0 ? 0 : poolWeight > 0 ? weight / poolWeight : 1.0;
+        }
+
+        pinnedTotal = pinned;
+
+        if (log.isDebugEnabled()) {
+            log.debug("Rebalanced bandwidth across {} downloads", shares.size());
+        }
+    }
+
+    /**
+     * Parses a rate such as {@code 500K} or {@code 2.5M} the way yt-dlp and gallery-dl read theirs.
+     *
+     * Ranges like {@code 800k-2M} count by their upper end.
+     *
+     * @return bytes per second, zero when the value is not understood.
+     */
+    public static long parseRate(String value) {
+        long rate = 0;
+        for (String part : value.trim().split("-")) {
+            Matcher matcher = RATE_PATTERN.matcher(part.trim());
+            if (!matcher.matches()) {
+                return 0;
+            }
+
+            String unit = matcher.group(2).toLowerCase(Locale.ROOT);
+            int exponent = unit.isEmpty() ? 0 : "kmgt".indexOf(unit) + 1;
+            rate = Math.max(rate, (long)(Double.parseDouble(matcher.group(1)) * Math.pow(1024, exponent)));
+        }
+
+        return rate;
+    }
+
+    private long getGlobalLimit() {
+        Long limit = globalLimit.get();
+
+        return limit == null ? 0 : Math.max(0, limit);
+    }
+
+    // Each priority step doubles the share of the step below it.
+    private static double getWeight(DownloadPriorityEnum priority) {
+        return Math.pow(2, priority.getWeight() / 50.0);
+    }
+
+    public static final class Share {
+
+        private final BandwidthScheduler scheduler;
+        private final QueueEntry entry;
+
+        private volatile double fraction = 1.0;
+        private volatile double poolFraction = 1.0;
+        private volatile long pinnedRate;
+
+        private final AtomicLong tokens = new AtomicLong();
+        private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+
+        private Share(BandwidthScheduler schedulerIn, QueueEntry entryIn) {
+            scheduler = schedulerIn;
+            entry = entryIn;
+        }
+
+        /**
+         * Effective rate of this share, zero meaning unlimited.
+         *
+         * @param capBytesPerSecond an additional per-download cap, zero for none.
+         */
+        public long getBytesPerSecond(long capBytesPerSecond) {
+            long global = scheduler.getGlobalLimit();
+            long pool = Math.max(0, global - scheduler.pinnedTotal);
+            long allocated = global > 0
+                ? Math.max(Math.min(global, MIN_SHARE_RATE), (long)(pool * poolFraction))
+                : 0;
+
+            if (allocated <= 0) {
+                return Math.max(0, capBytesPerSecond);
+            }
+
+            return capBytesPerSecond > 0 ? Math.min(allocated, capBytesPerSecond) : allocated;
+        }
+
+        /**
+         * Takes tokens for bytes that were just received, parking the caller while the share is in debt.
+         */
+        public void acquire(long bytes, long capBytesPerSecond, Supplier<Boolean> alive) {
+            long rate = getBytesPerSecond(capBytesPerSecond);
+            if (rate <= 0) {
+                return;
+            }
+
+            refill(rate);
+
+            long balance = tokens.addAndGet(-bytes);
+            while (balance < 0 && alive.get()) {
+                long waitNanos = (long)((double)-balance / rate * TimeUnit.SECONDS.toNanos(1));
+                LockSupport.parkNanos(Math.clamp(waitNanos, 1, MAX_WAIT_SLICE_NANOS));
+
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                // Limits can change while waiting.
+                rate = getBytesPerSecond(capBytesPerSecond);
+                if (rate <= 0) {
+                    tokens.set(0);
+                    return;
+                }
+
+                refill(rate);
+                balance = tokens.get();
+            }
+        }
+
+        private void refill(long rate) {
+            long now = System.nanoTime();
+            long last = lastRefillNanos.get();
+
+            long added = (long)((double)(now - last) / TimeUnit.SECONDS.toNanos(1) * rate);
+            if (added <= 0 || !lastRefillNanos.compareAndSet(last, now)) {
+                // Too early to add anything, or someone else refilled in the meantime.
+                return;
+            }
+
+            // Allow at most one second of burst.
+            tokens.accumulateAndGet(added, (current, delta) -> Math.min(rate, current + delta));
+        }
+    }
+}
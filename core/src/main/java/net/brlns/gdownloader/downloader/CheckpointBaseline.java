@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader;
+
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import net.brlns.gdownloader.downloader.enums.DownloaderIdEnum;
+import net.brlns.gdownloader.persistence.entity.QueueEntryDelta;
+import net.brlns.gdownloader.persistence.entity.QueueEntryEntity;
+
+/**
+ * What the database currently holds for a queue entry, so checkpoints only write what changed.
+ *
+ * Collections stay unknown until they are loaded, and are never written before that.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+final class CheckpointBaseline {
+
+    // Columns only, null until the row is known to exist.
+    private QueueEntryEntity row;
+
+    private List<DownloaderIdEnum> downloaderBlacklist;
+    private List<String> pendingFormats;
+    private List<String> mediaFilePaths;
+    private List<String> thumbnailUrls;
+    private List<String> lastCommandLine;
+    private Map<String, Long> playlistItemUploadTimes;
+
+    synchronized boolean isWritten() {
+        return row != null;
+    }
+
+    /**
+     * Forgets the row, the next checkpoint writes the whole entry again.
+     */
+    synchronized void reset() {
+        row = null;
+    }
+
+    /**
+     * Records an entry that was just read back from the database.
+     */
+    synchronized void restored(QueueEntryEntity rowIn) {
+        row = rowIn;
+    }
+
+    /**
+     * Records a full write, every collection is known afterwards.
+     */
+    synchronized void written(QueueEntryEntity entity) {
+        row = entity;
+
+        downloaderBlacklist = entity.getDownloaderBlacklist();
+        pendingFormats = entity.getPendingFormats();
+        mediaFilePaths = entity.getMediaFilePaths();
+        thumbnailUrls = entity.getThumbnailUrls();
+        lastCommandLine = entity.getLastCommandLine();
+        playlistItemUploadTimes = entity.getPlaylistItemUploadTimes();
+    }
+
+    synchronized void downloaderBlacklistLoaded(List<DownloaderIdEnum> blacklist) {
+        downloaderBlacklist = new ArrayList<>(blacklist);
+    }
+
+    synchronized void pendingFormatsLoaded(List<String> formats) {
+        pendingFormats = new ArrayList<>(formats);
+    }
+
+    synchronized void mediaFilePathsLoaded(List<String> paths) {
+        mediaFilePaths = new ArrayList<>(paths);
+    }
+
+    synchronized void thumbnailUrlsLoaded(List<String> urls) {
+        thumbnailUrls = new ArrayList<>(urls);
+    }
+
+    synchronized void lastCommandLineLoaded(List<String> commandLine) {
+        lastCommandLine = new ArrayList<>(commandLine);
+    }
+
+    synchronized void playlistItemUploadTimesLoaded(Map<String, Long> uploadTimes) {
+        playlistItemUploadTimes = new HashMap<>(uploadTimes);
+    }
+
+    /**
+     * Compares the current state against the baseline and moves the baseline forward.
+     *
+     * Collections left null in the current state were never loaded and are skipped.
+     */
+    @Nullable
+    synchronized QueueEntryDelta diff(QueueEntryEntity current) {
+        if (row == null) {
+            return null;
+        }
+
+        QueueEntryDelta delta = QueueEntryDelta.changes(current.getDownloadId());
+
+        QueueEntryDelta.SCALAR_ATTRIBUTES.forEach((attribute, getter) -> {
+            Object value = getter.apply(current);
+            if (!Objects.equals(getter.apply(row), value)) {
+                delta.getChangedAttributes().put(attribute, value);
+            }
+        });
+
+        if (changed(downloaderBlacklist, current.getDownloaderBlacklist())) {
+            delta.setDownloaderBlacklist(current.getDownloaderBlacklist());
+            downloaderBlacklist = current.getDownloaderBlacklist();
+        }
+
+        if (changed(pendingFormats, current.getPendingFormats())) {
+            delta.setPendingFormats(current.getPendingFormats());
+            pendingFormats = current.getPendingFormats();
+        }
+
+        // Backed by a hash set, the order means nothing.
+        if (mediaFilePaths != null && current.getMediaFilePaths() != null
+            && !new HashSet<>(mediaFilePaths).equals(new HashSet<>(current.getMediaFilePaths()))) {
+            delta.setMediaFilePaths(current.getMediaFilePaths());
+            mediaFilePaths = current.getMediaFilePaths();
+        }
+
+        if (changed(thumbnailUrls, current.getThumbnailUrls())) {
+            delta.setThumbnailUrls(current.getThumbnailUrls());
+            thumbnailUrls = current.getThumbnailUrls();
+        }
+
+        if (changed(lastCommandLine, current.getLastCommandLine())) {
+            delta.setLastCommandLine(current.getLastCommandLine());
+            lastCommandLine = current.getLastCommandLine();
+        }
+
+        if (changed(playlistItemUploadTimes, current.getPlaylistItemUploadTimes())) {
+            delta.setPlaylistItemUploadTimes(current.getPlaylistItemUploadTimes());
+            playlistItemUploadTimes = current.getPlaylistItemUploadTimes();
+        }
+
+        // Collections are tracked above, only the columns are kept.
+        current.setDownloaderBlacklist(null);
+        current.setPendingFormats(null);
+        current.setMediaFilePaths(null);
+        current.setThumbnailUrls(null);
+        current.setLastCommandLine(null);
+        current.setPlaylistItemUploadTimes(null);
+
+        row = current;
+
+        return delta;
+    }
+
+    private static boolean changed(@Nullable Object baseline, @Nullable Object current) {
+        return baseline != null && current != null && !baseline.equals(current);
+    }
+}
@@ -21,36 +21,34 @@ import jakarta.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import lombok.Builder;
-import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -64,10 +62,18 @@ import net.brlns.gdownloader.downloader.hosts.HostResolverRegistry;
 import net.brlns.gdownloader.downloader.hosts.IHostResolver;
 import net.brlns.gdownloader.downloader.hosts.ResolvedFile;
 import net.brlns.gdownloader.downloader.hosts.RetryLaterException;
+import net.brlns.gdownloader.downloader.http.ChunkManifest;
+import net.brlns.gdownloader.downloader.http.ChunkScheduler;
+import net.brlns.gdownloader.downloader.http.ChunkTransfer;
+import net.brlns.gdownloader.downloader.http.ChunkedFileSink;
+import net.brlns.gdownloader.downloader.http.HttpClientTransport;
+import net.brlns.gdownloader.downloader.http.IDownloadTransport;
+import net.brlns.gdownloader.downloader.http.UrlConnectionTransport;
 import net.brlns.gdownloader.downloader.structs.DownloadResult;
 import net.brlns.gdownloader.downloader.webscanner.WebScanner;
 import net.brlns.gdownloader.downloader.webscanner.WebScannerExtensions;
 import net.brlns.gdownloader.settings.downloader.DirectHttpSettings;
+import net.brlns.gdownloader.util.CancelHook;
 import net.brlns.gdownloader.util.DirectoryUtils;
 import net.brlns.gdownloader.util.FileUtils;
 import net.brlns.gdownloader.util.Pair;
@@ -95,18 +101,18 @@ public class DirectHttpDownloader extends AbstractDownloader {
     private static final int BUFFER_SIZE = 8192;
     private static final int MAX_DRAIN_BYTES = 65536;
 
-    private static final long BASE_BACKOFF_MILLIS = 1000L;
-    private static final long MAX_BACKOFF_MILLIS = 60000L;
     private static final long MIN_CHUNK_SIZE_BYTES = 2L * 1024 * 1024;// 2MB
-    private static final long MAX_RETRY_AFTER_MILLIS = 300000L;
     private static final int CONNECT_TIMEOUT_MILLIS = 15000;
     private static final int READ_TIMEOUT_MILLIS = 30000;
-
-    private final ConcurrentHashMap<String, Semaphore> hostConnectionLimiters = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, AtomicLong> hostRateLimitedUntil = new ConcurrentHashMap<>();
+    private static final int SCANNED_LINK_QUEUE_CAPACITY = 64;
 
     private final ExecutorService chunkThreadPool = Executors.newVirtualThreadPerTaskExecutor();
 
+    private final IDownloadTransport transport;
+    private final IDownloadTransport socksTransport;
+
+    private final ChunkTransfer chunkTransfer;
+
     private final HostResolverRegistry hostResolverRegistry;
 
     @Getter
@@ -117,6 +123,22 @@ public class DirectHttpDownloader extends AbstractDownloader {
         super(managerIn);
 
         hostResolverRegistry = HostResolverRegistry.createDefault();
+
+        // Shares the application client, and its connection pool, with the host resolvers and the web scanner.
+        transport = new HttpClientTransport(
+            () -> main.getHttpManager().getClient(), Duration.ofMillis(READ_TIMEOUT_MILLIS));
+
+        // java.net.http has no SOCKS support and would silently connect directly instead.
+        socksTransport = new UrlConnectionTransport(this::getProxySettings,
+            Duration.ofMillis(CONNECT_TIMEOUT_MILLIS), Duration.ofMillis(READ_TIMEOUT_MILLIS));
+
+        chunkTransfer = ChunkTransfer.builder()
+            .transport(this::getTransport)
+            .headerFactory((url, referer) -> getBrowserHeaders(url, ACCEPT_ANY, referer))
+            .maxAttempts(() -> main.getConfig().getMaxFragmentRetries())
+            .maxConnectionsPerHost(() -> settings().getMaxConnectionsPerHost())
+            .maxBytesPerSecond(() -> settings().getMaxDownloadSpeedBytesPerSecond())
+            .build();
     }
 
     @Override
@@ -196,9 +218,16 @@ public class DirectHttpDownloader extends AbstractDownloader {
             return new DownloadResult(FLAG_DOWNLOADER_DISABLED);
         }
 
-        File finalPath = main.getOrCreateDownloadsDirectory();
+        File tmpPath;
+        if (entry.hasResumableTransfer() && entry.getTmpDirectory() != null && entry.getTmpDirectory().exists()) {
+            // Stick to the directory holding the partial transfer, even if the downloads directory has since changed.
+            tmpPath = entry.getTmpDirectory();
+        } else {
+            File finalPath = main.getOrCreateDownloadsDirectory();
+
+            tmpPath = DirectoryUtils.getOrCreate(finalPath, GDownloader.CACHE_DIRETORY_NAME, String.valueOf(entry.getDownloadId()));
+        }
 
-        File tmpPath = DirectoryUtils.getOrCreate(finalPath, GDownloader.CACHE_DIRETORY_NAME, String.valueOf(entry.getDownloadId()));
         entry.setTmpDirectory(tmpPath);
 
         boolean success = false;
@@ -318,6 +347,7 @@ public class DirectHttpDownloader extends AbstractDownloader {
         try {
             List<Path> paths = Files.walk(tmpPath.toPath())
                 .filter(path -> !path.equals(tmpPath.toPath()))
+                .filter(path -> !ChunkManifest.isManifestFile(path))
                 .collect(Collectors.toList());
 
             for (Path path : paths) {
@@ -367,20 +397,34 @@ public class DirectHttpDownloader extends AbstractDownloader {
         return manager.isRunning() && !entry.getCancelHook().get();
     }
 
+    /**
+     * A hook that fires when either the entry is cancelled or downloads are stopped.
+     */
+    private CancelHook getCancelHook(QueueEntry entry) {
+        return entry.getCancelHook().derive(manager.getStopHook());
+    }
+
     private void applyBrowserHeaders(HttpURLConnection connection, String accept, @Nullable String referer) {
-        connection.setRequestProperty("User-Agent", URLUtils.getGlobalUserAgent());
-        connection.setRequestProperty("Accept", accept);
-        connection.setRequestProperty("Accept-Language", "en-US,en;q=0.9");
-        connection.setRequestProperty("Accept-Encoding", "identity");
+        getBrowserHeaders(connection.getURL(), accept, referer).forEach(connection::setRequestProperty);
         connection.setRequestProperty("Connection", "keep-alive");
-        connection.setRequestProperty("Upgrade-Insecure-Requests", "1");
-        connection.setRequestProperty("Sec-Fetch-Dest", "document");
-        connection.setRequestProperty("Sec-Fetch-Mode", "navigate");
-        connection.setRequestProperty("Sec-Fetch-Site", URLUtils.resolveFetchSite(connection.getURL(), referer));
+    }
+
+    private Map<String, String> getBrowserHeaders(URL url, String accept, @Nullable String referer) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("User-Agent", URLUtils.getGlobalUserAgent());
+        headers.put("Accept", accept);
+        headers.put("Accept-Language", "en-US,en;q=0.9");
+        headers.put("Accept-Encoding", "identity");
+        headers.put("Upgrade-Insecure-Requests", "1");
+        headers.put("Sec-Fetch-Dest", "document");
+        headers.put("Sec-Fetch-Mode", "navigate");
+        headers.put("Sec-Fetch-Site", URLUtils.resolveFetchSite(url, referer));
 
         if (referer != null) {
-            connection.setRequestProperty("Referer", referer);
+            headers.put("Referer", referer);
         }
+
+        return headers;
     }
 
     @Nullable
@@ -427,7 +471,7 @@ public class DirectHttpDownloader extends AbstractDownloader {
     }
 
     private boolean downloadFile(QueueEntry queueEntry, AtomicBoolean suppressStatusText,
-        ProgressUpdater progressCallback) throws Exception {
+        ChunkTransfer.ProgressListener progressCallback) throws Exception {
         URL fileUrl = new URI(queueEntry.getUrl()).toURL();
 
         if (settings().getHostResolvers().isEnabled()) {
@@ -454,7 +498,7 @@ public class DirectHttpDownloader extends AbstractDownloader {
 
             attempts++;
             if (attempts < 3) {
-                waitCancellable(queueEntry, 1500, () -> isAlive(queueEntry),
+                waitCancellable(queueEntry, 1500, getCancelHook(queueEntry),
                     "gui.direct_http.download_status.waiting_resolve_host");
             }
         }
@@ -500,7 +544,7 @@ public class DirectHttpDownloader extends AbstractDownloader {
     }
 
     private boolean scanAndDownloadMedia(QueueEntry queueEntry, URL pageUrl,
-        ProgressUpdater progressCallback) throws Exception {
+        ChunkTransfer.ProgressListener progressCallback) throws Exception {
         queueEntry.updateStatus(DownloadStatusEnum.SCANNING,
             l10n("gui.direct_http.download_status.scanning_page"));
 
@@ -518,135 +562,153 @@ public class DirectHttpDownloader extends AbstractDownloader {
         int maxDepth = settings().getWebScannerMaxDepth();
         boolean strictHost = settings().isWebScannerStrictHost();
 
-        Set<String> mediaLinks;
-        try {
-            mediaLinks = scanner.scanForMediaLinks(pageUrl.toString(), null, maxDepth, strictHost,
-                () -> !isAlive(queueEntry),
-                (key, args) -> queueEntry.updateStatus(DownloadStatusEnum.SCANNING, l10n(key, args), false));
-        } catch (Exception e) {
-            throw new IOException("Failed to scan page for media: " + pageUrl + ": " + e.getMessage(), e);
-        }
-
-        if (!isAlive(queueEntry)) {
-            log.info("Download cancelled during media scanning phase.");
-            return false;
-        }
+        // Links are handed over while the crawl is still running, the queue bounds how far it may run ahead.
+        BlockingQueue<String> discoveredLinks = new ArrayBlockingQueue<>(SCANNED_LINK_QUEUE_CAPACITY);
+        AtomicInteger discoveredCount = new AtomicInteger(0);
+        AtomicBoolean scanFinished = new AtomicBoolean();
 
-        if (mediaLinks.isEmpty()) {
-            throw new UnsupportedURLException(
-                l10n("gui.direct_http.download_status.error.no_media_found", pageUrl));
-        }
-
-        log.info("Found {} candidate media link(s) from {}", mediaLinks.size(), pageUrl);
-
-        int totalFiles = mediaLinks.size();
         AtomicInteger fileIndex = new AtomicInteger(0);
         AtomicInteger successCount = new AtomicInteger(0);
 
-        Semaphore concurrencyLimiter = new Semaphore(
-            Math.max(1, Math.min(settings().getMaxConcurrentCrawledDownloads(), totalFiles)));
+        DownloadCarousel carousel = new DownloadCarousel();
+        MultiFileProgressAggregator aggregator = new MultiFileProgressAggregator(1);
 
-        List<Future<?>> futures = new ArrayList<>();
+        // Hosts that refused a HEAD probe but answered the GET, later links go straight to GET.
+        Set<String> headRefusingHosts = ConcurrentHashMap.newKeySet();
 
-        DownloadCarousel carousel = new DownloadCarousel();
-        MultiFileProgressAggregator aggregator = new MultiFileProgressAggregator(totalFiles);
+        Future<Set<String>> scanFuture = chunkThreadPool.submit(() -> {
+            try {
+                return scanner.scanForMediaLinks(pageUrl.toString(), null, maxDepth, strictHost,
+                    () -> !isAlive(queueEntry),
+                    (key, args) -> {
+                        if (!carousel.isDownloading()) {
+                            queueEntry.updateStatus(DownloadStatusEnum.SCANNING, l10n(key, args), false);
+                        }
+                    },
+                    link -> {
+                        aggregator.setTotalFiles(discoveredCount.incrementAndGet());
 
-        for (String link : mediaLinks) {
-            if (!isAlive(queueEntry)) {
-                break;
+                        // Blocks the crawler while the downloads are behind.
+                        boolean queued = false;
+                        try {
+                            while (!queued && isAlive(queueEntry)) {
+                                queued = discoveredLinks.offer(link, 500, TimeUnit.MILLISECONDS);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+            } finally {
+                scanFinished.set(true);
             }
+        });
 
-            futures.add(chunkThreadPool.submit(() -> {
-                boolean acquired = false;
-                long waitStart = System.currentTimeMillis();
+        int workerCount = Math.max(1, settings().getMaxConcurrentCrawledDownloads());
+        List<Future<?>> futures = new ArrayList<>();
 
-                while (!acquired && isAlive(queueEntry)) {
+        for (int i = 0; i < workerCount; i++) {
+            futures.add(chunkThreadPool.submit(() -> {
+                while (isAlive(queueEntry)) {
+                    String link;
                     try {
-                        acquired = concurrencyLimiter.tryAcquire(500, TimeUnit.MILLISECONDS);
-                        if (!acquired && (System.currentTimeMillis() - waitStart) > 1000) {
-                            if (!carousel.isDownloading()) {
-                                queueEntry.updateStatus(DownloadStatusEnum.WAITING,
-                                    l10n("gui.direct_http.download_status.waiting_queue_slot"));
-                            }
-                        }
+                        link = discoveredLinks.poll(250, TimeUnit.MILLISECONDS);
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                         return;
                     }
-                }
 
-                if (!acquired) {
-                    return;
-                }
-
-                int currentIndex = fileIndex.incrementAndGet();
+                    if (link == null) {
+                        if (scanFinished.get() && discoveredLinks.isEmpty()) {
+                            return;
+                        }
 
-                try {
-                    if (!isAlive(queueEntry)) {
-                        return;
+                        continue;
                     }
 
-                    carousel.register(currentIndex);
+                    int currentIndex = fileIndex.incrementAndGet();
 
-                    URL mediaUrl;
                     try {
-                        mediaUrl = new URI(link).toURL();
-                    } catch (Exception e) {
-                        log.warn("Skipping malformed scanned link {}: {}", link, e.getMessage());
-                        return;
-                    }
+                        carousel.register(currentIndex);
 
-                    Pair<HttpURLConnection, Integer> mediaConnectionPair = openConnection(mediaUrl, "HEAD", pageUrl.toString());
-                    if (mediaConnectionPair == null) {
-                        mediaConnectionPair = openConnection(mediaUrl, "GET", pageUrl.toString());
-                    }
+                        URL mediaUrl;
+                        try {
+                            mediaUrl = new URI(link).toURL();
+                        } catch (Exception e) {
+                            log.warn("Skipping malformed scanned link {}: {}", link, e.getMessage());
+                            aggregator.fail(currentIndex);
+                            continue;
+                        }
 
-                    if (mediaConnectionPair == null) {
-                        log.warn("Skipping unreachable scanned media link: {}", link);
-                        return;
-                    }
+                        Pair<HttpURLConnection, Integer> mediaConnectionPair = null;
 
-                    boolean ok = downloadResolvedFile(queueEntry, mediaUrl,
-                        ResolvedFile.builder()
-                            .url(link)
-                            .referer(pageUrl.toString())
-                            .build(),
-                        mediaConnectionPair.getKey(),
-                        (percent, total, speed, remainingTime, chunkCount) -> {
-                            aggregator.update(currentIndex, percent, total, speed);
+                        String host = normalizeHost(mediaUrl);
+                        boolean probeWithHead = !headRefusingHosts.contains(host);
+                        if (probeWithHead) {
+                            mediaConnectionPair = openConnection(mediaUrl, "HEAD", pageUrl.toString());
+                        }
 
-                            MultiFileProgressAggregator.Snapshot snapshot = aggregator.snapshot();
-                            progressCallback.accept(snapshot.percent(), snapshot.totalBytes(),
-                                snapshot.speed(), snapshot.remainingTimeMillis(), snapshot.activeFiles());
+                        if (mediaConnectionPair == null) {
+                            mediaConnectionPair = openConnection(mediaUrl, "GET", pageUrl.toString());
 
-                            if (carousel.shouldUpdate(currentIndex)) {
-                                queueEntry.updateStatus(DownloadStatusEnum.DOWNLOADING,
-                                    l10n("gui.direct_http.download_status.discovered_media_progress",
-                                        currentIndex, totalFiles,
-                                        StringUtils.formatPercent(percent),
-                                        StringUtils.getHumanReadableFileSize(total),
-                                        StringUtils.getHumanReadableFileSize(speed)), false);
+                            if (mediaConnectionPair != null && probeWithHead) {
+                                headRefusingHosts.add(host);
                             }
-                        });
+                        }
 
-                    if (ok) {
-                        successCount.incrementAndGet();
+                        if (mediaConnectionPair == null) {
+                            log.warn("Skipping unreachable scanned media link: {}", link);
+                            aggregator.fail(currentIndex);
+                            continue;
+                        }
+
+                        boolean ok = downloadResolvedFile(queueEntry, mediaUrl,
+                            ResolvedFile.builder()
+                                .url(link)
+                                .referer(pageUrl.toString())
+                                .build(),
+                            mediaConnectionPair.getKey(),
+                            (percent, total, speed, remainingTime, chunkCount) -> {
+                                aggregator.update(currentIndex, percent, total, speed);
+
+                                MultiFileProgressAggregator.Snapshot snapshot = aggregator.snapshot();
+                                progressCallback.accept(snapshot.percent(), snapshot.totalBytes(),
+                                    snapshot.speed(), snapshot.remainingTimeMillis(), snapshot.activeFiles());
+
+                                if (carousel.shouldUpdate(currentIndex)) {
+                                    queueEntry.updateStatus(DownloadStatusEnum.DOWNLOADING,
+                                        l10n("gui.direct_http.download_status.discovered_media_progress",
+                                            currentIndex, discoveredCount.get(),
+                                            StringUtils.formatPercent(percent),
+                                            StringUtils.getHumanReadableFileSize(total),
+                                            StringUtils.getHumanReadableFileSize(speed)), false);
+                                }
+                            });
+
+                        if (ok) {
+                            successCount.incrementAndGet();
+
+                            aggregator.complete(currentIndex);
+                        } else {
+                            aggregator.fail(currentIndex);
+                        }
+                    } catch (Exception e) {
+                        log.error("Failed to download scanned media {}: {}", link, e.getMessage());
 
-                        aggregator.complete(currentIndex);
-                    } else {
                         aggregator.fail(currentIndex);
+                    } finally {
+                        carousel.unregister(currentIndex);
                     }
-                } catch (Exception e) {
-                    log.error("Failed to download scanned media {}: {}", link, e.getMessage());
-
-                    aggregator.fail(currentIndex);
-                } finally {
-                    carousel.unregister(currentIndex);
-                    concurrencyLimiter.release();
                 }
             }));
         }
 
+        Exception scanFailure = null;
+        try {
+            scanFuture.get();
+        } catch (ExecutionException e) {
+            scanFailure = e.getCause() instanceof Exception cause ? cause : e;
+        }
+
         for (Future<?> future : futures) {
             try {
                 future.get();
@@ -655,6 +717,22 @@ public class DirectHttpDownloader extends AbstractDownloader {
             }
         }
 
+        if (!isAlive(queueEntry)) {
+            log.info("Download cancelled during media scanning phase.");
+            return false;
+        }
+
+        if (scanFailure != null && successCount.get() == 0) {
+            throw new IOException("Failed to scan page for media: " + pageUrl + ": " + scanFailure.getMessage(), scanFailure);
+        }
+
+        if (discoveredCount.get() == 0) {
+            throw new UnsupportedURLException(
+                l10n("gui.direct_http.download_status.error.no_media_found", pageUrl));
+        }
+
+        log.info("Downloaded {} of {} candidate media link(s) from {}", successCount.get(), discoveredCount.get(), pageUrl);
+
         return successCount.get() > 0;
     }
 
@@ -664,14 +742,14 @@ public class DirectHttpDownloader extends AbstractDownloader {
             .settings(settings().getHostResolvers())
             .requestTimeout(Duration.ofMillis(CONNECT_TIMEOUT_MILLIS + READ_TIMEOUT_MILLIS))
             .password(password)
-            .cancelHook(() -> !isAlive(queueEntry))
+            .cancelHook(getCancelHook(queueEntry))
             .statusListener((key, args)
                 -> queueEntry.updateStatus(DownloadStatusEnum.SCANNING, l10n(key, args), false))
             .build();
     }
 
     private boolean resolveAndDownloadHostFiles(QueueEntry queueEntry, IHostResolver resolver,
-        ProgressUpdater progressCallback) throws Exception {
+        ChunkTransfer.ProgressListener progressCallback) throws Exception {
 
         queueEntry.updateStatus(DownloadStatusEnum.SCANNING,
             l10n("gui.host_resolver.status.resolving", resolver.getDisplayName()));
@@ -808,7 +886,7 @@ public class DirectHttpDownloader extends AbstractDownloader {
     }
 
     private boolean downloadResolvedFile(QueueEntry queueEntry, URL fileUrl,
-        ResolvedFile resolvedFile, HttpURLConnection connection, ProgressUpdater progressCallback) throws Exception {
+        ResolvedFile resolvedFile, HttpURLConnection connection, ChunkTransfer.ProgressListener progressCallback) throws Exception {
 
         String referer = resolvedFile.getReferer();
         String suggestedFileName = resolvedFile.getFileName();
@@ -845,6 +923,7 @@ public class DirectHttpDownloader extends AbstractDownloader {
         }
 
         boolean supportsRanges = "bytes".equalsIgnoreCase(connection.getHeaderField("Accept-Ranges"));
+        String validator = getResourceValidator(connection);
 
         if (!resolvedFile.isSingleUse()) {
             closeQuietly(connection);
@@ -871,31 +950,74 @@ public class DirectHttpDownloader extends AbstractDownloader {
 
         Files.createDirectories(targetFile.getParentFile().toPath());
 
-        long downloadedBytesSoFar = targetFile.exists() ? targetFile.length() : 0;
+        boolean attemptChunking = supportsRanges && !forceSingleChunk;
 
-        if (resolvedFile.isSingleUse() && downloadedBytesSoFar > 0) {
-            downloadedBytesSoFar = 0;
-            targetFile.delete();
+        ChunkManifest manifest = null;
+        if (attemptChunking) {
+            boolean hadManifest = ChunkManifest.getManifestFile(targetFile).exists();
+
+            manifest = ChunkManifest.load(targetFile, totalBytes, validator).orElse(null);
+            if (hadManifest && manifest == null) {
+                // Chunked files are extended to full length up front, without their manifest the length says nothing about progress.
+                Files.deleteIfExists(targetFile.toPath());
+            }
+        } else if (ChunkManifest.getManifestFile(targetFile).exists()) {
+            // A chunked transfer leaves gaps behind, the file length cannot be trusted for a sequential resume.
+            log.info("Server no longer accepts ranges, discarding partial chunked download of {}", targetFile);
+
+            Files.deleteIfExists(ChunkManifest.getManifestFile(targetFile).toPath());
+            Files.deleteIfExists(targetFile.toPath());
         }
 
-        long remainingBytes = totalBytes - downloadedBytesSoFar;
-        if (remainingBytes <= 0) {
-            if (resolvedFile.isSingleUse()) {
-                connection.disconnect();
+        long downloadedBytesSoFar;
+        long remainingBytes;
+
+        if (manifest != null) {
+            downloadedBytesSoFar = manifest.getCommittedBytes();
+            remainingBytes = totalBytes - downloadedBytesSoFar;
+
+            if (manifest.isComplete()) {
+                manifest.delete();
+                queueEntry.setResumeManifestPath(null);
+
+                log.info("Download already complete.");
+                return true;
             }
 
-            log.info("Download already complete.");
-            return true;
+            log.info("Resuming chunked download of {} at {}/{}", targetFile.getName(),
+                StringUtils.getHumanReadableFileSize(downloadedBytesSoFar),
+                StringUtils.getHumanReadableFileSize(totalBytes));
+
+            queueEntry.setResumeManifestPath(manifest.getManifestFile().getAbsolutePath());
+        } else {
+            downloadedBytesSoFar = targetFile.exists() ? targetFile.length() : 0;
+
+            if (resolvedFile.isSingleUse() && downloadedBytesSoFar > 0) {
+                downloadedBytesSoFar = 0;
+                targetFile.delete();
+            }
+
+            remainingBytes = totalBytes - downloadedBytesSoFar;
+            if (remainingBytes <= 0) {
+                if (resolvedFile.isSingleUse()) {
+                    connection.disconnect();
+                }
+
+                log.info("Download already complete.");
+                return true;
+            }
         }
 
-        BandwidthThrottle throttle = new BandwidthThrottle(
-            () -> settings().getMaxDownloadSpeedBytesPerSecond());
-        boolean attemptChunking = supportsRanges && !forceSingleChunk;
+        // Shared with every other file of this entry, and bound by the global limit.
+        BandwidthScheduler.Share bandwidth = manager.getBandwidthScheduler().getShare(queueEntry);
+
+        ChunkTransfer.StatusListener statusListener = (key, args)
+            -> queueEntry.updateStatus(DownloadStatusEnum.WAITING, l10n(key, args));
 
         while (true) {
             AtomicLong downloadedBytes = new AtomicLong(downloadedBytesSoFar);
             AtomicInteger activeChunkCount = new AtomicInteger(0);
-            AtomicBoolean abortHook = new AtomicBoolean();
+            CancelHook abortHook = getCancelHook(queueEntry);
 
             if (!attemptChunking) {
                 if (log.isDebugEnabled()) {
@@ -904,95 +1026,84 @@ public class DirectHttpDownloader extends AbstractDownloader {
                 }
 
                 activeChunkCount.incrementAndGet();
-                try {
-                    ChunkData chunkData = ChunkData.builder()
+                try (ChunkedFileSink sink = ChunkedFileSink.open(targetFile, 0, settings().isSyncChunkWrites())) {
+                    ChunkTransfer.Request chunkRequest = ChunkTransfer.Request.builder()
                         .chunkId(0)
                         .abortHook(abortHook)
                         .chunked(downloadedBytesSoFar > 0)
                         .soleChunk(true)
-                        .queueEntry(queueEntry)
+                        .statusListener(statusListener)
                         .fileUrl(fileUrl)
                         .referer(referer)
                         .extraHeaders(resolvedFile.getExtraHeaders())
-                        .filePath(targetFile)
+                        .sink(sink)
                         .startByte(downloadedBytesSoFar)
                         .endByte(totalBytes - 1)
                         .totalBytes(totalBytes)
                         .downloadedBytes(downloadedBytes)
                         .activeChunkCount(activeChunkCount)
                         .progressCallback(progressCallback)
-                        .throttle(throttle)
+                        .bandwidth(bandwidth)
                         .singleUse(resolvedFile.isSingleUse())
                         .existingConnection(resolvedFile.isSingleUse() ? connection : null)
                         .reissueSupplier(resolvedFile.isSingleUse() ? resolvedFile.getReissueSupplier() : null)
                         .build();
 
-                    return downloadChunk(chunkData);
+                    return chunkTransfer.transfer(chunkRequest);
                 } finally {
                     activeChunkCount.decrementAndGet();
                 }
             }
 
-            // No support for cold-start resume of chunked downloads yet
-            downloadedBytes.set(0);
-
-            int configuredMaxChunks = Math.clamp(settings().getMaxDownloadChunks(), 1, 20);
-            int maxDownloadChunks = (int)Math.max(1,
-                Math.min(configuredMaxChunks, totalBytes / MIN_CHUNK_SIZE_BYTES));
+            if (manifest == null) {
+                int configuredMaxChunks = Math.clamp(settings().getMaxDownloadChunks(), 1, 20);
+                int maxDownloadChunks = (int)Math.max(1,
+                    Math.min(configuredMaxChunks, totalBytes / MIN_CHUNK_SIZE_BYTES));
 
-            if (maxDownloadChunks == 1) {
-                attemptChunking = false;
-                continue;
-            }
+                if (maxDownloadChunks == 1) {
+                    attemptChunking = false;
+                    continue;
+                }
 
-            long chunkSize = totalBytes / maxDownloadChunks;
-            List<Future<?>> futures = new ArrayList<>();
+                manifest = ChunkManifest.create(targetFile, totalBytes, validator,
+                    ChunkTransfer.planRanges(totalBytes, maxDownloadChunks));
 
-            for (int i = 0; i < maxDownloadChunks; i++) {
-                int chunkId = i;
-                long startByte = i * chunkSize;
-                long endByte = (i == maxDownloadChunks - 1)
-                    ? totalBytes - 1 : (startByte + chunkSize - 1);
+                queueEntry.setResumeManifestPath(manifest.getManifestFile().getAbsolutePath());
+            }
 
-                if (log.isDebugEnabled()) {
-                    log.debug("Chunk {} start/end {}/{}", i, startByte, endByte);
-                }
+            // Only the byte ranges still missing from the manifest are requested.
+            downloadedBytes.set(manifest.getCommittedBytes());
 
-                activeChunkCount.incrementAndGet();
-                futures.add(chunkThreadPool.submit(() -> {
-                    try {
-                        ChunkData chunkData = ChunkData.builder()
-                            .chunkId(chunkId)
-                            .abortHook(abortHook)
-                            .chunked(true)
-                            .soleChunk(maxDownloadChunks == 1)
-                            .queueEntry(queueEntry)
-                            .fileUrl(fileUrl)
-                            .referer(referer)
-                            .extraHeaders(resolvedFile.getExtraHeaders())
-                            .filePath(targetFile)
-                            .startByte(startByte)
-                            .endByte(endByte)
-                            .totalBytes(totalBytes)
-                            .downloadedBytes(downloadedBytes)
-                            .activeChunkCount(activeChunkCount)
-                            .progressCallback(progressCallback)
-                            .throttle(throttle)
-                            .build();
-
-                        downloadChunk(chunkData);
-                    } catch (Exception e) {
-                        log.error("Error downloading chunk: {}", e.getMessage());
-                        throw new RuntimeException(e);
-                    } finally {
-                        activeChunkCount.decrementAndGet();
-                    }
-                }));
-            }
+            ChunkManifest activeManifest = manifest;
+            ChunkScheduler scheduler = new ChunkScheduler(manifest, MIN_CHUNK_SIZE_BYTES);
+            int workerCount = scheduler.getWorkerCount(Math.clamp(settings().getMaxDownloadChunks(), 1, 20));
 
             try {
-                for (Future<?> future : futures) {
-                    future.get();
+                // Every worker writes through the same channel, already extended to the full length.
+                try (ChunkedFileSink sink = ChunkedFileSink.open(targetFile, totalBytes, settings().isSyncChunkWrites())) {
+                    List<Future<?>> futures = chunkTransfer.submitWorkers(chunkThreadPool, scheduler, workerCount,
+                        abortHook, activeChunkCount, (chunkId, lease) -> ChunkTransfer.Request.builder()
+                        .chunkId(chunkId)
+                        .abortHook(abortHook)
+                        .chunked(true)
+                        .soleChunk(false)
+                        .statusListener(statusListener)
+                        .fileUrl(fileUrl)
+                        .referer(referer)
+                        .extraHeaders(resolvedFile.getExtraHeaders())
+                        .sink(sink)
+                        .startByte(lease.getRange().getStart())
+                        .endByte(lease.getRange().getEnd())
+                        .totalBytes(totalBytes)
+                        .downloadedBytes(downloadedBytes)
+                        .activeChunkCount(activeChunkCount)
+                        .progressCallback(progressCallback)
+                        .bandwidth(bandwidth)
+                        .manifest(activeManifest)
+                        .lease(lease)
+                        .build());
+
+                    ChunkTransfer.awaitWorkers(futures, abortHook);
                 }
 
                 if (downloadedBytes.get() != totalBytes) {
@@ -1000,15 +1111,21 @@ public class DirectHttpDownloader extends AbstractDownloader {
                         l10n("gui.direct_http.download_status.error.download_incomplete", fileUrl));
                 }
 
+                manifest.delete();
+                queueEntry.setResumeManifestPath(null);
+
                 log.info("Download complete: {}", targetFile.getAbsolutePath());
                 return true;
 
             } catch (Exception e) {
+                // Whatever made it to disk stays resumable.
+                manifest.flush();
+
                 // Server refused Ranges for some reason, catch and fallback.
                 Throwable cause = e;
                 boolean rangeRefused = false;
                 while (cause != null) {
-                    if (cause instanceof RangeRefusedException) {
+                    if (cause instanceof ChunkTransfer.RangeRefusedException) {
                         rangeRefused = true;
                         break;
                     }
@@ -1019,11 +1136,16 @@ public class DirectHttpDownloader extends AbstractDownloader {
                 if (rangeRefused) {
                     log.warn("Server ignored Range header. Falling back to single-threaded download...");
 
+                    // Keep the gapless head of the file, the sequential download picks up from there.
+                    long prefixBytes = manifest.getContiguousPrefixBytes();
+
+                    manifest.delete();
+                    manifest = null;
+                    queueEntry.setResumeManifestPath(null);
+
                     attemptChunking = false;
-                    downloadedBytesSoFar = 0;
-                    if (targetFile.exists()) {
-                        targetFile.delete();
-                    }
+                    downloadedBytesSoFar = truncateToPrefix(targetFile, prefixBytes);
+                    remainingBytes = totalBytes - downloadedBytesSoFar;
 
                     continue;
                 }
@@ -1034,268 +1156,42 @@ public class DirectHttpDownloader extends AbstractDownloader {
         }
     }
 
-    private boolean downloadChunk(ChunkData chunkData) throws IOException {
-        int attempt = 0;
-        boolean success = false;
-        int currentByteOffset = 0;
-
-        Supplier<Boolean> alive = () -> isAlive(chunkData.getQueueEntry()) && !chunkData.getAbortHook().get();
+    private static long truncateToPrefix(File targetFile, long prefixBytes) throws IOException {
+        if (prefixBytes <= 0) {
+            Files.deleteIfExists(targetFile.toPath());
 
-        int chunkRetries = Math.clamp(main.getConfig().getMaxFragmentRetries(), 1, 50);
-
-        if (chunkData.isSingleUse() && chunkData.getReissueSupplier() == null) {
-            chunkRetries = 1;
+            return 0;
         }
 
-        while (attempt < chunkRetries && !success && alive.get()) {
-            // A 429 anywhere pauses every subsequent attempt until the cooldown clears
-            long hostCooldown = getHostCooldownRemainingMillis(chunkData.getFileUrl());
-            if (hostCooldown > 0) {
-                waitCancellable(chunkData.getQueueEntry(), hostCooldown, alive,
-                    "gui.direct_http.download_status.rate_limit_cooldown");
-
-                continue;
-            }
-
-            HttpURLConnection connection = null;
-            AtomicReference<HttpURLConnection> connectionRef = new AtomicReference<>();
-            Thread cancelWatcher = null;
-
-            Semaphore hostLimiter = getHostLimiter(chunkData.getFileUrl());
-            boolean acquiredSlot = false;
-            long backoffMillis = -1;
-
-            try {
-                long slotWaitStart = System.currentTimeMillis();
-                while (!acquiredSlot && alive.get()) {
-                    try {
-                        acquiredSlot = hostLimiter.tryAcquire(200, TimeUnit.MILLISECONDS);
-                        if (!acquiredSlot && (System.currentTimeMillis() - slotWaitStart) > 1000) {
-                            if (chunkData.getActiveChunkCount().get() <= 0) {
-                                chunkData.getQueueEntry().updateStatus(DownloadStatusEnum.WAITING,
-                                    l10n("gui.direct_http.download_status.waiting_server_connection"));
-                            }
-                        }
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-
-                        throw new IOException(
-                            l10n("gui.direct_http.download_status.error.download_cancelled_waiting_slot"), ie);
-                    }
-                }
-
-                if (!acquiredSlot) {
-                    throw new IOException(
-                        l10n("gui.direct_http.download_status.error.download_cancelled_waiting_slot"));
-                }
-
-                boolean reusingConnection = attempt == 0 && chunkData.getExistingConnection() != null;
-
-                if (reusingConnection) {
-                    connection = chunkData.getExistingConnection();
-                } else {
-                    if (chunkData.isSingleUse() && attempt > 0) {
-                        Supplier<ResolvedFile> reissue = chunkData.getReissueSupplier();
-                        ResolvedFile fresh = reissue != null ? reissue.get() : null;
-
-                        if (fresh == null) {
-                            throw new IOException(
-                                l10n("gui.direct_http.download_status.error.single_use_link_exhausted"));
-                        }
-
-                        log.info("Reissued a fresh single-use link for chunk {}", chunkData.getChunkId());
-
-                        chunkData.setFileUrl(new URI(fresh.getUrl()).toURL());
-                        chunkData.setReferer(fresh.getReferer());
-                        chunkData.setExtraHeaders(fresh.getExtraHeaders());
-                        chunkData.setReissueSupplier(fresh.getReissueSupplier());
-
-                        // Reissued links start a brand-new one-shot transfer
-                        currentByteOffset = 0;
-                        chunkData.getDownloadedBytes().set(chunkData.getStartByte());
-                    }
-
-                    connection = (HttpURLConnection)chunkData.getFileUrl().openConnection(getProxySettings());
-                    connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
-                    connection.setReadTimeout(READ_TIMEOUT_MILLIS);
-                    connection.setRequestMethod("GET");
-                    applyBrowserHeaders(connection, ACCEPT_ANY, chunkData.getReferer());
-                    chunkData.getExtraHeaders().forEach(connection::setRequestProperty);
-                }
-
-                connectionRef.set(connection);
-
-                cancelWatcher = Thread.ofVirtual().start(() -> {
-                    while (!Thread.currentThread().isInterrupted()) {
-                        if (!alive.get()) {
-                            HttpURLConnection toKill = connectionRef.get();
-                            if (toKill != null) {
-                                toKill.disconnect();
-                            }
-
-                            return;
-                        }
-
-                        try {
-                            Thread.sleep(150);
-                        } catch (InterruptedException e) {
-                            return;
-                        }
-                    }
-                });
-
-                long startOffset = chunkData.getStartByte() + currentByteOffset;
-
-                if (chunkData.isChunked() && !reusingConnection && !chunkData.isSingleUse()) {
-                    connection.setRequestProperty("Range", "bytes=" + startOffset + "-" + chunkData.getEndByte());
-                }
-
-                int responseCode = connection.getResponseCode();
-
-                switch (responseCode) {
-                    case HTTP_PARTIAL, HTTP_OK -> {
-                        try (
-                            InputStream inputStream = connection.getInputStream();
-                            RandomAccessFile outputFile = new RandomAccessFile(chunkData.getFilePath(), "rw")) {
-                            if (responseCode == HTTP_PARTIAL) {
-                                log.debug("Partial download accepted, resuming from {} <- offset {}", chunkData.getStartByte(), startOffset);
-                                outputFile.seek(startOffset); // Move to the start of this chunk
-                            } else if (chunkData.isChunked()) {
-                                if (!chunkData.isSoleChunk()) {
-                                    chunkData.getAbortHook().set(true);
-
-                                    throw new RangeRefusedException("Server returned 200 OK instead of 206 Partial Content");
-                                }
-
-                                log.debug("Partial download refused, resetting progress");
-                                chunkData.getDownloadedBytes().set(0);
-                            }
-
-                            long startTime = System.nanoTime();
-                            long totalDownloadedAtStart = chunkData.getDownloadedBytes().get();
-                            long lastCallbackTime = System.nanoTime();
-
-                            byte[] buffer = new byte[BUFFER_SIZE];
-                            int bytesRead;
-
-                            while ((bytesRead = inputStream.read(buffer)) != -1 && alive.get()) {
-                                if (chunkData.getThrottle() != null) {
-                                    chunkData.getThrottle().acquire(bytesRead, alive);
-
-                                    if (!alive.get()) {
-                                        break;
-                                    }
-                                }
-
-                                outputFile.write(buffer, 0, bytesRead);
-                                currentByteOffset += bytesRead;
-
-                                long totalDownloaded = chunkData.getDownloadedBytes().addAndGet(bytesRead);
-
-                                long currentTime = System.nanoTime();
-                                if ((currentTime - lastCallbackTime) >= 1e9) {
-                                    if (chunkData.getProgressCallback() == null) {
-                                        continue;
-                                    }
-
-                                    double progress = ((double)totalDownloaded * 100) / chunkData.getTotalBytes();
-
-                                    // Speed
-                                    long elapsedTimeNano = currentTime - startTime;
-                                    double elapsedTimeSeconds = elapsedTimeNano / 1e9;
-                                    long speed = (elapsedTimeSeconds > 0)
-                                        ? (long)((totalDownloaded - totalDownloadedAtStart) / elapsedTimeSeconds) : 0;
-
-                                    // ETA
-                                    long remainingBytes = chunkData.getTotalBytes() - totalDownloaded;
-                                    double remainingTimeSeconds = (speed > 0) ? (double)remainingBytes / speed : 0;
-                                    long remainingTimeMillis = (long)(remainingTimeSeconds * 1000);
-
-                                    chunkData.getProgressCallback().accept(
-                                        progress,
-                                        chunkData.getTotalBytes(),
-                                        speed,
-                                        remainingTimeMillis,
-                                        chunkData.getActiveChunkCount().get()
-                                    );
-
-                                    lastCallbackTime = currentTime;
-                                }
-                            }
-                        }
-
-                        log.debug("Chunk {} has quit", chunkData.getChunkId());
-                        success = alive.get();
-                    }
-                    case 429 ->
-                        throw new RateLimitedException(parseRetryAfterMillis(connection));
-                    default ->
-                        throw new IOException(
-                            l10n("gui.direct_http.download_status.error.server_http_error", responseCode));
-                }
-            } catch (Exception e) {
-                attempt++;
-
-                if (log.isDebugEnabled()) {
-                    log.error("Error on attempt {}: {}", attempt, e.getMessage());
-                }
-
-                if (!alive.get()) {
-                    throw new IOException(
-                        l10n("gui.direct_http.download_status.error.download_cancelled"), e);
-                }
-
-                if (attempt == chunkRetries) {
-                    chunkData.getAbortHook().set(true);
-
-                    throw new IOException(
-                        l10n("gui.direct_http.download_status.error.chunk_failed_retries",
-                            chunkRetries, e.getMessage()), e);
-                }
-
-                if (e instanceof RateLimitedException rle) {
-                    backoffMillis = rle.retryAfterMillis > 0
-                        ? addJitter(rle.retryAfterMillis)
-                        : computeBackoffMillis(attempt);
-
-                    markHostRateLimited(chunkData.getFileUrl(), backoffMillis);
-                } else {
-                    backoffMillis = computeBackoffMillis(attempt);
-                }
-            } finally {
-                if (cancelWatcher != null) {
-                    cancelWatcher.interrupt();
-                }
+        try (FileChannel channel = FileChannel.open(targetFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(prefixBytes);
+        }
 
-                if (acquiredSlot) {
-                    hostLimiter.release();
-                }
+        log.info("Kept {} of already downloaded data", StringUtils.getHumanReadableFileSize(prefixBytes));
+        return prefixBytes;
+    }
 
-                if (connection != null) {
-                    connection.disconnect();
-                }
-            }
+    @Nullable
+    private static String getResourceValidator(HttpURLConnection connection) {
+        String etag = connection.getHeaderField("ETag");
+        if (etag != null && !etag.isBlank()) {
+            return etag.trim();
+        }
 
-            if (backoffMillis >= 0) {
-                waitCancellable(chunkData.getQueueEntry(), backoffMillis, alive,
-                    "gui.direct_http.download_status.retrying_in");
-            }
+        String lastModified = connection.getHeaderField("Last-Modified");
+        if (lastModified != null && !lastModified.isBlank()) {
+            return lastModified.trim();
         }
 
-        return success;
+        return null;
     }
 
     private Proxy getProxySettings() {
         return main.getConfig().getProxySettings().createProxy();
     }
 
-    private Semaphore getHostLimiter(URL url) {
-        String host = url.getHost() != null
-            ? url.getHost().toLowerCase(Locale.ROOT)
-            : "unknown";
-
-        return hostConnectionLimiters.computeIfAbsent(host,
-            h -> new Semaphore(Math.max(1, settings().getMaxConnectionsPerHost())));
+    private IDownloadTransport getTransport() {
+        return getProxySettings().type() == Proxy.Type.SOCKS ? socksTransport : transport;
     }
 
     @Nullable
@@ -1341,85 +1237,30 @@ public class DirectHttpDownloader extends AbstractDownloader {
         chunkThreadPool.shutdownNow();
     }
 
-    private long parseRetryAfterMillis(HttpURLConnection connection) {
-        String header = connection.getHeaderField("Retry-After");
-        if (header == null || header.isBlank()) {
-            return -1;
-        }
-
-        try {
-            long seconds = Long.parseLong(header.trim());
-
-            return Math.max(0, Math.min(seconds * 1000, MAX_RETRY_AFTER_MILLIS));
-        } catch (NumberFormatException e) {
-            try {
-                ZonedDateTime retryDate = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
-                long millis = Duration.between(ZonedDateTime.now(retryDate.getZone()), retryDate).toMillis();
-
-                return Math.max(0, Math.min(millis, MAX_RETRY_AFTER_MILLIS));
-            } catch (Exception ex) {
-                return -1;
-            }
-        }
-    }
-
-    private void markHostRateLimited(URL url, long cooldownMillis) {
-        String host = normalizeHost(url);
-        long until = System.currentTimeMillis() + cooldownMillis;
-
-        hostRateLimitedUntil.computeIfAbsent(host, h -> new AtomicLong(0))
-            .updateAndGet(current -> Math.max(current, until));
-    }
-
-    private long getHostCooldownRemainingMillis(URL url) {
-        AtomicLong ref = hostRateLimitedUntil.get(normalizeHost(url));
-
-        return ref == null ? 0 : Math.max(0, ref.get() - System.currentTimeMillis());
-    }
-
     private static String normalizeHost(URL url) {
         return url.getHost() != null
             ? url.getHost().toLowerCase(Locale.ROOT)
             : "unknown";
     }
 
-    private static void waitCancellable(QueueEntry entry, long millis, Supplier<Boolean> alive, String reasonKey) {
+    private static void waitCancellable(QueueEntry entry, long millis, CancelHook cancelHook, String reasonKey) {
         long deadline = System.currentTimeMillis() + millis;
-        long lastStatusUpdate = 0;
-
-        while (System.currentTimeMillis() < deadline && alive.get()) {
-            long now = System.currentTimeMillis();
-            if (now - lastStatusUpdate > 500) {
-                double remainingSecs = Math.max(0, deadline - now) / 1000.0;
-                String formattedTime = String.format("%.1fs", remainingSecs);
 
+        try {
+            long remainingMillis;
+            while ((remainingMillis = deadline - System.currentTimeMillis()) > 0) {
+                String formattedTime = String.format("%.1fs", remainingMillis / 1000.0);
                 entry.updateStatus(DownloadStatusEnum.WAITING, l10n(reasonKey, formattedTime));
-                lastStatusUpdate = now;
-            }
 
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-
-                return;
+                if (cancelHook.await(Math.min(remainingMillis, 500), TimeUnit.MILLISECONDS)) {
+                    return;
+                }
             }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    private static long computeBackoffMillis(int attempt) {
-        long exp = BASE_BACKOFF_MILLIS * (1L << Math.min(attempt, 16)); // avoids overflow
-        long capped = Math.min(exp, MAX_BACKOFF_MILLIS);
-
-        return ThreadLocalRandom.current().nextLong(capped + 1);
-    }
-
-    private static long addJitter(long baseMillis) {
-        long jitterWindow = Math.max(250, baseMillis / 4);
-
-        return baseMillis + ThreadLocalRandom.current().nextLong(jitterWindow);
-    }
-
     private static void closeQuietly(@Nullable HttpURLConnection connection) {
         if (connection == null) {
             return;
@@ -1445,13 +1286,6 @@ public class DirectHttpDownloader extends AbstractDownloader {
         }
     }
 
-    @FunctionalInterface
-    private interface ProgressUpdater {
-
-        void accept(double progress, long size, long speed, long remainingTime, int chunkCount);
-
-    }
-
     private static class DownloadCarousel {
 
         private final Set<Integer> active = ConcurrentHashMap.newKeySet();
@@ -1507,13 +1341,20 @@ public class DirectHttpDownloader extends AbstractDownloader {
 
     private static final class MultiFileProgressAggregator {
 
-        private final int totalFiles;
+        private volatile int totalFiles;
         private final ConcurrentHashMap<Integer, FileProgress> files = new ConcurrentHashMap<>();
 
         private MultiFileProgressAggregator(int totalFilesIn) {
             totalFiles = Math.max(1, totalFilesIn);
         }
 
+        /**
+         * Grows the file count while files are still being discovered.
+         */
+        public void setTotalFiles(int totalFilesIn) {
+            totalFiles = Math.max(1, totalFilesIn);
+        }
+
         public void update(int index, double percent, long totalBytes, long speed) {
             FileProgress progress = files.computeIfAbsent(index, i -> new FileProgress());
 
@@ -1585,122 +1426,6 @@ public class DirectHttpDownloader extends AbstractDownloader {
         }
     }
 
-    @Data
-    @Builder
-    private static class ChunkData {
-
-        private int chunkId;
-        private AtomicBoolean abortHook;
-        private boolean chunked;
-        private boolean soleChunk;
-        private QueueEntry queueEntry;
-        private URL fileUrl;
-        private String referer;
-        @Builder.Default
-        private Map<String, String> extraHeaders = Collections.emptyMap();
-        private File filePath;
-        private long startByte;
-        private long endByte;
-        private long totalBytes;
-        private AtomicLong downloadedBytes;
-        private AtomicInteger activeChunkCount;
-        private ProgressUpdater progressCallback;
-        private BandwidthThrottle throttle;
-        private boolean singleUse;
-        private HttpURLConnection existingConnection;
-        private Supplier<ResolvedFile> reissueSupplier;
-    }
-
-    private static final class BandwidthThrottle {
-
-        private final Object lock = new Object();
-        private final Supplier<Long> bytesPerSecond;
-        private long availableTokens;
-        private long lastRefillNanos;
-
-        private BandwidthThrottle(Supplier<Long> bytesPerSecondIn) {
-            bytesPerSecond = bytesPerSecondIn;
-            availableTokens = Math.max(0, bytesPerSecond.get());
-            lastRefillNanos = System.nanoTime();
-        }
-
-        private void acquire(int bytes, Supplier<Boolean> aliveCheck) {
-            synchronized (lock) {
-                if (bytesPerSecond.get() <= 0) {
-                    return;
-                }
-
-                refillLocked();
-
-                while (availableTokens < bytes) {
-                    if (aliveCheck != null && !aliveCheck.get()) {
-                        return;
-                    }
-
-                    long currentLimit = bytesPerSecond.get();
-                    if (currentLimit <= 0) {
-                        return;
-                    }
-
-                    long deficit = bytes - availableTokens;
-                    long waitMillis = Math.max(1, (long)(deficit / (double)currentLimit * 1000));
-                    waitMillis = Math.min(waitMillis, 200L);
-
-                    try {
-                        lock.wait(waitMillis);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        return;
-                    }
-
-                    refillLocked();
-                }
-
-                availableTokens -= bytes;
-            }
-        }
-
-        // Caller must hold the lock.
-        private void refillLocked() {
-            long currentLimit = bytesPerSecond.get();
-            if (currentLimit <= 0) {
-                return;
-            }
-
-            long now = System.nanoTime();
-            long elapsedNanos = now - lastRefillNanos;
-
-            if (elapsedNanos > 0) {
-                long refill = (long)(elapsedNanos / 1e9 * currentLimit);
-                if (refill > 0) {
-                    if (availableTokens < currentLimit) {
-                        availableTokens = Math.min(currentLimit, availableTokens + refill);
-                    }
-
-                    lastRefillNanos = now;
-                }
-            }
-        }
-    }
-
-    private static final class RateLimitedException extends IOException {
-
-        private final long retryAfterMillis;
-
-        private RateLimitedException(long retryAfterMillisIn) {
-            super("Failed to connect with HTTP code: 429");
-
-            retryAfterMillis = retryAfterMillisIn;
-        }
-    }
-
-    private static final class RangeRefusedException extends IOException {
-
-        private RangeRefusedException(String message) {
-            super(message);
-        }
-    }
-
     private static final class UnsupportedURLException extends IOException {
 
         private UnsupportedURLException(String message) {
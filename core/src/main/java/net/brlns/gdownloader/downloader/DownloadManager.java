@@ -23,6 +23,7 @@ import java.io.File;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -37,11 +38,13 @@ import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.GDownloader;
 import net.brlns.gdownloader.downloader.enums.*;
 import net.brlns.gdownloader.downloader.extractors.MetadataManager;
+import net.brlns.gdownloader.downloader.structs.DownloadProgress;
 import net.brlns.gdownloader.downloader.structs.DownloadResult;
 import net.brlns.gdownloader.downloader.structs.FormatInfo;
 import net.brlns.gdownloader.downloader.structs.MediaInfo;
 import net.brlns.gdownloader.event.EventDispatcher;
 import net.brlns.gdownloader.event.IEvent;
+import net.brlns.gdownloader.event.impl.SettingsChangeEvent;
 import net.brlns.gdownloader.filters.AbstractUrlFilter;
 import net.brlns.gdownloader.filters.GenericFilter;
 import net.brlns.gdownloader.filters.YoutubeFilter;
@@ -49,7 +52,8 @@ import net.brlns.gdownloader.filters.YoutubePlaylistFilter;
 import net.brlns.gdownloader.persistence.PersistenceManager;
 import net.brlns.gdownloader.persistence.entity.CounterTypeEnum;
 import net.brlns.gdownloader.persistence.entity.DownloadHistoryEntity;
-import net.brlns.gdownloader.persistence.entity.QueueEntryEntity;
+import net.brlns.gdownloader.persistence.entity.QueueEntrySummary;
+import net.brlns.gdownloader.persistence.repository.QueueEntryRepository;
 import net.brlns.gdownloader.process.ProcessMonitor;
 import net.brlns.gdownloader.settings.enums.PlayListOptionEnum;
 import net.brlns.gdownloader.system.ShutdownRegistry.CloseBefore;
@@ -86,6 +90,10 @@ public class DownloadManager implements IEvent, AutoCloseable {
     // Circuit-breaker for rogue hosts
     private static final int MAX_SCHEDULED_RETRY_ATTEMPTS = 500;
 
+    private static final int MAX_METADATA_BATCH_SIZE = 16;
+
+    private static final int RESTORE_PAGE_SIZE = 200;
+
     private final AtomicLong downloadIdGenerator = new AtomicLong();
 
     @Getter
@@ -114,6 +122,12 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
     private final AtomicBoolean downloadsBlocked = new AtomicBoolean(true);
     private final AtomicBoolean downloadsRunning = new AtomicBoolean(false);
+
+    /**
+     * Cancelled while downloads are stopped, derive from it instead of polling {@link #isRunning()}.
+     */
+    @Getter
+    private final CancelHook stopHook = new CancelHook().set(true);
     private final AtomicBoolean downloadsManuallyStarted = new AtomicBoolean(false);
 
     private final AtomicReference<DownloaderIdEnum> suggestedDownloaderId = new AtomicReference<>(null);
@@ -126,6 +140,16 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
     private final DownloadIntervalometer intervalometer = new DownloadIntervalometer(30, 60);
 
+    private final QueueDispatcher queueDispatcher = new QueueDispatcher(this::processQueue);
+
+    // Only touched from the dispatcher thread.
+    private long nextScheduledStatusRefreshMillis;
+
+    private volatile long aggregateBytesPerSecond;
+
+    @Getter
+    private final BandwidthScheduler bandwidthScheduler;
+
     private final LRUCache<String, Long> recentlyDeletedUrls = new LRUCache<>(1000);
 
     @SuppressWarnings("this-escape")
@@ -134,6 +158,11 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
         persistence = main.getPersistenceManager();
         metadataManager = new MetadataManager();
+        bandwidthScheduler = new BandwidthScheduler(
+            () -> main.getConfig().getGlobalMaxDownloadSpeedBytesPerSecond());
+
+        // Slot limits may have changed.
+        EventDispatcher.register(SettingsChangeEvent.class, event -> queueDispatcher.signal());
 
         registerDownloader(new YtDlpDownloader(this));
         registerDownloader(new GalleryDlDownloader(this));
@@ -167,80 +196,95 @@ public class DownloadManager implements IEvent, AutoCloseable {
             log.info("Current download id: {}", nextId);
 
             GDownloader.GLOBAL_THREAD_POOL.execute(() -> {
-                linkCaptureLock.lock();// Intentionally block url capture during the entire restoring proccess
                 try {
-                    int count = 0;
+                    restoreSession();
+                } finally {
+                    boolean dbInitialized = main.getConfig().isPersistenceDatabaseInitialized();
+                    if (!dbInitialized) {
+                        main.getConfig().setPersistenceDatabaseInitialized(true);
+                        main.updateConfig();
+                    }
 
-                    // We need an ugly comparator here because of null sequence numbers.
-                    // This way, we still preserve the original insertion order until a checkpoint updates the sequence.
-                    List<QueueEntryEntity> entities = persistence.getQueueEntries().getAll();
+                    initialized.set(true);
+                    fireListeners();
+                }
+            });
+        }
+    }
 
-                    Map<QueueEntryEntity, Integer> originalIndex = new IdentityHashMap<>();
-                    for (int i = 0; i < entities.size(); i++) {
-                        originalIndex.put(entities.get(i), i);
-                    }
+    /**
+     * Restores the previous session page by page, in queue order.
+     *
+     * Url capture is only blocked until every persisted link is known. Restored entries
+     * load their collections and media info on first access.
+     */
+    private void restoreSession() {
+        QueueEntryRepository repository = persistence.getQueueEntries();
 
-                    entities.sort((e1, e2) -> {
-                        Long seq1 = e1.getCurrentDownloadSequence();
-                        Long seq2 = e2.getCurrentDownloadSequence();
+        long lastRestoredId;
 
-                        if (seq1 == null && seq2 == null) {
-                            return Integer.compare(originalIndex.get(e1), originalIndex.get(e2));
-                        } else if (seq1 == null) {
-                            return 1;
-                        } else if (seq2 == null) {
-                            return -1;
-                        } else {
-                            return seq1.compareTo(seq2);
-                        }
-                    });
+        linkCaptureLock.lock();
+        try {
+            capturedLinks.addAll(repository.getAllUrls());
 
-                    for (QueueEntryEntity entity : entities) {
-                        String downloadUrl = entity.getUrl();
+            // Links captured from here on must still land after the restored entries
+            repository.getHighestSequence().ifPresent(sequencer::reserveSequence);
 
-                        capturedLinks.add(downloadUrl);
-                        capturedLinks.add(entity.getOriginalUrl());
+            // They are checkpointed while we page, but are already live in the queue
+            lastRestoredId = repository.getHighestDownloadId().orElse(Long.MIN_VALUE);
+        } finally {
+            linkCaptureLock.unlock();
 
-                        List<AbstractDownloader> compatibleDownloaders = getCompatibleDownloaders(downloadUrl);
+            main.getClipboardManager().unblock();
+        }
 
-                        if (compatibleDownloaders.isEmpty()) {
-                            log.error("No compatible downloaders found for: {}", downloadUrl);
-                            continue;
-                        }
+        int count = 0;
 
-                        MediaCard mediaCard = main.getGuiManager()
-                            .getMediaCardManager().addMediaCard(downloadUrl);
+        QueueEntrySummary last = null;
+        List<QueueEntrySummary> page;
+        while (!(page = repository.getSummaryPageAfter(last, RESTORE_PAGE_SIZE)).isEmpty()) {
+            last = page.get(page.size() - 1);
 
-                        QueueEntry queueEntry = QueueEntry.fromEntity(entity, mediaCard, compatibleDownloaders);
+            for (QueueEntrySummary summary : page) {
+                if (summary.getDownloadId() > lastRestoredId) {
+                    continue;
+                }
 
-                        if (queueEntry.getCurrentQueueCategory() == QueueCategoryEnum.RUNNING) {
-                            queueEntry.updateStatusQuiet(DownloadStatusEnum.STOPPED, l10n("gui.download_status.not_started"));
-                        }
+                String downloadUrl = summary.getUrl();
 
-                        initializeAndEnqueueEntry(queueEntry);
-                        count++;
-                    }
+                List<AbstractDownloader> compatibleDownloaders = getCompatibleDownloaders(downloadUrl);
 
-                    if (count > 0) {
-                        log.info("Successfully restored {} downloads", count);
-                    } else {
-                        log.info("No downloads to restore");
-                    }
-                } finally {
-                    linkCaptureLock.unlock();
+                if (compatibleDownloaders.isEmpty()) {
+                    log.error("No compatible downloaders found for: {}", downloadUrl);
+                    continue;
+                }
 
-                    main.getClipboardManager().unblock();
+                MediaCard mediaCard = main.getGuiManager()
+                    .getMediaCardManager().addMediaCard(downloadUrl);
 
-                    boolean dbInitialized = main.getConfig().isPersistenceDatabaseInitialized();
-                    if (!dbInitialized) {
-                        main.getConfig().setPersistenceDatabaseInitialized(true);
-                        main.updateConfig();
-                    }
+                QueueEntry queueEntry = QueueEntry.fromSummary(summary, mediaCard, compatibleDownloaders);
 
-                    initialized.set(true);
-                    fireListeners();
+                if (queueEntry.getCurrentQueueCategory() == QueueCategoryEnum.RUNNING) {
+                    queueEntry.updateStatusQuiet(DownloadStatusEnum.STOPPED, l10n("gui.download_status.not_started"));
                 }
-            });
+
+                registerEntry(queueEntry, true);
+
+                if (queueEntry.getCurrentQueueCategory() == QueueCategoryEnum.SCHEDULED) {
+                    // Resume times are not persisted, so the retry is due right away
+                    queueDispatcher.schedule(queueEntry, queueEntry.getScheduledResumeAtMillis().get());
+                }
+
+                count++;
+            }
+
+            onEntriesAdded();
+        }
+
+        if (count > 0) {
+            log.info("Successfully restored {} downloads", count);
+        } else {
+            log.info("No downloads to restore");
         }
     }
 
@@ -525,7 +569,7 @@ public class DownloadManager implements IEvent, AutoCloseable {
                 long downloadId = downloadIdGenerator.incrementAndGet();
 
                 if (persistence.isInitialized()) {
-                    persistence.getCounters().setCurrentValue(CounterTypeEnum.DOWNLOAD_ID, downloadId);
+                    persistence.getWriteBehind().setCounter(CounterTypeEnum.DOWNLOAD_ID, downloadId);
                 }
 
                 QueueEntry queueEntry = new QueueEntry(
@@ -556,6 +600,17 @@ public class DownloadManager implements IEvent, AutoCloseable {
     }
 
     private void initializeAndEnqueueEntry(QueueEntry queueEntry) {
+        registerEntry(queueEntry, false);
+
+        onEntriesAdded();
+    }
+
+    /**
+     * Wires up the media card and hands the entry to the sequencer.
+     *
+     * Restored entries leave their right click menu to be built when it is first opened.
+     */
+    private void registerEntry(QueueEntry queueEntry, boolean restored) {
         queueEntry.getMediaCard().setOnClose((reason) -> {
             queueEntry.close(reason);
 
@@ -653,11 +708,16 @@ public class DownloadManager implements IEvent, AutoCloseable {
         queryMetadata(queueEntry);
 
         sequencer.addNewEntry(queueEntry);
-        fireListeners();
 
         setSkipDownload(queueEntry, queueEntry.isSkipped());
 
-        updateRightClick(queueEntry, queueEntry.getCurrentQueueCategory());
+        if (!restored) {
+            updateRightClick(queueEntry, queueEntry.getCurrentQueueCategory());
+        }
+    }
+
+    private void onEntriesAdded() {
+        fireListeners();
 
         if (main.getConfig().isAutoDownloadStart() && !downloadsRunning.get()) {
             startDownloads(suggestedDownloaderId.get());
@@ -675,13 +735,13 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
     private void saveCheckpoint(QueueEntry queueEntry) {
         if (persistence.isInitialized()) {
-            persistence.getQueueEntries().upsert(queueEntry.toEntity());
+            persistence.getWriteBehind().upsert(queueEntry.getDownloadId(), queueEntry);
         }
     }
 
     private void deleteCheckpoint(QueueEntry queueEntry) {
         if (persistence.isInitialized()) {
-            persistence.getQueueEntries().remove(queueEntry.getDownloadId());
+            persistence.getWriteBehind().remove(queueEntry.getDownloadId());
         }
     }
 
@@ -771,6 +831,11 @@ public class DownloadManager implements IEvent, AutoCloseable {
         return downloadsRunning.get();
     }
 
+    private void setDownloadsRunning(boolean running) {
+        downloadsRunning.set(running);
+        stopHook.set(!running);
+    }
+
     public void toggleDownloads() {
         if (!isRunning()) {
             startDownloads();
@@ -785,16 +850,17 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
     public void startDownloads(@Nullable DownloaderIdEnum downloaderId) {
         if (!downloadsBlocked.get()) {
-            downloadsRunning.set(true);
+            setDownloadsRunning(true);
             downloadsManuallyStarted.set(true);
             suggestedDownloaderId.set(downloaderId);
 
             fireListeners();
+            queueDispatcher.signal();
         }
     }
 
     public void stopDownloads() {
-        downloadsRunning.set(false);
+        setDownloadsRunning(false);
         downloadsManuallyStarted.set(false);
         suggestedDownloaderId.set(null);
 
@@ -820,6 +886,29 @@ public class DownloadManager implements IEvent, AutoCloseable {
         return sequencer.getCount(RUNNING);
     }
 
+    /**
+     * Combined speed of the running entries that report structured progress, as of the last refresh.
+     */
+    public long getAggregateBytesPerSecond() {
+        return aggregateBytesPerSecond;
+    }
+
+    public void processThroughput() {
+        long total = 0;
+        for (QueueEntry entry : sequencer.getEntries(RUNNING)) {
+            DownloadProgress progress = entry.getTransferProgress().get();
+            if (progress != null && !progress.isFinished()) {
+                total += progress.getBytesPerSecond();
+            }
+        }
+
+        if (total != aggregateBytesPerSecond) {
+            aggregateBytesPerSecond = total;
+
+            fireListeners();
+        }
+    }
+
     public int getScheduledDownloads() {
         return sequencer.getCount(SCHEDULED);
     }
@@ -899,7 +988,14 @@ public class DownloadManager implements IEvent, AutoCloseable {
         }
     }
 
-    public void processQueue() {
+    /**
+     * Starts the signal driven queue processor, see {@link QueueDispatcher}.
+     */
+    public void startQueueDispatcher() {
+        queueDispatcher.start();
+    }
+
+    private void processQueue() {
         processScheduledRetries();
 
         int maxDownloads = main.getConfig().getMaxSimultaneousDownloads();
@@ -918,13 +1014,12 @@ public class DownloadManager implements IEvent, AutoCloseable {
             submitDownloadTask(entry, false);
         }
 
-        if (!metadataQueryQueue.isEmpty()) {
-            if (currentlyQueryingCount.get() < main.getConfig().getMaxSimultaneousQueryMetadataTasks()) {
-                QueueEntry entry = metadataQueryQueue.poll();
-
-                if (!entry.getCancelHook().get()) {
-                    submitQueryMetadataTask(entry);
-                }
+        // Nothing polls anymore, so fill every free slot while we are here.
+        int maxQueryTasks = main.getConfig().getMaxSimultaneousQueryMetadataTasks();
+        while (!metadataQueryQueue.isEmpty() && currentlyQueryingCount.get() < maxQueryTasks) {
+            List<QueueEntry> batch = pollMetadataBatch(maxQueryTasks - currentlyQueryingCount.get());
+            if (!batch.isEmpty()) {
+                submitQueryMetadataTask(batch);
             }
         }
 
@@ -948,16 +1043,36 @@ public class DownloadManager implements IEvent, AutoCloseable {
     }
 
     private void processScheduledRetries() {
+        for (QueueEntry entry : queueDispatcher.drainDue()) {
+            if (entry.getCurrentQueueCategory() != SCHEDULED) {
+                continue;
+            }
+
+            entry.clearSchedule();
+            entry.updateStatus(DownloadStatusEnum.QUEUED,
+                l10n("gui.download_status.not_started"));
+
+            offerTo(QUEUED, entry);
+        }
+
         if (sequencer.isEmpty(SCHEDULED)) {
             return;
         }
 
         long now = System.currentTimeMillis();
 
+        // Countdowns only need a refresh once a second, not on every pass.
+        if (now < nextScheduledStatusRefreshMillis) {
+            return;
+        }
+
+        nextScheduledStatusRefreshMillis = now + 1000;
+        queueDispatcher.requestTickAt(nextScheduledStatusRefreshMillis);
+
         for (QueueEntry entry : sequencer.getEntries(SCHEDULED)) {
             long resumeAt = entry.getScheduledResumeAtMillis().get();
-
-            if (resumeAt <= 0 || now >= resumeAt) {
+            if (resumeAt <= 0) {
+                // Not waiting in the delay queue, nothing else would ever resume it.
                 entry.clearSchedule();
                 entry.updateStatus(DownloadStatusEnum.QUEUED,
                     l10n("gui.download_status.not_started"));
@@ -966,6 +1081,11 @@ public class DownloadManager implements IEvent, AutoCloseable {
                 continue;
             }
 
+            if (now >= resumeAt) {
+                // Due, the delay queue hands it back on the next pass.
+                continue;
+            }
+
             long remainingMillis = resumeAt - now;
             long remainingSeconds = remainingMillis / 1000L;
 
@@ -1039,6 +1159,7 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
     protected void updatePriority(QueueEntry entry, DownloadPriorityEnum priority) {
         sequencer.updatePriority(entry, priority);
+        bandwidthScheduler.rebalance();
     }
 
     public List<Integer> getSortedMediaCardIds() {
@@ -1099,6 +1220,10 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
         sequencer.changeCategory(entry, category);
 
+        if (category == SCHEDULED) {
+            queueDispatcher.schedule(entry, entry.getScheduledResumeAtMillis().get());
+        }
+
         updateRightClick(entry, category);
 
         if (checkpoint) {
@@ -1106,6 +1231,8 @@ public class DownloadManager implements IEvent, AutoCloseable {
         }
 
         fireListeners();
+
+        queueDispatcher.signal();
     }
 
     protected void setSkipDownload(QueueEntry queueEntry, boolean shouldSkip) {
@@ -1164,9 +1291,75 @@ public class DownloadManager implements IEvent, AutoCloseable {
         }
 
         metadataQueryQueue.offer(queueEntry);
+        queueDispatcher.signal();
     }
 
-    private void submitQueryMetadataTask(QueueEntry queueEntry) {
+    /**
+     * Takes the next entries to query, grouping consecutive entries whose first downloader can query them in one go.
+     *
+     * Batches are sized so the queued entries spread evenly over the free query slots.
+     */
+    private List<QueueEntry> pollMetadataBatch(int freeSlots) {
+        List<QueueEntry> batch = new ArrayList<>();
+
+        QueueEntry first = pollUncancelled();
+        if (first == null) {
+            return batch;
+        }
+
+        batch.add(first);
+
+        AbstractDownloader batchDownloader = getBatchMetadataDownloader(first);
+        if (batchDownloader == null) {
+            return batch;
+        }
+
+        int batchSize = Math.clamp(
+            (metadataQueryQueue.size() + 1 + freeSlots - 1) / Math.max(1, freeSlots), 1, MAX_METADATA_BATCH_SIZE);
+
+        // The dispatcher is the only consumer, so peeking before polling is safe.
+        QueueEntry next;
+        while (batch.size() < batchSize && (next = metadataQueryQueue.peek()) != null) {
+            if (next.getCancelHook().get()) {
+                metadataQueryQueue.poll();
+                continue;
+            }
+
+            if (getBatchMetadataDownloader(next) != batchDownloader) {
+                break;
+            }
+
+            batch.add(metadataQueryQueue.poll());
+        }
+
+        return batch;
+    }
+
+    @Nullable
+    private QueueEntry pollUncancelled() {
+        QueueEntry entry;
+        while ((entry = metadataQueryQueue.poll()) != null) {
+            if (!entry.getCancelHook().get()) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static AbstractDownloader getBatchMetadataDownloader(QueueEntry queueEntry) {
+        List<AbstractDownloader> entryDownloaders = queueEntry.getDownloaders();
+        if (entryDownloaders.isEmpty()) {
+            return null;
+        }
+
+        AbstractDownloader downloader = entryDownloaders.get(0);
+
+        return downloader.supportsBatchMetadataQuery() ? downloader : null;
+    }
+
+    private void submitQueryMetadataTask(List<QueueEntry> batch) {
         if (!main.getConfig().isQueryMetadata()) {
             return;
         }
@@ -1175,35 +1368,59 @@ public class DownloadManager implements IEvent, AutoCloseable {
 
         GDownloader.GLOBAL_THREAD_POOL.execute(() -> {
             try {
-                if (queueEntry.getCancelHook().get()) {
-                    return;
+                // Single entries and non-batching downloaders go through the first downloader like any other.
+                AbstractDownloader batchDownloader = batch.size() > 1
+                    ? getBatchMetadataDownloader(batch.get(0)) : null;
+
+                Set<Long> queriedIds = ConcurrentHashMap.newKeySet();
+                if (batchDownloader != null) {
+                    batchDownloader.tryQueryMetadataBatch(batch, entry -> {
+                        queriedIds.add(entry.getDownloadId());
+                        finishMetadataQuery(entry);
+                    });
                 }
 
-                boolean handledByDownloader = false;
-                for (AbstractDownloader downloader : queueEntry.getDownloaders()) {
-                    if (downloader.tryQueryMetadata(queueEntry)) {
-                        log.debug("Metadata provided by downloader: {}", downloader.getDownloaderId());
-                        handledByDownloader = true;
-                        break;
+                for (QueueEntry queueEntry : batch) {
+                    if (queriedIds.contains(queueEntry.getDownloadId())
+                        || queueEntry.getCancelHook().get()) {
+                        continue;
                     }
-                }
 
-                if (!handledByDownloader) {
-                    tryQueryMetadata(queueEntry);
-                }
+                    boolean handledByDownloader = false;
+                    for (AbstractDownloader downloader : queueEntry.getDownloaders()) {
+                        if (downloader == batchDownloader) {
+                            continue;// Already had its go.
+                        }
 
-                queueEntry.markQueried();
+                        if (downloader.tryQueryMetadata(queueEntry)) {
+                            log.debug("Metadata provided by downloader: {}", downloader.getDownloaderId());
+                            handledByDownloader = true;
+                            break;
+                        }
+                    }
 
-                if (queueEntry.getDownloadStatus() == DownloadStatusEnum.QUERYING) {
-                    queueEntry.updateStatus(DownloadStatusEnum.QUEUED,
-                        l10n("gui.download_status.not_started"));
+                    if (!handledByDownloader) {
+                        tryQueryMetadata(queueEntry);
+                    }
+
+                    finishMetadataQuery(queueEntry);
                 }
             } finally {
                 currentlyQueryingCount.decrementAndGet();
+                queueDispatcher.signal();
             }
         });
     }
 
+    private void finishMetadataQuery(QueueEntry queueEntry) {
+        queueEntry.markQueried();
+
+        if (queueEntry.getDownloadStatus() == DownloadStatusEnum.QUERYING) {
+            queueEntry.updateStatus(DownloadStatusEnum.QUEUED,
+                l10n("gui.download_status.not_started"));
+        }
+    }
+
     protected void resetDownload(QueueEntry queueEntry) {
         resetDownload(queueEntry, true);
     }
@@ -1320,7 +1537,7 @@ public class DownloadManager implements IEvent, AutoCloseable {
             try {
                 if (!downloadsRunning.get()) {
                     if (force) {
-                        downloadsRunning.set(true);
+                        setDownloadsRunning(true);
                         fireListeners();
                     } else {
                         offerTo(QUEUED, entry);
@@ -1329,6 +1546,7 @@ public class DownloadManager implements IEvent, AutoCloseable {
                 }
 
                 entry.getRunning().set(true);
+                bandwidthScheduler.register(entry);
 
                 DownloaderIdEnum forcedDownloader = entry.getForcedDownloader();
                 if (forcedDownloader == null) {
@@ -1393,7 +1611,7 @@ public class DownloadManager implements IEvent, AutoCloseable {
                                             : l10n("gui.intervalometer.waiting", currentWaitTime));
 
                                     try {
-                                        CancelHook cancelHook = entry.getCancelHook().derive(this::isRunning, true);
+                                        CancelHook cancelHook = entry.getCancelHook().derive(stopHook);
                                         intervalometer.park(currentWaitTime, cancelHook);
                                     } catch (InterruptedException e) {
                                         log.warn("Interrupted");
@@ -1549,6 +1767,7 @@ public class DownloadManager implements IEvent, AutoCloseable {
                 GDownloader.handleException(e);
             } finally {
                 entry.getRunning().set(false);
+                bandwidthScheduler.unregister(entry);
 
                 if (entry.getForcedFormatId() != null) {
                     entry.setForcedFormatId(null);
@@ -1664,6 +1883,8 @@ public class DownloadManager implements IEvent, AutoCloseable {
     @PreDestroy
     @Override
     public void close() {
+        queueDispatcher.close();
+
         stopDownloads();
 
         clearQueue(RUNNING, CloseReasonEnum.SHUTDOWN, false);
@@ -28,6 +28,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.downloader.enums.DownloadPriorityEnum;
@@ -37,27 +38,47 @@ import net.brlns.gdownloader.downloader.enums.QueueSortOrderEnum;
 import static net.brlns.gdownloader.downloader.enums.QueueCategoryEnum.*;
 
 /**
+ * Keeps every queue entry ordered globally and within its category.
+ *
+ * Writers are serialized by a single lock and only ever touch the keys of the entry they
+ * change. Readers never take the lock unless the immutable snapshot they are after is stale.
+ *
+ * Sequences are handed out with a wide stride, so moving an entry only assigns it a
+ * sequence between its new neighbours. Everything is renumbered only once a gap runs out.
+ *
  * @author Gabriel / hstr0100 / vertx010
  */
 @Slf4j
 public class DownloadSequencer {
 
-    private static final long SEQUENCE_RESET_THRESHOLD = Long.MAX_VALUE - 1_000;
+    private static final long SEQUENCE_STRIDE = 1L << 20;
+    private static final long SEQUENCE_ORIGIN = Long.MIN_VALUE + SEQUENCE_STRIDE;
+    private static final long SEQUENCE_RESET_THRESHOLD = Long.MAX_VALUE / 2;
+
+    private static final Comparator<EntryKey> SEQUENCE_ORDER
+        = Comparator.comparingLong(EntryKey::getSequence)
+            .thenComparingLong(EntryKey::getDownloadId);
 
-    private final AtomicLong sequenceGenerator = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong sequenceGenerator = new AtomicLong(SEQUENCE_ORIGIN);
 
     private final ConcurrentHashMap<Long, QueueEntry> entriesById = new ConcurrentHashMap<>();
-    private final ConcurrentSkipListMap<EntryKey, QueueEntry> priorityQueue = new ConcurrentSkipListMap<>();
-    private final EnumMap<QueueCategoryEnum, Set<Long>> categorySets = new EnumMap<>(QueueCategoryEnum.class);
+
+    // Guarded by sequencerLock. Entries may not produce the same key twice, so removals
+    // always go through the key an entry was indexed with.
+    private final Map<Long, EntryKey> keysById = new HashMap<>();
+    private final NavigableSet<EntryKey> sequenceIndex = new TreeSet<>(SEQUENCE_ORDER);
+
+    private final OrderedIndex priorityQueue = new OrderedIndex();
+    private final EnumMap<QueueCategoryEnum, OrderedIndex> categoryIndices = new EnumMap<>(QueueCategoryEnum.class);
 
     @Getter
-    private QueueSortOrderEnum currentSortOrder = QueueSortOrderEnum.SEQUENCE;
+    private volatile QueueSortOrderEnum currentSortOrder = QueueSortOrderEnum.SEQUENCE;
 
-    private final ReentrantLock sequencerLock = new ReentrantLock(true);
+    private final ReentrantLock sequencerLock = new ReentrantLock();
 
     public DownloadSequencer() {
         for (QueueCategoryEnum category : QueueCategoryEnum.values()) {
-            categorySets.put(category, ConcurrentHashMap.newKeySet());
+            categoryIndices.put(category, new OrderedIndex());
         }
     }
 
@@ -76,12 +97,7 @@ public class DownloadSequencer {
             return false;
         }
 
-        sequencerLock.lock();
-        try {
-            return entriesById.containsKey(entry.getDownloadId());
-        } finally {
-            sequencerLock.unlock();
-        }
+        return entriesById.containsKey(entry.getDownloadId());
     }
 
     public QueueEntry addNewEntry(@NonNull QueueEntry entry) {
@@ -91,27 +107,26 @@ public class DownloadSequencer {
 
             long downloadId = entry.getDownloadId();
 
-            removeFromAllQueues(downloadId);
+            unindex(downloadId);
 
             entriesById.put(downloadId, entry);
 
             Long previousSequence = entry.getCurrentSequence();
             if (previousSequence == null) {
-                long sequence = sequenceGenerator.getAndIncrement();
-                entry.setCurrentSequence(sequence);
+                entry.setCurrentSequence(sequenceGenerator.getAndAdd(SEQUENCE_STRIDE));
             } else {
-                sequenceGenerator.set(Math.max(previousSequence + 1, sequenceGenerator.get()));
+                reserveSequence(previousSequence);
             }
 
-            priorityQueue.put(createEntryKey(entry), entry);
-
             QueueCategoryEnum category = entry.getCurrentQueueCategory();
             if (category == null || category == RUNNING) {
                 category = QUEUED;
             }
 
             entry.setCurrentQueueCategory(category);
-            categorySets.get(category).add(downloadId);
+            entry.setTemporarySortOrder(currentSortOrder);
+
+            index(entry);
 
             return entry;
         } finally {
@@ -119,6 +134,18 @@ public class DownloadSequencer {
         }
     }
 
+    /**
+     * Makes new entries sort after the given sequence, for entries that have not been added yet.
+     */
+    public void reserveSequence(long sequence) {
+        sequencerLock.lock();
+        try {
+            sequenceGenerator.set(Math.max(sequence + SEQUENCE_STRIDE, sequenceGenerator.get()));
+        } finally {
+            sequencerLock.unlock();
+        }
+    }
+
     public boolean removeEntry(QueueEntry entry) {
         if (entry == null) {
             return false;
@@ -127,20 +154,9 @@ public class DownloadSequencer {
         sequencerLock.lock();
         try {
             long downloadId = entry.getDownloadId();
-            QueueEntry removed = entriesById.remove(downloadId);
 
-            if (removed != null) {
-                EntryKey key = createEntryKey(removed);
-
-                QueueEntry removedEntry = priorityQueue.remove(key);
-                if (removedEntry == null) {
-                    log.error("Key: {} was missing from priorityQueue, cannot remove entry by key match", key);
-                    priorityQueue.keySet().removeIf(k -> k.getDownloadId() == key.getDownloadId());
-                }
-
-                for (QueueCategoryEnum category : QueueCategoryEnum.values()) {
-                    categorySets.get(category).remove(downloadId);
-                }
+            if (entriesById.remove(downloadId) != null) {
+                unindex(downloadId);
 
                 return true;
             }
@@ -153,47 +169,33 @@ public class DownloadSequencer {
 
     @Nullable
     public QueueEntry getEntry(@NonNull Predicate<QueueEntry> predicate) {
-        sequencerLock.lock();
-        try {
-            return entriesById.values().stream()
-                .filter(predicate)
-                .findFirst()
-                .orElse(null);
-        } finally {
-            sequencerLock.unlock();
+        for (QueueEntry entry : entriesById.values()) {
+            if (predicate.test(entry)) {
+                return entry;
+            }
         }
+
+        return null;
     }
 
+    /**
+     * Returns an immutable view of every entry in priority order.
+     */
     public List<QueueEntry> getSnapshot() {
-        sequencerLock.lock();
-        try {
-            List<QueueEntry> snapshot = new ArrayList<>();
-            for (QueueEntry entry : priorityQueue.values()) {
-                snapshot.add(entry);
-            }
-
-            return snapshot;
-        } finally {
-            sequencerLock.unlock();
-        }
+        return snapshotOf(priorityQueue);
     }
 
     @Nullable
     public QueueEntry fetchNext() {
-        if (categorySets.get(QUEUED).isEmpty()) {
+        OrderedIndex queued = categoryIndices.get(QUEUED);
+        if (queued.isEmpty()) {
             return null;
         }
 
         sequencerLock.lock();
         try {
-            for (Map.Entry<EntryKey, QueueEntry> entry : priorityQueue.entrySet()) {
-                QueueEntry queueEntry = entry.getValue();
-                long downloadId = queueEntry.getDownloadId();
-
-                if (queueEntry.getCurrentQueueCategory() == QUEUED
-                    && !queueEntry.getDownloadSkipped().get()
-                    && categorySets.get(QUEUED).contains(downloadId)) {
-
+            for (QueueEntry queueEntry : queued.getEntries().values()) {
+                if (!queueEntry.getDownloadSkipped().get()) {
                     updateEntryCategory(queueEntry, RUNNING);
 
                     return queueEntry;
@@ -209,26 +211,16 @@ public class DownloadSequencer {
     public void requeueFailed(@NonNull Consumer<QueueEntry> resetAction) {
         sequencerLock.lock();
         try {
-            Set<Long> failedIds = new HashSet<>(categorySets.get(FAILED));
+            List<QueueEntry> failedEntries = List.copyOf(categoryIndices.get(FAILED).getEntries().values());
 
-            for (Long id : failedIds) {
-                QueueEntry entry = entriesById.get(id);
-                if (entry == null) {
-                    log.warn("Failed entry not found in entriesById: {}", id);
-                    continue;
-                }
-
-                categorySets.get(FAILED).remove(id);
+            for (QueueEntry entry : failedEntries) {
+                unindex(entry.getDownloadId());
 
                 entry.setCurrentQueueCategory(QUEUED);
 
                 resetAction.accept(entry);
 
-                categorySets.get(QUEUED).add(id);
-
-                EntryKey key = createEntryKey(entry);
-                priorityQueue.remove(key);
-                priorityQueue.put(key, entry);
+                index(entry);
             }
         } finally {
             sequencerLock.unlock();
@@ -238,19 +230,13 @@ public class DownloadSequencer {
     public void removeAll(QueueCategoryEnum category, @NonNull Consumer<QueueEntry> removeAction) {
         sequencerLock.lock();
         try {
-            Set<Long> toRemoveIds = new HashSet<>(categorySets.get(category));
-
-            for (Long id : toRemoveIds) {
-                QueueEntry entry = entriesById.get(id);
-                if (entry == null) {
-                    log.warn("Entry for removal was not found in entriesById: {}", id);
-                    continue;
-                }
+            List<QueueEntry> toRemove = List.copyOf(categoryIndices.get(category).getEntries().values());
 
+            for (QueueEntry entry : toRemove) {
                 if (removeEntry(entry)) {
                     removeAction.accept(entry);
                 } else {
-                    log.warn("Failed to remove entry id: {}", id);
+                    log.warn("Failed to remove entry id: {}", entry.getDownloadId());
                 }
             }
         } finally {
@@ -258,13 +244,17 @@ public class DownloadSequencer {
         }
     }
 
+    /**
+     * Moves an entry into the target's place. Entries moving up land right before the target,
+     * entries moving down right after it.
+     */
     public boolean reorderEntries(QueueEntry entryToMove, QueueEntry entryTarget) {
+        if (entryToMove == null || entryTarget == null) {
+            return false;
+        }
+
         sequencerLock.lock();
         try {
-            if (entryToMove == null || entryTarget == null) {
-                return false;
-            }
-
             long id1 = entryToMove.getDownloadId();
             long id2 = entryTarget.getDownloadId();
 
@@ -272,26 +262,28 @@ public class DownloadSequencer {
                 return true;
             }
 
-            priorityQueue.remove(createEntryKey(entryToMove));
-
-            long seq1 = entryToMove.getCurrentSequence();
-            long seq2 = entryTarget.getCurrentSequence();
+            if (!keysById.containsKey(id1) || !keysById.containsKey(id2)) {
+                log.warn("Can't reorder, entry not in sequencer: {} -> {}", id1, id2);
+                return false;
+            }
 
-            Map<Long, QueueEntry> toUpdate = new HashMap<>();
+            Long sequence = findSequenceNear(keysById.get(id1), keysById.get(id2));
+            if (sequence == null) {
+                log.debug("No room left between sequences, recomputing sequences");
+                recomputeSequences();
 
-            if (seq1 > seq2) {
-                shiftSequences(toUpdate, id1, seq2, seq1, 1);
-            } else if (seq1 < seq2) {
-                shiftSequences(toUpdate, id1, seq1, seq2, -1);
+                sequence = findSequenceNear(keysById.get(id1), keysById.get(id2));
+                if (sequence == null) {
+                    log.error("Unable to find a sequence for {} next to {}", id1, id2);
+                    return false;
+                }
             }
 
-            entryToMove.setCurrentSequence(seq2);
+            unindex(id1);
 
-            for (QueueEntry entry : toUpdate.values()) {
-                priorityQueue.put(createEntryKey(entry), entry);
-            }
+            entryToMove.setCurrentSequence(sequence);
 
-            priorityQueue.put(createEntryKey(entryToMove), entryToMove);
+            index(entryToMove);
 
             return true;
         } finally {
@@ -329,11 +321,11 @@ public class DownloadSequencer {
             QueueEntry storedEntry = entriesById.get(downloadId);
 
             if (storedEntry != null && storedEntry.getDownloadPriority() != priority) {
-                priorityQueue.remove(createEntryKey(storedEntry));
+                unindex(downloadId);
 
                 storedEntry.setDownloadPriority(priority);
 
-                priorityQueue.put(createEntryKey(storedEntry), storedEntry);
+                index(storedEntry);
             } else if (storedEntry == null) {
                 log.warn("Couldn't update priority, entry not found in entriesById: {}", downloadId);
             }
@@ -343,7 +335,7 @@ public class DownloadSequencer {
     }
 
     public int getCount(QueueCategoryEnum category) {
-        return categorySets.get(category).size();
+        return categoryIndices.get(category).getSize();
     }
 
     public int getTotalCount() {
@@ -351,102 +343,108 @@ public class DownloadSequencer {
     }
 
     public boolean isEmpty(QueueCategoryEnum category) {
-        return categorySets.get(category).isEmpty();
+        return categoryIndices.get(category).isEmpty();
     }
 
-    public boolean isEmpty() {// Locking this is overkill
+    public boolean isEmpty() {
         return entriesById.isEmpty();
     }
 
     public List<QueueEntry> getAllEntries() {
-        sequencerLock.lock();
-        try {
-            return new ArrayList<>(entriesById.values());
-        } finally {
-            sequencerLock.unlock();
-        }
+        return new ArrayList<>(entriesById.values());
     }
 
+    /**
+     * Returns an immutable view of the entries in a category, in priority order.
+     */
     public List<QueueEntry> getEntries(QueueCategoryEnum category) {
+        return snapshotOf(categoryIndices.get(category));
+    }
+
+    private List<QueueEntry> snapshotOf(OrderedIndex index) {
+        Snapshot snapshot = index.getSnapshot();
+        if (snapshot.version() == index.getVersion()) {
+            return snapshot.entries();
+        }
+
         sequencerLock.lock();
         try {
-            List<QueueEntry> result = new ArrayList<>();
-            Set<Long> ids = categorySets.get(category);
-
-            for (Long id : ids) {
-                QueueEntry entry = entriesById.get(id);
-                if (entry != null) {
-                    result.add(entry);
-                }
+            snapshot = index.getSnapshot();
+            if (snapshot.version() != index.getVersion()) {
+                snapshot = new Snapshot(index.getVersion(), List.copyOf(index.getEntries().values()));
+                index.setSnapshot(snapshot);
             }
 
-            return result;
+            return snapshot.entries();
         } finally {
             sequencerLock.unlock();
         }
     }
 
-    private void removeFromAllQueues(long downloadId) {
-        QueueEntry oldEntry = entriesById.get(downloadId);
-        if (oldEntry != null) {
-            priorityQueue.remove(createEntryKey(oldEntry));
+    private void index(QueueEntry entry) {
+        EntryKey key = createEntryKey(entry);
 
-            for (QueueCategoryEnum category : QueueCategoryEnum.values()) {
-                categorySets.get(category).remove(downloadId);
-            }
-        }
+        keysById.put(entry.getDownloadId(), key);
+        sequenceIndex.add(key);
+
+        priorityQueue.put(key, entry);
+        categoryIndices.get(key.getCategory()).put(key, entry);
     }
 
-    private boolean updateEntryCategory(QueueEntry entry, QueueCategoryEnum newCategory) {
-        long downloadId = entry.getDownloadId();
-        QueueCategoryEnum currentCategory = entry.getCurrentQueueCategory();
+    private void unindex(long downloadId) {
+        EntryKey key = keysById.remove(downloadId);
+        if (key == null) {
+            return;
+        }
 
-        if (!categorySets.get(currentCategory).remove(downloadId)) {
-            log.warn("Entry was not in its category set: {} should be in {}",
-                downloadId, currentCategory);
+        sequenceIndex.remove(key);
 
-            for (QueueCategoryEnum cat : QueueCategoryEnum.values()) {
-                categorySets.get(cat).remove(downloadId);
-            }
-        }
+        priorityQueue.remove(key);
+        categoryIndices.get(key.getCategory()).remove(key);
+    }
 
-        entry.setCurrentQueueCategory(newCategory);
+    private boolean updateEntryCategory(QueueEntry entry, QueueCategoryEnum newCategory) {
+        unindex(entry.getDownloadId());
 
-        categorySets.get(newCategory).add(downloadId);
+        entry.setCurrentQueueCategory(newCategory);
 
-        EntryKey key = createEntryKey(entry);
-        priorityQueue.remove(key);
-        priorityQueue.put(key, entry);
+        index(entry);
 
         return true;
     }
 
-    private void shiftSequences(Map<Long, QueueEntry> entries,
-        long excludeId, long startSeq, long endSeq, int shift) {
-        Set<EntryKey> keysToRemove = new HashSet<>();
+    @Nullable
+    private Long findSequenceNear(EntryKey moveKey, EntryKey targetKey) {
+        long targetSequence = targetKey.getSequence();
 
-        for (Map.Entry<EntryKey, QueueEntry> mapEntry : priorityQueue.entrySet()) {
-            QueueEntry qEntry = mapEntry.getValue();
-            long itemSeq = qEntry.getCurrentSequence();
-            long qId = qEntry.getDownloadId();
+        if (SEQUENCE_ORDER.compare(moveKey, targetKey) > 0) {
+            EntryKey previous = sequenceIndex.lower(targetKey);
 
-            boolean inRange = shift > 0
-                ? (itemSeq >= startSeq && itemSeq < endSeq)
-                : (itemSeq > startSeq && itemSeq <= endSeq);
+            return sequenceBetween(previous != null ? previous.getSequence() : Long.MIN_VALUE, targetSequence);
+        }
 
-            if (qId != excludeId && inRange) {
-                entries.put(qId, qEntry);
-                keysToRemove.add(mapEntry.getKey());
-            }
+        EntryKey next = sequenceIndex.higher(targetKey);
+        if (next == moveKey) {
+            next = sequenceIndex.higher(moveKey);
         }
 
-        for (EntryKey key : keysToRemove) {
-            priorityQueue.remove(key);
+        if (next == null) {
+            // Already the last one, nothing to squeeze in between
+            return sequenceGenerator.getAndAdd(SEQUENCE_STRIDE);
         }
 
-        for (QueueEntry entry : entries.values()) {
-            entry.setCurrentSequence(entry.getCurrentSequence() + shift);
+        return sequenceBetween(targetSequence, next.getSequence());
+    }
+
+    @Nullable
+    private static Long sequenceBetween(long lower, long upper) {
+        // The distance may not fit in a signed long, but it always fits in an unsigned one
+        long gap = upper - lower;
+        if (Long.compareUnsigned(gap, 2) < 0) {
+            return null;
         }
+
+        return lower + (gap >>> 1);
     }
 
     private void checkSequenceOverflow() {
@@ -460,16 +458,16 @@ public class DownloadSequencer {
         sequencerLock.lock();
         try {
             List<QueueEntry> sortedEntries = new ArrayList<>(entriesById.values());
-            sortedEntries.sort(Comparator.comparing(QueueEntry::getCurrentSequence));
+            sortedEntries.sort(Comparator.comparing(QueueEntry::getCurrentSequence)
+                .thenComparingLong(QueueEntry::getDownloadId));
 
-            priorityQueue.clear();
+            clearIndices();
 
-            sequenceGenerator.set(Long.MIN_VALUE);
+            sequenceGenerator.set(SEQUENCE_ORIGIN);
 
             for (QueueEntry entry : sortedEntries) {
-                long newSequence = sequenceGenerator.getAndIncrement();
-                entry.setCurrentSequence(newSequence);
-                priorityQueue.put(createEntryKey(entry), entry);
+                entry.setCurrentSequence(sequenceGenerator.getAndAdd(SEQUENCE_STRIDE));
+                index(entry);
             }
 
             log.info("Sequence recomputation completed for {} entries", sortedEntries.size());
@@ -481,32 +479,92 @@ public class DownloadSequencer {
     private void recreateAllKeys() {
         sequencerLock.lock();
         try {
-            ConcurrentSkipListMap<EntryKey, QueueEntry> newPriorityQueue = new ConcurrentSkipListMap<>();
+            clearIndices();
 
-            for (Map.Entry<EntryKey, QueueEntry> entry : priorityQueue.entrySet()) {
-                QueueEntry queueEntry = entry.getValue();
-                queueEntry.setTemporarySortOrder(currentSortOrder);
-                EntryKey newKey = createEntryKey(queueEntry);
-                newPriorityQueue.put(newKey, queueEntry);
+            for (QueueEntry entry : entriesById.values()) {
+                entry.setTemporarySortOrder(currentSortOrder);
+                index(entry);
             }
-
-            priorityQueue.clear();
-            priorityQueue.putAll(newPriorityQueue);
         } finally {
             sequencerLock.unlock();
         }
     }
 
+    private void clearIndices() {
+        keysById.clear();
+        sequenceIndex.clear();
+
+        priorityQueue.clear();
+        for (OrderedIndex index : categoryIndices.values()) {
+            index.clear();
+        }
+    }
+
     private EntryKey createEntryKey(QueueEntry entry) {
         return new EntryKey(
             entry.getDownloadPriority().getWeight(),
             entry.getCurrentSequence(),
             entry.getDownloadId(),
             entry.getTemporarySortOrder(),
+            entry.getCurrentQueueCategory(),
             entry
         );
     }
 
+    private record Snapshot(long version, List<QueueEntry> entries) {
+
+    }
+
+    /**
+     * Entries ordered by key. Only ever modified while holding the sequencer lock,
+     * every modification bumps the version so readers know when to take a new snapshot.
+     */
+    @Getter
+    private static class OrderedIndex {
+
+        private final ConcurrentSkipListMap<EntryKey, QueueEntry> entries = new ConcurrentSkipListMap<>();
+
+        private volatile int size;
+        private volatile long version;
+
+        @Setter
+        private volatile Snapshot snapshot = new Snapshot(0, List.of());
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public void put(EntryKey key, QueueEntry entry) {
+            if (entries.put(key, entry) == null) {
+                size++;
+            }
+
+            version++;
+        }
+
+        public void remove(EntryKey key) {
+            if (entries.remove(key) != null) {
+                size--;
+            } else {
+                // Whatever the key was built from has changed behind our back
+                log.error("Key: {} was missing from its index, cannot remove entry by key match", key);
+
+                if (entries.keySet().removeIf(k -> k.getDownloadId() == key.getDownloadId())) {
+                    size--;
+                }
+            }
+
+            version++;
+        }
+
+        public void clear() {
+            entries.clear();
+            size = 0;
+
+            version++;
+        }
+    }
+
     @Data
     private static class EntryKey implements Comparable<EntryKey> {
 
@@ -515,6 +573,9 @@ public class DownloadSequencer {
         private final long downloadId;
         private final QueueSortOrderEnum sortOrder;
 
+        @EqualsAndHashCode.Exclude
+        private final QueueCategoryEnum category;
+
         @ToString.Exclude
         @EqualsAndHashCode.Exclude
         private final QueueEntry entryReference;
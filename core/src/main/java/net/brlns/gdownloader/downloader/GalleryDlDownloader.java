@@ -19,10 +19,8 @@ package net.brlns.gdownloader.downloader;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PreDestroy;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -41,6 +39,7 @@ import net.brlns.gdownloader.downloader.structs.DownloadResult;
 import net.brlns.gdownloader.downloader.structs.MediaInfo;
 import net.brlns.gdownloader.filters.AbstractUrlFilter;
 import net.brlns.gdownloader.process.ProcessArguments;
+import net.brlns.gdownloader.process.ProcessOutputReader;
 import net.brlns.gdownloader.settings.downloader.GalleryDLSettings;
 import net.brlns.gdownloader.util.CancelHook;
 import net.brlns.gdownloader.util.DirectoryDeduplicator;
@@ -325,40 +324,26 @@ public class GalleryDlDownloader extends AbstractDownloader {
     private Pair<Integer, String> processDownload(QueueEntry entry, ProcessArguments arguments) throws Exception {
         long start = System.currentTimeMillis();
 
-        ProcessArguments finalArgs = new ProcessArguments(arguments, entry.getUrl());
+        ProcessArguments finalArgs = new ProcessArguments(arguments);
+
+        long rateLimit = getRateLimitBytesPerSecond(entry, arguments);
+        if (rateLimit > 0) {
+            finalArgs.add("--limit-rate", rateLimit);
+        }
+
+        finalArgs.add(entry.getUrl());
 
         entry.setLastCommandLine(finalArgs, true);
 
-        CancelHook cancelHook = entry.getCancelHook().derive(manager::isRunning, true);
+        CancelHook cancelHook = entry.getCancelHook().derive(manager.getStopHook());
         Process process = main.getProcessMonitor().startProcess(finalArgs, cancelHook);
         entry.setProcess(process);
 
-        String lastOutput = "";
-
-        try (
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while (!cancelHook.get() && process.isAlive()) {
-                if (Thread.currentThread().isInterrupted()) {
-                    process.destroyForcibly();
-                    throw new InterruptedException("Download interrupted");
-                }
+        try {
+            ProcessOutputReader reader = startOutputReader(process,
+                line -> processProgress(entry, line.toString()));
 
-                if (reader.ready()) {
-                    if ((line = reader.readLine()) != null) {
-                        lastOutput = truncateLine(line);
-
-                        processProgress(entry, lastOutput);
-                    }
-                } else {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        log.debug("Sleep interrupted, closing process");
-                        process.destroyForcibly();
-                    }
-                }
-            }
+            int exitCode = reader.awaitExit();
 
             long stopped = System.currentTimeMillis() - start;
 
@@ -369,17 +354,12 @@ public class GalleryDlDownloader extends AbstractDownloader {
 
                 return null;
             } else {
-                int exitCode = process.waitFor();
                 if (main.getConfig().isDebugMode()) {
                     log.debug("Download process took {}ms, exit code: {}", stopped, exitCode);
                 }
 
-                return new Pair<>(exitCode, lastOutput);
+                return new Pair<>(exitCode, reader.getLastLine());
             }
-        } catch (IOException e) {
-            log.info("IO error: {}", e.getMessage());
-
-            return null;
         } finally {
             entry.getDownloadStarted().set(false);
 
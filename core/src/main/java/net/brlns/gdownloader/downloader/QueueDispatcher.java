@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the queue processor only when something it depends on has changed.
+ *
+ * Category changes, freed slots and settings changes call {@link #signal()}, while scheduled
+ * retries wait in a delay queue that wakes the dispatcher once the earliest one is due.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public class QueueDispatcher implements AutoCloseable {
+
+    private final Runnable task;
+
+    private final DelayQueue<ScheduledResume> scheduledResumes = new DelayQueue<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeup = lock.newCondition();
+
+    private boolean signalled;
+    private long nextTickMillis;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public QueueDispatcher(Runnable taskIn) {
+        task = taskIn;
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+
+            running = true;
+            signalled = true;
+
+            thread = Thread.ofPlatform()
+                .name("Queue-Dispatcher")
+                .daemon(true)
+                .start(this::loop);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Requests another pass of the queue processor, passes requested while one is running coalesce into one.
+     */
+    public void signal() {
+        lock.lock();
+        try {
+            signalled = true;
+            wakeup.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Asks for one more pass at the given time, at most one pending tick is kept.
+     */
+    public void requestTickAt(long atMillis) {
+        lock.lock();
+        try {
+            if (nextTickMillis <= 0 || atMillis < nextTickMillis) {
+                nextTickMillis = atMillis;
+                wakeup.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void schedule(QueueEntry entry, long resumeAtMillis) {
+        scheduledResumes.offer(new ScheduledResume(entry, resumeAtMillis));
+
+        signal();
+    }
+
+    /**
+     * Removes and returns every scheduled entry that is due.
+     *
+     * Entries that were rescheduled or unscheduled in the meantime are left for the caller to skip.
+     */
+    public List<QueueEntry> drainDue() {
+        List<ScheduledResume> due = new ArrayList<>();
+        scheduledResumes.drainTo(due);
+
+        List<QueueEntry> entries = new ArrayList<>(due.size());
+        for (ScheduledResume resume : due) {
+            if (resume.entry.getScheduledResumeAtMillis().get() == resume.resumeAtMillis) {
+                entries.add(resume.entry);
+            }
+        }
+
+        return entries;
+    }
+
+    private void loop() {
+        while (running) {
+            lock.lock();
+            try {
+                while (running && !signalled) {
+                    long now = System.currentTimeMillis();
+                    long deadline = Long.MAX_VALUE;
+
+                    ScheduledResume head = scheduledResumes.peek();
+                    if (head != null) {
+                        deadline = head.resumeAtMillis;
+                    }
+
+                    if (nextTickMillis > 0) {
+                        deadline = Math.min(deadline, nextTickMillis);
+                    }
+
+                    if (deadline <= now) {
+                        break;
+                    }
+
+                    if (deadline == Long.MAX_VALUE) {
+                        wakeup.await();
+                    } else {
+                        wakeup.await(deadline - now, TimeUnit.MILLISECONDS);
+                    }
+                }
+
+                signalled = false;
+
+                if (nextTickMillis > 0 && nextTickMillis <= System.currentTimeMillis()) {
+                    nextTickMillis = 0;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (!running) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (Throwable t) {
+                log.error("Queue dispatcher pass failed: {}", t.getMessage());
+
+                if (log.isDebugEnabled()) {
+                    log.error("Exception: ", t);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            wakeup.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private static final class ScheduledResume implements Delayed {
+
+        private final QueueEntry entry;
+        private final long resumeAtMillis;
+
+        private ScheduledResume(QueueEntry entryIn, long resumeAtMillisIn) {
+            entry = entryIn;
+            resumeAtMillis = resumeAtMillisIn;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(resumeAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof ScheduledResume resume) {
+                return Long.compare(resumeAtMillis, resume.resumeAtMillis);
+            }
+
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
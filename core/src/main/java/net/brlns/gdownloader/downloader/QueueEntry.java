@@ -45,6 +45,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.swing.JFileChooser;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -53,13 +54,19 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.GDownloader;
 import net.brlns.gdownloader.downloader.enums.*;
+import net.brlns.gdownloader.downloader.structs.DownloadProgress;
 import net.brlns.gdownloader.downloader.structs.MediaInfo;
 import net.brlns.gdownloader.event.EventDispatcher;
 import net.brlns.gdownloader.event.EventDispatcher.LambdaHandler;
 import net.brlns.gdownloader.filters.AbstractUrlFilter;
 import net.brlns.gdownloader.filters.GenericFilter;
+import net.brlns.gdownloader.persistence.ICheckpointSource;
 import net.brlns.gdownloader.persistence.PersistenceManager;
+import net.brlns.gdownloader.persistence.entity.LogTypeEnum;
+import net.brlns.gdownloader.persistence.entity.QueueEntryDelta;
 import net.brlns.gdownloader.persistence.entity.QueueEntryEntity;
+import net.brlns.gdownloader.persistence.entity.QueueEntrySummary;
+import net.brlns.gdownloader.persistence.repository.QueueEntryRepository;
 import net.brlns.gdownloader.settings.enums.*;
 import net.brlns.gdownloader.ui.mediacard.MediaCard;
 import net.brlns.gdownloader.ui.menu.*;
@@ -73,7 +80,6 @@ import net.brlns.gdownloader.util.StringUtils;
 import net.brlns.gdownloader.util.URLThumbnailLoader;
 import net.brlns.gdownloader.util.URLUtils;
 import net.brlns.gdownloader.util.collection.ConcurrentLinkedHashMap;
-import net.brlns.gdownloader.util.collection.ConcurrentLinkedHashSet;
 
 import static net.brlns.gdownloader.downloader.enums.DownloadStatusEnum.*;
 import static net.brlns.gdownloader.downloader.enums.QueueCategoryEnum.COMPLETED;
@@ -93,7 +99,7 @@ import static net.brlns.gdownloader.util.StringUtils.nullOrEmpty;
 @EqualsAndHashCode
 @ToString
 @RequiredArgsConstructor
-public class QueueEntry {
+public class QueueEntry implements ICheckpointSource {
 
     private final GDownloader main;
 
@@ -135,6 +141,9 @@ public class QueueEntry {
 
     private final AtomicBoolean rateLimitDetected = new AtomicBoolean(false);
 
+    // Latest structured progress reported by the running process, if it reports any.
+    private final AtomicReference<DownloadProgress> transferProgress = new AtomicReference<>();
+
     private final CancelHook cancelHook = new CancelHook();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicBoolean queried = new AtomicBoolean(false);
@@ -161,17 +170,25 @@ public class QueueEntry {
     private final List<String> _thumbnailUrls = new CopyOnWriteArrayList<>();
     private final List<String> _lastCommandLine = new CopyOnWriteArrayList<>();
 
-    private final ConcurrentLinkedHashSet<String> _errorLog = new ConcurrentLinkedHashSet<>();
-    private final ConcurrentLinkedHashSet<String> _downloadLog = new ConcurrentLinkedHashSet<>();
+    @Getter(AccessLevel.NONE)
+    private final QueueEntryLog errorLog = new QueueEntryLog(LogTypeEnum.ERROR);
+    @Getter(AccessLevel.NONE)
+    private final QueueEntryLog downloadLog = new QueueEntryLog(LogTypeEnum.DOWNLOAD);
 
     private final Map<String, LocalDateTime> _playlistItemUploadTimes = new ConcurrentHashMap<>();
 
     private final AtomicBoolean thumbnailUrlsLoaded = new AtomicBoolean(false);
     private final AtomicBoolean lastCommandLineLoaded = new AtomicBoolean(false);
-    private final AtomicBoolean errorLogLoaded = new AtomicBoolean(false);
-    private final AtomicBoolean downloadLogLoaded = new AtomicBoolean(false);
     private final AtomicBoolean playlistItemUploadTimesLoaded = new AtomicBoolean(false);
 
+    // Fresh entries have nothing stored, restored entries load these on first access.
+    private final AtomicBoolean downloaderBlacklistLoaded = new AtomicBoolean(true);
+    private final AtomicBoolean pendingFormatsLoaded = new AtomicBoolean(true);
+    private final AtomicBoolean finalMediaFilesLoaded = new AtomicBoolean(true);
+
+    @Getter(AccessLevel.NONE)
+    private final CheckpointBaseline checkpointBaseline = new CheckpointBaseline();
+
     private final AtomicBoolean labelNeedsRefresh = new AtomicBoolean(false);
 
     private final Map<String, IMenuEntry> rightClickMenu = new ConcurrentLinkedHashMap<>();
@@ -185,6 +202,8 @@ public class QueueEntry {
 
     private final AtomicReference<String> customDownloadDirectory = new AtomicReference<>(null);
 
+    private final AtomicReference<String> resumeManifestPath = new AtomicReference<>(null);
+
     private final Queue<String> pendingFormatQueue = new ConcurrentLinkedQueue<>();
     private final Set<String> uniquePendingFormats = ConcurrentHashMap.newKeySet();
 
@@ -208,7 +227,7 @@ public class QueueEntry {
             return;
         }
 
-        for (File file : finalMediaFiles) {
+        for (File file : getFinalMediaFiles()) {
             if (file.isDirectory()) {
                 main.open(file);
                 return;
@@ -226,7 +245,7 @@ public class QueueEntry {
         Class<T> container, boolean canOpenPlaylist) {
         List<File> matchingFiles = new ArrayList<>();
 
-        for (File file : finalMediaFiles) {
+        for (File file : getFinalMediaFiles()) {
             if (file.isFile() && isMediaType(file, container)) {
                 matchingFiles.add(file);
             }
@@ -292,7 +311,41 @@ public class QueueEntry {
         customDownloadDirectory.set(downloadDirectory);
     }
 
+    @Nullable
+    public String getResumeManifestPath() {
+        return resumeManifestPath.get();
+    }
+
+    public void setResumeManifestPath(@Nullable String manifestPath) {
+        resumeManifestPath.set(manifestPath);
+    }
+
+    public boolean hasResumableTransfer() {
+        String manifestPath = getResumeManifestPath();
+
+        return notNullOrEmpty(manifestPath) && new File(manifestPath).exists();
+    }
+
+    private void ensurePendingFormatsLoaded() {
+        if (pendingFormatsLoaded.compareAndSet(false, true)) {
+            getPersistence().ifPresent(persistence -> {
+                List<String> formats = persistence.getQueueEntries()
+                    .loadPendingFormats(downloadId);
+
+                for (String formatId : formats) {
+                    if (uniquePendingFormats.add(formatId)) {
+                        pendingFormatQueue.add(formatId);
+                    }
+                }
+
+                checkpointBaseline.pendingFormatsLoaded(formats);
+            });
+        }
+    }
+
     public boolean queueFormatForDownload(String formatId) {
+        ensurePendingFormatsLoaded();
+
         if (uniquePendingFormats.add(formatId)) {
             pendingFormatQueue.add(formatId);
 
@@ -303,6 +356,8 @@ public class QueueEntry {
     }
 
     public boolean dequeueFormat(String formatId) {
+        ensurePendingFormatsLoaded();
+
         if (uniquePendingFormats.remove(formatId)) {
             pendingFormatQueue.remove(formatId);
             return true;
@@ -313,6 +368,8 @@ public class QueueEntry {
 
     @Nullable
     public String pollNextQueuedFormat() {
+        ensurePendingFormatsLoaded();
+
         String formatId = pendingFormatQueue.poll();
         if (formatId != null) {
             uniquePendingFormats.remove(formatId);
@@ -322,14 +379,20 @@ public class QueueEntry {
     }
 
     public boolean hasQueuedFormats() {
+        ensurePendingFormatsLoaded();
+
         return !pendingFormatQueue.isEmpty();
     }
 
     public int getQueuedFormatCount() {
+        ensurePendingFormatsLoaded();
+
         return uniquePendingFormats.size();
     }
 
     public List<String> snapshotPendingFormats() {
+        ensurePendingFormatsLoaded();
+
         return new ArrayList<>(pendingFormatQueue);
     }
 
@@ -348,22 +411,38 @@ public class QueueEntry {
         forcedDownloader.set(downloaderId);
     }
 
+    public List<DownloaderIdEnum> getDownloaderBlacklist() {
+        if (downloaderBlacklistLoaded.compareAndSet(false, true)) {
+            getPersistence().ifPresent(persistence -> {
+                List<DownloaderIdEnum> blacklist = persistence.getQueueEntries()
+                    .loadDownloaderBlacklist(downloadId);
+
+                downloaderBlacklist.clear();
+                downloaderBlacklist.addAll(blacklist);
+
+                checkpointBaseline.downloaderBlacklistLoaded(blacklist);
+            });
+        }
+
+        return downloaderBlacklist;
+    }
+
     public void resetDownloaderBlacklist() {
-        downloaderBlacklist.clear();
+        getDownloaderBlacklist().clear();
     }
 
     public boolean isDownloaderBlacklisted(DownloaderIdEnum downloaderId) {
-        return downloaderBlacklist.contains(downloaderId);
+        return getDownloaderBlacklist().contains(downloaderId);
     }
 
     public void blackListDownloader(DownloaderIdEnum downloaderId) {
-        downloaderBlacklist.add(downloaderId);
+        getDownloaderBlacklist().add(downloaderId);
     }
 
     public void deleteMediaFiles() {
         boolean success = false;
 
-        for (File file : finalMediaFiles) {
+        for (File file : getFinalMediaFiles()) {
             try {
                 if (file.isFile() && Files.deleteIfExists(file.toPath())) {
                     success = true;
@@ -373,7 +452,7 @@ public class QueueEntry {
             }
         }
 
-        for (File file : finalMediaFiles) {
+        for (File file : getFinalMediaFiles()) {
             try {
                 if (file.isDirectory() && Files.deleteIfExists(file.toPath())) {
                     success = true;
@@ -385,7 +464,7 @@ public class QueueEntry {
             }
         }
 
-        finalMediaFiles.clear();
+        getFinalMediaFiles().clear();
 
         ToastMessenger.show(Message.builder()
             .message(success
@@ -405,6 +484,8 @@ public class QueueEntry {
         if (tmpDirectory != null && tmpDirectory.exists()) {
             DirectoryUtils.deleteRecursively(tmpDirectory.toPath());
         }
+
+        resumeManifestPath.set(null);
     }
 
     public void close(CloseReasonEnum reason) {
@@ -552,6 +633,8 @@ public class QueueEntry {
 
                 _thumbnailUrls.clear();
                 _thumbnailUrls.addAll(urls);
+
+                checkpointBaseline.thumbnailUrlsLoaded(urls);
             });
         }
 
@@ -566,51 +649,54 @@ public class QueueEntry {
 
                 _lastCommandLine.clear();
                 _lastCommandLine.addAll(lines);
+
+                checkpointBaseline.lastCommandLineLoaded(lines);
             });
         }
 
         return _lastCommandLine;
     }
 
-    public ConcurrentLinkedHashSet<String> getErrorLog() {
-        if (errorLogLoaded.compareAndSet(false, true)) {
-            getPersistence().ifPresent(persistence -> {
-                List<String> logs = persistence.getQueueEntries()
-                    .loadErrorLog(downloadId);
-
-                _errorLog.clear();
-                _errorLog.addAll(logs);
-            });
-        }
-
-        return _errorLog;
+    @Nullable
+    private QueueEntryRepository getLogStore() {
+        return getPersistence()
+            .map(PersistenceManager::getQueueEntries)
+            .orElse(null);
     }
 
-    public ConcurrentLinkedHashSet<String> getDownloadLog() {
-        if (downloadLogLoaded.compareAndSet(false, true)) {
+    public Map<String, LocalDateTime> getPlaylistItemUploadTimes() {
+        if (playlistItemUploadTimesLoaded.compareAndSet(false, true)) {
             getPersistence().ifPresent(persistence -> {
-                List<String> logs = persistence.getQueueEntries()
-                    .loadDownloadLog(downloadId);
+                Map<String, LocalDateTime> times = persistence.getQueueEntries()
+                    .loadPlaylistItemUploadTimes(downloadId);
 
-                _downloadLog.clear();
-                _downloadLog.addAll(logs);
+                _playlistItemUploadTimes.putAll(times);
+
+                checkpointBaseline.playlistItemUploadTimesLoaded(toEpochMillis(times));
             });
         }
 
-        return _downloadLog;
+        return _playlistItemUploadTimes;
     }
 
-    public Map<String, LocalDateTime> getPlaylistItemUploadTimes() {
-        if (playlistItemUploadTimesLoaded.compareAndSet(false, true)) {
+    public Set<File> getFinalMediaFiles() {
+        if (finalMediaFilesLoaded.compareAndSet(false, true)) {
             getPersistence().ifPresent(persistence -> {
-                Map<String, LocalDateTime> times = persistence.getQueueEntries()
-                    .loadPlaylistItemUploadTimes(downloadId);
+                // Deprecated field, extract contents for migration.
+                for (String path : persistence.getQueueEntries().loadLegacyMediaFilePaths(downloadId)) {
+                    finalMediaFiles.add(new File(path));
+                }
 
-                _playlistItemUploadTimes.putAll(times);
+                List<String> paths = persistence.getQueueEntries().loadMediaFilePaths(downloadId);
+                for (String path : paths) {
+                    finalMediaFiles.add(new File(path));
+                }
+
+                checkpointBaseline.mediaFilePathsLoaded(paths);
             });
         }
 
-        return _playlistItemUploadTimes;
+        return finalMediaFiles;
     }
 
     @Nullable
@@ -680,7 +766,7 @@ public class QueueEntry {
             .or(()
                 -> mediaInfo.supportedThumbnails()
                 .limit(5)
-                .map(URLThumbnailLoader::tryLoadThumbnailCropped)
+                .map(thumbnailUrl -> URLThumbnailLoader.tryLoadThumbnailScaled(thumbnailUrl, 240))
                 .flatMap(Optional::stream)
                 .findFirst())
             .or(()
@@ -912,14 +998,11 @@ public class QueueEntry {
             return;
         }
 
-        ConcurrentLinkedHashSet<String> errorLog = getErrorLog();
-
-        if (!errorLog.isEmpty()) {
+        if (errorLog.hasLines(getLogStore(), downloadId)) {
             updateExtraRightClickOptions();
         }
 
-        errorLog.remove(output);
-        errorLog.add(output);// Re-add at the bottom
+        errorLog.append(output);
     }
 
     public void logOutput(String output) {
@@ -927,14 +1010,11 @@ public class QueueEntry {
             return;
         }
 
-        ConcurrentLinkedHashSet<String> downloadLog = getDownloadLog();
-
-        if (!downloadLog.isEmpty()) {
+        if (downloadLog.hasLines(getLogStore(), downloadId)) {
             updateExtraRightClickOptions();
         }
 
-        downloadLog.remove(output);
-        downloadLog.add(output);
+        downloadLog.append(output);
     }
 
     public void addRightClick(String key, Runnable runnable) {
@@ -1042,14 +1122,12 @@ public class QueueEntry {
                 constructCommandLineMenu(lastCommandLine));
         }
 
-        ConcurrentLinkedHashSet<String> errorLog = getErrorLog();
-        if (!errorLog.isEmpty()) {
+        if (errorLog.hasLines(getLogStore(), downloadId)) {
             extrasSubmenu.put(l10n("gui.copy_error_log"),
                 constructLogMenu(errorLog));
         }
 
-        ConcurrentLinkedHashSet<String> downloadLog = getDownloadLog();
-        if (!downloadLog.isEmpty()) {
+        if (downloadLog.hasLines(getLogStore(), downloadId)) {
             extrasSubmenu.put(l10n("gui.copy_download_log"),
                 constructLogMenu(downloadLog));
         }
@@ -1072,7 +1150,7 @@ public class QueueEntry {
                     -> manager.setSkipDownload(this, !skipped)));
         }
 
-        if (!finalMediaFiles.isEmpty()) {
+        if (!getFinalMediaFiles().isEmpty()) {
             extrasSubmenu.put(l10n("gui.delete_files_and_remove"),
                 new RunnableMenuEntry(() -> {
                     deleteMediaFiles();
@@ -1166,7 +1244,7 @@ public class QueueEntry {
             "gui.open_as_video_playlist"
         ).forEach(action -> removeRightClick(l10n(action)));
 
-        if (!finalMediaFiles.isEmpty()) {
+        if (!getFinalMediaFiles().isEmpty()) {
             addRightClick(l10n("gui.delete_files"), () -> {
                 deleteMediaFiles();
 
@@ -1176,7 +1254,7 @@ public class QueueEntry {
             int audioMediaCount = 0;
             int videoMediaCount = 0;
 
-            for (File file : finalMediaFiles) {
+            for (File file : getFinalMediaFiles()) {
                 if (file.isFile()) {
                     if (addMediaAction(file, VideoContainerEnum.class, "gui.play_video")) {
                         videoMediaCount++;
@@ -1196,7 +1274,7 @@ public class QueueEntry {
             if (audioMediaCount >= 2) {
                 removeRightClick(l10n("gui.play_audio"));
                 addRightClick(l10n("gui.open_as_audio_playlist"), () -> {
-                    List<File> playableFiles = finalMediaFiles.stream()
+                    List<File> playableFiles = getFinalMediaFiles().stream()
                         .filter(file -> file.isFile() && isMediaType(file, AudioContainerEnum.class))
                         .collect(Collectors.toList());
 
@@ -1207,7 +1285,7 @@ public class QueueEntry {
             if (videoMediaCount >= 2) {
                 removeRightClick(l10n("gui.play_video"));
                 addRightClick(l10n("gui.open_as_video_playlist"), () -> {
-                    List<File> playableFiles = finalMediaFiles.stream()
+                    List<File> playableFiles = getFinalMediaFiles().stream()
                         .filter(file -> file.isFile() && isMediaType(file, VideoContainerEnum.class))
                         .collect(Collectors.toList());
 
@@ -1233,8 +1311,8 @@ public class QueueEntry {
         return false;
     }
 
-    private IMenuEntry constructLogMenu(ConcurrentLinkedHashSet<String> logEntries) {
-        return new MultiActionMenuEntry<>(() -> logEntries.snapshotAsList(), (entries) -> {
+    private IMenuEntry constructLogMenu(QueueEntryLog entryLog) {
+        return new MultiActionMenuEntry<>(() -> entryLog.read(getLogStore(), downloadId), (entries) -> {
             List<String> finalText = new ArrayList<>();
 
             for (List<String> entry : entries) {
@@ -1271,6 +1349,29 @@ public class QueueEntry {
     }
 
     public QueueEntryEntity toEntity() {
+        QueueEntryEntity entity = snapshotRow();
+
+        if (getMediaInfo() != null) {
+            entity.setMediaInfo(getMediaInfo().toEntity(getDownloadId()));
+        }
+
+        entity.setDownloaderBlacklist(new ArrayList<>(getDownloaderBlacklist()));
+        entity.setPendingFormats(new ArrayList<>(snapshotPendingFormats()));
+        entity.setMediaFilePaths(toAbsolutePaths(getFinalMediaFiles()));
+
+        entity.setThumbnailUrls(new ArrayList<>(getThumbnailUrls()));
+        entity.setLastCommandLine(new ArrayList<>(getLastCommandLine()));
+
+        entity.setPlaylistItemUploadTimes(toEpochMillis(getPlaylistItemUploadTimes()));
+
+        return entity;
+    }
+
+    /**
+     * Columns and eagerly fetched collections. Lazy collections are only included once loaded,
+     * reading this never touches the database.
+     */
+    private QueueEntryEntity snapshotRow() {
         QueueEntryEntity entity = new QueueEntryEntity();
 
         entity.setOriginalUrl(getOriginalUrl());
@@ -1279,15 +1380,8 @@ public class QueueEntry {
         entity.setFilterId(getFilterId());
         entity.setFilter(getOriginalFilter());
 
-        entity.getDownloaderBlacklist().addAll(getDownloaderBlacklist());
-
-        if (getMediaInfo() != null) {
-            entity.setMediaInfo(getMediaInfo().toEntity(getDownloadId()));
-        }
-
         entity.setForcedDownloader(getForcedDownloader());
         entity.setForcedFormatId(getForcedFormatId());
-        entity.setPendingFormats(new ArrayList<>(snapshotPendingFormats()));
 
         entity.setCurrentDownloader(getCurrentDownloader());
         entity.setCurrentDownloadType(getCurrentDownloadType());
@@ -1311,98 +1405,126 @@ public class QueueEntry {
         }
 
         entity.setCustomDownloadDirectory(getCustomDownloadDirectory());
+        entity.setResumeManifestPath(getResumeManifestPath());
 
-        entity.setMediaFilePaths(getFinalMediaFiles().stream()
-            .map(File::getAbsolutePath)
-            .collect(Collectors.toCollection(ArrayList::new)));
+        entity.setDownloaderBlacklist(downloaderBlacklistLoaded.get()
+            ? new ArrayList<>(downloaderBlacklist) : null);
+        entity.setPendingFormats(pendingFormatsLoaded.get()
+            ? new ArrayList<>(pendingFormatQueue) : null);
+        entity.setMediaFilePaths(finalMediaFilesLoaded.get()
+            ? toAbsolutePaths(finalMediaFiles) : null);
 
-        entity.setThumbnailUrls(new ArrayList<>(getThumbnailUrls()));
-        entity.setLastCommandLine(new ArrayList<>(getLastCommandLine()));
+        entity.setThumbnailUrls(thumbnailUrlsLoaded.get() ? new ArrayList<>(_thumbnailUrls) : null);
+        entity.setLastCommandLine(lastCommandLineLoaded.get() ? new ArrayList<>(_lastCommandLine) : null);
+
+        entity.setPlaylistItemUploadTimes(playlistItemUploadTimesLoaded.get()
+            ? toEpochMillis(_playlistItemUploadTimes) : null);
+
+        return entity;
+    }
 
-        entity.setErrorLog(getErrorLog().snapshotAsList());
-        entity.setDownloadLog(getDownloadLog().snapshotAsList());
+    private static ArrayList<String> toAbsolutePaths(Set<File> files) {
+        return files.stream()
+            .map(File::getAbsolutePath)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
 
+    private static Map<String, Long> toEpochMillis(Map<String, LocalDateTime> uploadTimes) {
         Map<String, Long> uploadTimesMillis = new HashMap<>();
-        getPlaylistItemUploadTimes().forEach((path, time) -> {
+        uploadTimes.forEach((path, time) -> {
             if (time != null) {
                 uploadTimesMillis.put(path, time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
             }
         });
-        entity.setPlaylistItemUploadTimes(uploadTimesMillis);
 
-        return entity;
+        return uploadTimesMillis;
     }
 
-    @SuppressWarnings("deprecation")
-    public static QueueEntry fromEntity(QueueEntryEntity entity, MediaCard mediaCard, List<AbstractDownloader> downloaders) {
+    /**
+     * Writes the whole entry the first time around, afterwards only what changed since.
+     *
+     * Log lines are appended either way.
+     */
+    @Override
+    @Nullable
+    public QueueEntryDelta createCheckpoint() {
+        QueueEntryDelta checkpoint;
+        if (!checkpointBaseline.isWritten()) {
+            QueueEntryEntity entity = toEntity();
+            checkpointBaseline.written(entity);
+
+            checkpoint = QueueEntryDelta.fullWrite(entity);
+        } else {
+            checkpoint = checkpointBaseline.diff(snapshotRow());
+            if (checkpoint == null) {
+                return null;
+            }
+        }
+
+        checkpoint.setErrorLog(errorLog.drain());
+        checkpoint.setDownloadLog(downloadLog.drain());
+
+        return checkpoint;
+    }
+
+    @Override
+    public void onCheckpointFailed(QueueEntryDelta checkpoint) {
+        checkpointBaseline.reset();
+
+        errorLog.restore(checkpoint.getErrorLog());
+        downloadLog.restore(checkpoint.getDownloadLog());
+    }
+
+    /**
+     * Rebuilds an entry from its columns, collections are loaded from the database on first access.
+     */
+    public static QueueEntry fromSummary(QueueEntrySummary summary, MediaCard mediaCard, List<AbstractDownloader> downloaders) {
         QueueEntry queueEntry = new QueueEntry(
             GDownloader.getInstance(),
             mediaCard,
-            entity.getFilterId(),
-            entity.getFilter(),
-            entity.getOriginalUrl(),
-            entity.getUrl(),
-            entity.getDownloadId(),
+            summary.getFilterId(),
+            summary.getFilter(),
+            summary.getOriginalUrl(),
+            summary.getUrl(),
+            summary.getDownloadId(),
             downloaders
         );
 
-        queueEntry.resetDownloaderBlacklist();
-        for (DownloaderIdEnum downloaderId : entity.getDownloaderBlacklist()) {
-            queueEntry.blackListDownloader(downloaderId);
-        }
+        queueEntry.downloaderBlacklistLoaded.set(false);
+        queueEntry.pendingFormatsLoaded.set(false);
+        queueEntry.finalMediaFilesLoaded.set(false);
+        queueEntry.errorLog.restored();
+        queueEntry.downloadLog.restored();
 
-//        if (entity.getMediaInfo() != null) {
-//            queueEntry.setMediaInfo(MediaInfo.fromEntity(entity.getMediaInfo()));
-//        }
-        queueEntry.setForcedDownloader(entity.getForcedDownloader());
-        queueEntry.setForcedFormatId(entity.getForcedFormatId());
-        for (String formatId : entity.getPendingFormats()) {
-            queueEntry.queueFormatForDownload(formatId);
-        }
+        queueEntry.setForcedDownloader(summary.getForcedDownloader());
+        queueEntry.setForcedFormatId(summary.getForcedFormatId());
 
-        queueEntry.setCurrentDownloader(entity.getCurrentDownloader());
-        queueEntry.setCurrentDownloadType(entity.getCurrentDownloadType());
-        queueEntry.setCurrentQueueCategory(entity.getCurrentQueueCategory());
+        queueEntry.setCurrentDownloader(summary.getCurrentDownloader());
+        queueEntry.setCurrentDownloadType(summary.getCurrentDownloadType());
+        queueEntry.setCurrentQueueCategory(summary.getCurrentQueueCategory());
         // Null checks are needed here because these fields are new
-        queueEntry.setDownloadPriority(entity.getCurrentDownloadPriority() != null
-            ? entity.getCurrentDownloadPriority() : DownloadPriorityEnum.NORMAL);
-        queueEntry.setCurrentSequence(entity.getCurrentDownloadSequence());
+        queueEntry.setDownloadPriority(summary.getCurrentDownloadPriority() != null
+            ? summary.getCurrentDownloadPriority() : DownloadPriorityEnum.NORMAL);
+        queueEntry.setCurrentSequence(summary.getCurrentDownloadSequence());
 
-        if (entity.getDownloadStatus() != null && entity.getLastStatusMessage() != null) {
-            queueEntry.updateStatusQuiet(entity.getDownloadStatus(), entity.getLastStatusMessage());
+        if (summary.getDownloadStatus() != null && summary.getLastStatusMessage() != null) {
+            queueEntry.updateStatusQuiet(summary.getDownloadStatus(), summary.getLastStatusMessage());
         }
 
-        queueEntry.getDownloadStarted().set(entity.isDownloadStarted());
-        queueEntry.getDownloadSkipped().set(entity.isDownloadSkipped());
-        //queueEntry.getCancelHook().set(entity.isCancelHook());
-        //queueEntry.getRunning().set(entity.isRunning());
-        queueEntry.getRetryCounter().set(entity.getRetryCounter());
-        queueEntry.getQueried().set(entity.isQueried());
+        queueEntry.getDownloadStarted().set(summary.isDownloadStarted());
+        queueEntry.getDownloadSkipped().set(summary.isDownloadSkipped());
+        queueEntry.getRetryCounter().set(summary.getRetryCounter());
+        queueEntry.getQueried().set(summary.isQueried());
 
-        if (entity.getTmpDirectoryPath() != null && !entity.getTmpDirectoryPath().isEmpty()) {
-            queueEntry.setTmpDirectory(new File(entity.getTmpDirectoryPath()));
+        if (summary.getTmpDirectoryPath() != null && !summary.getTmpDirectoryPath().isEmpty()) {
+            queueEntry.setTmpDirectory(new File(summary.getTmpDirectoryPath()));
         }
 
-        queueEntry.setCustomDownloadDirectory(entity.getCustomDownloadDirectory());
+        queueEntry.setCustomDownloadDirectory(summary.getCustomDownloadDirectory());
+        queueEntry.setResumeManifestPath(summary.getResumeManifestPath());
 
-        // Deprecated field, extract contents for migration.
-        for (String path : entity.getFinalMediaFilePaths()) {
-            queueEntry.getFinalMediaFiles().add(new File(path));
-        }
-
-        for (String path : entity.getMediaFilePaths()) {
-            queueEntry.getFinalMediaFiles().add(new File(path));
-        }
+        queueEntry.checkpointBaseline.restored(queueEntry.snapshotRow());
 
-//        queueEntry.getThumbnailUrls().clear();
-//        queueEntry.getThumbnailUrls().addAll(entity.getThumbnailUrls());
-//        queueEntry.setLastCommandLine(entity.getLastCommandLine());
-//
-//        queueEntry.getErrorLog().clear();
-//        queueEntry.getErrorLog().addAll(entity.getErrorLog());
-//
-//        queueEntry.getDownloadLog().clear();
-//        queueEntry.getDownloadLog().addAll(entity.getDownloadLog());
         return queueEntry;
     }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader;
+
+import jakarta.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import net.brlns.gdownloader.persistence.entity.LogTypeEnum;
+import net.brlns.gdownloader.persistence.repository.QueueEntryRepository;
+
+import static net.brlns.gdownloader.persistence.repository.QueueEntryRepository.MAX_LOG_LINES;
+
+/**
+ * One of the logs of a queue entry.
+ *
+ * New lines wait here until a checkpoint appends them to the database, reads combine the
+ * stored tail with whatever is still waiting. Without a database this is the only copy.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+final class QueueEntryLog {
+
+    private final LogTypeEnum logType;
+
+    // Oldest first, capped like the stored log.
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+
+    // Whether the database holds any line, null until looked up.
+    private Boolean stored = false;
+
+    QueueEntryLog(LogTypeEnum logTypeIn) {
+        logType = logTypeIn;
+    }
+
+    /**
+     * Restored entries may already have lines in the database.
+     */
+    synchronized void restored() {
+        stored = null;
+    }
+
+    synchronized void append(String line) {
+        pending.addLast(line);
+
+        if (pending.size() > MAX_LOG_LINES) {
+            pending.removeFirst();
+        }
+    }
+
+    /**
+     * Hands the waiting lines over to a checkpoint, null when there are none.
+     */
+    @Nullable
+    synchronized List<String> drain() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+
+        List<String> lines = new ArrayList<>(pending);
+        pending.clear();
+
+        stored = true;
+
+        return lines;
+    }
+
+    /**
+     * Puts back the lines of a checkpoint that failed, ahead of anything logged since.
+     */
+    synchronized void restore(@Nullable List<String> lines) {
+        if (lines == null) {
+            return;
+        }
+
+        for (int i = lines.size() - 1; i >= 0 && pending.size() < MAX_LOG_LINES; i--) {
+            pending.addFirst(lines.get(i));
+        }
+    }
+
+    boolean hasLines(@Nullable QueueEntryRepository repository, long downloadId) {
+        synchronized (this) {
+            if (!pending.isEmpty() || Boolean.TRUE.equals(stored)) {
+                return true;
+            }
+
+            if (stored != null || repository == null) {
+                return false;
+            }
+        }
+
+        boolean found = repository.hasLog(downloadId, logType);
+
+        synchronized (this) {
+            if (stored == null) {
+                stored = found;
+            }
+
+            return stored || !pending.isEmpty();
+        }
+    }
+
+    /**
+     * The latest lines, oldest first. A line logged more than once only shows at its latest position.
+     */
+    List<String> read(@Nullable QueueEntryRepository repository, long downloadId) {
+        // Copied before reading the database, lines written in between then show up in both.
+        List<String> unwritten;
+        boolean readStored;
+        synchronized (this) {
+            unwritten = new ArrayList<>(pending);
+            readStored = repository != null && !Boolean.FALSE.equals(stored);
+        }
+
+        LinkedHashSet<String> lines = new LinkedHashSet<>();
+        if (readStored) {
+            lines.addAll(repository.loadLogTail(downloadId, logType, MAX_LOG_LINES));
+        }
+
+        for (String line : unwritten) {
+            lines.remove(line);
+            lines.add(line);
+        }
+
+        return new ArrayList<>(lines);
+    }
+}
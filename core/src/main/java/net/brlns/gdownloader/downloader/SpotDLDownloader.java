@@ -18,14 +18,13 @@ package net.brlns.gdownloader.downloader;
 
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PreDestroy;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import lombok.Getter;
@@ -38,6 +37,7 @@ import net.brlns.gdownloader.downloader.enums.DownloaderIdEnum;
 import net.brlns.gdownloader.downloader.structs.DownloadResult;
 import net.brlns.gdownloader.filters.AbstractUrlFilter;
 import net.brlns.gdownloader.process.ProcessArguments;
+import net.brlns.gdownloader.process.ProcessOutputReader;
 import net.brlns.gdownloader.settings.downloader.SpotDLSettings;
 import net.brlns.gdownloader.util.CancelHook;
 import net.brlns.gdownloader.util.DirectoryUtils;
@@ -178,14 +178,6 @@ public class SpotDLDownloader extends AbstractDownloader {
         main.getFfmpegTranscoder().getFFmpegExecutable().ifPresent(ffmpeg
             -> genericArguments.add("--ffmpeg", ffmpeg));
 
-        YtDlpDownloader ytdlp = (YtDlpDownloader)main.getDownloadManager()
-            .getDownloader(DownloaderIdEnum.YT_DLP);
-        ytdlp.getDenoPath().ifPresent(deno -> {
-            genericArguments.add(
-                "--yt-dlp-args",
-                "--js-runtimes deno:" + deno.getAbsolutePath());
-        });
-
         genericArguments.addAll(filter.getArguments(this, ALL, manager, tmpPath, entry.getUrl()));
 
         boolean success = false;
@@ -316,47 +308,56 @@ public class SpotDLDownloader extends AbstractDownloader {
             finalArgs.add("--user-auth");
         }
 
+        // spotDL only accepts a single string of arguments for its yt-dlp backend.
+        List<String> ytDlpArgs = new ArrayList<>();
+
+        // Another --yt-dlp-args would replace the user's own, so theirs lead ours instead.
+        int userYtDlpArgs = finalArgs.lastIndexOf("--yt-dlp-args");
+        if (userYtDlpArgs >= 0 && userYtDlpArgs + 1 < finalArgs.size()) {
+            ytDlpArgs.add(finalArgs.remove(userYtDlpArgs + 1));
+            finalArgs.remove(userYtDlpArgs);
+        }
+
+        YtDlpDownloader ytdlp = (YtDlpDownloader)main.getDownloadManager()
+            .getDownloader(DownloaderIdEnum.YT_DLP);
+        ytdlp.getDenoPath().ifPresent(deno -> {
+            ytDlpArgs.add("--js-runtimes deno:" + deno.getAbsolutePath());
+        });
+
+        long rateLimit = getRateLimitBytesPerSecond(entry,
+            List.of(String.join(" ", ytDlpArgs).trim().split("\\s+")));
+        if (rateLimit > 0) {
+            ytDlpArgs.add("--limit-rate " + rateLimit);
+        }
+
+        if (!ytDlpArgs.isEmpty()) {
+            finalArgs.add("--yt-dlp-args");
+            finalArgs.add(String.join(" ", ytDlpArgs));
+        }
+
         finalArgs.add("download");
         finalArgs.add(finalUrl);
 
         entry.setLastCommandLine(finalArgs, true);
 
-        CancelHook cancelHook = entry.getCancelHook().derive(manager::isRunning, true);
+        CancelHook cancelHook = entry.getCancelHook().derive(manager.getStopHook());
         Process process = main.getProcessMonitor().startProcess(finalArgs, cancelHook);
         entry.setProcess(process);
 
-        String lastOutput = "";
-
-        boolean tainted = false;
+        AtomicBoolean tainted = new AtomicBoolean();
 
-        try (
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while (!cancelHook.get() && process.isAlive()) {
-                if (Thread.currentThread().isInterrupted()) {
-                    process.destroyForcibly();
-                    throw new InterruptedException("Download interrupted");
-                }
-
-                if (reader.ready()) {
-                    if ((line = reader.readLine()) != null) {
-                        lastOutput = truncateLine(line);
+        try {
+            ProcessOutputReader reader = startOutputReader(process, line -> {
+                String lastOutput = line.toString();
 
-                        processProgress(entry, lastOutput);
+                processProgress(entry, lastOutput);
 
-                        if (lastOutput.contains(" download error")) {
-                            tainted = true;
-                        }
-                    }
-                } else {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        log.debug("Sleep interrupted, closing process");
-                        process.destroyForcibly();
-                    }
+                if (lastOutput.contains(" download error")) {
+                    tainted.set(true);
                 }
-            }
+            });
+
+            int exitCode = reader.awaitExit();
 
             long stopped = System.currentTimeMillis() - start;
 
@@ -367,12 +368,11 @@ public class SpotDLDownloader extends AbstractDownloader {
 
                 return null;
             } else {
-                int exitCode = process.waitFor();
                 if (main.getConfig().isDebugMode()) {
                     log.debug("Download process took {}ms, exit code: {}", stopped, exitCode);
                 }
 
-                if (exitCode == 0 && tainted) {
+                if (exitCode == 0 && tainted.get()) {
                     // Under certain conditions, spotDL erroneously returns 0 even if all downloads have failed.
                     // e.g:
                     // AudioProviderError: YT-DLP download error - https://...
@@ -384,12 +384,8 @@ public class SpotDLDownloader extends AbstractDownloader {
                     log.warn("spotDL was unable to download some or all items.");
                 }
 
-                return new Pair<>(exitCode, lastOutput);
+                return new Pair<>(exitCode, reader.getLastLine());
             }
-        } catch (IOException e) {
-            log.info("IO error: {}", e.getMessage());
-
-            return null;
         } finally {
             entry.getDownloadStarted().set(false);
 
@@ -21,13 +21,6 @@ import jakarta.annotation.Nullable;
 import jakarta.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.CodingErrorAction;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -35,7 +28,8 @@ import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.Setter;
@@ -45,6 +39,7 @@ import net.brlns.gdownloader.downloader.enums.CloseReasonEnum;
 import net.brlns.gdownloader.downloader.enums.DownloadStatusEnum;
 import net.brlns.gdownloader.downloader.enums.DownloadTypeEnum;
 import net.brlns.gdownloader.downloader.enums.DownloaderIdEnum;
+import net.brlns.gdownloader.downloader.structs.DownloadProgress;
 import net.brlns.gdownloader.downloader.structs.DownloadResult;
 import net.brlns.gdownloader.downloader.structs.FormatInfo;
 import net.brlns.gdownloader.downloader.structs.MediaInfo;
@@ -52,6 +47,8 @@ import net.brlns.gdownloader.downloader.structs.PlaylistItemFileTime;
 import net.brlns.gdownloader.ffmpeg.enums.AudioBitrateEnum;
 import net.brlns.gdownloader.filters.AbstractUrlFilter;
 import net.brlns.gdownloader.process.ProcessArguments;
+import net.brlns.gdownloader.process.ProcessOutputReader;
+import net.brlns.gdownloader.process.ProgressLineScanner;
 import net.brlns.gdownloader.settings.QualitySettings;
 import net.brlns.gdownloader.settings.downloader.YtDlpSettings;
 import net.brlns.gdownloader.settings.enums.AudioContainerEnum;
@@ -67,6 +64,7 @@ import net.brlns.gdownloader.util.CancelHook;
 import net.brlns.gdownloader.util.DirectoryUtils;
 import net.brlns.gdownloader.util.FileUtils;
 import net.brlns.gdownloader.util.Pair;
+import net.brlns.gdownloader.util.StringUtils;
 import net.brlns.gdownloader.util.URLUtils;
 
 import static net.brlns.gdownloader.downloader.enums.DownloadFlagsEnum.*;
@@ -80,6 +78,9 @@ import static net.brlns.gdownloader.util.FileUtils.relativize;
 @Slf4j
 public class YtDlpDownloader extends AbstractDownloader {
 
+    private static final Duration METADATA_QUERY_TIMEOUT = Duration.ofMinutes(7);
+    private static final Duration METADATA_QUERY_TIMEOUT_PER_URL = Duration.ofSeconds(30);
+
     @Getter
     @Setter
     private Optional<File> executablePath = Optional.empty();
@@ -250,11 +251,33 @@ public class YtDlpDownloader extends AbstractDownloader {
 
     @Override
     protected boolean tryQueryMetadata(QueueEntry queueEntry) {
-        try {
-            if (!canConsumeUrl(queueEntry.getUrl())) {
-                return false;
+        AtomicBoolean queried = new AtomicBoolean();
+        tryQueryMetadataBatch(List.of(queueEntry), entry -> queried.set(true));
+
+        return queried.get();
+    }
+
+    @Override
+    protected boolean supportsBatchMetadataQuery() {
+        return true;
+    }
+
+    @Override
+    protected void tryQueryMetadataBatch(List<QueueEntry> entries, Consumer<QueueEntry> onQueried) {
+        List<QueueEntry> pending = new ArrayList<>();
+        for (QueueEntry entry : entries) {
+            if (canConsumeUrl(entry.getUrl())) {
+                pending.add(entry);
             }
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
 
+        int urlCount = pending.size();
+
+        try {
             long start = System.currentTimeMillis();
 
             ProcessArguments arguments = new ProcessArguments(
@@ -263,6 +286,11 @@ public class YtDlpDownloader extends AbstractDownloader {
                 "--flat-playlist",
                 "--playlist-items", "1");
 
+            if (urlCount > 1) {
+                // One bad url should not take the rest of the batch down with it.
+                arguments.add("--ignore-errors");
+            }
+
             String proxyUrl = main.getConfig().getProxySettings().createProxyUrl();
             if (proxyUrl != null) {
                 arguments.add("--proxy", proxyUrl);
@@ -290,40 +318,83 @@ public class YtDlpDownloader extends AbstractDownloader {
                 }
             }
 
-            arguments.add(queueEntry.getUrl());
+            for (QueueEntry entry : pending) {
+                arguments.add(entry.getUrl());
+            }
+
+            Duration timeout = METADATA_QUERY_TIMEOUT
+                .plus(METADATA_QUERY_TIMEOUT_PER_URL.multipliedBy(urlCount - 1));
+
+            // Each url prints its own json line, hand it over right away instead of waiting for the whole batch.
+            main.streamOutput(arguments, timeout, line -> {
+                if (!line.startsWith("{")) {
+                    return;
+                }
 
-            List<String> list = main.readOutput(arguments, Duration.ofMinutes(7));
+                try {
+                    JsonNode node = GDownloader.OBJECT_MAPPER.readTree(line);
+
+                    QueueEntry entry = takePendingEntry(pending, node);
+                    if (entry == null) {
+                        log.debug("Dropping metadata that matches no pending url: {}", node.path("webpage_url").asText());
+                        return;
+                    }
+
+                    MediaInfo info = GDownloader.OBJECT_MAPPER.treeToValue(node, MediaInfo.class);
+                    if (info == null) {
+                        return;
+                    }
+
+                    manager.getMetadataManager().augmentThumbnailIfMissing(info, entry.getUrl());
+
+                    entry.setMediaInfo(info);
+
+                    onQueried.accept(entry);
+                } catch (Exception e) {
+                    log.error("Failed to parse json, yt-dlp returned malformed data: {}", e.getMessage());
+                }
+            });
 
             if (log.isDebugEnabled()) {
                 long what = System.currentTimeMillis() - start;
                 double on = 1000L * 365.25 * 24 * 60 * 60 * 1000;
                 double earth = (what / on) * 100;
 
-                log.info("The slow as molasses 'yt-dlp --dump-json' took {}ms, jesus man! that's about {}% of a millenium",
-                    what, String.format("%.12f", earth));
+                log.info("The slow as molasses 'yt-dlp --dump-json' took {}ms for {} url(s), jesus man! that's about {}% of a millenium",
+                    what, urlCount, String.format("%.12f", earth));
             }
+        } catch (Exception e) {
+            log.error("Failed to query metadata for {} url(s)", urlCount, e);
+        }
+    }
 
-            for (String line : list) {
-                if (!line.startsWith("{")) {
-                    continue;
-                }
-
-                MediaInfo info = GDownloader.OBJECT_MAPPER.readValue(line, MediaInfo.class);
-                if (info == null) {
-                    return false;
-                }
-
-                manager.getMetadataManager().augmentThumbnailIfMissing(info, queueEntry.getUrl());
+    /**
+     * Finds the entry a --dump-json line belongs to by the urls yt-dlp reports for it.
+     *
+     * Items that fail or get skipped print nothing, so lines cannot be matched by position.
+     *
+     * @return the matching entry, removed from {@code pending}, or null if none matches.
+     */
+    @Nullable
+    public static QueueEntry takePendingEntry(List<QueueEntry> pending, JsonNode node) {
+        for (String field : List.of("original_url", "playlist_webpage_url", "webpage_url")) {
+            String url = node.path(field).asText("");
+            if (url.isEmpty()) {
+                continue;
+            }
 
-                queueEntry.setMediaInfo(info);
+            Iterator<QueueEntry> iterator = pending.iterator();
+            while (iterator.hasNext()) {
+                QueueEntry entry = iterator.next();
+                if (entry.getUrl().equals(url)) {
+                    iterator.remove();
 
-                return true;
+                    return entry;
+                }
             }
-        } catch (Exception e) {
-            log.error("Failed to parse json, yt-dlp returned malformed data for url {}", queueEntry.getUrl(), e);
         }
 
-        return false;
+        return null;
     }
 
     @Override
@@ -662,87 +733,51 @@ public class YtDlpDownloader extends AbstractDownloader {
         }
     }
 
-    // TODO: pass a record instead
-    private String consumeOutputChunk(QueueEntry entry, ByteBuffer byteBuffer, CharBuffer charBuffer,
-        CharsetDecoder decoder, StringBuilder output, AtomicReference<Character> prevChar, String previousLastOutput) {
-        String lastOutput = previousLastOutput;
-
-        byteBuffer.flip();
-        charBuffer.clear();
-        decoder.decode(byteBuffer, charBuffer, false);
-        charBuffer.flip();
-
-        while (charBuffer.hasRemaining()) {
-            char ch = charBuffer.get();
-            output.append(ch);
-
-            if (ch == '\n' || (ch == '\r' && prevChar.get() != '\n')) {
-                String completedLine = output.toString().replace("\n", "");
-                output.setLength(0);
-
-                if (completedLine.startsWith(PlaylistItemFileTime.MARKER)) {
-                    capturePlaylistItemFileTime(entry, completedLine);
-                }
-
-                lastOutput = truncateLine(completedLine);
-            }
-
-            prevChar.set(ch);
-        }
-
-        byteBuffer.compact();
-
-        return lastOutput;
-    }
-
     @Nullable
     private Pair<Integer, String> processDownload(QueueEntry entry, List<String> arguments) throws Exception {
         long start = System.currentTimeMillis();
 
         List<String> finalArgs = new ArrayList<>(arguments);
+
+        long rateLimit = getRateLimitBytesPerSecond(entry, arguments);
+        if (rateLimit > 0) {
+            finalArgs.add("--limit-rate");
+            finalArgs.add(String.valueOf(rateLimit));
+        }
+
+        // Progress comes back as JSON records instead of text we would have to scrape.
+        // A template of the user's own is left alone, its output goes through the text scanner.
+        if (!hasProgressTemplate(arguments)) {
+            finalArgs.add("--progress-template");
+            finalArgs.add(DownloadProgress.PROGRESS_TEMPLATE);
+        }
+
         finalArgs.add(entry.getUrl());
 
         entry.setLastCommandLine(finalArgs, true);
 
-        CancelHook cancelHook = entry.getCancelHook().derive(manager::isRunning, true);
+        CancelHook cancelHook = entry.getCancelHook().derive(manager.getStopHook());
         Process process = main.getProcessMonitor().startProcess(finalArgs, cancelHook);
         entry.setProcess(process);
 
-        String lastOutput = "";
+        ProgressLineScanner progress = new ProgressLineScanner();
 
-        try (
-            ReadableByteChannel stdInput = Channels.newChannel(process.getInputStream())) {
-            ByteBuffer byteBuffer = ByteBuffer.allocate(4096);
-            CharBuffer charBuffer = CharBuffer.allocate(4096);
-
-            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
-                .onMalformedInput(CodingErrorAction.REPLACE)
-                .onUnmappableCharacter(CodingErrorAction.REPLACE);
-
-            StringBuilder output = new StringBuilder();
-            AtomicReference<Character> prevChar = new AtomicReference<>('\0');
-
-            while (!cancelHook.get() && process.isAlive()) {
-                if (Thread.currentThread().isInterrupted()) {
-                    log.debug("Process is closing");
-                    process.destroyForcibly();
-                    throw new InterruptedException("Download interrupted");
+        try {
+            ProcessOutputReader reader = startOutputReader(process, line -> {
+                if (StringUtils.startsWith(line, PlaylistItemFileTime.MARKER)) {
+                    capturePlaylistItemFileTime(entry, line.toString());
+                    return;
                 }
 
-                int bytesRead = stdInput.read(byteBuffer);
-                if (bytesRead > 0) {
-                    lastOutput = consumeOutputChunk(entry, byteBuffer, charBuffer, decoder, output, prevChar, lastOutput);
-
-                    processProgress(entry, lastOutput);
+                if (StringUtils.startsWith(line, DownloadProgress.MARKER)) {
+                    processProgressRecord(entry, line.toString());
+                    return;
                 }
 
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    log.debug("Sleep interrupted, closing process");
-                    process.destroyForcibly();
-                }
-            }
+                processProgress(entry, line, progress);
+            });
+
+            int exitCode = reader.awaitExit();
 
             long stopped = System.currentTimeMillis() - start;
 
@@ -753,30 +788,75 @@ public class YtDlpDownloader extends AbstractDownloader {
 
                 return null;
             } else {
-                int exitCode = process.waitFor();
                 if (log.isDebugEnabled()) {
                     log.debug("Download process took {}ms, exit code: {}", stopped, exitCode);
                 }
 
-                return new Pair<>(exitCode, lastOutput);
+                return new Pair<>(exitCode, reader.getLastLine());
             }
-        } catch (IOException e) {
-            log.info("IO error: {}", e.getMessage());
-
-            return null;
         } finally {
             entry.getDownloadStarted().set(false);
+            entry.getTransferProgress().set(null);
 
             // Our ProcessMonitor will take care of closing the underlying process.
         }
     }
 
-    private void processProgress(QueueEntry entry, String lastOutput) {
-        if (lastOutput.startsWith(PlaylistItemFileTime.MARKER)) {
+    private static boolean hasProgressTemplate(List<String> arguments) {
+        for (String argument : arguments) {
+            if (argument.equals("--progress-template") || argument.startsWith("--progress-template=")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void processProgressRecord(QueueEntry entry, String line) {
+        DownloadProgress progress = DownloadProgress.parse(line);
+        if (progress == null) {
             return;
         }
 
-        double lastPercentage = entry.getMediaCard().getPercentage();
+        entry.getTransferProgress().set(progress);
+
+        double percent = progress.getPercentage();
+        if (percent >= 0) {
+            double lastPercentage = entry.getMediaCard().getPercentage();
+
+            if (percent > lastPercentage || percent < 5
+                || Math.abs(percent - lastPercentage) > 10) {
+                entry.getMediaCard().setPercentage(percent);
+            }
+        } else {
+            entry.getMediaCard().setPercentage(-1);
+        }
+
+        String statusText = progress.getDefaultTemplate();
+        if (statusText == null || statusText.isBlank()) {
+            statusText = StringUtils.formatPercent(Math.max(0, percent)) + "%";
+        }
+
+        entry.updateStatus(DownloadStatusEnum.DOWNLOADING, statusText.trim(), false);
+    }
+
+    private void processProgress(QueueEntry entry, CharSequence line, ProgressLineScanner progress) {
+        // Progress lines make up nearly all of the output, so they are read in place.
+        if (progress.scan(line)) {
+            double percent = progress.getPercent();
+            double lastPercentage = entry.getMediaCard().getPercentage();
+
+            if (percent > lastPercentage || percent < 5
+                || Math.abs(percent - lastPercentage) > 10) {
+                entry.getMediaCard().setPercentage(percent);
+            }
+
+            entry.updateStatus(DownloadStatusEnum.DOWNLOADING,
+                line.subSequence(progress.getMessageStart(), line.length()).toString(), false);
+            return;
+        }
+
+        String lastOutput = line.toString();
 
         if (isRateLimitWarning(lastOutput)) {
             entry.markRateLimited();
@@ -788,18 +868,6 @@ public class YtDlpDownloader extends AbstractDownloader {
         }
 
         if (lastOutput.contains("[download]") && !lastOutput.contains("Destination:")) {
-            String[] parts = lastOutput.split("\\s+");
-            for (String part : parts) {
-                if (part.endsWith("%")) {
-                    double percent = Double.parseDouble(part.replace("%", ""));
-                    if (percent > lastPercentage || percent < 5
-                        || Math.abs(percent - lastPercentage) > 10) {
-                        entry.getMediaCard().setPercentage(percent);
-                        lastPercentage = percent;
-                    }
-                }
-            }
-
             entry.updateStatus(DownloadStatusEnum.DOWNLOADING, lastOutput.replace("[download] ", ""), false);
         } else {
             if (log.isDebugEnabled()) {
@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.extractors;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.GDownloader;
+import net.brlns.gdownloader.downloader.extractors.OEmbedProviders.Endpoint;
+import net.brlns.gdownloader.downloader.extractors.OEmbedProviders.Provider;
+
+/**
+ * Host-keyed lookup table over every scheme of the oEmbed provider list.
+ *
+ * A lookup only tests the handful of schemes registered for the URL's host, its parent domains
+ * (for {@code *.example.com} style schemes) and the few schemes without a usable host, and each
+ * scheme's pattern is compiled once, the first time it is needed.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public class OEmbedProviderIndex {
+
+    private static final int INDEX_VERSION = 1;
+
+    private static final String WILDCARD_SUBDOMAIN = "*.";
+
+    private final String sourceHash;
+
+    private final List<ProviderScheme> schemes;
+
+    private final Map<String, int[]> exactHosts;
+    private final Map<String, int[]> wildcardHosts;
+    private final int[] unkeyed;
+
+    private OEmbedProviderIndex(String sourceHashIn, List<ProviderScheme> schemesIn,
+        Map<String, int[]> exactHostsIn, Map<String, int[]> wildcardHostsIn, int[] unkeyedIn) {
+        sourceHash = sourceHashIn;
+        schemes = schemesIn;
+        exactHosts = exactHostsIn;
+        wildcardHosts = wildcardHostsIn;
+        unkeyed = unkeyedIn;
+    }
+
+    public static OEmbedProviderIndex empty() {
+        return new OEmbedProviderIndex("", Collections.emptyList(),
+            Collections.emptyMap(), Collections.emptyMap(), new int[0]);
+    }
+
+    /**
+     * Indexes the providers, {@code sourceHash} identifies the provider list this index was built from.
+     */
+    public static OEmbedProviderIndex build(List<Provider> providers, String sourceHash) {
+        List<ProviderScheme> schemes = flatten(providers);
+
+        Map<String, List<Integer>> exactHosts = new HashMap<>();
+        Map<String, List<Integer>> wildcardHosts = new HashMap<>();
+        List<Integer> unkeyed = new ArrayList<>();
+
+        for (int i = 0; i < schemes.size(); i++) {
+            String host = extractHost(schemes.get(i).getScheme());
+
+            if (host == null) {
+                unkeyed.add(i);
+            } else if (host.startsWith(WILDCARD_SUBDOMAIN)
+                && host.indexOf('*', WILDCARD_SUBDOMAIN.length()) == -1) {
+                wildcardHosts.computeIfAbsent(host.substring(WILDCARD_SUBDOMAIN.length()),
+                    k -> new ArrayList<>()).add(i);
+            } else if (host.indexOf('*') == -1) {
+                exactHosts.computeIfAbsent(host, k -> new ArrayList<>()).add(i);
+            } else {
+                unkeyed.add(i);
+            }
+        }
+
+        return new OEmbedProviderIndex(sourceHash, schemes,
+            toArrays(exactHosts), toArrays(wildcardHosts), toArray(unkeyed));
+    }
+
+    /**
+     * @return the first scheme, in provider list order, that matches the URL.
+     */
+    public Optional<ProviderScheme> find(String url) {
+        String host = extractHost(url);
+
+        int[] candidates = unkeyed;
+        if (host != null) {
+            candidates = merge(candidates, exactHosts.get(host));
+
+            int dot = host.indexOf('.');
+            while (dot != -1) {
+                candidates = merge(candidates, wildcardHosts.get(host.substring(dot + 1)));
+                dot = host.indexOf('.', dot + 1);
+            }
+        }
+
+        for (int ordinal : candidates) {
+            ProviderScheme scheme = schemes.get(ordinal);
+            if (scheme.matches(url)) {
+                return Optional.of(scheme);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    public int size() {
+        return schemes.size();
+    }
+
+    /**
+     * Loads a previously saved index, provided it was built from the same provider list.
+     */
+    public static Optional<OEmbedProviderIndex> load(Path path, List<Provider> providers, String sourceHash) {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        try {
+            IndexData data = GDownloader.OBJECT_MAPPER.readValue(path.toFile(), IndexData.class);
+
+            List<ProviderScheme> schemes = flatten(providers);
+            if (data.getVersion() != INDEX_VERSION
+                || !Objects.equals(data.getSourceHash(), sourceHash)
+                || data.getSchemeCount() != schemes.size()) {
+                log.debug("oEmbed provider index {} is stale", path);
+
+                return Optional.empty();
+            }
+
+            Map<String, int[]> exactHosts = toArrays(data.getExactHosts());
+            Map<String, int[]> wildcardHosts = toArrays(data.getWildcardHosts());
+            int[] unkeyed = toArray(data.getUnkeyed());
+
+            for (int[] ordinals : exactHosts.values()) {
+                checkBounds(ordinals, schemes.size());
+            }
+
+            for (int[] ordinals : wildcardHosts.values()) {
+                checkBounds(ordinals, schemes.size());
+            }
+
+            checkBounds(unkeyed, schemes.size());
+
+            return Optional.of(new OEmbedProviderIndex(sourceHash, schemes, exactHosts, wildcardHosts, unkeyed));
+        } catch (Exception e) {
+            log.warn("Failed to read oEmbed provider index {}: {}", path, e.getMessage());
+
+            return Optional.empty();
+        }
+    }
+
+    public void save(Path path) {
+        IndexData data = new IndexData();
+        data.setVersion(INDEX_VERSION);
+        data.setSourceHash(sourceHash);
+        data.setSchemeCount(schemes.size());
+        data.setExactHosts(toLists(exactHosts));
+        data.setWildcardHosts(toLists(wildcardHosts));
+        data.setUnkeyed(toList(unkeyed));
+
+        try {
+            Files.createDirectories(path.getParent());
+            GDownloader.OBJECT_MAPPER.writeValue(path.toFile(), data);
+
+            log.debug("Saved oEmbed provider index to {}", path);
+        } catch (IOException e) {
+            log.error("Failed to save oEmbed provider index", e);
+        }
+    }
+
+    /**
+     * Lowercase authority of a URL or scheme, or null if it has none.
+     */
+    @Nullable
+    private static String extractHost(String url) {
+        int start = url.indexOf("://");
+        if (start == -1) {
+            return null;
+        }
+
+        start += 3;
+
+        int end = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+
+            end++;
+        }
+
+        if (end == start) {
+            return null;
+        }
+
+        return url.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static List<ProviderScheme> flatten(List<Provider> providers) {
+        List<ProviderScheme> schemes = new ArrayList<>();
+        for (Provider provider : providers) {
+            for (Endpoint endpoint : provider.getEndpoints()) {
+                for (String scheme : endpoint.getSchemes()) {
+                    schemes.add(new ProviderScheme(provider, endpoint, scheme));
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(schemes);
+    }
+
+    private static int[] merge(int[] first, @Nullable int[] second) {
+        if (second == null || second.length == 0) {
+            return first;
+        }
+
+        if (first.length == 0) {
+            return second;
+        }
+
+        // Both sides are sorted, keeping the result sorted preserves provider list precedence.
+        int[] merged = new int[first.length + second.length];
+
+        int i = 0, j = 0, k = 0;
+        while (i < first.length && j < second.length) {
+            merged[k++] = first[i] <= second[j] ? first[i++] : second[j++];
+        }
+
+        while (i < first.length) {
+            merged[k++] = first[i++];
+        }
+
+        while (j < second.length) {
+            merged[k++] = second[j++];
+        }
+
+        return merged;
+    }
+
+    private static void checkBounds(int[] ordinals, int size) throws IOException {
+        for (int i = 0; i < ordinals.length; i++) {
+            if (ordinals[i] < 0 || ordinals[i] >= size || (i > 0 && ordinals[i] <= ordinals[i - 1])) {
+                throw new IOException("Invalid scheme ordinal: " + ordinals[i]);
+            }
+        }
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> map) {
+        Map<String, int[]> result = new HashMap<>(map.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : map.entrySet()) {
+            result.put(entry.getKey(), toArray(entry.getValue()));
+        }
+
+        return result;
+    }
+
+    private static Map<String, List<Integer>> toLists(Map<String, int[]> map) {
+        Map<String, List<Integer>> result = new HashMap<>(map.size() * 2);
+        for (Map.Entry<String, int[]> entry : map.entrySet()) {
+            result.put(entry.getKey(), toList(entry.getValue()));
+        }
+
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<Integer> toList(int[] array) {
+        List<Integer> list = new ArrayList<>(array.length);
+        for (int value : array) {
+            list.add(value);
+        }
+
+        return list;
+    }
+
+    public static final class ProviderScheme {
+
+        @Getter
+        private final Provider provider;
+
+        @Getter
+        private final Endpoint endpoint;
+
+        @Getter
+        private final String scheme;
+
+        private volatile Pattern pattern;
+
+        private ProviderScheme(Provider providerIn, Endpoint endpointIn, String schemeIn) {
+            provider = providerIn;
+            endpoint = endpointIn;
+            scheme = schemeIn;
+        }
+
+        public boolean matches(String url) {
+            Pattern compiled = pattern;
+            if (compiled == null) {
+                // Racing threads compile the same pattern, which is harmless.
+                compiled = Pattern.compile(schemeToRegex(scheme));
+                pattern = compiled;
+            }
+
+            return compiled.matcher(url).matches();
+        }
+
+        private static String schemeToRegex(String scheme) {
+            return "^" + Pattern.quote(scheme)
+                .replace("*", "\\E.*\\Q")
+                .replace("\\Q\\E", "") + "$";
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class IndexData {
+
+        @JsonProperty("Version")
+        private int version;
+
+        @JsonProperty("SourceHash")
+        private String sourceHash;
+
+        @JsonProperty("SchemeCount")
+        private int schemeCount;
+
+        @JsonProperty("ExactHosts")
+        private Map<String, List<Integer>> exactHosts = new HashMap<>();
+
+        @JsonProperty("WildcardHosts")
+        private Map<String, List<Integer>> wildcardHosts = new HashMap<>();
+
+        @JsonProperty("Unkeyed")
+        private List<Integer> unkeyed = new ArrayList<>();
+    }
+}
@@ -39,6 +39,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.GDownloader;
+import net.brlns.gdownloader.util.StringUtils;
 import net.brlns.gdownloader.util.URLUtils;
 
 /**
@@ -50,6 +51,7 @@ public class OEmbedProviders {
     private static final String PROVIDERS_URL = "https://oembed.com/providers.json";
 
     private final AtomicReference<List<Provider>> providers = new AtomicReference<>(Collections.emptyList());
+    private final AtomicReference<OEmbedProviderIndex> index = new AtomicReference<>(OEmbedProviderIndex.empty());
 
     private final AtomicBoolean initialized = new AtomicBoolean();
 
@@ -65,6 +67,18 @@ public class OEmbedProviders {
     }
 
     public List<Provider> getProviders() {
+        awaitLoaded();
+
+        return providers.get();
+    }
+
+    public OEmbedProviderIndex getIndex() {
+        awaitLoaded();
+
+        return index.get();
+    }
+
+    private void awaitLoaded() {
         try {
             loadedSignal.get(5, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
@@ -72,8 +86,6 @@ public class OEmbedProviders {
         } catch (Exception e) {
             log.debug("Error waiting for oEmbed providers to load: {}", e.toString());
         }
-
-        return providers.get();
     }
 
     private void loadProviders() {
@@ -105,6 +117,7 @@ public class OEmbedProviders {
                     providers.set(Collections.unmodifiableList(loadedProviders));
 
                     saveProvidersToCache(response.body());
+                    updateIndex(loadedProviders, response.body());
 
                     log.info("Loaded {} oEmbed providers", loadedProviders.size());
                     return;
@@ -154,6 +167,7 @@ public class OEmbedProviders {
                     List.class, Provider.class));
 
             providers.set(Collections.unmodifiableList(cachedProviders));
+            updateIndex(cachedProviders, fileContent);
 
             log.info("Loaded {} oEmbed providers from cache", cachedProviders.size());
 
@@ -165,6 +179,27 @@ public class OEmbedProviders {
         }
     }
 
+    private void updateIndex(List<Provider> loadedProviders, String providersJson) {
+        String sourceHash = StringUtils.calculateSHA256(providersJson);
+        Path indexPath = getIndexCachePath();
+
+        OEmbedProviderIndex providerIndex = OEmbedProviderIndex.load(indexPath, loadedProviders, sourceHash)
+            .orElse(null);
+
+        if (providerIndex == null) {
+            providerIndex = OEmbedProviderIndex.build(loadedProviders, sourceHash);
+            providerIndex.save(indexPath);
+        }
+
+        index.set(providerIndex);
+
+        log.debug("Indexed {} oEmbed provider schemes", providerIndex.size());
+    }
+
+    private Path getIndexCachePath() {
+        return Path.of(GDownloader.getWorkDirectory().getAbsolutePath(), "oembed_providers.index.json");
+    }
+
     private Path getProvidersCachePath() {
         return Path.of(GDownloader.getWorkDirectory().getAbsolutePath(), "oembed_providers.json");
     }
@@ -19,10 +19,10 @@ package net.brlns.gdownloader.downloader.hosts;
 import jakarta.annotation.Nullable;
 import java.net.http.HttpClient;
 import java.time.Duration;
-import java.util.function.Supplier;
 import lombok.Builder;
 import lombok.Value;
 import net.brlns.gdownloader.settings.downloader.HostResolverSettings;
+import net.brlns.gdownloader.util.CancelHook;
 
 /**
  * @author Gabriel / hstr0100 / vertx010
@@ -40,13 +40,14 @@ public class HostResolverContext {
     @Nullable
     private final String password;
 
-    private final Supplier<Boolean> cancelHook;
+    @Builder.Default
+    private final CancelHook cancelHook = new CancelHook();
 
     @Nullable
     private final StatusListener statusListener;
 
     public boolean isCancelled() {
-        return cancelHook != null && cancelHook.get();
+        return cancelHook.get();
     }
 
     public void notifyStatus(String translationKey, Object... args) {
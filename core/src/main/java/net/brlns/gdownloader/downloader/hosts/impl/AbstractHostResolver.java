@@ -26,11 +26,15 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.GDownloader;
 import net.brlns.gdownloader.downloader.hosts.HostResolverContext;
 import net.brlns.gdownloader.downloader.hosts.HostResolverException;
 import net.brlns.gdownloader.downloader.hosts.IHostResolver;
+import net.brlns.gdownloader.util.CancelHook;
 import net.brlns.gdownloader.util.URLUtils;
 
 /**
@@ -101,8 +105,7 @@ public abstract class AbstractHostResolver implements IHostResolver {
 
     protected HttpResponse<String> send(HostResolverContext context, HttpRequest request) throws HostResolverException {
         try {
-            return context.getHttpClient().send(request,
-                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            return exchange(context, request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
         } catch (IOException e) {
             throw new HostResolverException(
                 "Network error contacting " + request.uri().getHost() + ": " + e.getMessage(), true, e);
@@ -114,6 +117,38 @@ public abstract class AbstractHostResolver implements IHostResolver {
         }
     }
 
+    /**
+     * Sends through the shared client, aborting the exchange as soon as the download is cancelled.
+     */
+    private <T> HttpResponse<T> exchange(HostResolverContext context, HttpRequest request,
+        HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException, HostResolverException {
+
+        CompletableFuture<HttpResponse<T>> future = context.getHttpClient().sendAsync(request, handler);
+
+        try (CancelHook.Registration registration = context.getCancelHook().onCancel(() -> future.cancel(true))) {
+            return future.get();
+        } catch (CancellationException e) {
+            throw new HostResolverException(
+                "Cancelled", false);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+
+            throw e;
+        } catch (ExecutionException e) {
+            // The client fails a cancelled exchange with an IOException of its own.
+            if (context.isCancelled()) {
+                throw new HostResolverException(
+                    "Cancelled", false);
+            }
+
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+
+            throw new IOException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e.getCause());
+        }
+    }
+
     protected HttpRequest.Builder newRequestBuilder(URI uri, Duration timeout) {
         return HttpRequest.newBuilder()
             .uri(uri)
@@ -123,7 +158,7 @@ public abstract class AbstractHostResolver implements IHostResolver {
 
     protected HttpResponse<String> sendSniffingRequest(HostResolverContext context, HttpRequest request) throws HostResolverException {
         try {
-            return context.getHttpClient().send(request, HTML_SNIFFING_HANDLER);
+            return exchange(context, request, HTML_SNIFFING_HANDLER);
         } catch (IOException e) {
             throw new HostResolverException(
                 "Network error contacting " + request.uri().getHost() + ": " + e.getMessage(), true, e);
@@ -146,7 +181,7 @@ public abstract class AbstractHostResolver implements IHostResolver {
         HttpRequest request = builder.build();
 
         try {
-            return context.getHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return exchange(context, request, HttpResponse.BodyHandlers.discarding()).statusCode();
         } catch (IOException e) {
             throw new HostResolverException(
                 "Network error contacting " + uri.getHost() + ": " + e.getMessage(), true, e);
@@ -164,7 +199,7 @@ public abstract class AbstractHostResolver implements IHostResolver {
             .build();
 
         try {
-            return context.getHttpClient().send(request, HttpResponse.BodyHandlers.discarding()).uri();
+            return exchange(context, request, HttpResponse.BodyHandlers.discarding()).uri();
         } catch (IOException e) {
             throw new HostResolverException(
                 "Network error resolving redirect for " + uri.getHost() + ": " + e.getMessage(), true, e);
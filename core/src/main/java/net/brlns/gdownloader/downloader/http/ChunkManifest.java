@@ -0,0 +1,444 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.GDownloader;
+
+/**
+ * Sidecar file tracking how far each byte range of a chunked download has been written.
+ *
+ * The manifest lives next to the file being downloaded and is rewritten every few megabytes,
+ * so that a crash, a restart or a fallback does not discard data that already made it to disk.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public class ChunkManifest {
+
+    public static final String MANIFEST_SUFFIX = ".gdpart";
+
+    private static final int MANIFEST_VERSION = 1;
+    private static final long FLUSH_INTERVAL_BYTES = 4L * 1024 * 1024;// 4MB
+
+    @Getter
+    private final File manifestFile;
+
+    @Getter
+    private final long totalBytes;
+
+    @Nullable
+    private final String validator;
+
+    private final List<Range> ranges = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong bytesSinceFlush = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private volatile boolean discarded;
+
+    private ChunkManifest(File manifestFileIn, long totalBytesIn, @Nullable String validatorIn) {
+        manifestFile = manifestFileIn;
+        totalBytes = totalBytesIn;
+        validator = validatorIn;
+    }
+
+    public static File getManifestFile(File targetFile) {
+        return new File(targetFile.getParentFile(), targetFile.getName() + MANIFEST_SUFFIX);
+    }
+
+    public static boolean isManifestFile(Path path) {
+        String fileName = path.getFileName().toString();
+
+        return fileName.endsWith(MANIFEST_SUFFIX) || fileName.endsWith(MANIFEST_SUFFIX + ".tmp");
+    }
+
+    /**
+     * Creates a fresh manifest covering the supplied {start, end} ranges and flushes it immediately.
+     */
+    public static ChunkManifest create(File targetFile, long totalBytes,
+        @Nullable String validator, List<long[]> plannedRanges) {
+        ChunkManifest manifest = new ChunkManifest(getManifestFile(targetFile), totalBytes, validator);
+
+        for (long[] planned : plannedRanges) {
+            manifest.ranges.add(new Range(planned[0], planned[1], planned[0]));
+        }
+
+        manifest.flush();
+
+        return manifest;
+    }
+
+    /**
+     * Loads a previously written manifest, provided it still describes the same remote file.
+     */
+    public static Optional<ChunkManifest> load(File targetFile, long totalBytes, @Nullable String validator) {
+        File manifestFile = getManifestFile(targetFile);
+        if (!manifestFile.exists()) {
+            return Optional.empty();
+        }
+
+        if (!targetFile.exists()) {
+            log.debug("Orphaned manifest found, discarding: {}", manifestFile);
+            deleteQuietly(manifestFile);
+
+            return Optional.empty();
+        }
+
+        try {
+            ManifestData data = GDownloader.OBJECT_MAPPER.readValue(manifestFile, ManifestData.class);
+
+            if (data.getVersion() != MANIFEST_VERSION
+                || data.getTotalBytes() != totalBytes
+                || !Objects.equals(data.getValidator(), validator)) {
+                log.info("Manifest {} no longer matches the remote file, discarding", manifestFile);
+                deleteQuietly(manifestFile);
+
+                return Optional.empty();
+            }
+
+            List<RangeData> rangeData = new ArrayList<>(data.getRanges());
+            rangeData.sort((r1, r2) -> Long.compare(r1.getStart(), r2.getStart()));
+
+            ChunkManifest manifest = new ChunkManifest(manifestFile, totalBytes, validator);
+
+            // Ranges may have been split any number of times, but together they must still tile the whole file.
+            long expectedStart = 0;
+            for (RangeData range : rangeData) {
+                long start = range.getStart();
+                long end = range.getEnd();
+
+                if (start != expectedStart || end >= totalBytes || start > end) {
+                    throw new IOException("Invalid range in manifest: " + start + "-" + end);
+                }
+
+                long committed = Math.clamp(range.getCommitted(), start, end + 1);
+                manifest.ranges.add(new Range(start, end, committed));
+
+                expectedStart = end + 1;
+            }
+
+            if (expectedStart != totalBytes) {
+                throw new IOException("Manifest ranges do not cover the whole file");
+            }
+
+            return Optional.of(manifest);
+        } catch (Exception e) {
+            log.warn("Failed to read chunk manifest {}: {}", manifestFile, e.getMessage());
+            deleteQuietly(manifestFile);
+
+            return Optional.empty();
+        }
+    }
+
+    public List<Range> getRanges() {
+        return new ArrayList<>(ranges);
+    }
+
+    public List<Range> getPendingRanges() {
+        List<Range> pending = new ArrayList<>();
+        for (Range range : ranges) {
+            if (!range.isComplete()) {
+                pending.add(range);
+            }
+        }
+
+        return pending;
+    }
+
+    public long getCommittedBytes() {
+        long committed = 0;
+        for (Range range : ranges) {
+            committed += range.getCommittedBytes();
+        }
+
+        return committed;
+    }
+
+    public boolean isComplete() {
+        return getCommittedBytes() >= totalBytes;
+    }
+
+    /**
+     * Length of the data written without gaps from the beginning of the file.
+     */
+    public long getContiguousPrefixBytes() {
+        List<Range> sorted = getRanges();
+        sorted.sort((r1, r2) -> Long.compare(r1.getStart(), r2.getStart()));
+
+        long prefix = 0;
+        for (Range range : sorted) {
+            if (range.getStart() != prefix) {
+                break;
+            }
+
+            prefix = range.getCommitted();
+            if (!range.isComplete()) {
+                break;
+            }
+        }
+
+        return prefix;
+    }
+
+    /**
+     * Records bytes that were just written to disk at the current commit offset of the given range.
+     */
+    public void commit(Range range, long bytes) {
+        range.committed.addAndGet(bytes);
+
+        if (bytesSinceFlush.addAndGet(bytes) >= FLUSH_INTERVAL_BYTES) {
+            // Whoever gets the lock flushes, everyone else keeps writing.
+            if (flushLock.tryLock()) {
+                try {
+                    bytesSinceFlush.set(0);
+                    writeLocked();
+                } finally {
+                    flushLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the back half of a range's unclaimed bytes over to a new range.
+     *
+     * The split happens under the flush lock, so a manifest on disk never loses track of the moved bytes.
+     *
+     * @return the new range, or null if the victim has less than twice {@code minBytes} left to claim.
+     */
+    @Nullable
+    public Range split(Range victim, long minBytes) {
+        flushLock.lock();
+        try {
+            Range tail = victim.splitTail(minBytes);
+            if (tail != null) {
+                ranges.add(tail);
+
+                writeLocked();
+            }
+
+            return tail;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            bytesSinceFlush.set(0);
+            writeLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void delete() {
+        flushLock.lock();
+        try {
+            discarded = true;
+
+            deleteQuietly(manifestFile);
+            deleteQuietly(getTemporaryFile());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Caller must hold the flush lock.
+    private void writeLocked() {
+        if (discarded) {
+            return;
+        }
+
+        ManifestData data = new ManifestData();
+        data.setVersion(MANIFEST_VERSION);
+        data.setTotalBytes(totalBytes);
+        data.setValidator(validator);
+
+        for (Range range : ranges) {
+            data.getRanges().add(new RangeData(range.getStart(), range.getEnd(), range.getCommitted()));
+        }
+
+        File tmpFile = getTemporaryFile();
+        try {
+            GDownloader.OBJECT_MAPPER.writeValue(tmpFile, data);
+
+            try {
+                Files.move(tmpFile.toPath(), manifestFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to write chunk manifest {}: {}", manifestFile, e.getMessage());
+        }
+    }
+
+    private File getTemporaryFile() {
+        return new File(manifestFile.getParentFile(), manifestFile.getName() + ".tmp");
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * A byte range owned by at most one writer at a time.
+     *
+     * Writers claim bytes through {@link #reserve(long)} before writing them, and only unclaimed bytes
+     * can be split off, so the end of a range may shrink while it is being downloaded without ever
+     * overlapping the range it was split into.
+     */
+    public static final class Range {
+
+        @Getter
+        private final long start;
+
+        private volatile long end;
+
+        private final AtomicLong committed;
+
+        private long reserved;
+
+        private Range(long startIn, long endIn, long committedIn) {
+            start = startIn;
+            end = endIn;
+            committed = new AtomicLong(committedIn);
+            reserved = committedIn;
+        }
+
+        /**
+         * Inclusive end offset, which only ever moves backwards.
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * Absolute offset of the next byte this range still needs.
+         */
+        public long getCommitted() {
+            return committed.get();
+        }
+
+        public long getCommittedBytes() {
+            return committed.get() - start;
+        }
+
+        public boolean isComplete() {
+            return committed.get() > end;
+        }
+
+        /**
+         * Claims up to {@code wanted} bytes at the current write position.
+         *
+         * @return how many bytes may actually be written, zero once the range is exhausted.
+         */
+        public synchronized long reserve(long wanted) {
+            long allowed = Math.max(0, Math.min(wanted, end - reserved + 1));
+            reserved += allowed;
+
+            return allowed;
+        }
+
+        /**
+         * Drops claims that were never committed, called before a writer retries its transfer.
+         */
+        public synchronized void resetReservation() {
+            reserved = committed.get();
+        }
+
+        public synchronized long getUnreservedBytes() {
+            return end - reserved + 1;
+        }
+
+        @Nullable
+        private synchronized Range splitTail(long minBytes) {
+            long remaining = end - reserved + 1;
+            if (remaining < minBytes * 2) {
+                return null;
+            }
+
+            long splitAt = reserved + remaining / 2;
+            Range tail = new Range(splitAt, end, splitAt);
+
+            end = splitAt - 1;
+
+            return tail;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ManifestData {
+
+        @JsonProperty("Version")
+        private int version;
+
+        @JsonProperty("TotalBytes")
+        private long totalBytes;
+
+        @JsonProperty("Validator")
+        private String validator;
+
+        @JsonProperty("Ranges")
+        private List<RangeData> ranges = new ArrayList<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class RangeData {
+
+        @JsonProperty("Start")
+        private long start;
+
+        @JsonProperty("End")
+        private long end;
+
+        @JsonProperty("Committed")
+        private long committed;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import jakarta.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out the ranges of a {@link ChunkManifest} to a fixed pool of workers.
+ *
+ * Once the initial ranges run out, an idle worker splits the unclaimed tail of whichever
+ * range is projected to finish last, so one slow connection no longer holds up the whole file.
+ * Leases that are still warming up have no meaningful rate yet and are only split when nothing else can be.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public class ChunkScheduler {
+
+    private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long WARMUP_BYTES = 256 * 1024;
+
+    private final ChunkManifest manifest;
+    private final long minSplitBytes;
+    private final LongSupplier nanoClock;
+
+    private final Deque<ChunkManifest.Range> unassigned = new ArrayDeque<>();
+    private final Set<Lease> live = new HashSet<>();
+
+    public ChunkScheduler(ChunkManifest manifestIn, long minSplitBytesIn) {
+        this(manifestIn, minSplitBytesIn, System::nanoTime);
+    }
+
+    public ChunkScheduler(ChunkManifest manifestIn, long minSplitBytesIn, LongSupplier nanoClockIn) {
+        manifest = manifestIn;
+        minSplitBytes = minSplitBytesIn;
+        nanoClock = nanoClockIn;
+
+        unassigned.addAll(manifest.getPendingRanges());
+    }
+
+    /**
+     * Number of workers worth starting, each should be able to claim at least one split-sized piece.
+     */
+    public int getWorkerCount(int maxWorkers) {
+        long remainingBytes = manifest.getTotalBytes() - manifest.getCommittedBytes();
+
+        return (int)Math.max(1, Math.min(maxWorkers, remainingBytes / minSplitBytes));
+    }
+
+    /**
+     * @return the next range to download, or null when there is nothing left worth taking.
+     */
+    @Nullable
+    public synchronized Lease next() {
+        ChunkManifest.Range range;
+        while ((range = unassigned.poll()) != null) {
+            if (!range.isComplete()) {
+                return lease(range);
+            }
+        }
+
+        Lease victim = null;
+        double victimEta = 0;
+        Lease largestWarmingUp = null;
+        for (Lease lease : live) {
+            if (!lease.isWarmedUp()) {
+                if (largestWarmingUp == null || lease.getRange().getUnreservedBytes()
+                    > largestWarmingUp.getRange().getUnreservedBytes()) {
+                    largestWarmingUp = lease;
+                }
+
+                continue;
+            }
+
+            double eta = lease.getRange().getUnreservedBytes() / (double)Math.max(1, lease.getBytesPerSecond());
+            if (victim == null || eta > victimEta) {
+                victim = lease;
+                victimEta = eta;
+            }
+        }
+
+        if (victim == null) {
+            // Without any rate to go by, halve whatever has the most left.
+            victim = largestWarmingUp;
+        }
+
+        if (victim == null) {
+            return null;
+        }
+
+        ChunkManifest.Range tail = manifest.split(victim.getRange(), minSplitBytes);
+        if (tail == null) {
+            return null;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Split off {}-{} from a range projected to finish in {}s",
+                tail.getStart(), tail.getEnd(), (long)victimEta);
+        }
+
+        return lease(tail);
+    }
+
+    public synchronized void release(Lease lease) {
+        live.remove(lease);
+    }
+
+    // Caller must hold the lock.
+    private Lease lease(ChunkManifest.Range range) {
+        Lease lease = new Lease(range, nanoClock);
+        live.add(lease);
+
+        return lease;
+    }
+
+    public static final class Lease {
+
+        @Getter
+        private final ChunkManifest.Range range;
+
+        private final LongSupplier nanoClock;
+        private final long startedNanos;
+        private final AtomicLong transferred = new AtomicLong();
+
+        private Lease(ChunkManifest.Range rangeIn, LongSupplier nanoClockIn) {
+            range = rangeIn;
+            nanoClock = nanoClockIn;
+            startedNanos = nanoClock.getAsLong();
+        }
+
+        public void record(long bytes) {
+            transferred.addAndGet(bytes);
+        }
+
+        public long getBytesPerSecond() {
+            // Floor at one second so a lease that just started does not look infinitely fast or slow.
+            double elapsedSeconds = Math.max(1.0, (nanoClock.getAsLong() - startedNanos) / 1e9);
+
+            return (long)(transferred.get() / elapsedSeconds);
+        }
+
+        private boolean isWarmedUp() {
+            return nanoClock.getAsLong() - startedNanos >= WARMUP_NANOS || transferred.get() >= WARMUP_BYTES;
+        }
+    }
+}
@@ -0,0 +1,598 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.downloader.BandwidthScheduler;
+import net.brlns.gdownloader.downloader.hosts.ResolvedFile;
+import net.brlns.gdownloader.util.CancelHook;
+
+import static java.net.HttpURLConnection.*;
+import static net.brlns.gdownloader.lang.Language.l10n;
+
+/**
+ * Moves one byte range of a direct download from the transport to disk, retrying from the last committed byte.
+ *
+ * A single instance serves every chunk of every download, so the per-host connection slots
+ * and the cooldowns set by 429 responses apply across all of them.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+@Builder
+public class ChunkTransfer {
+
+    private static final long MAX_BACKOFF_MILLIS = 60000L;
+    private static final long MAX_RETRY_AFTER_MILLIS = 300000L;
+
+    private final Supplier<IDownloadTransport> transport;
+
+    /**
+     * Request headers for a URL and its optional referer, the returned map may be modified.
+     */
+    private final BiFunction<URL, String, Map<String, String>> headerFactory;
+
+    private final IntSupplier maxAttempts;
+
+    private final IntSupplier maxConnectionsPerHost;
+
+    /**
+     * Per-download speed cap handed to the bandwidth share, zero for none.
+     */
+    @Builder.Default
+    private final LongSupplier maxBytesPerSecond = () -> 0L;
+
+    @Builder.Default
+    private final long baseBackoffMillis = 1000L;
+
+    private final ConcurrentHashMap<String, Semaphore> hostConnectionLimiters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> hostRateLimitedUntil = new ConcurrentHashMap<>();
+
+    /**
+     * @return true once the chunk is complete, false if it was cancelled.
+     */
+    public boolean transfer(Request request) throws IOException {
+        int attempt = 0;
+        boolean success = false;
+        int currentByteOffset = 0;
+
+        // Derived from the entry and the download manager, so it also fires when either of them stops.
+        CancelHook abortHook = request.getAbortHook();
+        Supplier<Boolean> alive = () -> !abortHook.get();
+
+        int chunkRetries = Math.clamp(maxAttempts.getAsInt(), 1, 50);
+
+        if (request.isSingleUse() && request.getReissueSupplier() == null) {
+            chunkRetries = 1;
+        }
+
+        while (attempt < chunkRetries && !success && alive.get()) {
+            // A 429 anywhere pauses every subsequent attempt until the cooldown clears
+            long hostCooldown = getHostCooldownRemainingMillis(request.getFileUrl());
+            if (hostCooldown > 0) {
+                waitCancellable(request, hostCooldown, "gui.direct_http.download_status.rate_limit_cooldown");
+
+                continue;
+            }
+
+            ITransportResponse response = null;
+
+            Semaphore hostLimiter = getHostLimiter(request.getFileUrl());
+            boolean acquiredSlot = false;
+            long backoffMillis = -1;
+
+            try {
+                long slotWaitStart = System.currentTimeMillis();
+                while (!acquiredSlot && alive.get()) {
+                    try {
+                        acquiredSlot = hostLimiter.tryAcquire(200, TimeUnit.MILLISECONDS);
+                        if (!acquiredSlot && (System.currentTimeMillis() - slotWaitStart) > 1000) {
+                            if (request.getActiveChunkCount().get() <= 0) {
+                                request.notifyStatus("gui.direct_http.download_status.waiting_server_connection");
+                            }
+                        }
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+
+                        throw new IOException(
+                            l10n("gui.direct_http.download_status.error.download_cancelled_waiting_slot"), ie);
+                    }
+                }
+
+                if (!acquiredSlot) {
+                    throw new IOException(
+                        l10n("gui.direct_http.download_status.error.download_cancelled_waiting_slot"));
+                }
+
+                boolean reusingConnection = attempt == 0 && request.getExistingConnection() != null;
+
+                if (!reusingConnection && request.isSingleUse() && attempt > 0) {
+                    Supplier<ResolvedFile> reissue = request.getReissueSupplier();
+                    ResolvedFile fresh = reissue != null ? reissue.get() : null;
+
+                    if (fresh == null) {
+                        throw new IOException(
+                            l10n("gui.direct_http.download_status.error.single_use_link_exhausted"));
+                    }
+
+                    log.info("Reissued a fresh single-use link for chunk {}", request.getChunkId());
+
+                    request.setFileUrl(new URI(fresh.getUrl()).toURL());
+                    request.setReferer(fresh.getReferer());
+                    request.setExtraHeaders(fresh.getExtraHeaders());
+                    request.setReissueSupplier(fresh.getReissueSupplier());
+
+                    // Reissued links start a brand-new one-shot transfer
+                    currentByteOffset = 0;
+                    request.getDownloadedBytes().set(request.getStartByte());
+                }
+
+                long startOffset = request.getStartByte() + currentByteOffset;
+                long endOffset = request.getEndByte();
+
+                ChunkManifest.Range range = request.getLease() != null ? request.getLease().getRange() : null;
+                if (range != null) {
+                    // Resume exactly where the manifest left off, the end may have shrunk since the last attempt.
+                    range.resetReservation();
+
+                    startOffset = range.getCommitted();
+                    endOffset = range.getEnd();
+                }
+
+                if (reusingConnection) {
+                    response = UrlConnectionTransport.wrap(request.getExistingConnection(), abortHook);
+                } else {
+                    Map<String, String> headers = headerFactory.apply(request.getFileUrl(), request.getReferer());
+                    headers.putAll(request.getExtraHeaders());
+
+                    TransportRequest.TransportRequestBuilder transportRequest = TransportRequest.builder()
+                        .url(request.getFileUrl())
+                        .headers(headers);
+
+                    if (request.isChunked() && !request.isSingleUse()) {
+                        transportRequest.rangeStart(startOffset).rangeEnd(endOffset);
+                    }
+
+                    response = transport.get().send(transportRequest.build(), abortHook);
+                }
+
+                int responseCode = response.getStatusCode();
+
+                switch (responseCode) {
+                    case HTTP_PARTIAL, HTTP_OK -> {
+                        ByteBuffer buffer = ChunkedFileSink.acquireBuffer();
+                        try {
+                            long writePosition = 0;
+
+                            if (responseCode == HTTP_PARTIAL) {
+                                log.debug("Partial download accepted, resuming from {} <- offset {}", request.getStartByte(), startOffset);
+                                writePosition = startOffset; // Move to the start of this chunk
+                            } else if (request.isChunked()) {
+                                if (!request.isSoleChunk()) {
+                                    abortHook.set(true);
+
+                                    throw new RangeRefusedException("Server returned 200 OK instead of 206 Partial Content");
+                                }
+
+                                log.debug("Partial download refused, resetting progress");
+                                request.getDownloadedBytes().set(0);
+                            }
+
+                            long startTime = System.nanoTime();
+                            long totalDownloadedAtStart = request.getDownloadedBytes().get();
+                            long lastCallbackTime = System.nanoTime();
+
+                            int bytesRead;
+
+                            while ((bytesRead = response.read(buffer.clear())) != -1 && alive.get()) {
+                                if (request.getBandwidth() != null) {
+                                    request.getBandwidth().acquire(bytesRead, maxBytesPerSecond.getAsLong(), alive);
+
+                                    if (!alive.get()) {
+                                        break;
+                                    }
+                                }
+
+                                int writableBytes = bytesRead;
+                                if (range != null) {
+                                    // Part of this range may have been handed over to another worker.
+                                    writableBytes = (int)range.reserve(bytesRead);
+                                    if (writableBytes <= 0) {
+                                        break;
+                                    }
+                                }
+
+                                buffer.flip().limit(writableBytes);
+                                request.getSink().write(buffer, writePosition);
+
+                                writePosition += writableBytes;
+                                currentByteOffset += writableBytes;
+
+                                if (range != null) {
+                                    request.getManifest().commit(range, writableBytes);
+                                    request.getLease().record(writableBytes);
+                                }
+
+                                long totalDownloaded = request.getDownloadedBytes().addAndGet(writableBytes);
+
+                                if (writableBytes < bytesRead) {
+                                    break;
+                                }
+
+                                long currentTime = System.nanoTime();
+                                if ((currentTime - lastCallbackTime) >= 1e9) {
+                                    if (request.getProgressCallback() == null) {
+                                        continue;
+                                    }
+
+                                    double progress = ((double)totalDownloaded * 100) / request.getTotalBytes();
+
+                                    // Speed
+                                    long elapsedTimeNano = currentTime - startTime;
+                                    double elapsedTimeSeconds = elapsedTimeNano / 1e9;
+                                    long speed = (elapsedTimeSeconds > 0)
+                                        ? (long)((totalDownloaded - totalDownloadedAtStart) / elapsedTimeSeconds) : 0;
+
+                                    // ETA
+                                    long remainingBytes = request.getTotalBytes() - totalDownloaded;
+                                    double remainingTimeSeconds = (speed > 0) ? (double)remainingBytes / speed : 0;
+                                    long remainingTimeMillis = (long)(remainingTimeSeconds * 1000);
+
+                                    request.getProgressCallback().accept(
+                                        progress,
+                                        request.getTotalBytes(),
+                                        speed,
+                                        remainingTimeMillis,
+                                        request.getActiveChunkCount().get()
+                                    );
+
+                                    lastCallbackTime = currentTime;
+                                }
+                            }
+                        } finally {
+                            ChunkedFileSink.releaseBuffer(buffer);
+                        }
+
+                        if (range != null && alive.get() && !range.isComplete()) {
+                            throw new IOException("Connection closed at " + range.getCommitted()
+                                + " before reaching " + range.getEnd());
+                        }
+
+                        log.debug("Chunk {} has quit", request.getChunkId());
+                        success = alive.get();
+                    }
+                    case 429 ->
+                        throw new RateLimitedException(parseRetryAfterMillis(response.getHeader("Retry-After")));
+                    default ->
+                        throw new IOException(
+                            l10n("gui.direct_http.download_status.error.server_http_error", responseCode));
+                }
+            } catch (Exception e) {
+                attempt++;
+
+                if (log.isDebugEnabled()) {
+                    log.error("Error on attempt {}: {}", attempt, e.getMessage());
+                }
+
+                if (!alive.get()) {
+                    throw new IOException(
+                        l10n("gui.direct_http.download_status.error.download_cancelled"), e);
+                }
+
+                if (attempt == chunkRetries) {
+                    abortHook.set(true);
+
+                    throw new IOException(
+                        l10n("gui.direct_http.download_status.error.chunk_failed_retries",
+                            chunkRetries, e.getMessage()), e);
+                }
+
+                if (e instanceof RateLimitedException rle) {
+                    backoffMillis = rle.retryAfterMillis > 0
+                        ? addJitter(rle.retryAfterMillis)
+                        : computeBackoffMillis(attempt);
+
+                    markHostRateLimited(request.getFileUrl(), backoffMillis);
+                } else {
+                    backoffMillis = computeBackoffMillis(attempt);
+                }
+            } finally {
+                if (response != null) {
+                    response.close();
+                }
+
+                if (acquiredSlot) {
+                    hostLimiter.release();
+                }
+            }
+
+            if (backoffMillis >= 0) {
+                waitCancellable(request, backoffMillis, "gui.direct_http.download_status.retrying_in");
+            }
+        }
+
+        return success;
+    }
+
+    /**
+     * Starts {@code workerCount} workers on the executor, each leasing ranges until the scheduler runs dry.
+     *
+     * Once the planned ranges are taken, the scheduler splits the slowest remaining one.
+     */
+    public List<Future<?>> submitWorkers(ExecutorService executor, ChunkScheduler scheduler, int workerCount,
+        CancelHook abortHook, AtomicInteger activeChunkCount, RequestFactory requestFactory) {
+        List<Future<?>> futures = new ArrayList<>(workerCount);
+
+        for (int i = 0; i < workerCount; i++) {
+            int chunkId = i;
+
+            activeChunkCount.incrementAndGet();
+            futures.add(executor.submit(() -> {
+                try {
+                    ChunkScheduler.Lease lease;
+                    while (!abortHook.get() && (lease = scheduler.next()) != null) {
+                        ChunkManifest.Range range = lease.getRange();
+
+                        if (log.isDebugEnabled()) {
+                            log.debug("Chunk {} start/end {}/{}", chunkId, range.getCommitted(), range.getEnd());
+                        }
+
+                        try {
+                            if (!transfer(requestFactory.create(chunkId, lease))) {
+                                break;
+                            }
+                        } finally {
+                            scheduler.release(lease);
+                        }
+                    }
+                } catch (Exception e) {
+                    log.error("Error downloading chunk: {}", e.getMessage());
+                    throw new RuntimeException(e);
+                } finally {
+                    activeChunkCount.decrementAndGet();
+                }
+            }));
+        }
+
+        return futures;
+    }
+
+    /**
+     * Waits for every worker, even after one fails, so the shared sink is never closed under a live writer.
+     */
+    public static void awaitWorkers(List<Future<?>> futures, CancelHook abortHook) throws Exception {
+        Exception failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                abortHook.set(true);
+
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Splits a file into {@code chunkCount} contiguous {start, end} ranges, the last one taking the remainder.
+     */
+    public static List<long[]> planRanges(long totalBytes, int chunkCount) {
+        long chunkSize = totalBytes / chunkCount;
+        List<long[]> ranges = new ArrayList<>(chunkCount);
+
+        for (int i = 0; i < chunkCount; i++) {
+            long startByte = i * chunkSize;
+            long endByte = (i == chunkCount - 1)
+                ? totalBytes - 1 : (startByte + chunkSize - 1);
+
+            ranges.add(new long[]{startByte, endByte});
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Parses a Retry-After header, either delta-seconds or an HTTP date, capped at five minutes.
+     *
+     * @return the delay in milliseconds, or -1 if the header is missing or malformed.
+     */
+    public static long parseRetryAfterMillis(@Nullable String header) {
+        if (header == null || header.isBlank()) {
+            return -1;
+        }
+
+        try {
+            long seconds = Long.parseLong(header.trim());
+
+            return Math.max(0, Math.min(seconds * 1000, MAX_RETRY_AFTER_MILLIS));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime retryDate = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                long millis = Duration.between(ZonedDateTime.now(retryDate.getZone()), retryDate).toMillis();
+
+                return Math.max(0, Math.min(millis, MAX_RETRY_AFTER_MILLIS));
+            } catch (Exception ex) {
+                return -1;
+            }
+        }
+    }
+
+    private Semaphore getHostLimiter(URL url) {
+        return hostConnectionLimiters.computeIfAbsent(normalizeHost(url),
+            h -> new Semaphore(Math.max(1, maxConnectionsPerHost.getAsInt())));
+    }
+
+    private void markHostRateLimited(URL url, long cooldownMillis) {
+        String host = normalizeHost(url);
+        long until = System.currentTimeMillis() + cooldownMillis;
+
+        hostRateLimitedUntil.computeIfAbsent(host, h -> new AtomicLong(0))
+            .updateAndGet(current -> Math.max(current, until));
+    }
+
+    private long getHostCooldownRemainingMillis(URL url) {
+        AtomicLong ref = hostRateLimitedUntil.get(normalizeHost(url));
+
+        return ref == null ? 0 : Math.max(0, ref.get() - System.currentTimeMillis());
+    }
+
+    private long computeBackoffMillis(int attempt) {
+        long exp = baseBackoffMillis * (1L << Math.min(attempt, 16)); // avoids overflow
+        long capped = Math.min(exp, MAX_BACKOFF_MILLIS);
+
+        return ThreadLocalRandom.current().nextLong(capped + 1);
+    }
+
+    private static long addJitter(long baseMillis) {
+        long jitterWindow = Math.max(250, baseMillis / 4);
+
+        return baseMillis + ThreadLocalRandom.current().nextLong(jitterWindow);
+    }
+
+    private static String normalizeHost(URL url) {
+        return url.getHost() != null
+            ? url.getHost().toLowerCase(Locale.ROOT)
+            : "unknown";
+    }
+
+    private static void waitCancellable(Request request, long millis, String reasonKey) {
+        long deadline = System.currentTimeMillis() + millis;
+
+        try {
+            long remainingMillis;
+            while ((remainingMillis = deadline - System.currentTimeMillis()) > 0) {
+                request.notifyStatus(reasonKey, String.format("%.1fs", remainingMillis / 1000.0));
+
+                if (request.getAbortHook().await(Math.min(remainingMillis, 500), TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        void accept(double progress, long size, long speed, long remainingTime, int chunkCount);
+
+    }
+
+    @FunctionalInterface
+    public interface RequestFactory {
+
+        Request create(int chunkId, ChunkScheduler.Lease lease);
+    }
+
+    @FunctionalInterface
+    public interface StatusListener {
+
+        void onStatus(String translationKey, Object... args);
+    }
+
+    @Data
+    @Builder
+    public static class Request {
+
+        private int chunkId;
+        private CancelHook abortHook;
+        private boolean chunked;
+        private boolean soleChunk;
+        private URL fileUrl;
+        private String referer;
+        @Builder.Default
+        private Map<String, String> extraHeaders = Collections.emptyMap();
+        private ChunkedFileSink sink;
+        private long startByte;
+        private long endByte;
+        private long totalBytes;
+        @Builder.Default
+        private AtomicLong downloadedBytes = new AtomicLong();
+        @Builder.Default
+        private AtomicInteger activeChunkCount = new AtomicInteger();
+        private ProgressListener progressCallback;
+        private StatusListener statusListener;
+        private BandwidthScheduler.Share bandwidth;
+        private boolean singleUse;
+        private HttpURLConnection existingConnection;
+        private Supplier<ResolvedFile> reissueSupplier;
+        private ChunkManifest manifest;
+        private ChunkScheduler.Lease lease;
+
+        private void notifyStatus(String translationKey, Object... args) {
+            if (statusListener != null) {
+                statusListener.onStatus(translationKey, args);
+            }
+        }
+    }
+
+    private static final class RateLimitedException extends IOException {
+
+        private final long retryAfterMillis;
+
+        private RateLimitedException(long retryAfterMillisIn) {
+            super("Failed to connect with HTTP code: 429");
+
+            retryAfterMillis = retryAfterMillisIn;
+        }
+    }
+
+    /**
+     * Thrown when a server answers a range request of a multi-chunk download with the whole file.
+     */
+    public static final class RangeRefusedException extends IOException {
+
+        private RangeRefusedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+
+/**
+ * A single file channel shared by every connection writing into the same download.
+ *
+ * Writes are positional, so chunks never have to reopen or seek the file, and the data is
+ * only forced to disk in large batches when syncing was explicitly enabled.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+public class ChunkedFileSink implements Closeable {
+
+    public static final int BUFFER_SIZE = 64 * 1024;// 64KB
+
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final long SYNC_INTERVAL_BYTES = 64L * 1024 * 1024;// 64MB
+
+    private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED_BUFFERS = new AtomicInteger();
+
+    @Getter
+    private final File file;
+
+    private final FileChannel channel;
+    private final boolean syncWrites;
+
+    private final AtomicLong bytesSinceSync = new AtomicLong();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private ChunkedFileSink(File fileIn, FileChannel channelIn, boolean syncWritesIn) {
+        file = fileIn;
+        channel = channelIn;
+        syncWrites = syncWritesIn;
+    }
+
+    /**
+     * Opens the target file for positional writes.
+     *
+     * @param initialLength the length to extend the file to up front, or zero to leave the file as is.
+     *                      This does not reserve disk space.
+     * @param syncWrites whether written data should periodically be forced to the storage device.
+     */
+    public static ChunkedFileSink open(File file, long initialLength, boolean syncWrites) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+
+        try {
+            if (initialLength > 0 && channel.size() < initialLength) {
+                // Sets the final length so chunks can write anywhere in the file. Most filesystems
+                // leave the gap sparse, so blocks are still allocated as the chunks land and a
+                // full disk only shows up as a failed write later on.
+                channel.write(ByteBuffer.wrap(new byte[1]), initialLength - 1);
+            }
+        } catch (IOException e) {
+            channel.close();
+
+            throw e;
+        }
+
+        return new ChunkedFileSink(file, channel, syncWrites);
+    }
+
+    /**
+     * Writes the remaining contents of the buffer at the given absolute position.
+     */
+    public void write(ByteBuffer buffer, long position) throws IOException {
+        int length = buffer.remaining();
+
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+
+        if (syncWrites && bytesSinceSync.addAndGet(length) >= SYNC_INTERVAL_BYTES) {
+            // One writer syncs while the others keep going.
+            if (syncLock.tryLock()) {
+                try {
+                    bytesSinceSync.set(0);
+                    channel.force(false);
+                } finally {
+                    syncLock.unlock();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (syncWrites && channel.isOpen()) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Takes a direct buffer from the shared pool, allocating one if the pool is empty.
+     */
+    public static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = BUFFER_POOL.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        POOLED_BUFFERS.decrementAndGet();
+        buffer.clear();
+
+        return buffer;
+    }
+
+    public static void releaseBuffer(ByteBuffer buffer) {
+        if (POOLED_BUFFERS.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            POOLED_BUFFERS.decrementAndGet();
+            return;
+        }
+
+        BUFFER_POOL.offer(buffer);
+    }
+}
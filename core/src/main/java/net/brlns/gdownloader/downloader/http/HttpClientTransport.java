@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.util.CancelHook;
+
+/**
+ * Transport backed by the application wide {@link HttpClient}.
+ *
+ * Requests to the same host share pooled connections and, where the server negotiates HTTP/2,
+ * concurrent range requests are multiplexed over a single connection. Cancellation goes through
+ * the pending exchange itself rather than a thread watching each connection.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public class HttpClientTransport implements IDownloadTransport {
+
+    // The client manages these on its own and refuses requests that set them.
+    private static final Set<String> RESTRICTED_HEADERS = Set.of(
+        "connection", "content-length", "expect", "host", "upgrade");
+
+    private static final List<ByteBuffer> END_OF_STREAM = List.of();
+
+    private final Supplier<HttpClient> clientSupplier;
+    private final Duration readTimeout;
+
+    public HttpClientTransport(Supplier<HttpClient> clientSupplierIn, Duration readTimeoutIn) {
+        clientSupplier = clientSupplierIn;
+        readTimeout = readTimeoutIn;
+    }
+
+    @Override
+    public ITransportResponse send(TransportRequest request, CancelHook cancelHook) throws IOException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(request.getUrl().toURI())
+                .timeout(request.getTimeout() != null ? request.getTimeout() : readTimeout)
+                .GET();
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URL: " + request.getUrl(), e);
+        }
+
+        if (!"https".equalsIgnoreCase(request.getUrl().getProtocol())) {
+            // Avoid h2c upgrade attempts, plenty of plain HTTP servers choke on them.
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+
+        request.getHeaders().forEach((name, value) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                builder.header(name, value);
+            }
+        });
+
+        if (request.hasRange()) {
+            builder.header("Range", request.getRangeHeader());
+        }
+
+        if (cancelHook.get()) {
+            throw new InterruptedIOException("Request cancelled");
+        }
+
+        CompletableFuture<HttpResponse<BodyChannel>> future = clientSupplier.get()
+            .sendAsync(builder.build(), responseInfo -> new BodyChannel(cancelHook, readTimeout));
+
+        // The request timeout bounds the wait for headers, the hook only has to cut it short.
+        try (CancelHook.Registration registration = cancelHook.onCancel(() -> future.cancel(true))) {
+            return new Response(future.get());
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Request cancelled");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+
+            throw new IOException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+    }
+
+    private static final class Response implements ITransportResponse {
+
+        private final HttpResponse<BodyChannel> response;
+
+        private Response(HttpResponse<BodyChannel> responseIn) {
+            response = responseIn;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Nullable
+        @Override
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return response.body().read(dst);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return response.body().isOpen();
+        }
+
+        @Override
+        public void close() {
+            response.body().close();
+        }
+    }
+
+    /**
+     * Hands response body buffers over to the reading thread one batch at a time.
+     *
+     * A cancelled download wakes a waiting read through the hook's listener, so no thread
+     * watches each connection and reads never wake up just to check.
+     */
+    private static final class BodyChannel implements HttpResponse.BodySubscriber<BodyChannel> {
+
+        private final CancelHook.Registration cancelRegistration;
+        private final long readTimeoutNanos;
+
+        private final LinkedBlockingQueue<List<ByteBuffer>> queue = new LinkedBlockingQueue<>();
+        private final CompletableFuture<BodyChannel> body = CompletableFuture.completedFuture(this);
+
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable failure;
+        private volatile boolean closed;
+        private volatile boolean cancelled;
+
+        private Iterator<ByteBuffer> current;
+        private ByteBuffer currentBuffer;
+        private boolean finished;
+
+        private BodyChannel(CancelHook cancelHook, Duration readTimeout) {
+            readTimeoutNanos = readTimeout.toNanos();
+
+            cancelRegistration = cancelHook.onCancel(() -> {
+                cancelled = true;
+                queue.offer(END_OF_STREAM);
+            });
+        }
+
+        @Override
+        public CompletionStage<BodyChannel> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscriptionIn) {
+            subscription = subscriptionIn;
+
+            if (closed) {
+                subscriptionIn.cancel();
+            } else {
+                subscriptionIn.request(1);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            queue.offer(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failure = throwable;
+            queue.offer(END_OF_STREAM);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.offer(END_OF_STREAM);
+        }
+
+        private int read(ByteBuffer dst) throws IOException {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+
+            while (currentBuffer == null || !currentBuffer.hasRemaining()) {
+                if (current != null && current.hasNext()) {
+                    currentBuffer = current.next();
+                    continue;
+                }
+
+                if (finished) {
+                    return -1;
+                }
+
+                if (current != null) {
+                    // Done with the previous batch, let the client push the next one.
+                    current = null;
+                    subscription.request(1);
+                }
+
+                List<ByteBuffer> next = poll();
+                if (next == END_OF_STREAM) {
+                    finished = true;
+
+                    if (failure != null) {
+                        throw failure instanceof IOException io ? io : new IOException(failure.getMessage(), failure);
+                    }
+
+                    return -1;
+                }
+
+                current = next.iterator();
+            }
+
+            int length = Math.min(dst.remaining(), currentBuffer.remaining());
+            ByteBuffer slice = currentBuffer.slice(currentBuffer.position(), length);
+            dst.put(slice);
+            currentBuffer.position(currentBuffer.position() + length);
+
+            return length;
+        }
+
+        private List<ByteBuffer> poll() throws IOException {
+            List<ByteBuffer> next;
+            try {
+                next = queue.poll(readTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+
+                throw new InterruptedIOException("Interrupted while reading");
+            }
+
+            if (cancelled) {
+                close();
+
+                throw new InterruptedIOException("Transfer cancelled");
+            }
+
+            if (next == null) {
+                close();
+
+                throw new SocketTimeoutException("Read timed out");
+            }
+
+            return next;
+        }
+
+        private boolean isOpen() {
+            return !closed;
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            cancelRegistration.close();
+
+            Flow.Subscription s = subscription;
+            if (s != null) {
+                s.cancel();
+            }
+
+            queue.clear();
+        }
+    }
+}
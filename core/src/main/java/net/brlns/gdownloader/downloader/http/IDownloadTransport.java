@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import java.io.IOException;
+import net.brlns.gdownloader.util.CancelHook;
+
+/**
+ * Issues the GET requests that move file data for direct downloads.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+public interface IDownloadTransport {
+
+    /**
+     * Sends the request and returns once response headers are available.
+     *
+     * @param cancelHook the exchange is aborted as soon as this fires, whether waiting or reading.
+     */
+    ITransportResponse send(TransportRequest request, CancelHook cancelHook) throws IOException;
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import jakarta.annotation.Nullable;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Value
+@Builder
+public class TransportRequest {
+
+    private final URL url;
+
+    @Builder.Default
+    private final Map<String, String> headers = Collections.emptyMap();
+
+    /**
+     * Inclusive byte range to request, ignored when {@code rangeStart} is negative.
+     */
+    @Builder.Default
+    private final long rangeStart = -1;
+
+    @Builder.Default
+    private final long rangeEnd = -1;
+
+    @Nullable
+    private final Duration timeout;
+
+    public boolean hasRange() {
+        return rangeStart >= 0;
+    }
+
+    public String getRangeHeader() {
+        return "bytes=" + rangeStart + "-" + (rangeEnd >= 0 ? rangeEnd : "");
+    }
+}
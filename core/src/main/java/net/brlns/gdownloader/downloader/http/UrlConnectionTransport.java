@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.http;
+
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.function.Supplier;
+import net.brlns.gdownloader.util.CancelHook;
+
+/**
+ * Transport using a plain {@link HttpURLConnection} per request.
+ *
+ * Mostly useful to hand an already opened connection, such as a single-use link, over to the chunk writer.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+public class UrlConnectionTransport implements IDownloadTransport {
+
+    private final Supplier<Proxy> proxySupplier;
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+
+    public UrlConnectionTransport(Supplier<Proxy> proxySupplierIn, Duration connectTimeoutIn, Duration readTimeoutIn) {
+        proxySupplier = proxySupplierIn;
+        connectTimeout = connectTimeoutIn;
+        readTimeout = readTimeoutIn;
+    }
+
+    @Override
+    public ITransportResponse send(TransportRequest request, CancelHook cancelHook) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)request.getUrl().openConnection(proxySupplier.get());
+        connection.setConnectTimeout((int)connectTimeout.toMillis());
+        connection.setReadTimeout((int)readTimeout.toMillis());
+        connection.setRequestMethod("GET");
+        request.getHeaders().forEach(connection::setRequestProperty);
+
+        if (request.hasRange()) {
+            connection.setRequestProperty("Range", request.getRangeHeader());
+        }
+
+        return wrap(connection, cancelHook);
+    }
+
+    /**
+     * Adapts a connection that was already opened elsewhere.
+     */
+    public static ITransportResponse wrap(HttpURLConnection connection, CancelHook cancelHook) throws IOException {
+        try {
+            return new Response(connection, connection.getResponseCode(), cancelHook);
+        } catch (IOException e) {
+            connection.disconnect();
+
+            throw e;
+        }
+    }
+
+    private static final class Response implements ITransportResponse {
+
+        private final HttpURLConnection connection;
+        private final int statusCode;
+        private final CancelHook cancelHook;
+
+        private ReadableByteChannel body;
+        private boolean closed;
+
+        private Response(HttpURLConnection connectionIn, int statusCodeIn, CancelHook cancelHookIn) {
+            connection = connectionIn;
+            statusCode = statusCodeIn;
+            cancelHook = cancelHookIn;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Nullable
+        @Override
+        public String getHeader(String name) {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            // A read blocked inside the connection cannot be woken from another thread without
+            // stalling that thread too, so cancellation is only checked between reads here.
+            if (cancelHook.get()) {
+                close();
+
+                throw new InterruptedIOException("Transfer cancelled");
+            }
+
+            if (body == null) {
+                InputStream inputStream = connection.getInputStream();
+                body = Channels.newChannel(inputStream);
+            }
+
+            return body.read(dst);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            try {
+                if (body != null) {
+                    body.close();
+                }
+            } catch (IOException e) {
+                // Disconnecting below releases the socket regardless.
+            } finally {
+                connection.disconnect();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.downloader.structs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.DeserializationProblemHandler;
+import jakarta.annotation.Nullable;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.GDownloader;
+
+/**
+ * Progress record printed by yt-dlp through {@link #PROGRESS_TEMPLATE}.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DownloadProgress {
+
+    public static final String MARKER = "GDL_PROGRESS|";
+
+    // The j conversion has yt-dlp write the JSON, so no quotes need to survive the command line.
+    public static final String PROGRESS_TEMPLATE = "download:" + MARKER + "%(progress)j";
+
+    private static final ObjectReader READER = GDownloader.OBJECT_MAPPER.readerFor(DownloadProgress.class)
+        .withHandler(new DeserializationProblemHandler() {
+            // Fields yt-dlp cannot fill may come back as "NA" instead of null.
+            @Override
+            public Object handleWeirdStringValue(DeserializationContext ctxt, Class<?> targetType,
+                String valueToConvert, String failureMsg) {
+                return Number.class.isAssignableFrom(targetType) ? null : NOT_HANDLED;
+            }
+        });
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("downloaded_bytes")
+    private Long downloadedBytes;
+
+    @JsonProperty("total_bytes")
+    private Long totalBytes;
+
+    @JsonProperty("total_bytes_estimate")
+    private Double totalBytesEstimate;
+
+    @JsonProperty("speed")
+    private Double speed;
+
+    @JsonProperty("eta")
+    private Double eta;
+
+    @JsonProperty("fragment_index")
+    private Integer fragmentIndex;
+
+    @JsonProperty("fragment_count")
+    private Integer fragmentCount;
+
+    // The line yt-dlp would have printed without a template.
+    @JsonProperty("_default_template")
+    private String defaultTemplate;
+
+    @Nullable
+    public static DownloadProgress parse(@Nullable String line) {
+        if (line == null || !line.startsWith(MARKER)) {
+            return null;
+        }
+
+        try {
+            return READER.readValue(line.substring(MARKER.length()));
+        } catch (Exception e) {
+            log.debug("Failed to parse progress line: {}", line, e);
+
+            return null;
+        }
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return "finished".equals(status);
+    }
+
+    /**
+     * Exact size when known, otherwise yt-dlp's estimate, or -1.
+     */
+    @JsonIgnore
+    public long getExpectedTotalBytes() {
+        if (totalBytes != null && totalBytes > 0) {
+            return totalBytes;
+        }
+
+        if (totalBytesEstimate != null && totalBytesEstimate > 0) {
+            return totalBytesEstimate.longValue();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Falls back to the fragment count when the size is unknown.
+     *
+     * @return 0-100, or -1 if neither is known.
+     */
+    @JsonIgnore
+    public double getPercentage() {
+        if (isFinished()) {
+            return 100;
+        }
+
+        long total = getExpectedTotalBytes();
+        if (total > 0 && downloadedBytes != null) {
+            return Math.min(100, downloadedBytes * 100d / total);
+        }
+
+        if (fragmentIndex != null && fragmentCount != null && fragmentCount > 0) {
+            return Math.min(100, fragmentIndex * 100d / fragmentCount);
+        }
+
+        return -1;
+    }
+
+    @JsonIgnore
+    public long getBytesPerSecond() {
+        return speed != null ? speed.longValue() : 0;
+    }
+}
@@ -27,19 +27,30 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.util.URLUtils;
 import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 import static net.brlns.gdownloader.util.URLUtils.getExtension;
 import static net.brlns.gdownloader.util.URLUtils.getHost;
@@ -50,119 +61,286 @@ import static net.brlns.gdownloader.util.URLUtils.stripFragment;
 /**
  * Technically a web crawler/spider, but named "scanner" for i10n purposes.
  *
+ * Pages are crawled breadth-first on virtual threads. The number of pages in flight is bounded
+ * globally, and each host gets its own concurrency limit and minimum delay between requests.
+ *
  * @author Gabriel / hstr0100 / vertx010
  */
 @Slf4j
 public class WebScanner {
 
-    private static final String[][] ATTRIBUTE_SOURCES = {
-        {"img", "src"},
-        {"img", "data-src"},
-        {"img", "data-lazy-src"},
-        {"img", "data-original"},
-        {"img", "data-full-src"},
-        {"source", "src"},
-        {"video", "src"},
-        {"video", "poster"},
-        {"audio", "src"},
-        {"a", "href"},
-        {"area", "href"},
-        {"link", "href"},
-        {"embed", "src"},
-        {"object", "data"},
-        {"track", "src"},
-        {"iframe", "src"}
-    };
-
-    private static final String[][] SRCSET_SOURCES = {
-        {"img", "srcset"},
-        {"img", "data-srcset"},
-        {"source", "srcset"}
-    };
-
-    private static final String[] OG_META_PROPERTIES = {
+    public static final int DEFAULT_MAX_IN_FLIGHT_PAGES = 8;
+    public static final int DEFAULT_MAX_PAGES_PER_HOST = 2;
+    public static final Duration DEFAULT_HOST_REQUEST_INTERVAL = Duration.ofMillis(250);
+
+    // Tag -> attributes holding a single URL
+    private static final Map<String, Set<String>> ATTRIBUTE_SOURCES = Map.ofEntries(
+        Map.entry("img", Set.of("src", "data-src", "data-lazy-src", "data-original", "data-full-src")),
+        Map.entry("source", Set.of("src")),
+        Map.entry("video", Set.of("src", "poster")),
+        Map.entry("audio", Set.of("src")),
+        Map.entry("a", Set.of("href")),
+        Map.entry("area", Set.of("href")),
+        Map.entry("link", Set.of("href")),
+        Map.entry("embed", Set.of("src")),
+        Map.entry("object", Set.of("data")),
+        Map.entry("track", Set.of("src")),
+        Map.entry("iframe", Set.of("src"))
+    );
+
+    // Tag -> attributes holding a srcset candidate list
+    private static final Map<String, Set<String>> SRCSET_SOURCES = Map.of(
+        "img", Set.of("srcset", "data-srcset"),
+        "source", Set.of("srcset")
+    );
+
+    private static final Set<String> OG_META_PROPERTIES = Set.of(
         "og:image", "og:image:url", "og:image:secure_url",
         "og:video", "og:video:url", "og:video:secure_url",
         "og:audio", "og:audio:url", "og:audio:secure_url",
         "twitter:image", "twitter:image:src", "twitter:player:stream"
-    };
+    );
 
     private static final Pattern CSS_URL_PATTERN
         = Pattern.compile("url\\(\\s*['\"]?([^'\")]+)['\"]?\\s*\\)");
 
+    private static final long DISPATCH_POLL_MILLIS = 200;
+
     private final HttpClient httpClient;
     private final WebScannerExtensions extensions;
 
     private final long maxPageSizeBytes;
     private final Duration pageFetchTimeout;
 
+    private final int maxInFlightPages;
+    private final int maxPagesPerHost;
+    private final Duration hostRequestInterval;
+
     public WebScanner(HttpClient httpClientIn, WebScannerExtensions extensionsIn,
         long maxPageSizeBytesIn, Duration pageFetchTimeoutIn) {
 
+        this(httpClientIn, extensionsIn, maxPageSizeBytesIn, pageFetchTimeoutIn,
+            DEFAULT_MAX_IN_FLIGHT_PAGES, DEFAULT_MAX_PAGES_PER_HOST, DEFAULT_HOST_REQUEST_INTERVAL);
+    }
+
+    public WebScanner(HttpClient httpClientIn, WebScannerExtensions extensionsIn,
+        long maxPageSizeBytesIn, Duration pageFetchTimeoutIn,
+        int maxInFlightPagesIn, int maxPagesPerHostIn, Duration hostRequestIntervalIn) {
+
         httpClient = httpClientIn;
         extensions = extensionsIn;
         maxPageSizeBytes = maxPageSizeBytesIn;
         pageFetchTimeout = pageFetchTimeoutIn;
+        maxInFlightPages = Math.max(1, maxInFlightPagesIn);
+        maxPagesPerHost = Math.max(1, maxPagesPerHostIn);
+        hostRequestInterval = hostRequestIntervalIn;
     }
 
     public Set<String> scanForMediaLinks(String startUrl, @Nullable String initialHtml,
         int maxDepth, boolean strictHost, @Nullable Supplier<Boolean> cancelHook) {
 
-        return scanForMediaLinks(startUrl, initialHtml, maxDepth, strictHost, cancelHook, null);
+        return scanForMediaLinks(startUrl, initialHtml, maxDepth, strictHost, cancelHook, null, null);
     }
 
     public Set<String> scanForMediaLinks(String startUrl, @Nullable String initialHtml,
         int maxDepth, boolean strictHost, @Nullable Supplier<Boolean> cancelHook,
         @Nullable ScanStatusListener statusListener) {
+
+        return scanForMediaLinks(startUrl, initialHtml, maxDepth, strictHost, cancelHook, statusListener, null);
+    }
+
+    /**
+     * Crawls from {@code startUrl} and returns every downloadable link found, in discovery order.
+     *
+     * @param mediaListener called once per new link as soon as it is found, from crawler threads.
+     */
+    public Set<String> scanForMediaLinks(String startUrl, @Nullable String initialHtml,
+        int maxDepth, boolean strictHost, @Nullable Supplier<Boolean> cancelHook,
+        @Nullable ScanStatusListener statusListener, @Nullable MediaLinkListener mediaListener) {
         log.debug("Starting media scan for {} (Max Depth: {}, Strict Host: {})", startUrl, maxDepth, strictHost);
 
         notify(statusListener, "gui.web_scanner.status.starting", startUrl);
 
-        Set<String> mediaLinks = new LinkedHashSet<>();
-        Set<String> visitedPages = new HashSet<>();
-        String baseHost = getHost(startUrl);
+        Crawl crawl = new Crawl(maxDepth, strictHost, getHost(startUrl), cancelHook, statusListener, mediaListener);
 
-        if (baseHost != null) {
-            scanRecursive(startUrl, initialHtml, 0, maxDepth,
-                strictHost, baseHost, visitedPages, mediaLinks, cancelHook, statusListener);
+        if (crawl.baseHost != null) {
+            crawl.enqueue(startUrl, initialHtml, 0);
+            crawl.run();
         }
 
-        notify(statusListener, "gui.web_scanner.status.finished", mediaLinks.size(), visitedPages.size());
-        log.debug("Scan finished. Found {} downloadable media links.", mediaLinks.size());
+        notify(statusListener, "gui.web_scanner.status.finished", crawl.media.size(), crawl.visited.size());
+        log.debug("Scan finished. Found {} downloadable media links.", crawl.media.size());
 
-        return mediaLinks;
+        synchronized (crawl.media) {
+            return new LinkedHashSet<>(crawl.media);
+        }
     }
 
-    private void scanRecursive(String url, @Nullable String html,
-        int depth, int maxDepth, boolean strictHost, String baseHost,
-        Set<String> visited, Set<String> media, @Nullable Supplier<Boolean> cancelHook,
-        @Nullable ScanStatusListener statusListener) {
+    /**
+     * State of a single scan, shared by the dispatcher and the page workers.
+     */
+    private final class Crawl {
+
+        private final int maxDepth;
+        private final boolean strictHost;
+        @Nullable
+        private final String baseHost;
+        @Nullable
+        private final Supplier<Boolean> cancelHook;
+        @Nullable
+        private final ScanStatusListener statusListener;
+        @Nullable
+        private final MediaLinkListener mediaListener;
+
+        private final Set<String> visited = ConcurrentHashMap.newKeySet();
+        private final Set<String> media = Collections.synchronizedSet(new LinkedHashSet<>());
+
+        private final PriorityBlockingQueue<PageTask> frontier = new PriorityBlockingQueue<>(64,
+            Comparator.comparingInt(PageTask::depth).thenComparingLong(PageTask::sequence));
+        private final AtomicLong sequence = new AtomicLong();
+
+        // Pages queued or being scanned, the crawl is over once this drops to zero.
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Semaphore inFlight = new Semaphore(maxInFlightPages);
+
+        private final Map<String, HostGate> hostGates = new ConcurrentHashMap<>();
+
+        private Crawl(int maxDepthIn, boolean strictHostIn, @Nullable String baseHostIn,
+            @Nullable Supplier<Boolean> cancelHookIn, @Nullable ScanStatusListener statusListenerIn,
+            @Nullable MediaLinkListener mediaListenerIn) {
+            maxDepth = maxDepthIn;
+            strictHost = strictHostIn;
+            baseHost = baseHostIn;
+            cancelHook = cancelHookIn;
+            statusListener = statusListenerIn;
+            mediaListener = mediaListenerIn;
+        }
 
-        if (cancelHook != null && cancelHook.get()) {
-            log.debug("Scan aborted via cancel hook at depth {} for url: {}", depth, url);
-            return;
+        private boolean isCancelled() {
+            return cancelHook != null && cancelHook.get();
         }
 
-        String cleanUrl = stripFragment(url);
+        private void status(String translationKey, Object... args) {
+            WebScanner.notify(statusListener, translationKey, args);
+        }
+
+        private void enqueue(String url, @Nullable String html, int depth) {
+            String cleanUrl = stripFragment(url);
+
+            if (depth > maxDepth) {
+                return;
+            }
+
+            if (strictHost && (baseHost == null || !baseHost.equalsIgnoreCase(getHost(cleanUrl)))) {
+                return;
+            }
+
+            if (!visited.add(cleanUrl)) {
+                return;
+            }
+
+            pending.incrementAndGet();
+            frontier.add(new PageTask(cleanUrl, html, depth, sequence.getAndIncrement()));
+        }
+
+        private void run() {
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                while (pending.get() > 0) {
+                    if (isCancelled()) {
+                        log.debug("Scan aborted via cancel hook, {} page(s) left in the frontier", frontier.size());
+                        executor.shutdownNow();
+                        break;
+                    }
+
+                    if (!inFlight.tryAcquire(DISPATCH_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        continue;
+                    }
+
+                    PageTask task = frontier.poll(DISPATCH_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (task == null) {
+                        inFlight.release();
+                        continue;
+                    }
 
-        if (depth > maxDepth || !visited.add(cleanUrl)) {
-            return;
+                    executor.execute(() -> {
+                        try {
+                            scanPage(task);
+                        } finally {
+                            inFlight.release();
+                            pending.decrementAndGet();
+                        }
+                    });
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            } finally {
+                executor.close();
+            }
         }
 
-        if (strictHost && !baseHost.equalsIgnoreCase(getHost(cleanUrl))) {
-            return;
+        private void scanPage(PageTask task) {
+            if (isCancelled()) {
+                return;
+            }
+
+            String pageUrl = task.url();
+            int depth = task.depth();
+
+            log.debug("Scanning page [Depth {}/{}]: {}", depth, maxDepth, pageUrl);
+            status("gui.web_scanner.status.fetching_page", pageUrl, depth, maxDepth);
+
+            Document doc;
+            try {
+                if (task.html() != null && !task.html().isBlank()) {
+                    doc = Jsoup.parse(task.html(), pageUrl);
+                } else {
+                    doc = fetchPage(pageUrl);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (log.isDebugEnabled()) {
+                    log.error("Failed to retrieve or parse document {}: {}", pageUrl, e.getMessage());
+                }
+
+                status("gui.web_scanner.status.page_fetch_failed", pageUrl);
+
+                return;
+            }
+
+            if (doc == null) {
+                return;
+            }
+
+            List<String> pageLinks = depth < maxDepth ? new ArrayList<>() : null;
+            int foundHere = collectLinks(doc, pageUrl, this::addMedia, pageLinks);
+
+            if (foundHere > 0) {
+                status("gui.web_scanner.status.found_on_page", foundHere, pageUrl);
+            }
+
+            if (pageLinks != null && !isCancelled()) {
+                log.debug("Found {} sub-links to potentially scan at depth {}", pageLinks.size(), depth);
+
+                for (String nextUrl : pageLinks) {
+                    enqueue(nextUrl, null, depth + 1);
+                }
+            }
         }
 
-        log.debug("Scanning page [Depth {}/{}]: {}", depth, maxDepth, cleanUrl);
-        notify(statusListener, "gui.web_scanner.status.fetching_page", cleanUrl, depth, maxDepth);
+        @Nullable
+        private Document fetchPage(String pageUrl) throws IOException, InterruptedException {
+            String host = getHost(pageUrl);
+            HostGate gate = hostGates.computeIfAbsent(
+                host == null ? "" : host.toLowerCase(Locale.ROOT), k -> new HostGate(maxPagesPerHost));
 
-        Document doc = null;
-        try {
-            if (html != null && !html.isBlank()) {
-                doc = Jsoup.parse(html, cleanUrl);
-            } else {
+            gate.acquire(hostRequestInterval.toNanos());
+            try {
                 HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(cleanUrl))
+                    .uri(URI.create(pageUrl))
                     .timeout(pageFetchTimeout)
                     .header("User-Agent", URLUtils.getGlobalUserAgent())
                     .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
@@ -172,137 +350,131 @@ public class WebScanner {
 
                 HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
                 if (response.statusCode() / 100 == 2) {
-                    doc = Jsoup.parse(readBounded(response.body(), maxPageSizeBytes), cleanUrl);
-                } else {
-                    response.body().close();
+                    return Jsoup.parse(readBounded(response.body(), maxPageSizeBytes), pageUrl);
+                }
 
-                    if (log.isDebugEnabled()) {
-                        log.warn("Server returned HTTP {} for {}", response.statusCode(), cleanUrl);
-                    }
+                response.body().close();
 
-                    notify(statusListener, "gui.web_scanner.status.page_http_error", cleanUrl, response.statusCode());
+                if (log.isDebugEnabled()) {
+                    log.warn("Server returned HTTP {} for {}", response.statusCode(), pageUrl);
                 }
-            }
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) {
-                log.error("Failed to retrieve or parse document {}: {}", cleanUrl, e.getMessage());
-            }
 
-            notify(statusListener, "gui.web_scanner.status.page_fetch_failed", cleanUrl);
+                status("gui.web_scanner.status.page_http_error", pageUrl, response.statusCode());
 
-            return;
-        }
-
-        if (doc == null) {
-            return;
+                return null;
+            } finally {
+                gate.release();
+            }
         }
 
-        int beforeCount = media.size();
+        private boolean addMedia(String url) {
+            if (!media.add(url)) {
+                return false;
+            }
 
-        collectAttributeLinks(doc, media);
-        collectSrcSetLinks(doc, cleanUrl, media);
-        collectMetaLinks(doc, cleanUrl, media);
-        collectInlineStyleLinks(doc, cleanUrl, media);
-        collectStyleBlockLinks(doc, cleanUrl, media);
+            if (mediaListener != null) {
+                try {
+                    mediaListener.onMediaFound(url);
+                } catch (Exception e) {
+                    log.error("Media link listener failed for {}: {}", url, e.getMessage());
+                }
+            }
 
-        int foundHere = media.size() - beforeCount;
-        if (foundHere > 0) {
-            notify(statusListener, "gui.web_scanner.status.found_on_page", foundHere, cleanUrl);
+            return true;
         }
+    }
 
-        if (depth < maxDepth) {
-            Elements pageLinks = doc.select("a[href]");
-            log.debug("Found {} sub-links to potentially scan at depth {}", pageLinks.size(), depth);
+    /**
+     * Walks the document once, collecting every media candidate and, if {@code pageLinks} is not null,
+     * every anchor worth crawling next.
+     *
+     * @return how many links {@code sink} accepted.
+     */
+    private int collectLinks(Document doc, String pageUrl, MediaSink sink, @Nullable List<String> pageLinks) {
+        int found = 0;
 
-            for (Element link : pageLinks) {
-                if (cancelHook != null && cancelHook.get()) {
-                    log.debug("Scan aborted during sub-link iteration at depth {}", depth);
-                    break;
+        for (Element element : doc.getAllElements()) {
+            String tag = element.normalName();
+
+            if (tag.equals("style")) {
+                found += extractCssUrls(element.data(), pageUrl, sink);
+                continue;
+            }
+
+            if (tag.equals("meta")) {
+                String property = element.attr("property");
+                if (property.isEmpty()) {
+                    property = element.attr("name");
                 }
 
-                String nextUrl = link.absUrl("href");
-                if (isScannablePage(nextUrl)) {
-                    scanRecursive(nextUrl, null, depth + 1, maxDepth,
-                        strictHost, baseHost, visited, media, cancelHook, statusListener);
+                if (OG_META_PROPERTIES.contains(property.toLowerCase(Locale.ROOT))) {
+                    found += considerUrl(resolve(pageUrl, element.attr("content")), sink);
                 }
-            }
-        }
-    }
 
-    private void collectAttributeLinks(Document doc, Set<String> found) {
-        for (String[] source : ATTRIBUTE_SOURCES) {
-            String tag = source[0];
-            String attr = source[1];
+                continue;
+            }
 
-            Elements elements = doc.select(tag + "[" + attr + "]");
-            for (Element element : elements) {
-                considerUrl(element.absUrl(attr), found);
+            if (element.attributesSize() == 0) {
+                continue;
             }
-        }
-    }
 
-    private void collectSrcSetLinks(Document doc, String pageUrl, Set<String> found) {
-        for (String[] source : SRCSET_SOURCES) {
-            String tag = source[0];
-            String attr = source[1];
+            Set<String> urlAttributes = ATTRIBUTE_SOURCES.get(tag);
+            Set<String> srcSetAttributes = SRCSET_SOURCES.get(tag);
 
-            Elements elements = doc.select(tag + "[" + attr + "]");
-            for (Element element : elements) {
-                for (String candidate : parseSrcSet(element.attr(attr), pageUrl)) {
-                    considerUrl(candidate, found);
-                }
-            }
-        }
-    }
+            for (Attribute attribute : element.attributes()) {
+                String key = attribute.getKey();
 
-    private void collectMetaLinks(Document doc, String pageUrl, Set<String> found) {
-        for (String property : OG_META_PROPERTIES) {
-            Elements metas = doc.select(
-                "meta[property=" + property + "], meta[name=" + property + "]");
+                if (urlAttributes != null && urlAttributes.contains(key)) {
+                    String absolute = element.absUrl(key);
+                    found += considerUrl(absolute, sink);
 
-            for (Element meta : metas) {
-                considerUrl(resolve(pageUrl, meta.attr("content")), found);
+                    if (pageLinks != null && tag.equals("a") && isScannablePage(absolute)) {
+                        pageLinks.add(absolute);
+                    }
+                } else if (srcSetAttributes != null && srcSetAttributes.contains(key)) {
+                    for (String candidate : parseSrcSet(attribute.getValue(), pageUrl)) {
+                        found += considerUrl(candidate, sink);
+                    }
+                } else if (key.equals("style")) {
+                    found += extractCssUrls(attribute.getValue(), pageUrl, sink);
+                }
             }
         }
-    }
 
-    private void collectInlineStyleLinks(Document doc, String pageUrl, Set<String> found) {
-        for (Element element : doc.select("[style]")) {
-            extractCssUrls(element.attr("style"), pageUrl, found);
-        }
-    }
-
-    private void collectStyleBlockLinks(Document doc, String pageUrl, Set<String> found) {
-        for (Element styleTag : doc.select("style")) {
-            extractCssUrls(styleTag.data(), pageUrl, found);
-        }
+        return found;
     }
 
-    private void extractCssUrls(@Nullable String css, String pageUrl, Set<String> found) {
+    private int extractCssUrls(@Nullable String css, String pageUrl, MediaSink sink) {
         if (css == null || css.isEmpty()) {
-            return;
+            return 0;
         }
 
+        int found = 0;
+
         Matcher matcher = CSS_URL_PATTERN.matcher(css);
         while (matcher.find()) {
-            considerUrl(resolve(pageUrl, matcher.group(1)), found);
+            found += considerUrl(resolve(pageUrl, matcher.group(1)), sink);
         }
+
+        return found;
     }
 
-    private void considerUrl(@Nullable String candidate, Set<String> found) {
+    private int considerUrl(@Nullable String candidate, MediaSink sink) {
         if (candidate == null || candidate.isEmpty() || !isHttpUrl(candidate)) {
-            return;
+            return 0;
         }
 
         // MediaWiki description pages - ignore
         if (candidate.contains("/File:") || candidate.contains("/Image:")) {
-            return;
+            return 0;
         }
 
         String extension = getExtension(candidate);
         if (extensions.isDownloadableExtension(extension) || extensions.isMultiPartArchiveUrl(candidate)) {
-            found.add(candidate);
+            return sink.accept(candidate) ? 1 : 0;
         }
+
+        return 0;
     }
 
     private boolean isScannablePage(String url) {
@@ -371,9 +543,67 @@ public class WebScanner {
         }
     }
 
+    private record PageTask(String url, @Nullable String html, int depth, long sequence) {
+
+    }
+
+    /**
+     * Per-host politeness: at most {@code maxPages} concurrent requests, spaced out by a minimum interval.
+     */
+    private static final class HostGate {
+
+        private final Semaphore permits;
+        private long nextRequestNanos = System.nanoTime();
+
+        private HostGate(int maxPages) {
+            permits = new Semaphore(maxPages);
+        }
+
+        private void acquire(long intervalNanos) throws InterruptedException {
+            permits.acquire();
+
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, nextRequestNanos);
+                nextRequestNanos = slot + intervalNanos;
+                waitNanos = slot - now;
+            }
+
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    permits.release();
+
+                    throw e;
+                }
+            }
+        }
+
+        private void release() {
+            permits.release();
+        }
+    }
+
+    @FunctionalInterface
+    private interface MediaSink {
+
+        /**
+         * @return true if the link had not been seen before.
+         */
+        boolean accept(String url);
+    }
+
     @FunctionalInterface
     public interface ScanStatusListener {
 
         void onStatus(String translationKey, Object... args);
     }
+
+    @FunctionalInterface
+    public interface MediaLinkListener {
+
+        void onMediaFound(String url);
+    }
 }
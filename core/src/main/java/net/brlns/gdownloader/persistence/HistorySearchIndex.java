@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.persistence;
+
+import jakarta.annotation.Nullable;
+import java.util.*;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Inverted word index over the download history, searched instead of scanning the table.
+ *
+ * Every term of a filter has to match the start of a word in the title, url or host of an
+ * entry. Results come newest first, and a filter that only narrows the previous one is
+ * answered from the previous results, so typing into the search box does not start over.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+public class HistorySearchIndex {
+
+    private static final Comparator<Document> NEWEST_FIRST = Comparator
+        .comparingLong(Document::getDownloadedAt).reversed()
+        .thenComparing(Document::getUrl);
+
+    private final Map<String, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Set<Document>> postings = new TreeMap<>();
+
+    // Previous search, kept until the index changes.
+    private List<String> lastTerms;
+    private List<Document> lastMatches;
+    private List<String> lastUrls;
+
+    public synchronized void put(String url, @Nullable String title,
+        @Nullable String hostDisplayName, long downloadedAt) {
+        remove(url);
+
+        Set<String> words = new LinkedHashSet<>();
+        words.addAll(tokenize(url));
+        words.addAll(tokenize(title));
+        words.addAll(tokenize(hostDisplayName));
+
+        Document document = new Document(url, downloadedAt, words.toArray(String[]::new));
+        documents.put(url, document);
+
+        for (String word : document.getWords()) {
+            postings.computeIfAbsent(word, k -> new HashSet<>()).add(document);
+        }
+
+        invalidate();
+    }
+
+    public synchronized void remove(String url) {
+        Document document = documents.remove(url);
+        if (document == null) {
+            return;
+        }
+
+        for (String word : document.getWords()) {
+            Set<Document> matches = postings.get(word);
+            if (matches != null && matches.remove(document) && matches.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+
+        invalidate();
+    }
+
+    public synchronized void clear() {
+        documents.clear();
+        postings.clear();
+
+        invalidate();
+    }
+
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    /**
+     * Urls of the entries matching every term of the filter, newest first.
+     */
+    public synchronized List<String> search(String filter) {
+        List<String> terms = tokenize(filter);
+
+        if (terms.equals(lastTerms)) {
+            return lastUrls;
+        }
+
+        List<Document> matches;
+        if (lastTerms != null && narrows(lastTerms, terms)) {
+            matches = new ArrayList<>();
+            for (Document document : lastMatches) {
+                if (document.matchesAll(terms)) {
+                    matches.add(document);
+                }
+            }
+        } else {
+            matches = lookup(terms);
+        }
+
+        List<String> urls = new ArrayList<>(matches.size());
+        for (Document document : matches) {
+            urls.add(document.getUrl());
+        }
+
+        lastTerms = terms;
+        lastMatches = matches;
+        lastUrls = Collections.unmodifiableList(urls);
+
+        return lastUrls;
+    }
+
+    private List<Document> lookup(List<String> terms) {
+        if (terms.isEmpty()) {
+            List<Document> all = new ArrayList<>(documents.values());
+            all.sort(NEWEST_FIRST);
+
+            return all;
+        }
+
+        List<Set<Document>> perTerm = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Set<Document> matches = new HashSet<>();
+            for (Set<Document> postingList : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                matches.addAll(postingList);
+            }
+
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            perTerm.add(matches);
+        }
+
+        // Intersect starting from the most selective term
+        perTerm.sort(Comparator.comparingInt(Set::size));
+
+        Set<Document> result = perTerm.get(0);
+        for (int i = 1; i < perTerm.size() && !result.isEmpty(); i++) {
+            result.retainAll(perTerm.get(i));
+        }
+
+        List<Document> sorted = new ArrayList<>(result);
+        sorted.sort(NEWEST_FIRST);
+
+        return sorted;
+    }
+
+    // Every new term starts with its previous counterpart, so matches can only shrink.
+    private static boolean narrows(List<String> previous, List<String> current) {
+        if (previous.isEmpty() || current.size() < previous.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < previous.size(); i++) {
+            if (!current.get(i).startsWith(previous.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void invalidate() {
+        lastTerms = null;
+        lastMatches = null;
+        lastUrls = null;
+    }
+
+    /**
+     * Lowercase words of the text. Ideographs count as words of their own since those
+     * scripts do not separate words with spaces.
+     */
+    public static List<String> tokenize(@Nullable String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+
+        int wordStart = -1;
+        int i = 0;
+        while (i < lowerCase.length()) {
+            int codePoint = lowerCase.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+
+            if (Character.isLetterOrDigit(codePoint) && !Character.isIdeographic(codePoint)) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else {
+                if (wordStart >= 0) {
+                    words.add(lowerCase.substring(wordStart, i));
+                    wordStart = -1;
+                }
+
+                if (Character.isIdeographic(codePoint)) {
+                    words.add(lowerCase.substring(i, next));
+                }
+            }
+
+            i = next;
+        }
+
+        if (wordStart >= 0) {
+            words.add(lowerCase.substring(wordStart));
+        }
+
+        return words;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class Document {
+
+        private final String url;
+        private final long downloadedAt;
+        private final String[] words;
+
+        private boolean matchesAll(List<String> terms) {
+            for (String term : terms) {
+                boolean found = false;
+                for (String word : words) {
+                    if (word.startsWith(term)) {
+                        found = true;
+                        break;
+                    }
+                }
+
+                if (!found) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.persistence;
+
+import jakarta.annotation.Nullable;
+import net.brlns.gdownloader.persistence.entity.QueueEntryDelta;
+
+/**
+ * Something that can describe what changed since it was last written.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@FunctionalInterface
+public interface ICheckpointSource {
+
+    /**
+     * Returns the changes since the previous checkpoint, or null when there is nothing to write.
+     */
+    @Nullable
+    QueueEntryDelta createCheckpoint();
+
+    /**
+     * Called when a checkpoint could not be written, the next one should carry the whole entry.
+     */
+    default void onCheckpointFailed(QueueEntryDelta checkpoint) {
+    }
+}
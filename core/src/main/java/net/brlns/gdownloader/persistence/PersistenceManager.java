@@ -90,6 +90,9 @@ public class PersistenceManager implements AutoCloseable {
     @Getter
     private DownloadHistoryRepository downloadHistory;
 
+    @Getter
+    private WriteBehindQueue writeBehind;
+
     @Getter
     private final boolean firstBoot;
 
@@ -137,6 +140,11 @@ public class PersistenceManager implements AutoCloseable {
             queueEntries = new QueueEntryRepository(emf);
             mediaInfos = new MediaInfoRepository(emf);
 
+            queueEntries.migrateLegacyLogs();
+
+            writeBehind = new WriteBehindQueue(queueEntries, counters);
+            writeBehind.start();
+
             initHistoryDatabase();
 
             GLOBAL_THREAD_POOL.execute(() -> {
@@ -185,6 +193,10 @@ public class PersistenceManager implements AutoCloseable {
     @PreDestroy
     @Override
     public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+
         if (emf != null && emf.isOpen()) {
             emf.close();
         }
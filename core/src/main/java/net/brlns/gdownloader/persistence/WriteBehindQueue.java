@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.persistence;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.persistence.entity.CounterTypeEnum;
+import net.brlns.gdownloader.persistence.entity.QueueEntryDelta;
+import net.brlns.gdownloader.persistence.repository.CounterRepository;
+import net.brlns.gdownloader.persistence.repository.QueueEntryRepository;
+
+/**
+ * Collects queue checkpoints and counter updates and writes them to the database in batches.
+ *
+ * Repeated checkpoints of the same download collapse into one, and snapshots are only taken
+ * when a batch is written, so a burst of captured links costs a handful of transactions
+ * instead of one round trip per category change. Entries that were written before only
+ * send what changed since.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public class WriteBehindQueue implements AutoCloseable {
+
+    private static final long FLUSH_INTERVAL_MILLIS = 250;
+    private static final int MAX_BATCH_SIZE = 256;
+
+    // Marks a pending removal.
+    private static final ICheckpointSource REMOVED = () -> null;
+
+    private final QueueEntryRepository queueEntries;
+    private final CounterRepository counters;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeup = lock.newCondition();
+
+    // Held for the whole write, so batches reach the database in the order they were taken.
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private Map<Long, ICheckpointSource> pendingEntries = new LinkedHashMap<>();
+    private Map<CounterTypeEnum, Long> pendingCounters = new EnumMap<>(CounterTypeEnum.class);
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public WriteBehindQueue(QueueEntryRepository queueEntriesIn, CounterRepository countersIn) {
+        queueEntries = queueEntriesIn;
+        counters = countersIn;
+    }
+
+    public void start() {
+        lock.lock();
+        try {
+            if (running) {
+                return;
+            }
+
+            running = true;
+
+            thread = Thread.ofPlatform()
+                .name("Persistence-Writer")
+                .daemon(true)
+                .start(this::loop);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a checkpoint, the snapshot is taken when the batch is written.
+     */
+    public void upsert(long downloadId, ICheckpointSource source) {
+        enqueue(downloadId, source);
+    }
+
+    public void remove(long downloadId) {
+        enqueue(downloadId, REMOVED);
+    }
+
+    /**
+     * Queues a counter update, only the highest value seen before the next write is kept.
+     */
+    public void setCounter(CounterTypeEnum counterType, long value) {
+        lock.lock();
+        try {
+            pendingCounters.merge(counterType, value, Math::max);
+            wakeup.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(long downloadId, ICheckpointSource operation) {
+        lock.lock();
+        try {
+            pendingEntries.put(downloadId, operation);
+            wakeup.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything queued so far and waits for it to be committed.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, ICheckpointSource> entries;
+            Map<CounterTypeEnum, Long> counterValues;
+
+            lock.lock();
+            try {
+                if (pendingEntries.isEmpty() && pendingCounters.isEmpty()) {
+                    return;
+                }
+
+                entries = pendingEntries;
+                counterValues = pendingCounters;
+
+                pendingEntries = new LinkedHashMap<>();
+                pendingCounters = new EnumMap<>(CounterTypeEnum.class);
+            } finally {
+                lock.unlock();
+            }
+
+            counterValues.forEach(counters::setCurrentValue);
+
+            writeEntries(entries);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Every slice commits on its own, so a large burst never becomes one unbounded transaction.
+    private void writeEntries(Map<Long, ICheckpointSource> entries) {
+        Map<Long, ICheckpointSource> batch = new LinkedHashMap<>();
+
+        for (Map.Entry<Long, ICheckpointSource> entry : entries.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+
+            if (batch.size() == MAX_BATCH_SIZE) {
+                writeBatch(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+
+        writeBatch(batch);
+    }
+
+    private void writeBatch(Map<Long, ICheckpointSource> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<QueueEntryDelta, ICheckpointSource> checkpoints = new LinkedHashMap<>();
+        List<Long> removals = new ArrayList<>();
+
+        for (Map.Entry<Long, ICheckpointSource> entry : entries.entrySet()) {
+            if (entry.getValue() == REMOVED) {
+                removals.add(entry.getKey());
+                continue;
+            }
+
+            try {
+                QueueEntryDelta checkpoint = entry.getValue().createCheckpoint();
+                if (checkpoint != null && !checkpoint.isEmpty()) {
+                    checkpoints.put(checkpoint, entry.getValue());
+                }
+            } catch (Exception e) {
+                log.error("Failed to snapshot queue entry {}", entry.getKey(), e);
+            }
+        }
+
+        if (checkpoints.isEmpty() && removals.isEmpty()) {
+            return;
+        }
+
+        if (queueEntries.applyCheckpoints(new ArrayList<>(checkpoints.keySet()), removals)) {
+            return;
+        }
+
+        // Do not let one bad row take the whole batch with it.
+        log.warn("Batched write of {} checkpoints failed, retrying one by one", entries.size());
+
+        checkpoints.forEach((checkpoint, source) -> {
+            if (!queueEntries.applyCheckpoint(checkpoint)) {
+                source.onCheckpointFailed(checkpoint);
+
+                // A failed delta leaves the row behind, follow up with a full write
+                // unless a removal or a newer checkpoint is already waiting.
+                if (!checkpoint.isFullWrite()) {
+                    retry(checkpoint.getDownloadId(), source);
+                }
+            }
+        });
+
+        for (Long downloadId : removals) {
+            queueEntries.remove(downloadId);
+        }
+    }
+
+    private void retry(long downloadId, ICheckpointSource source) {
+        lock.lock();
+        try {
+            pendingEntries.putIfAbsent(downloadId, source);
+            wakeup.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            lock.lock();
+            try {
+                while (running && pendingEntries.isEmpty() && pendingCounters.isEmpty()) {
+                    wakeup.await();
+                }
+
+                // Give the batch a moment to fill up, unless it is already large.
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+                while (running && remainingNanos > 0 && pendingEntries.size() < MAX_BATCH_SIZE) {
+                    remainingNanos = wakeup.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                flush();
+            } catch (Exception e) {
+                log.error("Failed to write pending checkpoints", e);
+            }
+        }
+    }
+
+    /**
+     * Stops the writer thread and commits whatever is still pending.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            wakeup.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.persistence.entity;
+
+import jakarta.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import net.brlns.gdownloader.downloader.enums.DownloaderIdEnum;
+
+/**
+ * Changes to a queue entry since its last checkpoint.
+ *
+ * Entries that were never written carry the whole entity instead, everything else only
+ * carries the columns and collections that actually changed. Log lines are always appended.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Getter
+@ToString
+public class QueueEntryDelta {
+
+    /**
+     * Columns that can change after an entry was first written, keyed by entity attribute name.
+     */
+    public static final Map<String, Function<QueueEntryEntity, Object>> SCALAR_ATTRIBUTES;
+
+    static {
+        Map<String, Function<QueueEntryEntity, Object>> attributes = new LinkedHashMap<>();
+        attributes.put("lastStatusMessage", QueueEntryEntity::getLastStatusMessage);
+        attributes.put("forcedDownloader", QueueEntryEntity::getForcedDownloader);
+        attributes.put("forcedFormatId", QueueEntryEntity::getForcedFormatId);
+        attributes.put("currentDownloader", QueueEntryEntity::getCurrentDownloader);
+        attributes.put("currentDownloadType", QueueEntryEntity::getCurrentDownloadType);
+        attributes.put("currentQueueCategory", QueueEntryEntity::getCurrentQueueCategory);
+        attributes.put("downloadStatus", QueueEntryEntity::getDownloadStatus);
+        attributes.put("currentDownloadPriority", QueueEntryEntity::getCurrentDownloadPriority);
+        attributes.put("currentDownloadSequence", QueueEntryEntity::getCurrentDownloadSequence);
+        attributes.put("downloadStarted", QueueEntryEntity::isDownloadStarted);
+        attributes.put("downloadSkipped", QueueEntryEntity::isDownloadSkipped);
+        attributes.put("retryCounter", QueueEntryEntity::getRetryCounter);
+        attributes.put("queried", QueueEntryEntity::isQueried);
+        attributes.put("tmpDirectoryPath", QueueEntryEntity::getTmpDirectoryPath);
+        attributes.put("customDownloadDirectory", QueueEntryEntity::getCustomDownloadDirectory);
+        attributes.put("resumeManifestPath", QueueEntryEntity::getResumeManifestPath);
+
+        SCALAR_ATTRIBUTES = Collections.unmodifiableMap(attributes);
+    }
+
+    private final long downloadId;
+
+    @Nullable
+    private final QueueEntryEntity entity;
+
+    private final Map<String, Object> changedAttributes = new LinkedHashMap<>();
+
+    // Replacement contents, null when unchanged.
+    @Setter
+    private List<DownloaderIdEnum> downloaderBlacklist;
+    @Setter
+    private List<String> pendingFormats;
+    @Setter
+    private List<String> mediaFilePaths;
+    @Setter
+    private List<String> thumbnailUrls;
+    @Setter
+    private List<String> lastCommandLine;
+    @Setter
+    private Map<String, Long> playlistItemUploadTimes;
+
+    // Lines logged since the previous checkpoint, null when none.
+    @Setter
+    private List<String> errorLog;
+    @Setter
+    private List<String> downloadLog;
+
+    private QueueEntryDelta(long downloadIdIn, @Nullable QueueEntryEntity entityIn) {
+        downloadId = downloadIdIn;
+        entity = entityIn;
+    }
+
+    public static QueueEntryDelta fullWrite(QueueEntryEntity entity) {
+        return new QueueEntryDelta(entity.getDownloadId(), entity);
+    }
+
+    public static QueueEntryDelta changes(long downloadId) {
+        return new QueueEntryDelta(downloadId, null);
+    }
+
+    public boolean isFullWrite() {
+        return entity != null;
+    }
+
+    public boolean isEmpty() {
+        return entity == null
+            && changedAttributes.isEmpty()
+            && downloaderBlacklist == null
+            && pendingFormats == null
+            && mediaFilePaths == null
+            && thumbnailUrls == null
+            && lastCommandLine == null
+            && playlistItemUploadTimes == null
+            && errorLog == null
+            && downloadLog == null;
+    }
+}
@@ -35,7 +35,11 @@ import net.brlns.gdownloader.persistence.converter.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "queue_entries")
+@Table(name = "queue_entries",
+    indexes = {
+        @Index(name = "idx_queue_entries_sequence_id", columnList = "current_download_sequence ASC, queue_entry_id ASC")
+    }
+)
 public class QueueEntryEntity implements Serializable {
 
     @Id
@@ -121,6 +125,9 @@ public class QueueEntryEntity implements Serializable {
     @Column(name = "custom_download_directory", length = 4096)
     private String customDownloadDirectory;
 
+    @Column(name = "resume_manifest_path", length = 4096)
+    private String resumeManifestPath;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @Lob
     @CollectionTable(name = "final_media_files", joinColumns = @JoinColumn(name = "download_id"))
@@ -148,11 +155,13 @@ public class QueueEntryEntity implements Serializable {
     @Column(name = "last_command_line", length = 8192)
     private ArrayList<String> lastCommandLine = new ArrayList<>();
 
+    // Superseded by queue_entry_logs, only read once to migrate older databases.
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "error_logs", joinColumns = @JoinColumn(name = "download_id"))
     @Lob
     @OrderColumn
     @Column(name = "error_log", length = 8192)
+    @Deprecated
     private ArrayList<String> errorLog = new ArrayList<>();
 
     @ElementCollection(fetch = FetchType.LAZY)
@@ -160,6 +169,7 @@ public class QueueEntryEntity implements Serializable {
     @Lob
     @OrderColumn
     @Column(name = "download_log", length = 8192)
+    @Deprecated
     private ArrayList<String> downloadLog = new ArrayList<>();
 
     @ElementCollection(fetch = FetchType.LAZY)
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.persistence.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single line of a queue entry log.
+ *
+ * Lines are only ever appended, a line that is logged again gets a new row and the older
+ * one is ignored when reading.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Cacheable(false)
+@IdClass(QueueEntryLogEntity.Key.class)
+@Table(name = "queue_entry_logs",
+    indexes = {
+        // The generated primary key does not lead with the entry
+        @Index(name = "idx_queue_entry_logs_entry", columnList = "download_id ASC, log_type ASC, seq ASC")
+    }
+)
+public class QueueEntryLogEntity implements Serializable {
+
+    @Id
+    @Column(name = "download_id")
+    private long downloadId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "log_type")
+    private LogTypeEnum logType;
+
+    @Id
+    @Column(name = "seq")
+    private long sequence;
+
+    @Lob
+    @Column(name = "line", length = 8192)
+    private String line;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private long downloadId;
+        private LogTypeEnum logType;
+        private long sequence;
+    }
+}
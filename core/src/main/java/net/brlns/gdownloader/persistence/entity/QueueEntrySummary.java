@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.persistence.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.brlns.gdownloader.downloader.enums.*;
+import net.brlns.gdownloader.filters.AbstractUrlFilter;
+
+/**
+ * The columns of a queue entry, without any of its collections.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueEntrySummary {
+
+    private long downloadId;
+    private String url;
+    private String originalUrl;
+    private String filterId;
+    private AbstractUrlFilter filter;
+    private DownloaderIdEnum forcedDownloader;
+    private String forcedFormatId;
+    private DownloaderIdEnum currentDownloader;
+    private DownloadTypeEnum currentDownloadType;
+    private QueueCategoryEnum currentQueueCategory;
+    private DownloadStatusEnum downloadStatus;
+    private String lastStatusMessage;
+    private DownloadPriorityEnum currentDownloadPriority;
+    private Long currentDownloadSequence;
+    private boolean downloadStarted;
+    private boolean downloadSkipped;
+    private int retryCounter;
+    private boolean queried;
+    private String tmpDirectoryPath;
+    private String customDownloadDirectory;
+    private String resumeManifestPath;
+}
@@ -16,20 +16,23 @@
  */
 package net.brlns.gdownloader.persistence.repository;
 
+import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.TypedQuery;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.persistence.HistorySearchIndex;
 import net.brlns.gdownloader.persistence.entity.DownloadHistoryEntity;
 import net.brlns.gdownloader.persistence.entity.DownloadHistorySummary;
 
@@ -46,8 +49,13 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
 
     private static final String ORDER_BY_DATE = " ORDER BY e.downloadedAt DESC, e.url ASC";
 
-    private static final String FILTER_WHERE
-        = " WHERE LOWER(e.title) LIKE :filter OR LOWER(e.url) LIKE :filter OR LOWER(e.hostDisplayName) LIKE :filter";
+    // Keyset seek on idx_download_history_date_url, the first clause bounds the index range.
+    private static final String AFTER_ANCHOR
+        = " WHERE e.downloadedAt <= :downloadedAt"
+        + " AND (e.downloadedAt < :downloadedAt OR e.url > :url)";
+
+    // Rows between two keys of the seek table, the most a page query ever walks past its anchor.
+    private static final int SEEK_TABLE_STRIDE = 256;
 
     private static final int BULK_DELETE_CHUNK_SIZE = 1000;
 
@@ -55,6 +63,15 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
     private final Object cacheLock = new Object();
     private final AtomicBoolean cacheLoaded = new AtomicBoolean();
 
+    // Built on the first search, kept in step with every write afterwards.
+    private final HistorySearchIndex searchIndex = new HistorySearchIndex();
+    private final Object searchIndexLock = new Object();
+    private boolean searchIndexLoaded;
+
+    // Key of every SEEK_TABLE_STRIDE-th row in date order, rebuilt on the first page query after a write.
+    private final Object seekTableLock = new Object();
+    private List<SeekKey> seekTable;
+
     public DownloadHistoryRepository(EntityManagerFactory emfIn) {
         super(emfIn, DownloadHistoryEntity.class);
     }
@@ -97,6 +114,91 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
         }
     }
 
+    private HistorySearchIndex getSearchIndex() {
+        synchronized (searchIndexLock) {
+            if (!searchIndexLoaded) {
+                try (EntityManager em = getEmf().createEntityManager()) {
+                    TypedQuery<Object[]> query = em.createQuery(
+                        "SELECT e.url, e.title, e.hostDisplayName, e.downloadedAt FROM DownloadHistoryEntity e",
+                        Object[].class);
+
+                    for (Object[] row : query.getResultList()) {
+                        searchIndex.put((String)row[0], (String)row[1], (String)row[2], (Long)row[3]);
+                    }
+
+                    searchIndexLoaded = true;
+
+                    log.info("Indexed {} download history entries for search", searchIndex.size());
+                } catch (Exception e) {
+                    searchIndex.clear();
+
+                    log.error("Failed to build the download history search index", e);
+                }
+            }
+
+            return searchIndex;
+        }
+    }
+
+    // Writes before the first search are picked up when the index is built.
+    private void updateSearchIndex(Consumer<HistorySearchIndex> update) {
+        synchronized (searchIndexLock) {
+            if (searchIndexLoaded) {
+                update.accept(searchIndex);
+            }
+        }
+    }
+
+    private List<SeekKey> getSeekTable() {
+        synchronized (seekTableLock) {
+            if (seekTable == null) {
+                try (EntityManager em = getEmf().createEntityManager()) {
+                    TypedQuery<Object[]> query = em.createQuery(
+                        "SELECT e.downloadedAt, e.url FROM DownloadHistoryEntity e" + ORDER_BY_DATE, Object[].class);
+
+                    List<SeekKey> keys = new ArrayList<>();
+
+                    int index = 0;
+                    for (Object[] row : query.getResultList()) {
+                        if (++index % SEEK_TABLE_STRIDE == 0) {
+                            keys.add(new SeekKey((Long)row[0], (String)row[1]));
+                        }
+                    }
+
+                    seekTable = keys;
+                } catch (Exception e) {
+                    log.error("Failed to build the download history seek table", e);
+
+                    return List.of();
+                }
+            }
+
+            return seekTable;
+        }
+    }
+
+    // Writers call this after committing, a table built concurrently is thrown away again.
+    private void invalidateSeekTable() {
+        synchronized (seekTableLock) {
+            seekTable = null;
+        }
+    }
+
+    private static boolean hasSearchTerms(String filter) {
+        return filter != null && !HistorySearchIndex.tokenize(filter).isEmpty();
+    }
+
+    private List<String> search(String filter) {
+        return getSearchIndex().search(filter);
+    }
+
+    private static List<String> slice(List<String> urls, int offset, int limit) {
+        int from = Math.min(Math.max(0, offset), urls.size());
+        int to = Math.min(from + Math.max(0, limit), urls.size());
+
+        return urls.subList(from, to);
+    }
+
     public List<DownloadHistoryEntity> getAllOrderedByDate() {
         try (EntityManager em = getEmf().createEntityManager()) {
             TypedQuery<DownloadHistoryEntity> query = em.createQuery(
@@ -112,15 +214,13 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
     }
 
     public long getCount(String filter) {
-        boolean hasFilter = filter != null && !filter.isBlank();
+        if (hasSearchTerms(filter)) {
+            return search(filter).size();
+        }
 
         try (EntityManager em = getEmf().createEntityManager()) {
-            String jpql = "SELECT COUNT(e) FROM DownloadHistoryEntity e" + (hasFilter ? FILTER_WHERE : "");
-
-            TypedQuery<Long> query = em.createQuery(jpql, Long.class);
-            if (hasFilter) {
-                query.setParameter("filter", "%" + filter.toLowerCase(Locale.ROOT) + "%");
-            }
+            TypedQuery<Long> query = em.createQuery(
+                "SELECT COUNT(e) FROM DownloadHistoryEntity e", Long.class);
 
             long result = query.getSingleResult();
 
@@ -132,19 +232,63 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
         }
     }
 
-    public List<DownloadHistorySummary> getSummaryPage(int offset, int limit, String filter) {
-        boolean hasFilter = filter != null && !filter.isBlank();
+    private <T> TypedQuery<T> createPageQuery(EntityManager em, String select, Class<T> type,
+        int offset, int limit, @Nullable DownloadHistorySummary anchor, int anchorIndex) {
+        SeekKey seekKey = null;
+        int seekIndex = -1;
 
-        try (EntityManager em = getEmf().createEntityManager()) {
-            String jpql = SUMMARY_SELECT + (hasFilter ? FILTER_WHERE : "") + ORDER_BY_DATE;
+        // The nearest table key at or before the row preceding the page
+        int tableSlot = offset / SEEK_TABLE_STRIDE - 1;
+        if (tableSlot >= 0) {
+            List<SeekKey> table = getSeekTable();
+            if (!table.isEmpty()) {
+                tableSlot = Math.min(tableSlot, table.size() - 1);
 
-            TypedQuery<DownloadHistorySummary> query = em.createQuery(jpql, DownloadHistorySummary.class);
-            if (hasFilter) {
-                query.setParameter("filter", "%" + filter.toLowerCase(Locale.ROOT) + "%");
+                seekKey = table.get(tableSlot);
+                seekIndex = (tableSlot + 1) * SEEK_TABLE_STRIDE - 1;
             }
+        }
+
+        // A row the caller already read is preferred when it is closer, such as the last row of the previous page
+        if (anchor != null && anchorIndex > seekIndex && anchorIndex < offset) {
+            seekKey = new SeekKey(anchor.getDownloadedAt(), anchor.getUrl());
+            seekIndex = anchorIndex;
+        }
 
-            query.setFirstResult(Math.max(0, offset));
-            query.setMaxResults(Math.max(0, limit));
+        TypedQuery<T> query = em.createQuery(select + (seekKey != null ? AFTER_ANCHOR : "") + ORDER_BY_DATE, type);
+
+        if (seekKey != null) {
+            query.setParameter("downloadedAt", seekKey.downloadedAt());
+            query.setParameter("url", seekKey.url());
+        }
+
+        // Fewer than SEEK_TABLE_STRIDE rows are left to walk once the table is built
+        int skip = seekKey != null ? offset - seekIndex - 1 : Math.max(0, offset);
+        if (skip > 0) {
+            query.setFirstResult(skip);
+        }
+
+        query.setMaxResults(Math.max(0, limit));
+
+        return query;
+    }
+
+    /**
+     * Rows {@code offset} to {@code offset + limit} in date order.
+     *
+     * Unfiltered pages seek on the nearest key of a sparse table built from one key-only scan, so
+     * any page costs about the same regardless of depth. {@code anchor}, a row already read at
+     * {@code anchorIndex}, is used instead when it is closer, e.g. when paging sequentially.
+     */
+    public List<DownloadHistorySummary> getSummaryPage(int offset, int limit, String filter,
+        @Nullable DownloadHistorySummary anchor, int anchorIndex) {
+        if (hasSearchTerms(filter)) {
+            return getSummaries(slice(search(filter), offset, limit));
+        }
+
+        try (EntityManager em = getEmf().createEntityManager()) {
+            TypedQuery<DownloadHistorySummary> query = createPageQuery(em, SUMMARY_SELECT,
+                DownloadHistorySummary.class, offset, limit, anchor, anchorIndex);
 
             List<DownloadHistorySummary> result = query.getResultList();
 
@@ -156,19 +300,18 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
         }
     }
 
-    public List<String> getUrlsPage(int offset, int limit, String filter) {
-        boolean hasFilter = filter != null && !filter.isBlank();
+    /**
+     * Urls of rows {@code offset} to {@code offset + limit}, seeking the same way as {@link #getSummaryPage}.
+     */
+    public List<String> getUrlsPage(int offset, int limit, String filter,
+        @Nullable DownloadHistorySummary anchor, int anchorIndex) {
+        if (hasSearchTerms(filter)) {
+            return new ArrayList<>(slice(search(filter), offset, limit));
+        }
 
         try (EntityManager em = getEmf().createEntityManager()) {
-            String jpql = "SELECT e.url FROM DownloadHistoryEntity e" + (hasFilter ? FILTER_WHERE : "") + ORDER_BY_DATE;
-
-            TypedQuery<String> query = em.createQuery(jpql, String.class);
-            if (hasFilter) {
-                query.setParameter("filter", "%" + filter.toLowerCase(Locale.ROOT) + "%");
-            }
-
-            query.setFirstResult(Math.max(0, offset));
-            query.setMaxResults(Math.max(0, limit));
+            TypedQuery<String> query = createPageQuery(em, "SELECT e.url FROM DownloadHistoryEntity e",
+                String.class, offset, limit, anchor, anchorIndex);
 
             List<String> result = query.getResultList();
 
@@ -181,15 +324,13 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
     }
 
     public List<String> getAllUrls(String filter) {
-        boolean hasFilter = filter != null && !filter.isBlank();
+        if (hasSearchTerms(filter)) {
+            return new ArrayList<>(search(filter));
+        }
 
         try (EntityManager em = getEmf().createEntityManager()) {
-            String jpql = "SELECT e.url FROM DownloadHistoryEntity e" + (hasFilter ? FILTER_WHERE : "") + ORDER_BY_DATE;
-
-            TypedQuery<String> query = em.createQuery(jpql, String.class);
-            if (hasFilter) {
-                query.setParameter("filter", "%" + filter.toLowerCase(Locale.ROOT) + "%");
-            }
+            TypedQuery<String> query = em.createQuery(
+                "SELECT e.url FROM DownloadHistoryEntity e" + ORDER_BY_DATE, String.class);
 
             List<String> result = query.getResultList();
 
@@ -201,6 +342,41 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
         }
     }
 
+    /**
+     * Summaries of the given urls, in the same order. Urls that are gone are skipped.
+     */
+    private List<DownloadHistorySummary> getSummaries(List<String> urls) {
+        if (urls.isEmpty()) {
+            return List.of();
+        }
+
+        try (EntityManager em = getEmf().createEntityManager()) {
+            TypedQuery<DownloadHistorySummary> query = em.createQuery(
+                SUMMARY_SELECT + " WHERE e.url IN :urls", DownloadHistorySummary.class);
+
+            query.setParameter("urls", urls);
+
+            Map<String, DownloadHistorySummary> byUrl = new HashMap<>();
+            for (DownloadHistorySummary summary : query.getResultList()) {
+                byUrl.put(summary.getUrl(), summary);
+            }
+
+            List<DownloadHistorySummary> result = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                DownloadHistorySummary summary = byUrl.get(url);
+                if (summary != null) {
+                    result.add(summary);
+                }
+            }
+
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to resolve download history summaries", e);
+
+            return List.of();
+        }
+    }
+
     public Map<String, DownloadHistoryEntity> getEntitiesByUrls(Collection<String> urls) {
         if (urls == null || urls.isEmpty()) {
             return Map.of();
@@ -236,6 +412,11 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
         boolean result = super.upsert(entity);
 
         if (result) {
+            updateSearchIndex(index -> index.put(entity.getUrl(), entity.getTitle(),
+                entity.getHostDisplayName(), entity.getDownloadedAt()));
+
+            invalidateSeekTable();
+
             // No need to force a reload, we already know exactly what was added.
             ensureCacheLoaded();
 
@@ -256,6 +437,9 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
         boolean result = super.remove(url);
 
         if (result) {
+            updateSearchIndex(index -> index.remove(url));
+
+            invalidateSeekTable();
             invalidateCache();
         }
 
@@ -306,6 +490,9 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
                 throw e;
             }
 
+            updateSearchIndex(index -> urlList.forEach(index::remove));
+
+            invalidateSeekTable();
             invalidateCache();
 
             return totalRemoved;
@@ -322,6 +509,9 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
             em.createQuery("DELETE FROM DownloadHistoryEntity").executeUpdate();
             em.getTransaction().commit();
 
+            updateSearchIndex(HistorySearchIndex::clear);
+
+            invalidateSeekTable();
             invalidateCache();
 
             return true;
@@ -331,4 +521,8 @@ public class DownloadHistoryRepository extends PersistenceRepository<String, Dow
             return false;
         }
     }
+
+    private record SeekKey(long downloadedAt, String url) {
+
+    }
 }
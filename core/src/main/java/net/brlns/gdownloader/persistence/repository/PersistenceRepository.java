@@ -91,6 +91,43 @@ public class PersistenceRepository<K, T> extends AbstractRepository {
         }
     }
 
+    /**
+     * Merges and removes entities in a single transaction.
+     */
+    public boolean applyBatch(List<T> upserts, List<K> removals) {
+        if (log.isTraceEnabled()) {
+            log.trace("Batch: {} upserts, {} removals", upserts.size(), removals.size());
+        }
+
+        try (EntityManager em = getEmf().createEntityManager()) {
+            em.getTransaction().begin();
+
+            try {
+                for (T entity : upserts) {
+                    em.merge(entity);
+                }
+
+                for (K id : removals) {
+                    T entity = em.find(entityClass, id);
+                    if (entity != null) {
+                        em.remove(entity);
+                    }
+                }
+
+                em.getTransaction().commit();
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+            }
+
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to apply batch", e);
+            return false;
+        }
+    }
+
     public boolean remove(K id) {
         if (log.isTraceEnabled()) {
             log.trace("Remove: {}", id);
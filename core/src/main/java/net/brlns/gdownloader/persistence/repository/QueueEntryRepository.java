@@ -16,26 +16,410 @@
  */
 package net.brlns.gdownloader.persistence.repository;
 
+import jakarta.annotation.Nullable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.downloader.enums.DownloaderIdEnum;
+import net.brlns.gdownloader.persistence.entity.QueueEntryDelta;
+import net.brlns.gdownloader.persistence.entity.LogTypeEnum;
 import net.brlns.gdownloader.persistence.entity.QueueEntryEntity;
+import net.brlns.gdownloader.persistence.entity.QueueEntryLogEntity;
+import net.brlns.gdownloader.persistence.entity.QueueEntrySummary;
 
 /**
  * @author Gabriel / hstr0100 / vertx010
  */
+@Slf4j
 public class QueueEntryRepository extends PersistenceRepository<Long, QueueEntryEntity> {
 
+    /**
+     * Lines kept per log, older ones are dropped as new ones come in.
+     */
+    public static final int MAX_LOG_LINES = 2000;
+
+    // Collection tables as generated by EclipseLink, the order columns use its default naming.
+    private static final String BLACKLIST_TABLE = "downloader_blacklist";
+    private static final String PENDING_FORMATS_TABLE = "pending_formats";
+    private static final String MEDIA_FILES_TABLE = "media_files";
+    private static final String THUMBNAIL_URLS_TABLE = "thumbnail_urls";
+    private static final String COMMAND_LINES_TABLE = "command_lines";
+    private static final String UPLOAD_TIMES_TABLE = "playlist_item_upload_times";
+
+    // Logs stored by older versions, moved into queue_entry_logs on startup.
+    private static final String LEGACY_ERROR_LOGS_TABLE = "error_logs";
+    private static final String LEGACY_DOWNLOAD_LOGS_TABLE = "download_logs";
+
+    private static final String SUMMARY_SELECT
+        = "SELECT NEW net.brlns.gdownloader.persistence.entity.QueueEntrySummary("
+        + "e.downloadId, e.url, e.originalUrl, e.filterId, e.filter, e.forcedDownloader, e.forcedFormatId, "
+        + "e.currentDownloader, e.currentDownloadType, e.currentQueueCategory, e.downloadStatus, "
+        + "e.lastStatusMessage, e.currentDownloadPriority, e.currentDownloadSequence, e.downloadStarted, "
+        + "e.downloadSkipped, e.retryCounter, e.queried, e.tmpDirectoryPath, e.customDownloadDirectory, "
+        + "e.resumeManifestPath) "
+        + "FROM QueueEntryEntity e";
+
     public QueueEntryRepository(EntityManagerFactory emfIn) {
         super(emfIn, QueueEntryEntity.class);
     }
 
+    /**
+     * Urls and original urls of every entry, without loading the entries themselves.
+     */
+    public List<String> getAllUrls() {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            TypedQuery<Object[]> query = em.createQuery(
+                "SELECT e.url, e.originalUrl FROM QueueEntryEntity e", Object[].class);
+
+            List<String> result = new ArrayList<>();
+            for (Object[] row : query.getResultList()) {
+                if (row[0] != null) {
+                    result.add((String)row[0]);
+                }
+
+                if (row[1] != null) {
+                    result.add((String)row[1]);
+                }
+            }
+
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to list queue urls", e);
+
+            return List.of();
+        }
+    }
+
+    public Optional<Long> getHighestSequence() {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            TypedQuery<Long> query = em.createQuery(
+                "SELECT MAX(e.currentDownloadSequence) FROM QueueEntryEntity e", Long.class);
+
+            return Optional.ofNullable(query.getSingleResult());
+        } catch (Exception e) {
+            log.error("Failed to obtain the highest queue sequence", e);
+
+            return Optional.empty();
+        }
+    }
+
+    public Optional<Long> getHighestDownloadId() {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            TypedQuery<Long> query = em.createQuery(
+                "SELECT MAX(e.downloadId) FROM QueueEntryEntity e", Long.class);
+
+            return Optional.ofNullable(query.getSingleResult());
+        } catch (Exception e) {
+            log.error("Failed to obtain the highest queue download id", e);
+
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Next page of the queue in sequence order, entries without a sequence follow in id order.
+     *
+     * Pages are keyed on the last summary of the previous page, pass null for the first one.
+     */
+    public List<QueueEntrySummary> getSummaryPageAfter(@Nullable QueueEntrySummary last, int limit) {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            List<QueueEntrySummary> page = new ArrayList<>(limit);
+
+            if (last == null || last.getCurrentDownloadSequence() != null) {
+                TypedQuery<QueueEntrySummary> query = em.createQuery(SUMMARY_SELECT
+                    + " WHERE e.currentDownloadSequence IS NOT NULL"
+                    + (last != null
+                        ? " AND (e.currentDownloadSequence > :sequence"
+                        + " OR (e.currentDownloadSequence = :sequence AND e.downloadId > :downloadId))"
+                        : "")
+                    + " ORDER BY e.currentDownloadSequence ASC, e.downloadId ASC", QueueEntrySummary.class);
+
+                if (last != null) {
+                    query.setParameter("sequence", last.getCurrentDownloadSequence());
+                    query.setParameter("downloadId", last.getDownloadId());
+                }
+
+                query.setMaxResults(limit);
+                page.addAll(query.getResultList());
+            }
+
+            if (page.size() < limit) {
+                // Entries that were never sequenced keep their insertion order.
+                TypedQuery<QueueEntrySummary> query = em.createQuery(SUMMARY_SELECT
+                    + " WHERE e.currentDownloadSequence IS NULL AND e.downloadId > :downloadId"
+                    + " ORDER BY e.downloadId ASC", QueueEntrySummary.class);
+
+                query.setParameter("downloadId", last != null && last.getCurrentDownloadSequence() == null
+                    ? last.getDownloadId() : Long.MIN_VALUE);
+
+                query.setMaxResults(limit - page.size());
+                page.addAll(query.getResultList());
+            }
+
+            return page;
+        } catch (Exception e) {
+            log.error("Failed to page queue entries", e);
+
+            return List.of();
+        }
+    }
+
+    public List<DownloaderIdEnum> loadDownloaderBlacklist(Long downloadId) {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            return em.createQuery("SELECT b FROM QueueEntryEntity e JOIN e.downloaderBlacklist b"
+                + " WHERE e.downloadId = :downloadId", DownloaderIdEnum.class)
+                .setParameter("downloadId", downloadId)
+                .getResultList();
+        }
+    }
+
+    public List<String> loadPendingFormats(Long downloadId) {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            return em.createQuery("SELECT f FROM QueueEntryEntity e JOIN e.pendingFormats f"
+                + " WHERE e.downloadId = :downloadId ORDER BY INDEX(f)", String.class)
+                .setParameter("downloadId", downloadId)
+                .getResultList();
+        }
+    }
+
+    public List<String> loadMediaFilePaths(Long downloadId) {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            return em.createQuery("SELECT p FROM QueueEntryEntity e JOIN e.mediaFilePaths p"
+                + " WHERE e.downloadId = :downloadId", String.class)
+                .setParameter("downloadId", downloadId)
+                .getResultList();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    public List<String> loadLegacyMediaFilePaths(Long downloadId) {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            return em.createQuery("SELECT p FROM QueueEntryEntity e JOIN e.finalMediaFilePaths p"
+                + " WHERE e.downloadId = :downloadId", String.class)
+                .setParameter("downloadId", downloadId)
+                .getResultList();
+        }
+    }
+
+    /**
+     * Writes checkpoints and removals in a single transaction.
+     */
+    public boolean applyCheckpoints(List<QueueEntryDelta> checkpoints, List<Long> removals) {
+        if (log.isTraceEnabled()) {
+            log.trace("Checkpoints: {} writes, {} removals", checkpoints.size(), removals.size());
+        }
+
+        try (EntityManager em = getEmf().createEntityManager()) {
+            em.getTransaction().begin();
+
+            try {
+                for (QueueEntryDelta checkpoint : checkpoints) {
+                    writeCheckpoint(em, checkpoint);
+                }
+
+                for (Long downloadId : removals) {
+                    QueueEntryEntity entity = em.find(QueueEntryEntity.class, downloadId);
+                    if (entity != null) {
+                        em.remove(entity);
+                    }
+
+                    deleteLogs(em, downloadId);
+                }
+
+                em.getTransaction().commit();
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to apply checkpoints", e);
+            return false;
+        } finally {
+            evictPartialWrites(checkpoints);
+        }
+
+        return true;
+    }
+
+    public boolean applyCheckpoint(QueueEntryDelta checkpoint) {
+        return applyCheckpoints(List.of(checkpoint), List.of());
+    }
+
+    @Override
+    public boolean remove(Long downloadId) {
+        return applyCheckpoints(List.of(), List.of(downloadId));
+    }
+
+    private void writeCheckpoint(EntityManager em, QueueEntryDelta checkpoint) {
+        if (checkpoint.isFullWrite()) {
+            em.merge(checkpoint.getEntity());
+        } else {
+            writeChanges(em, checkpoint);
+        }
+
+        appendLog(em, checkpoint.getDownloadId(), LogTypeEnum.ERROR, checkpoint.getErrorLog());
+        appendLog(em, checkpoint.getDownloadId(), LogTypeEnum.DOWNLOAD, checkpoint.getDownloadLog());
+    }
+
+    private void writeChanges(EntityManager em, QueueEntryDelta checkpoint) {
+        long downloadId = checkpoint.getDownloadId();
+
+        Map<String, Object> changed = checkpoint.getChangedAttributes();
+        if (!changed.isEmpty()) {
+            StringJoiner assignments = new StringJoiner(", ");
+            for (String attribute : changed.keySet()) {
+                assignments.add("e." + attribute + " = :" + attribute);
+            }
+
+            Query query = em.createQuery("UPDATE QueueEntryEntity e SET " + assignments
+                + " WHERE e.downloadId = :downloadId");
+            changed.forEach(query::setParameter);
+            query.setParameter("downloadId", downloadId);
+
+            if (query.executeUpdate() == 0) {
+                throw new IllegalStateException("Queue entry " + downloadId + " is not in the database");
+            }
+        }
+
+        if (checkpoint.getDownloaderBlacklist() != null) {
+            replaceRows(em, BLACKLIST_TABLE, "downloaderblacklist", null, downloadId,
+                checkpoint.getDownloaderBlacklist().stream()
+                    .map(Enum::name)
+                    .toList());
+        }
+
+        if (checkpoint.getPendingFormats() != null) {
+            replaceRows(em, PENDING_FORMATS_TABLE, "format_id", "pendingformats_order",
+                downloadId, checkpoint.getPendingFormats());
+        }
+
+        if (checkpoint.getMediaFilePaths() != null) {
+            replaceRows(em, MEDIA_FILES_TABLE, "media_file_paths", null,
+                downloadId, checkpoint.getMediaFilePaths());
+        }
+
+        if (checkpoint.getThumbnailUrls() != null) {
+            replaceRows(em, THUMBNAIL_URLS_TABLE, "media_thumbnail_urls", "thumbnailurls_order",
+                downloadId, checkpoint.getThumbnailUrls());
+        }
+
+        if (checkpoint.getLastCommandLine() != null) {
+            replaceRows(em, COMMAND_LINES_TABLE, "last_command_line", "lastcommandline_order",
+                downloadId, checkpoint.getLastCommandLine());
+        }
+
+        if (checkpoint.getPlaylistItemUploadTimes() != null) {
+            deleteRows(em, UPLOAD_TIMES_TABLE, downloadId);
+
+            for (Map.Entry<String, Long> entry : checkpoint.getPlaylistItemUploadTimes().entrySet()) {
+                em.createNativeQuery("INSERT INTO " + UPLOAD_TIMES_TABLE
+                    + " (download_id, file_path, upload_time_millis) VALUES (?1, ?2, ?3)")
+                    .setParameter(1, downloadId)
+                    .setParameter(2, entry.getKey())
+                    .setParameter(3, entry.getValue())
+                    .executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Appends lines after the latest stored one and drops whatever falls out of retention.
+     */
+    private static void appendLog(EntityManager em, long downloadId,
+        LogTypeEnum logType, @Nullable List<String> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return;
+        }
+
+        Long lastSequence = em.createQuery("SELECT MAX(l.sequence) FROM QueueEntryLogEntity l"
+            + " WHERE l.downloadId = :downloadId AND l.logType = :logType", Long.class)
+            .setParameter("downloadId", downloadId)
+            .setParameter("logType", logType)
+            .getSingleResult();
+
+        long firstSequence = lastSequence != null ? lastSequence + 1 : 0;
+        long oldestKept = firstSequence + lines.size() - MAX_LOG_LINES;
+
+        if (oldestKept > 0) {
+            em.createQuery("DELETE FROM QueueEntryLogEntity l WHERE l.downloadId = :downloadId"
+                + " AND l.logType = :logType AND l.sequence < :oldestKept")
+                .setParameter("downloadId", downloadId)
+                .setParameter("logType", logType)
+                .setParameter("oldestKept", oldestKept)
+                .executeUpdate();
+        }
+
+        // Sent as a single JDBC batch on commit
+        for (int i = Math.max(0, lines.size() - MAX_LOG_LINES); i < lines.size(); i++) {
+            em.persist(new QueueEntryLogEntity(downloadId, logType, firstSequence + i, lines.get(i)));
+        }
+    }
+
+    private static void deleteLogs(EntityManager em, long downloadId) {
+        em.createQuery("DELETE FROM QueueEntryLogEntity l WHERE l.downloadId = :downloadId")
+            .setParameter("downloadId", downloadId)
+            .executeUpdate();
+    }
+
+    private static void replaceRows(EntityManager em, String table, String valueColumn,
+        @Nullable String orderColumn, long downloadId, List<String> values) {
+        deleteRows(em, table, downloadId);
+
+        insertRows(em, table, valueColumn, orderColumn, downloadId, values);
+    }
+
+    private static void deleteRows(EntityManager em, String table, long downloadId) {
+        em.createNativeQuery("DELETE FROM " + table + " WHERE download_id = ?1")
+            .setParameter(1, downloadId)
+            .executeUpdate();
+    }
+
+    private static void insertRows(EntityManager em, String table, String valueColumn,
+        @Nullable String orderColumn, long downloadId, List<String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+
+        String sql = orderColumn != null
+            ? "INSERT INTO " + table + " (download_id, " + valueColumn + ", " + orderColumn + ") VALUES (?1, ?2, ?3)"
+            : "INSERT INTO " + table + " (download_id, " + valueColumn + ") VALUES (?1, ?2)";
+
+        for (int i = 0; i < values.size(); i++) {
+            Query query = em.createNativeQuery(sql)
+                .setParameter(1, downloadId)
+                .setParameter(2, values.get(i));
+
+            if (orderColumn != null) {
+                query.setParameter(3, i);
+            }
+
+            query.executeUpdate();
+        }
+    }
+
+    // Native writes bypass the shared cache, drop whatever it holds for these rows.
+    private void evictPartialWrites(List<QueueEntryDelta> checkpoints) {
+        for (QueueEntryDelta checkpoint : checkpoints) {
+            if (!checkpoint.isFullWrite()) {
+                getEmf().getCache().evict(QueueEntryEntity.class, checkpoint.getDownloadId());
+            }
+        }
+    }
+
     public List<String> loadThumbnailUrls(Long downloadId) {
         try (EntityManager em = getEmf().createEntityManager()) {
             QueueEntryEntity entity = em.find(QueueEntryEntity.class, downloadId);
@@ -52,22 +436,88 @@ public class QueueEntryRepository extends PersistenceRepository<Long, QueueEntry
         }
     }
 
-    public List<String> loadErrorLog(Long downloadId) {
+    /**
+     * Latest lines of a log in the order they were logged, reading at most {@code limit} rows.
+     *
+     * A line that was logged more than once is only kept at its latest position.
+     */
+    public List<String> loadLogTail(Long downloadId, LogTypeEnum logType, int limit) {
         try (EntityManager em = getEmf().createEntityManager()) {
-            QueueEntryEntity entity = em.find(QueueEntryEntity.class, downloadId);
+            List<String> newestFirst = em.createQuery("SELECT l.line FROM QueueEntryLogEntity l"
+                + " WHERE l.downloadId = :downloadId AND l.logType = :logType"
+                + " ORDER BY l.sequence DESC", String.class)
+                .setParameter("downloadId", downloadId)
+                .setParameter("logType", logType)
+                .setMaxResults(limit)
+                .getResultList();
+
+            List<String> lines = new ArrayList<>(new LinkedHashSet<>(newestFirst));
+            Collections.reverse(lines);
 
-            return entity != null ? new ArrayList<>(entity.getErrorLog()) : new ArrayList<>();
+            return lines;
+        } catch (Exception e) {
+            log.error("Failed to read {} log of {}", logType, downloadId, e);
+
+            return new ArrayList<>();
         }
     }
 
-    public List<String> loadDownloadLog(Long downloadId) {
+    public boolean hasLog(Long downloadId, LogTypeEnum logType) {
         try (EntityManager em = getEmf().createEntityManager()) {
-            QueueEntryEntity entity = em.find(QueueEntryEntity.class, downloadId);
+            return !em.createQuery("SELECT l.sequence FROM QueueEntryLogEntity l"
+                + " WHERE l.downloadId = :downloadId AND l.logType = :logType", Long.class)
+                .setParameter("downloadId", downloadId)
+                .setParameter("logType", logType)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+        } catch (Exception e) {
+            log.error("Failed to look up {} log of {}", logType, downloadId, e);
+
+            return false;
+        }
+    }
+
+    /**
+     * Moves logs written by older versions into queue_entry_logs, a no-op once they are gone.
+     */
+    public void migrateLegacyLogs() {
+        try (EntityManager em = getEmf().createEntityManager()) {
+            em.getTransaction().begin();
+
+            try {
+                int moved = migrateLegacyLog(em, LEGACY_ERROR_LOGS_TABLE, "error_log", "errorlog_order", LogTypeEnum.ERROR)
+                    + migrateLegacyLog(em, LEGACY_DOWNLOAD_LOGS_TABLE, "download_log", "downloadlog_order", LogTypeEnum.DOWNLOAD);
+
+                em.getTransaction().commit();
 
-            return entity != null ? new ArrayList<>(entity.getDownloadLog()) : new ArrayList<>();
+                if (moved > 0) {
+                    log.info("Migrated {} queue log lines", moved);
+                }
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to migrate queue logs", e);
         }
     }
 
+    private static int migrateLegacyLog(EntityManager em, String table,
+        String valueColumn, String orderColumn, LogTypeEnum logType) {
+        int moved = em.createNativeQuery("INSERT INTO queue_entry_logs (download_id, log_type, seq, line)"
+            + " SELECT download_id, '" + logType.name() + "', " + orderColumn + ", " + valueColumn
+            + " FROM " + table)
+            .executeUpdate();
+
+        if (moved > 0) {
+            em.createNativeQuery("DELETE FROM " + table).executeUpdate();
+        }
+
+        return moved;
+    }
+
     public Map<String, LocalDateTime> loadPlaylistItemUploadTimes(Long downloadId) {
         try (EntityManager em = getEmf().createEntityManager()) {
             QueueEntryEntity entity = em.find(QueueEntryEntity.class, downloadId);
@@ -19,35 +19,53 @@ package net.brlns.gdownloader.process;
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.util.CancelHook;
 
 /**
+ * Tracks spawned processes and stops them once their cancel hook fires.
+ *
+ * Exits are observed through {@link Process#onExit()} and cancellations through cancel listeners.
+ * Only hooks with polled conditions are checked periodically, and only while such a process is running.
+ *
  * @author Gabriel / hstr0100 / vertx010
  */
 @Slf4j
 public final class ProcessMonitor implements AutoCloseable {
 
-    private final ExecutorService processMonitor;
+    private static final long CANCEL_CHECK_INTERVAL_MILLIS = 300;
+    private static final long GRACEFUL_STOP_TIMEOUT_SECONDS = 5;
+
+    private final Set<TrackedProcess> trackedProcesses = ConcurrentHashMap.newKeySet();
+    private final Set<TrackedProcess> polledProcesses = ConcurrentHashMap.newKeySet();
 
-    private final LinkedBlockingQueue<TrackedProcess> trackedProcesses
-        = new LinkedBlockingQueue<>();
+    private final ScheduledExecutorService cancelChecker;
 
-    private final ReentrantLock lock = new ReentrantLock(true);
-    private final Condition notEmpty = lock.newCondition();
+    // Guarded by this.
+    private ScheduledFuture<?> cancelCheckTask;
 
     private final AtomicBoolean closed = new AtomicBoolean();
 
+    public ProcessMonitor() {
+        cancelChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Process-Monitor");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
     @PreDestroy
     @Override
     public void close() {
@@ -55,106 +73,38 @@ public final class ProcessMonitor implements AutoCloseable {
             return;
         }
 
-        lock.lock();
-        try {
-            notEmpty.signalAll();
-        } finally {
-            lock.unlock();
+        synchronized (this) {
+            if (cancelCheckTask != null) {
+                cancelCheckTask.cancel(false);
+                cancelCheckTask = null;
+            }
         }
 
-        List<TrackedProcess> processesToStop = new ArrayList<>();
-        trackedProcesses.drainTo(processesToStop);
-
-        List<Process> runningProcesses = processesToStop.stream()
-            .map(TrackedProcess::getProcess)
-            .filter(Process::isAlive)
-            .collect(Collectors.toList());
+        cancelChecker.shutdownNow();
 
-        for (Process process : runningProcesses) {
-            try {
-                if (log.isDebugEnabled()) {
-                    log.debug("Stopping process #{} due to shutdown", process.pid());
-                }
-
-                tryStopProcess(process);
-            } catch (Exception e) {
-                log.error("Failed to stop process during shutdown", e);
+        // Every process gets its grace period at the same time.
+        List<CompletableFuture<?>> stopping = new ArrayList<>();
+        for (TrackedProcess trackedProcess : trackedProcesses) {
+            if (log.isDebugEnabled()) {
+                log.debug("Stopping process #{} due to shutdown", trackedProcess.getProcess().pid());
             }
-        }
 
-        processMonitor.shutdownNow();
+            stopping.add(stopAsync(trackedProcess));
+        }
 
         try {
-            if (!processMonitor.awaitTermination(10, TimeUnit.SECONDS)) {
-                log.warn("Process monitor did not terminate within timeout");
-            }
+            CompletableFuture.allOf(stopping.toArray(CompletableFuture[]::new))
+                .get(GRACEFUL_STOP_TIMEOUT_SECONDS * 2, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
 
-            log.warn("Interrupted while waiting for process monitor to terminate", e);
+            log.warn("Interrupted while waiting for processes to stop", e);
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Not every process stopped during shutdown: {}", e.getMessage());
         }
-    }
-
-    public ProcessMonitor() {
-        processMonitor = Executors.newSingleThreadExecutor();
-        processMonitor.submit(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                lock.lock();
-                try {
-                    while (trackedProcesses.isEmpty() && !closed.get()) {
-                        try {
-                            notEmpty.await(500, TimeUnit.MILLISECONDS);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            return;
-                        }
-                    }
-
-                    if (closed.get() && trackedProcesses.isEmpty()) {
-                        return;
-                    }
-                } finally {
-                    lock.unlock();
-                }
-
-                Iterator<TrackedProcess> iterator = trackedProcesses.iterator();
-                while (iterator.hasNext()) {
-                    TrackedProcess trackedProcess = iterator.next();
-
-                    Process process = trackedProcess.getProcess();
-
-                    if (!process.isAlive()) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Process #{} has exited", process.pid());
-                        }
-
-                        iterator.remove();
-                        continue;
-                    }
-
-                    if (closed.get() || trackedProcess.getCancelHook().get()) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Process Monitor is stopping #{}", process.pid());
-                        }
-
-                        try {
-                            tryStopProcess(process);
-                        } catch (InterruptedException e) {
-                            log.error("Interrupted", e);
-                        } catch (Exception e) {
-                            log.error("Failed to stop process", e);
-                        }
-                    }
-                }
 
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
+        trackedProcesses.clear();
+        polledProcesses.clear();
     }
 
     public Process startProcess(List<String> arguments) throws IOException {
@@ -191,16 +141,114 @@ public final class ProcessMonitor implements AutoCloseable {
             log.trace("Tracking process #{}", process.pid());
         }
 
-        trackedProcesses.offer(new TrackedProcess(process, cancelHook));
+        TrackedProcess trackedProcess = new TrackedProcess(process, cancelHook);
 
-        lock.lock();
-        try {
-            notEmpty.signal();
-        } finally {
-            lock.unlock();
+        if (closed.get()) {
+            stopAsync(trackedProcess);
+            return;
+        }
+
+        trackedProcesses.add(trackedProcess);
+
+        CancelHook.Registration registration;
+        if (cancelHook.isEventDriven()) {
+            registration = cancelHook.onCancel(() -> {
+                if (log.isDebugEnabled()) {
+                    log.debug("Process Monitor is stopping #{}", process.pid());
+                }
+
+                stopAsync(trackedProcess);
+            });
+        } else {
+            registration = null;
+
+            polledProcesses.add(trackedProcess);
+            updateCancelCheck();
+        }
+
+        process.onExit().thenRun(() -> {
+            if (log.isDebugEnabled()) {
+                log.debug("Process #{} has exited", process.pid());
+            }
+
+            if (registration != null) {
+                registration.close();
+            }
+
+            trackedProcesses.remove(trackedProcess);
+
+            if (polledProcesses.remove(trackedProcess)) {
+                updateCancelCheck();
+            }
+        });
+    }
+
+    /**
+     * Schedules the cancel hook check while there is anything to check, and cancels it otherwise.
+     */
+    private synchronized void updateCancelCheck() {
+        if (closed.get()) {
+            return;
+        }
+
+        if (polledProcesses.isEmpty()) {
+            if (cancelCheckTask != null) {
+                cancelCheckTask.cancel(false);
+                cancelCheckTask = null;
+            }
+        } else if (cancelCheckTask == null) {
+            cancelCheckTask = cancelChecker.scheduleWithFixedDelay(this::checkCancelHooks,
+                CANCEL_CHECK_INTERVAL_MILLIS, CANCEL_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void checkCancelHooks() {
+        for (TrackedProcess trackedProcess : polledProcesses) {
+            try {
+                if (trackedProcess.getCancelHook().get()) {
+                    if (log.isDebugEnabled() && !trackedProcess.isStopRequested()) {
+                        log.debug("Process Monitor is stopping #{}", trackedProcess.getProcess().pid());
+                    }
+
+                    stopAsync(trackedProcess);
+                }
+            } catch (Exception e) {
+                log.error("Failed to check cancel hook", e);
+            }
         }
     }
 
+    /**
+     * Stops the process on its own virtual thread, so a slow one does not hold up the others.
+     *
+     * @return a future completing once the process is gone, or immediately if a stop is already underway.
+     */
+    private CompletableFuture<Void> stopAsync(TrackedProcess trackedProcess) {
+        if (!trackedProcess.requestStop()) {
+            return trackedProcess.getProcess().onExit().thenApply(p -> null);
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Process process = trackedProcess.getProcess();
+        Thread.ofVirtual()
+            .name("Process-Stopper-" + process.pid())
+            .start(() -> {
+                try {
+                    tryStopProcess(process);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.error("Interrupted", e);
+                } catch (Exception e) {
+                    log.error("Failed to stop process", e);
+                } finally {
+                    future.complete(null);
+                }
+            });
+
+        return future;
+    }
+
     private void tryStopProcess(Process process) throws InterruptedException {
         if (process.isAlive()) {
             long quitTimer = System.currentTimeMillis();
@@ -208,7 +256,7 @@ public final class ProcessMonitor implements AutoCloseable {
             // First try to politely ask the process to excuse itself.
             process.destroy();
 
-            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+            if (!process.waitFor(GRACEFUL_STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
                 log.warn("Process #{} did not terminate in time, forcefully stopping it", process.pid());
                 // Time's up. I guess asking nicely wasn't in the cards.
                 process.destroyForcibly();
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.process;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Splits the output of a process into lines as it arrives, using blocking reads on a virtual thread.
+ *
+ * Both '\n' and '\r' end a line, so progress bars that rewrite themselves are seen as separate lines,
+ * and empty lines are skipped. The line handed to the consumer is a reused view over the reader's
+ * own buffer: it is only valid for the duration of the call, use {@code toString()} to keep it.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public final class ProcessOutputReader {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    // How long output left in the pipe may take to be handled after the process exits.
+    private static final long DRAIN_GRACE_MILLIS = 2000;
+
+    private final Process process;
+    private final Consumer<CharSequence> lineConsumer;
+
+    private final LineView line;
+
+    private volatile String lastLine = "";
+
+    private Thread thread;
+
+    private ProcessOutputReader(Process processIn, int maxLineLengthIn, Consumer<CharSequence> lineConsumerIn) {
+        process = processIn;
+        lineConsumer = lineConsumerIn;
+
+        line = new LineView(maxLineLengthIn);
+    }
+
+    /**
+     * Starts reading the standard output of the process.
+     *
+     * @param maxLineLength lines longer than this are cut short, see {@link LineView#toString()}.
+     */
+    public static ProcessOutputReader start(Process process, int maxLineLength, Consumer<CharSequence> lineConsumer) {
+        ProcessOutputReader reader = new ProcessOutputReader(process, maxLineLength, lineConsumer);
+
+        reader.thread = Thread.ofVirtual()
+            .name("Output-Reader-" + process.pid())
+            .start(reader::readLoop);
+
+        return reader;
+    }
+
+    /**
+     * Waits for the process to exit, then gives the reader a moment to hand over the remaining output.
+     *
+     * The process is killed if the calling thread is interrupted while waiting.
+     */
+    public int awaitExit() throws InterruptedException {
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+
+            throw e;
+        }
+
+        // Orphaned children may keep the pipe open, do not wait on them forever.
+        thread.join(DRAIN_GRACE_MILLIS);
+
+        return exitCode;
+    }
+
+    /**
+     * The last non-empty line, available once the output has been fully read.
+     */
+    public String getLastLine() {
+        return lastLine;
+    }
+
+    private void readLoop() {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        // UTF-8 never decodes to more chars than bytes, so one decode call always fits.
+        CharBuffer charBuffer = CharBuffer.allocate(READ_BUFFER_SIZE);
+
+        try (InputStream in = process.getInputStream()) {
+            int bytesRead;
+            while ((bytesRead = in.read(byteBuffer.array(), byteBuffer.position(), byteBuffer.remaining())) != -1) {
+                byteBuffer.position(byteBuffer.position() + bytesRead);
+
+                decode(decoder, byteBuffer, charBuffer, false);
+            }
+
+            decode(decoder, byteBuffer, charBuffer, true);
+            decoder.flush(charBuffer);
+            charBuffer.flip();
+            scan(charBuffer);
+
+            if (!line.complete && line.length() > 0) {
+                emit();
+            }
+        } catch (IOException e) {
+            log.debug("Output of process #{} closed: {}", process.pid(), e.getMessage());
+        } finally {
+            lastLine = line.toString();
+        }
+    }
+
+    private void decode(CharsetDecoder decoder, ByteBuffer byteBuffer, CharBuffer charBuffer, boolean endOfInput) {
+        byteBuffer.flip();
+        charBuffer.clear();
+
+        decoder.decode(byteBuffer, charBuffer, endOfInput);
+
+        byteBuffer.compact();
+        charBuffer.flip();
+
+        scan(charBuffer);
+
+        charBuffer.clear();
+    }
+
+    private void scan(CharBuffer charBuffer) {
+        char[] chars = charBuffer.array();
+        int end = charBuffer.limit();
+
+        for (int i = charBuffer.position(); i < end; i++) {
+            char c = chars[i];
+
+            if (c == '\n' || c == '\r') {
+                if (!line.complete && line.length() > 0) {
+                    emit();
+                }
+
+                continue;
+            }
+
+            if (line.complete) {
+                // Keep the previous line around until there is a new one, it may be the last.
+                line.reset();
+            }
+
+            line.append(c);
+        }
+
+        charBuffer.position(end);
+    }
+
+    private void emit() {
+        line.complete = true;
+
+        try {
+            lineConsumer.accept(line);
+        } catch (Exception e) {
+            // Keep draining, a stalled pipe would block the process.
+            log.error("Failed to handle output line of process #{}", process.pid(), e);
+        }
+    }
+
+    /**
+     * Mutable line backed by a reusable char array.
+     */
+    private static final class LineView implements CharSequence {
+
+        private final int maxLength;
+
+        private char[] chars = new char[256];
+        private int length;
+        private int fullLength;
+
+        private boolean complete;
+
+        private LineView(int maxLengthIn) {
+            maxLength = maxLengthIn;
+        }
+
+        private void append(char c) {
+            fullLength++;
+
+            if (length == maxLength) {
+                return;
+            }
+
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, Math.min(maxLength, chars.length * 2));
+            }
+
+            chars[length++] = c;
+        }
+
+        private void reset() {
+            length = 0;
+            fullLength = 0;
+            complete = false;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException(start + "-" + end);
+            }
+
+            return new String(chars, start, end - start);
+        }
+
+        /**
+         * Copies the line, lines that were cut short say so at the end.
+         */
+        @Override
+        public String toString() {
+            String value = new String(chars, 0, length);
+            if (fullLength > length) {
+                return value + "... [truncated, " + fullLength + " chars]";
+            }
+
+            return value;
+        }
+    }
+}
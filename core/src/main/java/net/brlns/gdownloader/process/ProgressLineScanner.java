@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.process;
+
+import lombok.Getter;
+
+/**
+ * Reads percent, speed and ETA out of yt-dlp style progress lines without allocating.
+ *
+ * e.g: {@code [download]  45.3% of ~ 100.00MiB at  2.34MiB/s ETA 00:25 (frag 3/10)}
+ *
+ * One instance is meant to be reused for every line of a single process.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+public final class ProgressLineScanner {
+
+    private static final String DOWNLOAD_PREFIX = "[download]";
+
+    @Getter
+    private double percent;
+
+    /**
+     * Transfer speed in bytes per second, or -1 when the line did not report one.
+     */
+    @Getter
+    private long bytesPerSecond;
+
+    /**
+     * Remaining time in seconds, or -1 when the line did not report one.
+     */
+    @Getter
+    private long etaSeconds;
+
+    /**
+     * Index where the human readable part of the line starts, right at the percentage.
+     */
+    @Getter
+    private int messageStart;
+
+    /**
+     * @return true if the line is a progress line, in which case the getters describe it.
+     */
+    public boolean scan(CharSequence line) {
+        int length = line.length();
+        if (length <= DOWNLOAD_PREFIX.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < DOWNLOAD_PREFIX.length(); i++) {
+            if (line.charAt(i) != DOWNLOAD_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+
+        int start = skipWhitespace(line, DOWNLOAD_PREFIX.length());
+        int end = tokenEnd(line, start);
+
+        // The percentage has to come first, anything else is a regular [download] message.
+        if (end - start < 2 || line.charAt(end - 1) != '%') {
+            return false;
+        }
+
+        double parsedPercent = parseDecimal(line, start, end - 1);
+        if (Double.isNaN(parsedPercent)) {
+            return false;
+        }
+
+        percent = parsedPercent;
+        messageStart = start;
+        bytesPerSecond = -1;
+        etaSeconds = -1;
+
+        while ((start = skipWhitespace(line, end)) < length) {
+            end = tokenEnd(line, start);
+
+            if (isToken(line, start, end, "at")) {
+                start = skipWhitespace(line, end);
+                end = tokenEnd(line, start);
+
+                bytesPerSecond = parseSpeed(line, start, end);
+            } else if (isToken(line, start, end, "ETA")) {
+                start = skipWhitespace(line, end);
+                end = tokenEnd(line, start);
+
+                etaSeconds = parseTime(line, start, end);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Parses a plain decimal such as {@code 45.3}, ignoring a leading '~'.
+     *
+     * @return the value, or NaN if the range is not a number.
+     */
+    static double parseDecimal(CharSequence line, int start, int end) {
+        if (start < end && line.charAt(start) == '~') {
+            start++;
+        }
+
+        if (start >= end) {
+            return Double.NaN;
+        }
+
+        double value = 0;
+        double scale = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                if (scale == 0) {
+                    value = value * 10 + (c - '0');
+                } else {
+                    value += (c - '0') * scale;
+                    scale /= 10;
+                }
+            } else if (c == '.' && scale == 0) {
+                scale = 0.1;
+            } else {
+                return Double.NaN;
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Parses speeds like {@code 2.34MiB/s} or {@code 800.00KB/s}.
+     *
+     * @return bytes per second, or -1 if the token is not a speed.
+     */
+    static long parseSpeed(CharSequence line, int start, int end) {
+        if (end - start < 3 || line.charAt(end - 2) != '/' || line.charAt(end - 1) != 's') {
+            return -1;
+        }
+
+        int unitEnd = end - 2;
+        int numberEnd = start;
+        while (numberEnd < unitEnd) {
+            char c = line.charAt(numberEnd);
+            if ((c < '0' || c > '9') && c != '.' && c != '~') {
+                break;
+            }
+
+            numberEnd++;
+        }
+
+        double value = parseDecimal(line, start, numberEnd);
+        if (Double.isNaN(value)) {
+            return -1;
+        }
+
+        // B, KiB, MB, GiB...
+        int unitLength = unitEnd - numberEnd;
+        if (unitLength < 1 || line.charAt(unitEnd - 1) != 'B') {
+            return -1;
+        }
+
+        double multiplier = 1;
+        if (unitLength > 1) {
+            boolean binary = unitLength == 3 && line.charAt(numberEnd + 1) == 'i';
+            double base = binary ? 1024 : 1000;
+
+            multiplier = switch (Character.toUpperCase(line.charAt(numberEnd))) {
+                case 'K' ->
+                    base;
+                case 'M' ->
+                    base * base;
+                case 'G' ->
+                    base * base * base;
+                case 'T' ->
+                    base * base * base * base;
+                default ->
+                    -1;
+            };
+
+            if (multiplier < 0) {
+                return -1;
+            }
+        }
+
+        return (long)(value * multiplier);
+    }
+
+    /**
+     * Parses {@code HH:MM:SS} or {@code MM:SS}.
+     *
+     * @return seconds, or -1 if the token is not a time, e.g. {@code Unknown}.
+     */
+    static long parseTime(CharSequence line, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+
+        long total = 0;
+        long part = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                part = part * 10 + (c - '0');
+            } else if (c == ':') {
+                total = (total + part) * 60;
+                part = 0;
+            } else {
+                return -1;
+            }
+        }
+
+        return total + part;
+    }
+
+    private static boolean isToken(CharSequence line, int start, int end, String token) {
+        if (end - start != token.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < token.length(); i++) {
+            if (line.charAt(start + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int skipWhitespace(CharSequence line, int index) {
+        while (index < line.length() && Character.isWhitespace(line.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int tokenEnd(CharSequence line, int index) {
+        while (index < line.length() && !Character.isWhitespace(line.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+}
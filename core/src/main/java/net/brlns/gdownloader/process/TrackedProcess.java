@@ -16,8 +16,13 @@
  */
 package net.brlns.gdownloader.process;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 import net.brlns.gdownloader.util.CancelHook;
 
 /**
@@ -31,4 +36,19 @@ public class TrackedProcess {
     @NonNull
     private final CancelHook cancelHook;
 
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean stopRequested = new AtomicBoolean();
+
+    /**
+     * @return true for the first caller only, later callers should not stop the process again.
+     */
+    public boolean requestStop() {
+        return stopRequested.compareAndSet(false, true);
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested.get();
+    }
 }
@@ -117,6 +117,10 @@ public class Settings {
     @JsonProperty("MaxSimultaneousQueryMetadataTasks")
     private int maxSimultaneousQueryMetadataTasks = 2;
 
+    // Zero disables the on-disk tier
+    @JsonProperty("ThumbnailCacheSizeMB")
+    private int thumbnailCacheSizeMb = 256;
+
     @JsonProperty("RecordToDownloadArchive")
     private boolean recordToDownloadArchive = false;
 
@@ -245,8 +249,7 @@ public class Settings {
     @JsonProperty("AutoDownloadRetry")
     private boolean autoDownloadRetry = true;
 
-    // TODO: wire up, dynamically throttle downloaders when starting new tasks based on best-effort bandwidth allocation stategy.
-    // we can calculate this based on max simultaneous downloads, or active downloads if the queue processor is MIA.
+    // Split across running downloads by priority, see BandwidthScheduler.
     @JsonProperty("GlobalMaxDownloadSpeedBytesPerSecond")
     private long globalMaxDownloadSpeedBytesPerSecond = 0l;
 
@@ -65,6 +65,9 @@ public class DirectHttpSettings extends AbstractDownloaderSettings {
     @JsonProperty("MaxConnectionsPerHost")
     private int maxConnectionsPerHost = 10;
 
+    @JsonProperty("SyncChunkWrites")
+    private boolean syncChunkWrites = false;
+
     @JsonProperty("MaxConcurrentCrawledDownloads")
     private int maxConcurrentCrawledDownloads = 1;
 
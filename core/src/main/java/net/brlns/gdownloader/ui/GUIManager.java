@@ -66,6 +66,7 @@ import net.brlns.gdownloader.ui.status.StatusIndicatorPanel;
 import net.brlns.gdownloader.ui.themes.ThemeProvider;
 import net.brlns.gdownloader.ui.themes.UIColors;
 import net.brlns.gdownloader.updater.IUpdater;
+import net.brlns.gdownloader.util.StringUtils;
 import net.brlns.gdownloader.util.Version;
 
 import static net.brlns.gdownloader.lang.Language.*;
@@ -611,6 +612,11 @@ public final class GUIManager {
                 ? running + " " + l10n("gui.statusbar.running")
                 : scheduled + " " + l10n("gui.statusbar.waiting");
 
+            long bytesPerSecond = downloadManager.getAggregateBytesPerSecond();
+            if (running > 0 && bytesPerSecond > 0) {
+                runningLine += " (" + StringUtils.getHumanReadableFileSize(bytesPerSecond) + "/s)";
+            }
+
             return "<html>"
                 + runningLine
                 + "<br>"
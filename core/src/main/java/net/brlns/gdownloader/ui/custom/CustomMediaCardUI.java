@@ -363,6 +363,24 @@ public final class CustomMediaCardUI {
         }
     }
 
+    /**
+     * Restores the placeholder state of a recycled card before it is bound to a different media card.
+     */
+    public void resetState() {
+        assert SwingUtilities.isEventDispatchThread();
+        closeMoreOptionsMenu();
+
+        mediaNameLabel.setFullText();
+        mediaNameLabel.setToolTipText(null);
+
+        thumbnailPanel.setToolTipText(null);
+        thumbnailPanel.setImageAndDuration(null, 0);
+        thumbnailPanel.setPlaceholderIcon(DownloadTypeEnum.ALL);
+        thumbnailPanel.setPriorityIcon(DownloadPriorityEnum.NORMAL);
+
+        updateProgressBar(100, l10n("enums.download_status.queued"), Color.GRAY, Color.WHITE);
+    }
+
     public void updateLabel(String... labelText) {
         assert SwingUtilities.isEventDispatchThread();
         mediaNameLabel.setFullText(labelText);
@@ -59,8 +59,8 @@ import net.brlns.gdownloader.ui.menu.SingleActionMenuEntry;
 import net.brlns.gdownloader.ui.message.Message;
 import net.brlns.gdownloader.ui.message.MessageTypeEnum;
 import net.brlns.gdownloader.ui.message.ToastMessenger;
-import net.brlns.gdownloader.util.ImageUtils;
 import net.brlns.gdownloader.util.StringUtils;
+import net.brlns.gdownloader.util.URLThumbnailLoader;
 import net.brlns.gdownloader.util.collection.LRUCache;
 
 import static net.brlns.gdownloader.downloader.enums.DownloaderIdEnum.*;
@@ -622,6 +622,21 @@ public class HistoryWindow {
         return Optional.of(pageRows.get(withinPage));
     }
 
+    // The row right before index when its page is loaded, other pages seek on the repository's own table.
+    private PageAnchor findAnchor(int index) {
+        if (index <= 0) {
+            return PageAnchor.NONE;
+        }
+
+        int previous = index - 1;
+        List<DownloadHistorySummary> pageRows = summaryPageCache.get(previous / PAGE_SIZE);
+        if (pageRows != null && previous % PAGE_SIZE < pageRows.size()) {
+            return new PageAnchor(previous, pageRows.get(previous % PAGE_SIZE));
+        }
+
+        return PageAnchor.NONE;
+    }
+
     private void ensurePageLoaded(int page) {
         if (!inFlightPages.add(page)) {
             return;
@@ -645,10 +660,11 @@ public class HistoryWindow {
         int offset = page * PAGE_SIZE;
         String filterSnapshot = currentFilter;
         int generation = loadGeneration;
+        PageAnchor anchor = findAnchor(offset);
 
         GDownloader.GLOBAL_THREAD_POOL.execute(() -> {
             List<DownloadHistorySummary> rows = isRepoInitialized()
-                ? getRepo().getSummaryPage(offset, PAGE_SIZE, filterSnapshot)
+                ? getRepo().getSummaryPage(offset, PAGE_SIZE, filterSnapshot, anchor.row(), anchor.index())
                 : List.of();
 
             runOnEDT(() -> {
@@ -657,6 +673,7 @@ public class HistoryWindow {
 
                 if (generation == loadGeneration) {
                     summaryPageCache.put(page, rows);
+
                     updateVisibleWindow(true);
                 }
 
@@ -721,8 +738,8 @@ public class HistoryWindow {
 
             Object thumbProp = comp.getClientProperty(THUMBNAIL_PANEL_PROPERTY);
             if (thumbProp instanceof CustomThumbnailPanel thumbnailPanel) {
-                BufferedImage thumbnail = ImageUtils.base64ToBufferedImage(
-                    resolved.get(url).getBase64EncodedThumbnail());
+                BufferedImage thumbnail = URLThumbnailLoader.decodeEmbeddedThumbnail(
+                    url, resolved.get(url).getBase64EncodedThumbnail());
 
                 if (thumbnail != null) {
                     thumbnailPanel.setImage(thumbnail);
@@ -849,7 +866,7 @@ public class HistoryWindow {
 
         DownloadHistoryEntity cachedEntity = entityCache.get(entry.getUrl());
         BufferedImage thumbnail = cachedEntity != null
-            ? ImageUtils.base64ToBufferedImage(cachedEntity.getBase64EncodedThumbnail()) : null;
+            ? URLThumbnailLoader.decodeEmbeddedThumbnail(entry.getUrl(), cachedEntity.getBase64EncodedThumbnail()) : null;
 
         if (thumbnail != null) {
             thumbnailPanel.setImage(thumbnail);
@@ -961,10 +978,11 @@ public class HistoryWindow {
         int count = max - min + 1;
         String filterSnapshot = currentFilter;
         int generation = loadGeneration;
+        PageAnchor anchor = findAnchor(min);
 
         GDownloader.GLOBAL_THREAD_POOL.execute(() -> {
             List<String> urls = isRepoInitialized()
-                ? getRepo().getUrlsPage(min, count, filterSnapshot)
+                ? getRepo().getUrlsPage(min, count, filterSnapshot, anchor.row(), anchor.index())
                 : List.of();
 
             runOnEDT(() -> {
@@ -1320,6 +1338,14 @@ public class HistoryWindow {
         return wrapper;
     }
 
+    /**
+     * A row already read at a known index, see {@link DownloadHistoryRepository#getSummaryPage}.
+     */
+    private record PageAnchor(int index, DownloadHistorySummary row) {
+
+        private static final PageAnchor NONE = new PageAnchor(-1, null);
+    }
+
     private record GridMetrics(
         int columns,
         int cellWidth,
@@ -43,8 +43,9 @@ public class MediaCard {
 
     private final int id;
 
+    // Panels are recycled as the queue scrolls, so this is only set while the card is on screen.
     @Nullable
-    private CustomMediaCardUI ui;
+    private volatile CustomMediaCardUI ui;
 
     private double percentage = 0;
     private double scale = 0;
@@ -87,7 +88,7 @@ public class MediaCard {
         }
     }
 
-    public void setUi(CustomMediaCardUI uiIn) {
+    public void setUi(@Nullable CustomMediaCardUI uiIn) {
         ui = uiIn;
         updateUI(ALL);
     }
@@ -167,11 +168,16 @@ public class MediaCard {
     }
 
     public void updateUI(UpdateType updateType) {
+        CustomMediaCardUI ui = this.ui;
         if (ui == null) {
             return; // No UI available, skip updates
         }
 
         runOnEDT(() -> {
+            if (ui.getCard().getMediaCard() != this) {
+                return; // The panel has since been handed to another card
+            }
+
             switch (updateType) {
                 case ALL -> {
                     for (UpdateType type : UpdateType.values()) {
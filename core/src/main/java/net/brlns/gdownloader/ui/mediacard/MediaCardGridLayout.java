@@ -21,15 +21,19 @@ import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Insets;
 import java.awt.LayoutManager;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.Rectangle;
 import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.JComponent;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Convincing Swing that it's 2026... or was. One pixel at a time.
  * Before you ask: no, I'm not rewriting it in Electron.
  *
+ * The grid is virtual: it is sized for {@link #setItemCount(int)} cells of a uniform row height,
+ * and only places the recycled children that carry a {@link #CELL_INDEX_PROPERTY}, so laying out
+ * a queue of ten thousand cards costs the same as laying out twenty.
+ *
  * @author Gabriel / hstr0100 / vertx010
  */
 @Slf4j
@@ -41,8 +45,15 @@ public class MediaCardGridLayout implements LayoutManager {
     private static final int HGAP = 8;
     private static final int VGAP = 0;
 
+    private static final int DEFAULT_ROW_HEIGHT = 135;
+
+    public static final String CELL_INDEX_PROPERTY = "gdownloader.cellIndex";
+
     private final AtomicInteger columnPreference = new AtomicInteger();
 
+    private volatile int itemCount;
+    private volatile int rowHeight = DEFAULT_ROW_HEIGHT;
+
     public void setColumnPreference(int columns) {
         if (columns < 0 || columns > MAX_COLUMNS) {
             log.warn("Column count must be 0 for automatic, or 1-{} - clamping.", MAX_COLUMNS);
@@ -55,6 +66,73 @@ public class MediaCardGridLayout implements LayoutManager {
         return columnPreference.get();
     }
 
+    public void setItemCount(int count) {
+        itemCount = Math.max(0, count);
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * @return true if the height changed and the container needs to be revalidated.
+     */
+    public boolean setRowHeight(int height) {
+        if (height <= 0 || height == rowHeight) {
+            return false;
+        }
+
+        rowHeight = height;
+
+        return true;
+    }
+
+    public int getRowHeight() {
+        return rowHeight;
+    }
+
+    public int getColumnCount(Container parent) {
+        return determineColumnCount(getAvailableWidth(parent), itemCount);
+    }
+
+    public Rectangle getCellBounds(Container parent, int index) {
+        Insets insets = parent.getInsets();
+        int availableWidth = getAvailableWidth(parent);
+
+        int columns = determineColumnCount(availableWidth, itemCount);
+        int cellWidth = Math.max(1, (availableWidth - HGAP * (columns - 1)) / columns);
+
+        int row = index / columns;
+        int column = index % columns;
+
+        return new Rectangle(
+            insets.left + column * (cellWidth + HGAP),
+            insets.top + row * (rowHeight + VGAP),
+            cellWidth, rowHeight);
+    }
+
+    /**
+     * Cells whose rows intersect the vertical span between {@code minY} and {@code maxY}.
+     */
+    public CellRange getCellRange(Container parent, int minY, int maxY) {
+        int count = itemCount;
+        if (count == 0 || maxY < minY) {
+            return new CellRange(0, 0);
+        }
+
+        int columns = getColumnCount(parent);
+        int top = parent.getInsets().top;
+        int stride = rowHeight + VGAP;
+
+        int firstRow = Math.max(0, (minY - top) / stride);
+        int lastRow = Math.max(0, (maxY - top) / stride);
+
+        int start = (int)Math.min(count, (long)firstRow * columns);
+        int end = (int)Math.min(count, (long)(lastRow + 1) * columns);
+
+        return new CellRange(start, end);
+    }
+
     @Override
     public void addLayoutComponent(String name, Component comp) {
 
@@ -85,62 +163,34 @@ public class MediaCardGridLayout implements LayoutManager {
     }
 
     private Dimension compute(Container parent, boolean apply) {
-        Insets insets = parent.getInsets();
-        int availableWidth = Math.max(0, parent.getWidth() - insets.left - insets.right);
+        int availableWidth = getAvailableWidth(parent);
 
-        List<Component> visible = new ArrayList<>();
-        for (Component component : parent.getComponents()) {
-            if (component.isVisible()) {
-                visible.add(component);
-            }
-        }
-
-        if (visible.isEmpty()) {
+        int count = itemCount;
+        if (count == 0) {
             return new Dimension(availableWidth, 0);
         }
 
-        int columns = determineColumnCount(availableWidth, visible.size());
-
-        int y = insets.top;
-
-        if (columns <= 1) {
-            for (Component component : visible) {
-                int height = component.getPreferredSize().height;
-
-                if (apply) {
-                    component.setBounds(insets.left, y, availableWidth, height);
+        if (apply) {
+            for (Component component : parent.getComponents()) {
+                if (component.isVisible() && component instanceof JComponent child
+                    && child.getClientProperty(CELL_INDEX_PROPERTY) instanceof Integer index) {
+                    component.setBounds(getCellBounds(parent, index));
                 }
-
-                y += height + VGAP;
             }
-
-            return new Dimension(availableWidth, Math.max(0, y - VGAP - insets.top));
         }
 
-        int cellWidth = Math.max(1, (availableWidth - HGAP * (columns - 1)) / columns);
-
-        int index = 0;
-        while (index < visible.size()) {
-            int rowEnd = Math.min(index + columns, visible.size());
+        int columns = determineColumnCount(availableWidth, count);
+        int rows = (count + columns - 1) / columns;
 
-            int rowHeight = 0;
-            for (int i = index; i < rowEnd; i++) {
-                rowHeight = Math.max(rowHeight, visible.get(i).getPreferredSize().height);
-            }
+        long height = (long)rows * (rowHeight + VGAP) - VGAP;
 
-            if (apply) {
-                int x = insets.left;
-                for (int i = index; i < rowEnd; i++) {
-                    visible.get(i).setBounds(x, y, cellWidth, rowHeight);
-                    x += cellWidth + HGAP;
-                }
-            }
+        return new Dimension(availableWidth, (int)Math.min(Integer.MAX_VALUE, height));
+    }
 
-            y += rowHeight + VGAP;
-            index = rowEnd;
-        }
+    private int getAvailableWidth(Container parent) {
+        Insets insets = parent.getInsets();
 
-        return new Dimension(availableWidth, Math.max(0, y - VGAP - insets.top));
+        return Math.max(0, parent.getWidth() - insets.left - insets.right);
     }
 
     private int determineColumnCount(int availableWidth, int visibleCount) {
@@ -156,4 +206,11 @@ public class MediaCardGridLayout implements LayoutManager {
 
         return Math.min(desired, visibleCount);
     }
+
+    /**
+     * Half-open range of cell indices, {@code start} inclusive and {@code end} exclusive.
+     */
+    public record CellRange(int start, int end) {
+
+    }
 }
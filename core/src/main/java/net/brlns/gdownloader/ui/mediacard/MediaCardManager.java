@@ -30,13 +30,18 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -56,6 +61,7 @@ import net.brlns.gdownloader.ui.GUIManager;
 import net.brlns.gdownloader.ui.custom.CustomMediaCardUI;
 import net.brlns.gdownloader.ui.custom.CustomMediaCardUI.MediaCardPanel;
 import net.brlns.gdownloader.ui.dnd.WindowTransferHandler;
+import net.brlns.gdownloader.ui.mediacard.MediaCardGridLayout.CellRange;
 import net.brlns.gdownloader.ui.menu.RightClickMenuEntries;
 import net.brlns.gdownloader.util.collection.ConcurrentLinkedHashSet;
 
@@ -82,6 +88,12 @@ public final class MediaCardManager {
     private final Queue<MediaCardUIUpdateEntry> mediaCardUIUpdateQueue = new ConcurrentLinkedQueue<>();
     private final Map<Integer, MediaCard> mediaCards = new ConcurrentHashMap<>();
 
+    // EDT-confined. Cards are kept in display order, and only the ones in or near the viewport own a panel.
+    private final List<MediaCard> orderedCards = new ArrayList<>();
+    private List<MediaCard> filteredCards = orderedCards;
+    private final Map<Integer, CustomMediaCardUI> boundCardUIs = new HashMap<>();
+    private final Deque<CustomMediaCardUI> idleCardUIs = new ArrayDeque<>();
+
     private final AtomicReference<MediaCardPanel> hoveredCardPanel = new AtomicReference<>();
     private final AtomicReference<Point> lastMouseScreenPoint = new AtomicReference<>();
     private AWTEventListener globalMouseListener;
@@ -167,6 +179,8 @@ public final class MediaCardManager {
     }
 
     private void onViewportScrolled() {
+        refreshViewport();
+
         SwingUtilities.invokeLater(this::recomputeHover);
     }
 
@@ -371,18 +385,16 @@ public final class MediaCardManager {
     }
 
     public void selectAllMediaCards() {
-        List<Integer> visibleCardIds = new ArrayList<>();
-        for (MediaCard mediaCard : mediaCards.values()) {
-            CustomMediaCardUI ui = mediaCard.getUi();
-
-            if (ui != null && ui.getCard().isVisible()) {
+        runOnEDT(() -> {
+            List<Integer> visibleCardIds = new ArrayList<>(filteredCards.size());
+            for (MediaCard mediaCard : filteredCards) {
                 visibleCardIds.add(mediaCard.getId());
             }
-        }
 
-        selectedMediaCards.replaceAll(visibleCardIds);
+            selectedMediaCards.replaceAll(visibleCardIds);
 
-        updateMediaCardSelectionState();
+            updateMediaCardSelectionState();
+        });
     }
 
     public void deleteSelectedMediaCards() {
@@ -402,24 +414,24 @@ public final class MediaCardManager {
     }
 
     private void updateMediaCardSelectionState() {
-        for (MediaCard mediaCard : mediaCards.values()) {
-            boolean isSelected = isMediaCardSelected(mediaCard);
+        runOnEDT(() -> {
+            for (CustomMediaCardUI ui : boundCardUIs.values()) {
+                MediaCardPanel panel = ui.getCard();
 
-            CustomMediaCardUI ui = mediaCard.getUi();
-            if (ui != null) {
-                ui.getCard().setBackground(isSelected
-                    ? color(MEDIA_CARD_SELECTED) : color(MEDIA_CARD));
+                MediaCard mediaCard = panel.getMediaCard();
+                if (mediaCard != null) {
+                    panel.setBackground(isMediaCardSelected(mediaCard)
+                        ? color(MEDIA_CARD_SELECTED) : color(MEDIA_CARD));
+                }
             }
-        }
+        });
     }
 
     private void selectMediaCardRange(MediaCard start, MediaCard end) {
-        if (start.getUi() == null || end.getUi() == null) {
-            throw new IllegalStateException("Expected MediaCard UI to be initialized");
-        }
+        assert SwingUtilities.isEventDispatchThread();
 
-        int startIndex = getComponentIndex(start.getUi().getCard());
-        int endIndex = getComponentIndex(end.getUi().getCard());
+        int startIndex = indexOf(filteredCards, start);
+        int endIndex = indexOf(filteredCards, end);
 
         if (startIndex == -1 || endIndex == -1) {
             return;
@@ -430,26 +442,12 @@ public final class MediaCardManager {
 
         List<Integer> cardsToAdd = new ArrayList<>();
         for (int i = minIndex; i <= maxIndex; i++) {
-            MediaCard card = getMediaCardAt(i);
-
-            if (card == null) {
-                log.error("Cannot find card for index {}", i);
-                continue;
-            }
-
-            CustomMediaCardUI cardUi = card.getUi();
-            if (cardUi == null || !cardUi.getCard().isVisible()) {
-                continue;
-            }
-
-            cardsToAdd.add(card.getId());
+            cardsToAdd.add(filteredCards.get(i).getId());
         }
 
         selectedMediaCards.replaceAll(cardsToAdd);
 
-        runOnEDT(() -> {
-            updateMediaCardSelectionState();
-        });
+        updateMediaCardSelectionState();
     }
 
     private void processMediaCardQueue() {
@@ -471,100 +469,49 @@ public final class MediaCardManager {
             boolean scrollToBottom = false;
 
             try {
-                int count = 0;
-                while (!mediaCardUIUpdateQueue.isEmpty()) {
-                    if (++count == 40) {// Process in batches of 40 items every 100ms
-                        break;
-                    }
-
-                    MediaCardUIUpdateEntry entry = mediaCardUIUpdateQueue.poll();
-                    if (entry == null) {
-                        continue;
-                    }
+                String currentQuery = currentSearchQuery.get();
+                Set<Integer> removedIds = null;
 
+                // Adding a card no longer builds any Swing components, so batches can be much larger.
+                int count = 0;
+                MediaCardUIUpdateEntry entry;
+                while (count++ < MAX_UPDATES_PER_BATCH
+                    && (entry = mediaCardUIUpdateQueue.poll()) != null) {
                     MediaCard mediaCard = entry.getMediaCard();
 
                     if (entry.getUpdateType() == CARD_ADD) {
-                        CustomMediaCardUI ui = new CustomMediaCardUI(manager, manager.getAppWindow(), () -> {
-                            if (isMediaCardSelected(mediaCard.getId())) {
-                                deleteSelectedMediaCards();
-                            }
-
-                            removeMediaCard(mediaCard.getId(), CloseReasonEnum.MANUAL);
-                        },
-                            () -> Optional.of(mediaCard.getOnInfoClick())
-                                .ifPresent(runnable -> runnable.run()),
-                            () -> Optional.of(mediaCard.getOnStartClick())
-                                .ifPresent(runnable -> runnable.run()),
-                            () -> Optional.of(mediaCard.getOnFormatsClick())
-                                .ifPresent(runnable -> runnable.run())
-                        );
-
-                        mediaCard.setUi(ui);
-
-                        MediaCardPanel card = ui.getCard();
-                        card.setTransferHandler(new WindowTransferHandler(manager));
-
-                        MouseAdapter listener = new MediaCardMouseAdapter(mediaCard);
-                        card.addMouseListener(listener);
-                        ui.getDragLabel().addMouseListener(listener);
-                        ui.getMediaNameLabel().addMouseListener(listener);
-
-                        ui.getInfoButton().addMouseListener(new MouseAdapter() {
-                            @Override
-                            public void mouseEntered(MouseEvent e) {
-                                if (mediaCard.getOnInfoHover() != null) {
-                                    mediaCard.getOnInfoHover().accept(true);
-                                }
-                            }
-
-                            @Override
-                            public void mouseExited(MouseEvent e) {
-                                if (mediaCard.getOnInfoHover() != null) {
-                                    mediaCard.getOnInfoHover().accept(false);
-                                }
-                            }
-                        });
-
-                        card.setMediaCard(mediaCard);
-
-                        String currentQuery = currentSearchQuery.get();
-                        if (!currentQuery.isEmpty()) {
-                            boolean visible = matchesSearch(mediaCard, currentQuery);
-                            card.setVisible(visible);
-                        }
-
-                        mediaQueuePane.add(card);
+                        orderedCards.add(mediaCard);
 
-                        card.revalidate();
-                        ui.getMediaNameLabel().updateTruncatedText();
+                        if (filteredCards != orderedCards && matchesSearch(mediaCard, currentQuery)) {
+                            filteredCards.add(mediaCard);
+                        }
 
                         scrollToBottom = true;
                     } else if (entry.getUpdateType() == CARD_REMOVE) {
-                        CustomMediaCardUI ui = mediaCard.getUi();
-                        if (ui != null) {
-                            hoveredCardPanel.compareAndSet(ui.getCard(), null);
-
-                            try {
-                                if (mediaCards.isEmpty()) {
-                                    mediaQueuePane.removeAll();
-                                } else {
-                                    mediaQueuePane.remove(ui.getCard());
-                                }
-                            } catch (StackOverflowError e) {
-                                // Decades-old AWT issue. We should not have to raise the stack limit for this.
-                                // AWTEventMulticaster.remove(AWTEventMulticaster.java:153)
-                                // AWTEventMulticaster.removeInternal(AWTEventMulticaster.java:983)
-                                // Rinse and repeat ∞
-                                GDownloader.handleException(e, "StackOverflowError when calling remove() or removeComponentListener().");
-                            }
+                        releaseCardUI(mediaCard);
+
+                        if (removedIds == null) {
+                            removedIds = new HashSet<>();
                         }
+
+                        removedIds.add(mediaCard.getId());
+                    }
+                }
+
+                if (removedIds != null) {
+                    Set<Integer> finalRemovedIds = removedIds;
+                    orderedCards.removeIf(card -> finalRemovedIds.contains(card.getId()));
+
+                    if (filteredCards != orderedCards) {
+                        filteredCards.removeIf(card -> finalRemovedIds.contains(card.getId()));
                     }
                 }
             } finally {
                 lastMediaCardQueueUpdate.set(System.currentTimeMillis());
                 currentlyUpdatingMediaCards.set(false);
 
+                refreshViewport();
+
                 mediaQueuePane.revalidate();
                 mediaQueuePane.validate();
                 queueScrollPane.validate();
@@ -583,6 +530,199 @@ public final class MediaCardManager {
         });
     }
 
+    /**
+     * Binds a panel to every card in or near the viewport and recycles the rest.
+     */
+    private void refreshViewport() {
+        assert SwingUtilities.isEventDispatchThread();
+        if (mediaQueuePane == null || queueScrollPane == null) {
+            return;
+        }
+
+        boolean changed = false;
+
+        if (mediaCardGridLayout.getItemCount() != filteredCards.size()) {
+            mediaCardGridLayout.setItemCount(filteredCards.size());
+            changed = true;
+        }
+
+        Rectangle viewRect = queueScrollPane.getViewport().getViewRect();
+        int overscan = mediaCardGridLayout.getRowHeight() * OVERSCAN_ROWS;
+
+        CellRange range = mediaCardGridLayout.getCellRange(mediaQueuePane,
+            viewRect.y - overscan, viewRect.y + viewRect.height + overscan);
+
+        Set<Integer> wantedIds = new HashSet<>();
+        for (int i = range.start(); i < range.end(); i++) {
+            wantedIds.add(filteredCards.get(i).getId());
+        }
+
+        Iterator<CustomMediaCardUI> iterator = boundCardUIs.values().iterator();
+        while (iterator.hasNext()) {
+            CustomMediaCardUI ui = iterator.next();
+
+            MediaCard mediaCard = ui.getCard().getMediaCard();
+            if (mediaCard == null || !wantedIds.contains(mediaCard.getId())) {
+                iterator.remove();
+                recycleCardUI(ui);
+                changed = true;
+            }
+        }
+
+        int rowHeight = 0;
+        for (int i = range.start(); i < range.end(); i++) {
+            MediaCard mediaCard = filteredCards.get(i);
+
+            CustomMediaCardUI ui = boundCardUIs.get(mediaCard.getId());
+            if (ui == null) {
+                ui = bindCardUI(mediaCard);
+                changed = true;
+            }
+
+            MediaCardPanel panel = ui.getCard();
+            if (!Integer.valueOf(i).equals(panel.getClientProperty(MediaCardGridLayout.CELL_INDEX_PROPERTY))) {
+                panel.putClientProperty(MediaCardGridLayout.CELL_INDEX_PROPERTY, i);
+                changed = true;
+            }
+
+            rowHeight = Math.max(rowHeight, panel.getPreferredSize().height);
+        }
+
+        if (mediaCardGridLayout.setRowHeight(rowHeight)) {
+            // The range was computed with the old height, go around once more.
+            SwingUtilities.invokeLater(this::refreshViewport);
+            changed = true;
+        }
+
+        if (changed) {
+            mediaQueuePane.revalidate();
+            mediaQueuePane.repaint();
+        }
+    }
+
+    private CustomMediaCardUI bindCardUI(MediaCard mediaCard) {
+        CustomMediaCardUI ui = idleCardUIs.poll();
+        if (ui == null) {
+            ui = createCardUI();
+
+            mediaQueuePane.add(ui.getCard());
+        } else {
+            ui.resetState();
+        }
+
+        MediaCardPanel panel = ui.getCard();
+        panel.setMediaCard(mediaCard);
+        panel.setBackground(isMediaCardSelected(mediaCard)
+            ? color(MEDIA_CARD_SELECTED) : color(MEDIA_CARD));
+
+        mediaCard.adjustScale(manager.getAppWindow().getWidth());
+        mediaCard.setUi(ui);
+
+        panel.setVisible(true);
+        ui.getMediaNameLabel().updateTruncatedText();
+
+        boundCardUIs.put(mediaCard.getId(), ui);
+
+        return ui;
+    }
+
+    private void releaseCardUI(MediaCard mediaCard) {
+        CustomMediaCardUI ui = boundCardUIs.remove(mediaCard.getId());
+        if (ui != null) {
+            recycleCardUI(ui);
+        }
+    }
+
+    private void recycleCardUI(CustomMediaCardUI ui) {
+        MediaCardPanel panel = ui.getCard();
+        hoveredCardPanel.compareAndSet(panel, null);
+
+        MediaCard mediaCard = panel.getMediaCard();
+        if (mediaCard != null && mediaCard.getUi() == ui) {
+            mediaCard.setUi(null);
+        }
+
+        panel.setMediaCard(null);
+        panel.putClientProperty(MediaCardGridLayout.CELL_INDEX_PROPERTY, null);
+        panel.setVisible(false);
+
+        if (idleCardUIs.size() < MAX_IDLE_CARD_UIS) {
+            idleCardUIs.push(ui);
+
+            return;
+        }
+
+        try {
+            mediaQueuePane.remove(panel);
+        } catch (StackOverflowError e) {
+            // Decades-old AWT issue. We should not have to raise the stack limit for this.
+            // AWTEventMulticaster.remove(AWTEventMulticaster.java:153)
+            // AWTEventMulticaster.removeInternal(AWTEventMulticaster.java:983)
+            // Rinse and repeat ∞
+            GDownloader.handleException(e, "StackOverflowError when calling remove() or removeComponentListener().");
+        }
+    }
+
+    private CustomMediaCardUI createCardUI() {
+        // Callbacks resolve whichever card the panel is bound to at the time they fire.
+        AtomicReference<CustomMediaCardUI> uiRef = new AtomicReference<>();
+
+        CustomMediaCardUI ui = new CustomMediaCardUI(manager, manager.getAppWindow(),
+            () -> withBoundCard(uiRef.get(), mediaCard -> {
+                if (isMediaCardSelected(mediaCard.getId())) {
+                    deleteSelectedMediaCards();
+                }
+
+                removeMediaCard(mediaCard.getId(), CloseReasonEnum.MANUAL);
+            }),
+            () -> withBoundCard(uiRef.get(), mediaCard -> Optional.ofNullable(mediaCard.getOnInfoClick())
+                .ifPresent(runnable -> runnable.run())),
+            () -> withBoundCard(uiRef.get(), mediaCard -> Optional.ofNullable(mediaCard.getOnStartClick())
+                .ifPresent(runnable -> runnable.run())),
+            () -> withBoundCard(uiRef.get(), mediaCard -> Optional.ofNullable(mediaCard.getOnFormatsClick())
+                .ifPresent(runnable -> runnable.run()))
+        );
+
+        uiRef.set(ui);
+
+        MediaCardPanel card = ui.getCard();
+        card.setTransferHandler(new WindowTransferHandler(manager));
+
+        MouseAdapter listener = new MediaCardMouseAdapter(ui);
+        card.addMouseListener(listener);
+        ui.getDragLabel().addMouseListener(listener);
+        ui.getMediaNameLabel().addMouseListener(listener);
+
+        ui.getInfoButton().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                withBoundCard(ui, mediaCard -> {
+                    if (mediaCard.getOnInfoHover() != null) {
+                        mediaCard.getOnInfoHover().accept(true);
+                    }
+                });
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                withBoundCard(ui, mediaCard -> {
+                    if (mediaCard.getOnInfoHover() != null) {
+                        mediaCard.getOnInfoHover().accept(false);
+                    }
+                });
+            }
+        });
+
+        return ui;
+    }
+
+    private static void withBoundCard(CustomMediaCardUI ui, Consumer<MediaCard> action) {
+        MediaCard mediaCard = ui.getCard().getMediaCard();
+        if (mediaCard != null) {
+            action.accept(mediaCard);
+        }
+    }
+
     public void updateVisibleCards() {
         runOnEDT(() -> {
             if (mediaQueuePane == null) {
@@ -591,20 +731,18 @@ public final class MediaCardManager {
 
             int windowWidth = manager.getAppWindow().getWidth();
 
-            for (Component component : mediaQueuePane.getComponents()) {
-                if (component.isVisible() && component instanceof MediaCardPanel panel) {
-                    MediaCard card = panel.getMediaCard();
-                    if (card != null) {
-                        card.adjustScale(windowWidth);
+            // Unbound cards pick up the new scale when they are next bound.
+            for (CustomMediaCardUI ui : boundCardUIs.values()) {
+                MediaCard card = ui.getCard().getMediaCard();
+                if (card != null) {
+                    card.adjustScale(windowWidth);
 
-                        CustomMediaCardUI ui = card.getUi();
-                        if (ui != null) {
-                            ui.getCard().revalidate();
-                            ui.getCard().repaint();
-                        }
-                    }
+                    ui.getCard().revalidate();
+                    ui.getCard().repaint();
                 }
             }
+
+            refreshViewport();
         });
     }
 
@@ -617,38 +755,23 @@ public final class MediaCardManager {
             Rectangle viewRect = queueScrollPane.getViewport().getViewRect();
             int buffer = (int)(viewRect.height * 2.5);
 
-            int exX = viewRect.x;
-            int exY = viewRect.y - buffer;
-            int exMaxX = exX + viewRect.width;
-            int exMaxY = exY + viewRect.height + buffer * 2;
+            CellRange range = mediaCardGridLayout.getCellRange(mediaQueuePane,
+                viewRect.y - buffer, viewRect.y + viewRect.height + buffer);
 
             List<Runnable> toRefresh = null;
-            int componentCount = mediaQueuePane.getComponentCount();
+            int end = Math.min(range.end(), filteredCards.size());
 
-            for (int i = 0; i < componentCount; i++) {
-                Component component = mediaQueuePane.getComponent(i);
-
-                if (!(component instanceof MediaCardPanel panel) || !component.isVisible()) {
+            for (int i = range.start(); i < end; i++) {
+                MediaCard card = filteredCards.get(i);
+                if (card.getOnBecomeVisible() == null) {
                     continue;
                 }
 
-                MediaCard card = panel.getMediaCard();
-                if (card == null || card.getOnBecomeVisible() == null) {
-                    continue;
+                if (toRefresh == null) {
+                    toRefresh = new ArrayList<>();
                 }
 
-                int cX = component.getX();
-                int cY = component.getY();
-                int cMaxX = cX + component.getWidth();
-                int cMaxY = cY + component.getHeight();
-
-                if (cX < exMaxX && cMaxX > exX && cY < exMaxY && cMaxY > exY) {
-                    if (toRefresh == null) {
-                        toRefresh = new ArrayList<>();
-                    }
-
-                    toRefresh.add(card.getOnBecomeVisible());
-                }
+                toRefresh.add(card.getOnBecomeVisible());
             }
 
             if (toRefresh != null) {
@@ -663,42 +786,43 @@ public final class MediaCardManager {
     }
 
     public boolean handleMediaCardDnD(MediaCard mediaCard, Component dropTarget) {
-        CustomMediaCardUI ui = mediaCard.getUi();
+        Rectangle windowBounds = manager.getAppWindow().getBounds();
+        Point dropLocation = dropTarget.getLocationOnScreen();
+
+        if (windowBounds.contains(dropLocation)
+            && dropTarget instanceof MediaCardPanel targetPanel) {
+            MediaCard targetCard = targetPanel.getMediaCard();
+            if (targetCard != null && targetCard.getDropTargetValidator().get()) {
+                if (mediaCard.getOnSwap() != null) {
+                    mediaCard.getOnSwap().accept(targetCard);
+                }
 
-        if (ui != null) {
-            MediaCardPanel sourcePanel = ui.getCard();
-            Rectangle windowBounds = manager.getAppWindow().getBounds();
-            Point dropLocation = dropTarget.getLocationOnScreen();
-
-            if (windowBounds.contains(dropLocation)
-                && dropTarget instanceof MediaCardPanel targetPanel) {
-                MediaCard targetCard = targetPanel.getMediaCard();
-                if (targetCard != null && targetCard.getDropTargetValidator().get()) {
-                    if (mediaCard.getOnSwap() != null) {
-                        mediaCard.getOnSwap().accept(targetCard);
-                    }
+                runOnEDT(() -> {
+                    int sourceIndex = indexOf(orderedCards, mediaCard);
+                    int targetIndex = indexOf(orderedCards, targetCard);
 
-                    runOnEDT(() -> {
-                        int targetIndex = getComponentIndex(targetPanel);
+                    if (sourceIndex == -1 || targetIndex == -1) {
+                        return;
+                    }
 
-                        mediaQueuePane.remove(sourcePanel);
-                        mediaQueuePane.add(sourcePanel, targetIndex);
-                        mediaQueuePane.revalidate();
-                        mediaQueuePane.repaint();
-                    });
-                }
+                    orderedCards.remove(sourceIndex);
+                    orderedCards.add(targetIndex, mediaCard);
 
-                return true;
+                    rebuildFilteredCards();
+                    refreshViewport();
+                });
             }
+
+            return true;
         }
 
         return false;
     }
 
-    private int getComponentIndex(Component component) {
-        Component[] components = mediaQueuePane.getComponents();
-        for (int i = 0; i < components.length; i++) {
-            if (components[i] == component) {
+    private static int indexOf(List<MediaCard> cards, MediaCard mediaCard) {
+        int id = mediaCard.getId();
+        for (int i = 0; i < cards.size(); i++) {
+            if (cards.get(i).getId() == id) {
                 return i;
             }
         }
@@ -706,22 +830,6 @@ public final class MediaCardManager {
         return -1;
     }
 
-    @Nullable
-    private MediaCard getMediaCardAt(int index) {
-        if (index < 0 || index >= mediaQueuePane.getComponents().length) {
-            log.error("Index {} is out of bounds", index);
-            return null;
-        }
-
-        Component component = mediaQueuePane.getComponents()[index];
-
-        if (component instanceof MediaCardPanel panel) {
-            return panel.getMediaCard();
-        }
-
-        return null;
-    }
-
     public void reorderMediaCards(@NonNull List<Integer> newOrderIds) {
         if (newOrderIds.isEmpty() || queueScrollPane == null) {
             return;
@@ -729,127 +837,67 @@ public final class MediaCardManager {
 
         runOnEDT(() -> {
             try {
-                mediaQueuePane.setIgnoreRepaint(true);
-
-                List<Component> components = new ArrayList<>();
-                Map<Integer, Component> idToComponentMap = new HashMap<>();
-                Map<Integer, Integer> currentOrderMap = new HashMap<>();
-
-                int index = 0;
-                for (Component component : mediaQueuePane.getComponents()) {
-                    if (component instanceof MediaCardPanel panel) {
-                        MediaCard card = panel.getMediaCard();
-                        if (card != null) {
-                            components.add(component);
-                            idToComponentMap.put(card.getId(), component);
-                            currentOrderMap.put(card.getId(), index++);
-                        } else {
-                            log.warn("A panel did not contain a media card reference");
-                        }
-                    }
+                Map<Integer, MediaCard> idToCardMap = new HashMap<>();
+                for (MediaCard card : orderedCards) {
+                    idToCardMap.put(card.getId(), card);
                 }
 
                 if (log.isDebugEnabled()) {
-                    log.debug("Found {} existing media card components, size reported by reorderer list: {}",
-                        components.size(), newOrderIds.size());
+                    log.debug("Found {} existing media cards, size reported by reorderer list: {}",
+                        orderedCards.size(), newOrderIds.size());
                 }
 
-                for (int i = 0; i < newOrderIds.size(); i++) {
-                    Integer cardId = newOrderIds.get(i);
-
-                    if (!idToComponentMap.containsKey(cardId)) {
+                for (Integer cardId : newOrderIds) {
+                    if (!idToCardMap.containsKey(cardId)) {
                         // The UI is not kept in perfect sync with the sequencer.
                         log.warn("Media card with ID {} not found for reordering", cardId);
                         return;
                     }
                 }
 
-                List<Range> rangesToReorder = findOutOfOrderRanges(newOrderIds, currentOrderMap);
-                if (log.isDebugEnabled()) {
-                    log.debug("Found {} ranges that need reordering", rangesToReorder.size());
-                }
+                List<MediaCard> reordered = new ArrayList<>(orderedCards.size());
+                Set<Integer> placed = new HashSet<>();
 
-                if (!rangesToReorder.isEmpty()) {
-                    for (Range range : rangesToReorder) {
-                        for (int i = range.getStart(); i <= range.getEnd(); i++) {
-                            Integer cardId = newOrderIds.get(i);
-                            Component component = idToComponentMap.get(cardId);
-                            if (component != null) {
-                                mediaQueuePane.remove(component);
-                            } else {
-                                log.warn("Component for media card ID {} not found", cardId);
-                            }
-                        }
+                for (Integer cardId : newOrderIds) {
+                    if (placed.add(cardId)) {
+                        reordered.add(idToCardMap.get(cardId));
                     }
+                }
 
-                    int componentIndex = 0;
-                    for (int i = 0; i < newOrderIds.size(); i++) {
-                        Integer cardId = newOrderIds.get(i);
-                        Component component = idToComponentMap.get(cardId);
-
-                        if (isInAnyRange(i, rangesToReorder)) {
-                            if (component != null) {
-                                mediaQueuePane.add(component, componentIndex);
-                            } else {
-                                log.warn("Component for media card ID {} not found", cardId);
-                            }
-                        }
+                // Cards the sequencer does not know about keep their relative order at the end.
+                for (MediaCard card : orderedCards) {
+                    if (!placed.contains(card.getId())) {
+                        reordered.add(card);
+                    }
+                }
 
-                        componentIndex++;
+                boolean outOfOrder = false;
+                for (int i = 0; i < reordered.size(); i++) {
+                    if (reordered.get(i) != orderedCards.get(i)) {
+                        outOfOrder = true;
+                        break;
                     }
+                }
+
+                if (outOfOrder) {
+                    orderedCards.clear();
+                    orderedCards.addAll(reordered);
 
-                    mediaQueuePane.revalidate();
-                    mediaQueuePane.repaint();
+                    rebuildFilteredCards();
+                    refreshViewport();
 
                     if (queueScrollPane.getViewport().getScrollMode()
                         == JViewport.BACKINGSTORE_SCROLL_MODE) {
                         queueScrollPane.getViewport().revalidate();
                         queueScrollPane.getViewport().repaint();
                     }
-
-                    if (!selectedMediaCards.isEmpty()) {
-                        updateMediaCardSelectionState();
-                    }
                 }
             } catch (Exception e) {
                 GDownloader.handleException(e, "Failed to reorder UI cards", false);
-            } finally {
-                mediaQueuePane.setIgnoreRepaint(false);
             }
         });
     }
 
-    private List<Range> findOutOfOrderRanges(List<Integer> newOrderIds, Map<Integer, Integer> currentOrderMap) {
-        List<Range> ranges = new ArrayList<>();
-        int rangeStart = -1;
-        boolean inRange = false;
-
-        for (int i = 0; i < newOrderIds.size(); i++) {
-            Integer cardId = newOrderIds.get(i);
-            Integer currentIndex = currentOrderMap.get(cardId);
-
-            if (currentIndex == null || currentIndex != i) {
-                if (!inRange) {
-                    rangeStart = i;
-                    inRange = true;
-                }
-            } else if (inRange) {
-                ranges.add(new Range(rangeStart, i - 1));
-                inRange = false;
-            }
-        }
-
-        if (inRange) {
-            ranges.add(new Range(rangeStart, newOrderIds.size() - 1));
-        }
-
-        return ranges;
-    }
-
-    private boolean isInAnyRange(int index, List<Range> ranges) {
-        return ranges.stream().anyMatch(range -> range.inRange(index));
-    }
-
     public int getMediaCardCount() {
         return mediaCards.size();
     }
@@ -862,34 +910,31 @@ public final class MediaCardManager {
                 return;
             }
 
-            int count = 0;
-            for (MediaCard card : mediaCards.values()) {
-                CustomMediaCardUI ui = card.getUi();
-                if (ui == null) {
-                    continue;
-                }
+            rebuildFilteredCards();
+            refreshViewport();
 
-                String currentQuery = currentSearchQuery.get();
+            if (onCountUpdate != null) {
+                onCountUpdate.accept(filteredCards.size());
+            }
+        });
+    }
 
-                boolean visible = currentQuery.isEmpty() || matchesSearch(card, currentQuery);
-                MediaCardPanel cardPanel = ui.getCard();
+    private void rebuildFilteredCards() {
+        String currentQuery = currentSearchQuery.get();
+        if (currentQuery.isEmpty()) {
+            filteredCards = orderedCards;
 
-                if (cardPanel.isVisible() != visible) {
-                    cardPanel.setVisible(visible);
-                }
+            return;
+        }
 
-                if (visible) {
-                    count++;
-                }
+        List<MediaCard> filtered = new ArrayList<>();
+        for (MediaCard card : orderedCards) {
+            if (matchesSearch(card, currentQuery)) {
+                filtered.add(card);
             }
+        }
 
-            mediaQueuePane.revalidate();
-            mediaQueuePane.repaint();
-
-            if (onCountUpdate != null) {
-                onCountUpdate.accept(count);
-            }
-        });
+        filteredCards = filtered;
     }
 
     private boolean matchesSearch(MediaCard card, String query) {
@@ -916,17 +961,14 @@ public final class MediaCardManager {
 
     private class MediaCardMouseAdapter extends MouseAdapter {
 
-        private final MediaCard mediaCard;
         private final CustomMediaCardUI ui;
         private final MediaCardPanel card;
 
         private long lastClick = System.currentTimeMillis();
 
-        public MediaCardMouseAdapter(MediaCard mediaCardIn) {
-            mediaCard = mediaCardIn;
-
-            ui = mediaCardIn.getUi();
-            card = ui.getCard();
+        public MediaCardMouseAdapter(CustomMediaCardUI uiIn) {
+            ui = uiIn;
+            card = uiIn.getCard();
         }
 
         @Override
@@ -947,6 +989,11 @@ public final class MediaCardManager {
 
         @Override
         public void mouseClicked(MouseEvent e) {
+            MediaCard mediaCard = card.getMediaCard();
+            if (mediaCard == null) {
+                return;
+            }
+
             if (SwingUtilities.isLeftMouseButton(e)) {
                 MediaCard lastCard = lastSelectedMediaCard.get();
 
@@ -1010,6 +1057,10 @@ public final class MediaCardManager {
     private static final byte CARD_REMOVE = 0x00;
     private static final byte CARD_ADD = 0x01;
 
+    private static final int MAX_UPDATES_PER_BATCH = 2000;
+    private static final int OVERSCAN_ROWS = 3;
+    private static final int MAX_IDLE_CARD_UIS = 32;
+
     @Data
     private static class MediaCardUIUpdateEntry {
 
@@ -1017,14 +1068,4 @@ public final class MediaCardManager {
         private final MediaCard mediaCard;
     }
 
-    @Data
-    private static class Range {
-
-        private final int start;
-        private final int end;
-
-        public boolean inRange(int index) {
-            return index >= start && index <= end;
-        }
-    }
 }
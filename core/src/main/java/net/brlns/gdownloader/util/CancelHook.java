@@ -18,20 +18,41 @@ package net.brlns.gdownloader.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
 
 /**
+ * A cancellation flag that can be polled, waited on, or listened to.
+ *
+ * Hooks derived from other hooks are cancelled as soon as any of their parents is. Conditions added
+ * through {@link #addCondition(Supplier, boolean)} can only be noticed by polling, so waiting on a hook
+ * that has any falls back to checking them in short slices.
+ *
  * @author Gabriel / hstr0100 / vertx010
  */
+@Slf4j
 public class CancelHook {
 
+    private static final long CONDITION_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     private final AtomicBoolean value = new AtomicBoolean(false);
 
-    private final List<ConditionChecker> conditions = new ArrayList<>();
+    private final List<ConditionChecker> conditions = new CopyOnWriteArrayList<>();
+    private final List<CancelHook> parents = new CopyOnWriteArrayList<>();
+
+    private final Set<Listener> listeners = ConcurrentHashMap.newKeySet();
 
     public CancelHook set(boolean newValue) {
-        value.set(newValue);
+        if (!value.getAndSet(newValue) && newValue) {
+            fireListeners();
+        }
+
         return this;
     }
 
@@ -40,6 +61,12 @@ public class CancelHook {
             return true;
         }
 
+        for (CancelHook parent : parents) {
+            if (parent.get()) {
+                return true;
+            }
+        }
+
         for (ConditionChecker condition : conditions) {
             if (condition.shouldCancel()) {
                 return true;
@@ -55,9 +82,156 @@ public class CancelHook {
     }
 
     public CancelHook derive(Supplier<Boolean> getter, boolean expectedValue) {
-        return new CancelHook()
-            .addCondition(this::get, false)
+        CancelHook derived = new CancelHook()
             .addCondition(getter, expectedValue);
+
+        derived.parents.add(this);
+
+        return derived;
+    }
+
+    /**
+     * @return a hook that is cancelled whenever this one or {@code other} is.
+     */
+    public CancelHook derive(CancelHook other) {
+        CancelHook derived = new CancelHook();
+        derived.parents.add(this);
+        derived.parents.add(other);
+
+        return derived;
+    }
+
+    /**
+     * Whether every way this hook can be cancelled also notifies its listeners.
+     */
+    public boolean isEventDriven() {
+        if (!conditions.isEmpty()) {
+            return false;
+        }
+
+        for (CancelHook parent : parents) {
+            if (!parent.isEventDriven()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Registers a one-shot callback, run on the cancelling thread the next time this hook or any
+     * of its parents is cancelled, or right away if it already is. Callbacks must not block, the
+     * cancelling thread may well be the UI.
+     *
+     * Conditions are not observed here, see {@link #isEventDriven()}.
+     *
+     * @return a registration to close once the callback is no longer needed.
+     */
+    public Registration onCancel(Runnable callback) {
+        Listener listener = new Listener(callback);
+        listeners.add(listener);
+
+        for (CancelHook parent : parents) {
+            listener.addUpstream(parent.onCancel(this::fireListeners));
+        }
+
+        // Catches a cancellation that happened while registering.
+        if (get()) {
+            fireListeners();
+        }
+
+        return listener;
+    }
+
+    /**
+     * Waits until this hook is cancelled or the timeout elapses.
+     *
+     * @return true if the hook was cancelled.
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        if (get()) {
+            return true;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        try (Registration registration = onCancel(latch::countDown)) {
+            boolean eventDriven = isEventDriven();
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                long slice = eventDriven ? remaining : Math.min(remaining, CONDITION_POLL_NANOS);
+                if (latch.await(slice, TimeUnit.NANOSECONDS) || get()) {
+                    return true;
+                }
+            }
+
+            return get();
+        }
+    }
+
+    private void fireListeners() {
+        for (Listener listener : listeners) {
+            // Whoever removes the listener runs it, so it only ever runs once.
+            if (listeners.remove(listener)) {
+                listener.run();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final class Listener implements Registration {
+
+        private final Runnable callback;
+
+        // Guarded by this.
+        private final List<Registration> upstream = new ArrayList<>();
+        private boolean detached;
+
+        private Listener(Runnable callbackIn) {
+            callback = callbackIn;
+        }
+
+        private void run() {
+            closeUpstream();
+
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.error("Cancel listener failed", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            listeners.remove(this);
+            closeUpstream();
+        }
+
+        private synchronized void addUpstream(Registration registration) {
+            if (detached) {
+                registration.close();
+                return;
+            }
+
+            upstream.add(registration);
+        }
+
+        private synchronized void closeUpstream() {
+            detached = true;
+
+            for (Registration registration : upstream) {
+                registration.close();
+            }
+
+            upstream.clear();
+        }
     }
 
     private static class ConditionChecker {
@@ -232,6 +232,24 @@ public final class StringUtils {
         return null;
     }
 
+    /**
+     * Same as {@link String#startsWith(String)}, without copying the sequence into a String first.
+     */
+    public static boolean startsWith(CharSequence sequence, String prefix) {
+        int length = prefix.length();
+        if (sequence.length() < length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (sequence.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public static boolean containsIgnoreCase(String haystack, String needle) {
         return haystack != null && haystack.toLowerCase(Locale.ROOT).contains(needle);
     }
@@ -347,12 +365,15 @@ public final class StringUtils {
         return lowercase ? hex.toLowerCase() : hex;
     }
 
-    @SneakyThrows
     public static String calculateSHA256(String input) {
+        return calculateSHA256(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SneakyThrows
+    public static String calculateSHA256(byte[] input) {
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
 
-        return HexFormat.of().formatHex(
-            digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+        return HexFormat.of().formatHex(digest.digest(input));
     }
 
     public static List<String> wrapText(String str, int wrapLength) {
@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.Nullable;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.brlns.gdownloader.GDownloader;
+
+/**
+ * Two-tier cache for remote images.
+ *
+ * The disk tier stores response bodies once per distinct content hash, with a small entry file per URL
+ * holding the content hash and the validators needed to revalidate it. Entries and blobs both count toward
+ * the configured byte budget; once it is exceeded, entries are evicted least recently used first, each
+ * taking its blob along unless another entry still refers to it. A budget of zero empties the disk tier.
+ * The memory tier holds decoded images that were already cropped and scaled for display, bounded by their
+ * pixel footprint.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+@Slf4j
+public final class ThumbnailCache {
+
+    // Thumbnails practically never change, revalidate them once a week.
+    private static final Duration FRESHNESS = Duration.ofDays(7);
+
+    // A blob is written just before its entry, give stores in flight time to finish.
+    private static final Duration ORPHAN_GRACE = Duration.ofMinutes(1);
+
+    private static final long MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;// 64MB
+
+    private static final String BLOB_SUFFIX = ".img";
+    private static final String ENTRY_SUFFIX = ".json";
+
+    private final Path blobDirectory;
+    private final Path entryDirectory;
+    private final LongSupplier diskBudgetBytes;
+
+    private final AtomicLong diskUsage = new AtomicLong(-1);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LinkedHashMap<String, BufferedImage> memoryTier = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryUsage;
+
+    public ThumbnailCache(Path directoryIn, LongSupplier diskBudgetBytesIn) {
+        blobDirectory = directoryIn.resolve("blobs");
+        entryDirectory = directoryIn.resolve("entries");
+        diskBudgetBytes = diskBudgetBytesIn;
+    }
+
+    public boolean isDiskTierEnabled() {
+        return diskBudgetBytes.getAsLong() > 0;
+    }
+
+    /**
+     * @return the cached body of the given key, if both its entry and its content are still on disk.
+     */
+    public Optional<CachedResource> lookup(String key) {
+        if (!isDiskTierEnabled()) {
+            evictIfNeeded();
+
+            return Optional.empty();
+        }
+
+        Path entryPath = getEntryPath(key);
+        if (!Files.exists(entryPath)) {
+            return Optional.empty();
+        }
+
+        try {
+            EntryData entry = GDownloader.OBJECT_MAPPER.readValue(entryPath.toFile(), EntryData.class);
+            if (!key.equals(entry.getKey())) {
+                return Optional.empty();// Hash collision, astronomically unlikely
+            }
+
+            if (entry.getContentHash() == null) {
+                touch(entryPath);
+
+                return Optional.of(new CachedResource(entry, null));
+            }
+
+            byte[] body = Files.readAllBytes(getBlobPath(entry.getContentHash()));
+
+            touch(entryPath);
+
+            return Optional.of(new CachedResource(entry, body));
+        } catch (NoSuchFileException e) {
+            // The blob was evicted, the entry is of no use anymore.
+            deleteQuietly(entryPath);
+        } catch (IOException e) {
+            log.debug("Failed to read cache entry for {}: {}", key, e.toString());
+            deleteQuietly(entryPath);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a freshly fetched body along with its validators.
+     */
+    public void store(String key, byte[] body, @Nullable String etag, @Nullable String lastModified) {
+        if (!isDiskTierEnabled() || body.length == 0) {
+            evictIfNeeded();
+
+            return;
+        }
+
+        String contentHash = StringUtils.calculateSHA256(body);
+
+        try {
+            Path blobPath = getBlobPath(contentHash);
+            if (!Files.exists(blobPath)) {
+                writeAtomically(blobPath, body);
+
+                addDiskUsage(body.length);
+            } else {
+                touch(blobPath);
+            }
+
+            EntryData entry = new EntryData();
+            entry.setKey(key);
+            entry.setContentHash(contentHash);
+            entry.setEtag(etag);
+            entry.setLastModified(lastModified);
+            entry.setFetchedAt(System.currentTimeMillis());
+
+            writeEntry(key, entry);
+        } catch (IOException e) {
+            log.debug("Failed to cache {}: {}", key, e.toString());
+        }
+
+        evictIfNeeded();
+    }
+
+    /**
+     * Marks a cached body as valid again after the server answered 304 Not Modified.
+     */
+    public void markRevalidated(String key, CachedResource resource) {
+        EntryData entry = resource.getEntry();
+        entry.setFetchedAt(System.currentTimeMillis());
+
+        try {
+            writeEntry(key, entry);
+        } catch (IOException e) {
+            log.debug("Failed to update cache entry for {}: {}", key, e.toString());
+        }
+
+        evictIfNeeded();
+    }
+
+    /**
+     * Stores metadata that has no body of its own, such as the icon URL and title resolved for a site.
+     */
+    public void storeMetadata(String key, @Nullable String iconUrl, @Nullable String title) {
+        if (!isDiskTierEnabled()) {
+            evictIfNeeded();
+
+            return;
+        }
+
+        EntryData entry = new EntryData();
+        entry.setKey(key);
+        entry.setIconUrl(iconUrl);
+        entry.setTitle(title);
+        entry.setFetchedAt(System.currentTimeMillis());
+
+        try {
+            writeEntry(key, entry);
+        } catch (IOException e) {
+            log.debug("Failed to cache metadata for {}: {}", key, e.toString());
+        }
+
+        evictIfNeeded();
+    }
+
+    @Nullable
+    public BufferedImage getImage(String key) {
+        synchronized (memoryTier) {
+            return memoryTier.get(key);
+        }
+    }
+
+    public void putImage(String key, BufferedImage image) {
+        long size = estimateSize(image);
+        if (size > MEMORY_BUDGET_BYTES / 4) {
+            return;// Not worth evicting a quarter of the cache for
+        }
+
+        synchronized (memoryTier) {
+            BufferedImage previous = memoryTier.put(key, image);
+            if (previous != null) {
+                memoryUsage -= estimateSize(previous);
+            }
+
+            memoryUsage += size;
+
+            Iterator<BufferedImage> iterator = memoryTier.values().iterator();
+            while (memoryUsage > MEMORY_BUDGET_BYTES && iterator.hasNext()) {
+                memoryUsage -= estimateSize(iterator.next());
+                iterator.remove();
+            }
+        }
+    }
+
+    public void clearMemory() {
+        synchronized (memoryTier) {
+            memoryTier.clear();
+            memoryUsage = 0;
+        }
+    }
+
+    private void evictIfNeeded() {
+        long budget = Math.max(0, diskBudgetBytes.getAsLong());
+        long usage = diskUsage.get();
+        if (usage >= 0 && usage <= budget) {
+            return;
+        }
+
+        if (!evictionLock.tryLock()) {
+            return;// Someone else is already on it
+        }
+
+        try {
+            Map<String, FileInfo> blobs = new HashMap<>();
+            long total = 0;
+            for (Path blob : listFiles(blobDirectory, BLOB_SUFFIX)) {
+                FileInfo info = FileInfo.of(blob);
+                if (info != null) {
+                    String fileName = blob.getFileName().toString();
+                    blobs.put(fileName.substring(0, fileName.length() - BLOB_SUFFIX.length()), info);
+                    total += info.size();
+                }
+            }
+
+            List<EntryInfo> entries = new ArrayList<>();
+            Map<String, Integer> references = new HashMap<>();
+            for (Path entryPath : listFiles(entryDirectory, ENTRY_SUFFIX)) {
+                FileInfo info = FileInfo.of(entryPath);
+                if (info == null) {
+                    continue;
+                }
+
+                String contentHash;
+                try {
+                    contentHash = GDownloader.OBJECT_MAPPER.readValue(entryPath.toFile(), EntryData.class).getContentHash();
+                } catch (IOException e) {
+                    deleteQuietly(entryPath);
+                    continue;
+                }
+
+                entries.add(new EntryInfo(info, contentHash));
+                total += info.size();
+
+                if (contentHash != null) {
+                    references.merge(contentHash, 1, Integer::sum);
+                }
+            }
+
+            // Blobs left without an entry can never be looked up again.
+            long orphanedBefore = budget > 0 ? System.currentTimeMillis() - ORPHAN_GRACE.toMillis() : Long.MAX_VALUE;
+            for (Iterator<Map.Entry<String, FileInfo>> iterator = blobs.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry<String, FileInfo> blob = iterator.next();
+                if (!references.containsKey(blob.getKey()) && blob.getValue().lastAccess() < orphanedBefore) {
+                    deleteQuietly(blob.getValue().path());
+                    total -= blob.getValue().size();
+                    iterator.remove();
+                }
+            }
+
+            if (total > budget) {
+                // Trim a little extra, so that the next few stores do not immediately trigger another sweep.
+                long target = budget - budget / 10;
+
+                entries.sort((e1, e2) -> Long.compare(e1.file().lastAccess(), e2.file().lastAccess()));
+                for (EntryInfo entry : entries) {
+                    if (total <= target) {
+                        break;
+                    }
+
+                    deleteQuietly(entry.file().path());
+                    total -= entry.file().size();
+
+                    String contentHash = entry.contentHash();
+                    if (contentHash != null && references.merge(contentHash, -1, Integer::sum) <= 0) {
+                        FileInfo blob = blobs.remove(contentHash);
+                        if (blob != null) {
+                            deleteQuietly(blob.path());
+                            total -= blob.size();
+                        }
+                    }
+                }
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Thumbnail cache trimmed to {} bytes", total);
+                }
+            }
+
+            diskUsage.set(total);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void addDiskUsage(long delta) {
+        diskUsage.updateAndGet(usage -> usage >= 0 ? usage + delta : usage);
+    }
+
+    private void writeEntry(String key, EntryData entry) throws IOException {
+        Path entryPath = getEntryPath(key);
+        long previousSize = Files.exists(entryPath) ? Files.size(entryPath) : 0;
+
+        byte[] data = GDownloader.OBJECT_MAPPER.writeValueAsBytes(entry);
+        writeAtomically(entryPath, data);
+
+        addDiskUsage(data.length - previousSize);
+    }
+
+    private Path getEntryPath(String key) {
+        return entryDirectory.resolve(StringUtils.calculateSHA256(key) + ENTRY_SUFFIX);
+    }
+
+    private Path getBlobPath(String contentHash) {
+        return blobDirectory.resolve(contentHash + BLOB_SUFFIX);
+    }
+
+    private static void writeAtomically(Path path, byte[] data) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        Path tmpPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmpPath, data);
+
+            try {
+                Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            deleteQuietly(tmpPath);
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Failed to touch {}: {}", path, e.toString());
+        }
+    }
+
+    private static List<Path> listFiles(Path directory, String suffix) {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + suffix)) {
+            for (Path path : stream) {
+                files.add(path);
+            }
+        } catch (IOException e) {
+            log.debug("Failed to list {}: {}", directory, e.toString());
+        }
+
+        return files;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static long estimateSize(BufferedImage image) {
+        return (long)image.getWidth() * image.getHeight() * 4;
+    }
+
+    private record FileInfo(Path path, long size, long lastAccess) {
+
+        @Nullable
+        private static FileInfo of(Path path) {
+            try {
+                return new FileInfo(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                return null;// Deleted underneath us
+            }
+        }
+    }
+
+    private record EntryInfo(FileInfo file, @Nullable String contentHash) {
+
+    }
+
+    @Data
+    public static class CachedResource {
+
+        private final EntryData entry;
+
+        @Nullable
+        private final byte[] body;
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() - entry.getFetchedAt() < FRESHNESS.toMillis();
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class EntryData {
+
+        @JsonProperty("Key")
+        private String key;
+
+        @JsonProperty("ContentHash")
+        private String contentHash;
+
+        @JsonProperty("ETag")
+        private String etag;
+
+        @JsonProperty("LastModified")
+        private String lastModified;
+
+        @JsonProperty("FetchedAt")
+        private long fetchedAt;
+
+        @JsonProperty("IconUrl")
+        private String iconUrl;
+
+        @JsonProperty("Title")
+        private String title;
+    }
+}
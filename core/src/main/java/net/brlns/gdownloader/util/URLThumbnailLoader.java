@@ -16,6 +16,7 @@
  */
 package net.brlns.gdownloader.util;
 
+import jakarta.annotation.Nullable;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -38,6 +39,8 @@ import javax.imageio.spi.ImageReaderSpi;
 import javax.imageio.stream.ImageInputStream;
 import lombok.extern.slf4j.Slf4j;
 import net.brlns.gdownloader.GDownloader;
+import net.brlns.gdownloader.util.ThumbnailCache.CachedResource;
+import net.brlns.gdownloader.util.ThumbnailCache.EntryData;
 import net.brlns.gdownloader.util.collection.LRUCache;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -52,6 +55,8 @@ public final class URLThumbnailLoader {
 
     private static final LRUCache<String, Optional<FaviconResult>> FAVICON_CACHE = new LRUCache<>(512);
 
+    private static final String FAVICON_KEY_PREFIX = "favicon:";
+
     static {
         // Resorting to sheer ignorance here to make really sure these classes are loaded once and for all.
         for (String spi : new String[] {
@@ -80,6 +85,10 @@ public final class URLThumbnailLoader {
         // no-op
     }
 
+    public static ThumbnailCache getCache() {
+        return CacheHolder.INSTANCE;
+    }
+
     private static void forceRegisterReaderSpi(String className) {
         try {
             Class<?> spiClass = Class.forName(className);
@@ -107,35 +116,72 @@ public final class URLThumbnailLoader {
         }
     }
 
-    public static Optional<BufferedImage> tryLoadThumbnailCropped(String url) {
-        return tryLoadThumbnail(url, true);
-    }
-
     public static Optional<BufferedImage> tryLoadThumbnailFull(String url) {
         return tryLoadThumbnail(url, false);
     }
 
+    /**
+     * Loads a thumbnail cropped to 16:9 and downscaled to at most {@code maxWidth}, served from memory when possible.
+     */
+    public static Optional<BufferedImage> tryLoadThumbnailScaled(String url, int maxWidth) {
+        String key = "scaled:" + maxWidth + ":" + url;
+
+        BufferedImage cached = getCache().getImage(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        return tryLoadThumbnail(url, true).map(img -> {
+            BufferedImage scaled = ImageUtils.downscaleImage(img, maxWidth);
+            getCache().putImage(key, scaled);
+
+            return scaled;
+        });
+    }
+
+    /**
+     * Decodes a base64 thumbnail embedded in a database entity, reusing the last decoded copy for the same key.
+     */
+    @Nullable
+    public static BufferedImage decodeEmbeddedThumbnail(String key, @Nullable String base64Image) {
+        if (base64Image == null || base64Image.isEmpty()) {
+            return null;
+        }
+
+        String cacheKey = "embedded:" + key + ":" + base64Image.length() + ":" + base64Image.hashCode();
+
+        BufferedImage image = getCache().getImage(cacheKey);
+        if (image == null) {
+            image = ImageUtils.base64ToBufferedImage(base64Image);
+            if (image != null) {
+                getCache().putImage(cacheKey, image);
+            }
+        }
+
+        return image;
+    }
+
     private static Optional<BufferedImage> tryLoadThumbnail(String url, boolean cropToSixteenByNine) {
         if (log.isDebugEnabled()) {
             log.debug("Trying to load thumbnail {}", url);
         }
 
-        byte[] bytes = fetchBytes(url).orElse(null);
+        Optional<BufferedImage> image = loadImage(url, null);
 
-        if (bytes == null) {
+        if (image.isEmpty()) {
             String stripped = URLUtils.removeQueryParameters(url);
             if (!stripped.equals(url)) {
-                bytes = fetchBytes(stripped).orElse(null);
+                image = loadImage(stripped, null);
             }
         }
 
-        if (bytes == null || bytes.length == 0) {
-            log.debug("No usable bytes retrieved for thumbnail {}", url);
+        if (image.isEmpty()) {
+            log.debug("No usable image retrieved for thumbnail {}", url);
 
             return Optional.empty();
         }
 
-        return decodeImageBytes(bytes, url).map(img -> {
+        return image.map(img -> {
             if (log.isDebugEnabled()) {
                 log.debug("Thumbnail resolution: {}x{}", img.getWidth(), img.getHeight());
             }
@@ -207,12 +253,29 @@ public final class URLThumbnailLoader {
             return cached;
         }
 
-        Optional<FaviconResult> resolved = resolveFavicon(originalUrl, origin);
+        Optional<FaviconResult> resolved = loadPersistedFavicon(origin)
+            .or(() -> resolveFavicon(originalUrl, origin));
         FAVICON_CACHE.put(origin, resolved);
 
         return resolved;
     }
 
+    private static Optional<FaviconResult> loadPersistedFavicon(String origin) {
+        return getCache().lookup(FAVICON_KEY_PREFIX + origin)
+            .filter(CachedResource::isFresh)
+            .map(CachedResource::getEntry)
+            .flatMap(entry -> {
+                if (entry.getIconUrl() == null) {
+                    return Optional.ofNullable(entry.getTitle())
+                        .map(title -> new FaviconResult(null, title));
+                }
+
+                // Served from the disk cache unless the icon itself was evicted.
+                return loadImage(entry.getIconUrl(), origin)
+                    .map(img -> new FaviconResult(img, entry.getTitle()));
+            });
+    }
+
     private static Optional<FaviconResult> resolveFavicon(String originalUrl, String origin) {
         if (log.isDebugEnabled()) {
             log.debug("Resolving favicon for {}", origin);
@@ -221,18 +284,20 @@ public final class URLThumbnailLoader {
         HtmlProbeResult probe = probePageHtml(originalUrl);
 
         for (String candidate : probe.iconCandidates()) {
-            Optional<BufferedImage> img = fetchAndDecode(candidate, origin);
+            Optional<BufferedImage> img = loadImage(candidate, origin);
             if (img.isPresent()) {
                 log.debug("Loaded favicon from discovered <link> for {}: {}", origin, candidate);
+                getCache().storeMetadata(FAVICON_KEY_PREFIX + origin, candidate, probe.title());
 
                 return Optional.of(new FaviconResult(img.get(), probe.title()));
             }
         }
 
         for (String candidate : wellKnownFaviconCandidates(origin)) {
-            Optional<BufferedImage> img = fetchAndDecode(candidate, origin);
+            Optional<BufferedImage> img = loadImage(candidate, origin);
             if (img.isPresent()) {
                 log.debug("Loaded favicon from well-known path for {}: {}", origin, candidate);
+                getCache().storeMetadata(FAVICON_KEY_PREFIX + origin, candidate, probe.title());
 
                 return Optional.of(new FaviconResult(img.get(), probe.title()));
             }
@@ -240,6 +305,7 @@ public final class URLThumbnailLoader {
 
         if (probe.title() != null) {
             log.debug("No favicon found for {}, but recovered page title: {}", origin, probe.title());
+            getCache().storeMetadata(FAVICON_KEY_PREFIX + origin, null, probe.title());
 
             return Optional.of(new FaviconResult(null, probe.title()));
         }
@@ -304,8 +370,50 @@ public final class URLThumbnailLoader {
         );
     }
 
-    private static Optional<BufferedImage> fetchAndDecode(String url, String referer) {
-        return fetchBytes(url, referer).flatMap(bytes -> decodeImageBytes(bytes, url));
+    /**
+     * Fetches and decodes an image through the disk cache, revalidating stale copies with the server.
+     */
+    private static Optional<BufferedImage> loadImage(String url, @Nullable String referer) {
+        ThumbnailCache cache = getCache();
+
+        CachedResource cached = cache.lookup(url)
+            .filter(resource -> resource.getBody() != null)
+            .orElse(null);
+
+        if (cached != null && cached.isFresh()) {
+            Optional<BufferedImage> img = decodeImageBytes(cached.getBody(), url);
+            if (img.isPresent()) {
+                return img;
+            }
+
+            cached = null;// Undecodable, fetch it again
+        }
+
+        Optional<FetchResult> result = fetch(url, referer, cached != null ? cached.getEntry() : null);
+        if (result.isEmpty()) {
+            // Unreachable, a stale copy beats no image at all.
+            return cached != null ? decodeImageBytes(cached.getBody(), url) : Optional.empty();
+        }
+
+        FetchResult response = result.get();
+        if (response.statusCode() == 304 && cached != null) {
+            cache.markRevalidated(url, cached);
+
+            return decodeImageBytes(cached.getBody(), url);
+        }
+
+        if (response.statusCode() / 100 != 2 || response.body().length == 0) {
+            log.debug("Fetch got HTTP {} for {}", response.statusCode(), url);
+
+            return Optional.empty();
+        }
+
+        Optional<BufferedImage> img = decodeImageBytes(response.body(), url);
+        if (img.isPresent()) {
+            cache.store(url, response.body(), response.etag(), response.lastModified());
+        }
+
+        return img;
     }
 
     private static Optional<String> extractOrigin(String url) {
@@ -357,10 +465,20 @@ public final class URLThumbnailLoader {
     }
 
     private static Optional<byte[]> fetchBytes(String url) {
-        return fetchBytes(url, null);
+        return fetch(url, null, null)
+            .filter(response -> {
+                if (response.statusCode() / 100 != 2) {
+                    log.debug("Fetch got HTTP {} for {}", response.statusCode(), url);
+
+                    return false;
+                }
+
+                return true;
+            })
+            .map(FetchResult::body);
     }
 
-    private static Optional<byte[]> fetchBytes(String url, String referer) {
+    private static Optional<FetchResult> fetch(String url, @Nullable String referer, @Nullable EntryData validators) {
         try {
             HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(url))
@@ -376,22 +494,29 @@ public final class URLThumbnailLoader {
                 builder.header("Referer", referer);
             }
 
+            if (validators != null) {
+                if (validators.getEtag() != null) {
+                    builder.header("If-None-Match", validators.getEtag());
+                }
+
+                if (validators.getLastModified() != null) {
+                    builder.header("If-Modified-Since", validators.getLastModified());
+                }
+            }
+
             HttpClient client = GDownloader.getInstance().getHttpManager().getClient();
             HttpResponse<byte[]> response = client.send(
                 builder.build(), HttpResponse.BodyHandlers.ofByteArray());
 
-            if (response.statusCode() / 100 != 2) {
-                log.debug("Fetch got HTTP {} for {}", response.statusCode(), url);
-
-                return Optional.empty();
-            }
-
             byte[] body = response.body();
-            if ("gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(""))) {
+            if (response.statusCode() / 100 == 2
+                && "gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(""))) {
                 body = new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes();
             }
 
-            return Optional.of(body);
+            return Optional.of(new FetchResult(response.statusCode(), body,
+                response.headers().firstValue("ETag").orElse(null),
+                response.headers().firstValue("Last-Modified").orElse(null)));
         } catch (IOException e) {
             log.debug("Failed to fetch bytes for {}: {}", url, e.toString());
 
@@ -403,6 +528,10 @@ public final class URLThumbnailLoader {
         }
     }
 
+    private record FetchResult(int statusCode, byte[] body, @Nullable String etag, @Nullable String lastModified) {
+
+    }
+
     private static Optional<BufferedImage> decodeImageBytes(byte[] bytes, String url) {
         try (
             ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
@@ -442,4 +571,11 @@ public final class URLThumbnailLoader {
 
         return Optional.empty();
     }
+
+    private static final class CacheHolder {
+
+        private static final ThumbnailCache INSTANCE = new ThumbnailCache(
+            GDownloader.getWorkDirectory().toPath().resolve("cache").resolve("thumbnails"),
+            () -> GDownloader.getInstance().getConfig().getThumbnailCacheSizeMb() * 1024L * 1024L);
+    }
 }
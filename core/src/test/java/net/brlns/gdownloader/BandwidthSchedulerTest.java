@@ -0,0 +1,72 @@
+package net.brlns.gdownloader;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import net.brlns.gdownloader.downloader.BandwidthScheduler;
+import net.brlns.gdownloader.downloader.QueueEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BandwidthSchedulerTest {
+
+    private static QueueEntry createEntry(long downloadId) {
+        return new QueueEntry(null, null, null, null, null, null, downloadId, List.of());
+    }
+
+    @Test
+    void testParseRate() {
+        assertEquals(500, BandwidthScheduler.parseRate("500"));
+        assertEquals(50 * 1024, BandwidthScheduler.parseRate("50K"));
+        assertEquals(50 * 1024, BandwidthScheduler.parseRate("50k"));
+        assertEquals((long)(2.5 * 1024 * 1024), BandwidthScheduler.parseRate("2.5M"));
+        assertEquals(1024L * 1024 * 1024, BandwidthScheduler.parseRate("1GiB"));
+
+        // Ranges count by their upper end
+        assertEquals(2 * 1024 * 1024, BandwidthScheduler.parseRate("800k-2M"));
+
+        assertEquals(0, BandwidthScheduler.parseRate("fast"));
+        assertEquals(0, BandwidthScheduler.parseRate(""));
+    }
+
+    @Test
+    void testSubprocessRatesAreSetAsideFromThePool() {
+        AtomicLong globalLimit = new AtomicLong(1_000_000);
+        BandwidthScheduler scheduler = new BandwidthScheduler(globalLimit::get);
+
+        QueueEntry subprocess = createEntry(1);
+        BandwidthScheduler.Share first = scheduler.register(createEntry(2));
+        scheduler.register(subprocess);
+
+        assertEquals(500_000, scheduler.getRateLimitArgument(subprocess, 0));
+        assertEquals(500_000, first.getBytesPerSecond(0));
+
+        // The running process keeps its rate, only the in-process pool is split further
+        BandwidthScheduler.Share second = scheduler.register(createEntry(3));
+        assertEquals(250_000, first.getBytesPerSecond(0));
+        assertEquals(250_000, second.getBytesPerSecond(0));
+
+        scheduler.unregister(subprocess);
+        assertEquals(500_000, first.getBytesPerSecond(0));
+    }
+
+    @Test
+    void testStricterUserLimitWins() {
+        BandwidthScheduler scheduler = new BandwidthScheduler(() -> 1_000_000L);
+
+        QueueEntry subprocess = createEntry(1);
+        BandwidthScheduler.Share inProcess = scheduler.register(createEntry(2));
+        scheduler.register(subprocess);
+
+        assertEquals(100_000, scheduler.getRateLimitArgument(subprocess, 100_000));
+        assertEquals(900_000, inProcess.getBytesPerSecond(0));
+
+        // A looser user limit is tightened to the share
+        assertEquals(500_000, scheduler.getRateLimitArgument(subprocess, 2_000_000));
+
+        // Without a global limit, only the user's applies
+        BandwidthScheduler unlimited = new BandwidthScheduler(() -> 0L);
+        assertEquals(100_000, unlimited.getRateLimitArgument(subprocess, 100_000));
+        assertEquals(0, unlimited.getRateLimitArgument(subprocess, 0));
+    }
+}
@@ -0,0 +1,128 @@
+package net.brlns.gdownloader;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.brlns.gdownloader.util.CancelHook;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancelHookTest {
+
+    @Test
+    void testListenerFiresOnce() {
+        CancelHook hook = new CancelHook();
+        AtomicInteger calls = new AtomicInteger();
+
+        hook.onCancel(calls::incrementAndGet);
+
+        hook.set(true);
+        hook.set(true);
+        hook.set(false);
+        hook.set(true);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testListenerFiresImmediatelyWhenAlreadyCancelled() {
+        CancelHook hook = new CancelHook().set(true);
+        AtomicInteger calls = new AtomicInteger();
+
+        hook.onCancel(calls::incrementAndGet);
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testClosedRegistrationDoesNotFire() {
+        CancelHook parent = new CancelHook();
+        CancelHook derived = parent.derive(new CancelHook());
+        AtomicInteger calls = new AtomicInteger();
+
+        derived.onCancel(calls::incrementAndGet).close();
+        parent.set(true);
+
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testDerivedHookFollowsEitherParent() {
+        CancelHook entry = new CancelHook();
+        CancelHook stopped = new CancelHook();
+
+        CancelHook derived = entry.derive(stopped);
+        AtomicInteger calls = new AtomicInteger();
+        derived.onCancel(calls::incrementAndGet);
+
+        assertFalse(derived.get());
+        assertTrue(derived.isEventDriven());
+
+        stopped.set(true);
+
+        assertTrue(derived.get());
+        assertEquals(1, calls.get());
+
+        stopped.set(false);
+        assertFalse(derived.get());
+
+        // Cancelling the derived hook never reaches its parents
+        derived.set(true);
+        assertFalse(entry.get());
+        assertFalse(stopped.get());
+    }
+
+    @Test
+    void testAwaitWakesOnCancel() throws Exception {
+        CancelHook parent = new CancelHook();
+        CancelHook derived = parent.derive(new CancelHook());
+
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            parent.set(true);
+        });
+
+        long start = System.nanoTime();
+        canceller.start();
+
+        assertTrue(derived.await(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        canceller.join();
+    }
+
+    @Test
+    void testAwaitTimesOut() throws Exception {
+        assertFalse(new CancelHook().await(20, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testAwaitNoticesPolledConditions() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CancelHook derived = new CancelHook().derive(running::get, true);
+
+        assertFalse(derived.isEventDriven());
+
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            running.set(false);
+        });
+
+        stopper.start();
+
+        assertTrue(derived.await(10, TimeUnit.SECONDS));
+
+        stopper.join();
+    }
+}
@@ -0,0 +1,75 @@
+package net.brlns.gdownloader;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.brlns.gdownloader.downloader.http.ChunkManifest;
+import net.brlns.gdownloader.downloader.http.ChunkScheduler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkSchedulerTest {
+
+    private static final long MIB = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private static void transfer(ChunkScheduler.Lease lease, long bytes) {
+        assertEquals(bytes, lease.getRange().reserve(bytes));
+        lease.record(bytes);
+    }
+
+    @Test
+    void testFreshLeaseIsNotMistakenForTheStraggler() {
+        AtomicLong clock = new AtomicLong();
+
+        ChunkManifest manifest = ChunkManifest.create(tempDir.resolve("file.bin").toFile(), 128 * MIB, null,
+            List.of(new long[]{0, 64 * MIB - 1}, new long[]{64 * MIB, 128 * MIB - 1}));
+
+        ChunkScheduler scheduler = new ChunkScheduler(manifest, MIB, clock::get);
+
+        ChunkScheduler.Lease slow = scheduler.next();
+        ChunkScheduler.Lease fast = scheduler.next();
+        assertNotNull(slow);
+        assertNotNull(fast);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        transfer(slow, MIB);
+        transfer(fast, 62 * MIB);
+
+        ChunkScheduler.Lease first = scheduler.next();
+        assertNotNull(first);
+        assertTrue(first.getRange().getStart() > slow.getRange().getStart());
+        assertEquals(64 * MIB - 1, first.getRange().getEnd());
+
+        // The split-off lease has no rate yet, the slow one is still the straggler
+        long slowEnd = slow.getRange().getEnd();
+        ChunkScheduler.Lease second = scheduler.next();
+        assertNotNull(second);
+        assertTrue(second.getRange().getStart() <= slowEnd);
+        assertEquals(slowEnd, second.getRange().getEnd());
+        assertEquals(64 * MIB - 1, first.getRange().getEnd());
+    }
+
+    @Test
+    void testWarmingUpLeasesAreSplitWhenNothingElseIs() {
+        AtomicLong clock = new AtomicLong();
+
+        ChunkManifest manifest = ChunkManifest.create(tempDir.resolve("file.bin").toFile(), 16 * MIB, null,
+            List.<long[]>of(new long[]{0, 16 * MIB - 1}));
+
+        ChunkScheduler scheduler = new ChunkScheduler(manifest, MIB, clock::get);
+
+        ChunkScheduler.Lease only = scheduler.next();
+        assertNotNull(only);
+
+        ChunkScheduler.Lease tail = scheduler.next();
+        assertNotNull(tail);
+        assertEquals(8 * MIB, tail.getRange().getStart());
+        assertEquals(8 * MIB - 1, only.getRange().getEnd());
+    }
+}
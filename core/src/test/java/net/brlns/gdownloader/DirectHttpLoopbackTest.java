@@ -0,0 +1,387 @@
+package net.brlns.gdownloader;
+
+import jakarta.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.net.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.brlns.gdownloader.downloader.hosts.HostResolverContext;
+import net.brlns.gdownloader.downloader.hosts.HostResolverException;
+import net.brlns.gdownloader.downloader.hosts.ResolvedFile;
+import net.brlns.gdownloader.downloader.hosts.impl.AbstractHostResolver;
+import net.brlns.gdownloader.downloader.http.ChunkManifest;
+import net.brlns.gdownloader.downloader.http.ChunkScheduler;
+import net.brlns.gdownloader.downloader.http.ChunkTransfer;
+import net.brlns.gdownloader.downloader.http.ChunkedFileSink;
+import net.brlns.gdownloader.downloader.http.HttpClientTransport;
+import net.brlns.gdownloader.downloader.http.IDownloadTransport;
+import net.brlns.gdownloader.downloader.http.ITransportResponse;
+import net.brlns.gdownloader.downloader.http.TransportRequest;
+import net.brlns.gdownloader.downloader.http.UrlConnectionTransport;
+import net.brlns.gdownloader.testing.LocalHttpTestServer;
+import net.brlns.gdownloader.util.CancelHook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Real chunked downloads against {@link LocalHttpTestServer}.
+ *
+ * Files are fetched by the direct HTTP downloader's own {@link ChunkTransfer} workers, so retries,
+ * Retry-After handling and range resumption are the production code paths. Timing checks are tagged
+ * {@code performance} and only run through the {@code performanceTest} task.
+ */
+class DirectHttpLoopbackTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectHttpLoopbackTest.class);
+
+    private static final long MIN_SPLIT_BYTES = 2L * 1024 * 1024;// 2MB
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_MILLIS = 10;
+
+    @TempDir
+    Path directory;
+
+    private LocalHttpTestServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new LocalHttpTestServer();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    private IDownloadTransport httpClientTransport() {
+        return new HttpClientTransport(() -> client, Duration.ofSeconds(10));
+    }
+
+    private static IDownloadTransport urlConnectionTransport() {
+        return new UrlConnectionTransport(() -> Proxy.NO_PROXY, Duration.ofSeconds(5), Duration.ofSeconds(10));
+    }
+
+    private static byte[] randomPayload(int size) {
+        byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+
+        return payload;
+    }
+
+    @Test
+    @Tag("performance")
+    void testChunkedDownloadThroughput() throws Exception {
+        byte[] payload = randomPayload(32 * 1024 * 1024);
+        server.serve("/large.bin", payload);
+
+        for (IDownloadTransport transport : List.of(httpClientTransport(), urlConnectionTransport())) {
+            for (int chunks : new int[]{1, 4}) {
+                File target = directory.resolve("large-" + chunks + ".bin").toFile();
+
+                long start = System.nanoTime();
+                download(transport, server.getUrl("/large.bin"), target, payload.length, chunks);
+                long elapsedNanos = System.nanoTime() - start;
+
+                assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+
+                log.info("{} with {} chunk(s): {} MB/s", transport.getClass().getSimpleName(), chunks,
+                    String.format("%.1f", payload.length / 1e6 / (elapsedNanos / 1e9)));
+            }
+        }
+
+        assertTrue(server.getMaxConcurrentRequests() >= 2);
+    }
+
+    @Test
+    @Tag("performance")
+    void testTimeToFirstByte() throws Exception {
+        server.serve("/small.bin", randomPayload(64 * 1024));
+        IDownloadTransport transport = httpClientTransport();
+
+        long[] latencies = new long[50];
+        for (int i = 0; i < latencies.length; i++) {
+            TransportRequest request = TransportRequest.builder()
+                .url(server.getUrl("/small.bin"))
+                .rangeStart(i * 1024L)
+                .rangeEnd(i * 1024L + 1023)
+                .build();
+
+            long start = System.nanoTime();
+            try (ITransportResponse response = transport.send(request, new CancelHook())) {
+                assertEquals(206, response.getStatusCode());
+                assertTrue(response.read(ByteBuffer.allocate(1024)) > 0);
+            }
+
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(latencies);
+
+        long medianMillis = TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length / 2]);
+        log.info("Ranged request latency p50: {}ms, max: {}ms", medianMillis,
+            TimeUnit.NANOSECONDS.toMillis(latencies[latencies.length - 1]));
+
+        // Loopback, anything near this means something is waiting on a timeout
+        assertTrue(medianMillis < 1000);
+    }
+
+    @Test
+    @Tag("performance")
+    void testChunksBeatPerConnectionThrottling() throws Exception {
+        byte[] payload = randomPayload(512 * 1024);
+        server.serve("/throttled.bin", payload).throttle(256 * 1024);
+
+        IDownloadTransport transport = httpClientTransport();
+
+        long single = timeDownload(transport, "/throttled.bin", payload, 1);
+        long chunked = timeDownload(transport, "/throttled.bin", payload, 4);
+
+        log.info("Throttled download: {}ms with 1 chunk, {}ms with 4 chunks",
+            TimeUnit.NANOSECONDS.toMillis(single), TimeUnit.NANOSECONDS.toMillis(chunked));
+
+        // Two seconds at 256KB/s on one connection, roughly half a second on four
+        assertTrue(single >= TimeUnit.MILLISECONDS.toNanos(1500));
+        assertTrue(chunked < single * 3 / 4);
+    }
+
+    @Test
+    void testRetryAfterIsHonored() throws Exception {
+        byte[] payload = randomPayload(256 * 1024);
+        LocalHttpTestServer.ServedFile file = server.serve("/limited.bin", payload).rateLimit(1, 1);
+
+        List<String> statuses = new CopyOnWriteArrayList<>();
+        File target = directory.resolve("limited.bin").toFile();
+
+        long start = System.nanoTime();
+        download(httpClientTransport(), server.getUrl("/limited.bin"), target, payload.length, 1,
+            (key, args) -> statuses.add(key));
+
+        log.info("Rate limited download took {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+        assertEquals(2, file.getRequestCount());
+        assertTrue(statuses.contains("gui.direct_http.download_status.retrying_in"));
+    }
+
+    @Test
+    void testRetryAfterParsing() {
+        assertEquals(1000, ChunkTransfer.parseRetryAfterMillis("1"));
+        assertEquals(120_000, ChunkTransfer.parseRetryAfterMillis(" 120 "));
+        assertEquals(300_000, ChunkTransfer.parseRetryAfterMillis("86400"));
+        assertEquals(0, ChunkTransfer.parseRetryAfterMillis("-5"));
+
+        String inOneMinute = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(1));
+        long dateMillis = ChunkTransfer.parseRetryAfterMillis(inOneMinute);
+        assertTrue(dateMillis > 0 && dateMillis <= 60_000);
+
+        assertEquals(-1, ChunkTransfer.parseRetryAfterMillis(null));
+        assertEquals(-1, ChunkTransfer.parseRetryAfterMillis(" "));
+        assertEquals(-1, ChunkTransfer.parseRetryAfterMillis("soon"));
+    }
+
+    @Test
+    void testResumesAfterMidStreamDisconnects() throws Exception {
+        byte[] payload = randomPayload(4 * 1024 * 1024);
+
+        for (IDownloadTransport transport : List.of(httpClientTransport(), urlConnectionTransport())) {
+            LocalHttpTestServer.ServedFile file = server.serve("/flaky.bin", payload)
+                .disconnect(3, 300 * 1024);
+
+            File target = directory.resolve("flaky.bin").toFile();
+            download(transport, server.getUrl("/flaky.bin"), target, payload.length, 2);
+
+            assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+            // Every reset range picks up where it stopped instead of starting over
+            assertEquals(5, file.getRequestCount());
+
+            Files.delete(target.toPath());
+        }
+    }
+
+    @Test
+    void testRangesRefused() throws Exception {
+        byte[] payload = randomPayload(128 * 1024);
+        server.serve("/norange.bin", payload).acceptRanges(false);
+
+        TransportRequest request = TransportRequest.builder()
+            .url(server.getUrl("/norange.bin"))
+            .rangeStart(1024)
+            .rangeEnd(2047)
+            .build();
+
+        try (ITransportResponse response = httpClientTransport().send(request, new CancelHook())) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("none", response.getHeader("Accept-Ranges"));
+        }
+
+        // A single connection starting at zero still gets the whole file
+        File target = directory.resolve("norange.bin").toFile();
+        download(httpClientTransport(), server.getUrl("/norange.bin"), target, payload.length, 1);
+
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    void testSingleUseLink() throws Exception {
+        byte[] payload = randomPayload(64 * 1024);
+        server.serve("/once.bin", payload).singleUse();
+
+        File target = directory.resolve("once.bin").toFile();
+        download(httpClientTransport(), server.getUrl("/once.bin"), target, payload.length, 1);
+
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+
+        TransportRequest request = TransportRequest.builder()
+            .url(server.getUrl("/once.bin"))
+            .build();
+
+        try (ITransportResponse response = httpClientTransport().send(request, new CancelHook())) {
+            assertEquals(410, response.getStatusCode());
+        }
+    }
+
+    @Test
+    void testResolverRateLimitIsRecoverable() throws Exception {
+        server.serve("/api/file", "{\"link\": \"/once.bin\"}".getBytes()).rateLimit(1, 1);
+
+        PageResolver resolver = new PageResolver();
+        HostResolverContext context = HostResolverContext.builder()
+            .httpClient(client)
+            .requestTimeout(Duration.ofSeconds(5))
+            .build();
+
+        String url = server.getUrl("/api/file").toString();
+
+        HostResolverException exception = assertThrows(HostResolverException.class,
+            () -> resolver.resolve(url, context));
+        assertTrue(exception.isRecoverable());
+
+        assertEquals(1, resolver.resolve(url, context).size());
+    }
+
+    private long timeDownload(IDownloadTransport transport, String path, byte[] payload, int chunks) throws Exception {
+        File target = directory.resolve("timed-" + chunks + ".bin").toFile();
+
+        long start = System.nanoTime();
+        download(transport, server.getUrl(path), target, payload.length, chunks);
+        long elapsed = System.nanoTime() - start;
+
+        assertArrayEquals(payload, Files.readAllBytes(target.toPath()));
+        Files.delete(target.toPath());
+
+        return elapsed;
+    }
+
+    private static void download(IDownloadTransport transport, URL url, File target,
+        long totalBytes, int chunks) throws Exception {
+        download(transport, url, target, totalBytes, chunks, null);
+    }
+
+    private static void download(IDownloadTransport transport, URL url, File target, long totalBytes,
+        int chunks, @Nullable ChunkTransfer.StatusListener statusListener) throws Exception {
+        ChunkTransfer chunkTransfer = ChunkTransfer.builder()
+            .transport(() -> transport)
+            .headerFactory((fileUrl, referer) -> new HashMap<>())
+            .maxAttempts(() -> MAX_ATTEMPTS)
+            .maxConnectionsPerHost(() -> chunks)
+            .baseBackoffMillis(BASE_BACKOFF_MILLIS)
+            .build();
+
+        ChunkManifest manifest = ChunkManifest.create(target, totalBytes, null,
+            ChunkTransfer.planRanges(totalBytes, chunks));
+        ChunkScheduler scheduler = new ChunkScheduler(manifest, MIN_SPLIT_BYTES);
+
+        CancelHook abortHook = new CancelHook();
+        AtomicLong downloadedBytes = new AtomicLong();
+        AtomicInteger activeChunkCount = new AtomicInteger();
+
+        try (ChunkedFileSink sink = ChunkedFileSink.open(target, totalBytes, false);
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = chunkTransfer.submitWorkers(workers, scheduler, chunks,
+                abortHook, activeChunkCount, (chunkId, lease) -> ChunkTransfer.Request.builder()
+                .chunkId(chunkId)
+                .abortHook(abortHook)
+                .chunked(true)
+                .soleChunk(chunks == 1)
+                .statusListener(statusListener)
+                .fileUrl(url)
+                .sink(sink)
+                .startByte(lease.getRange().getStart())
+                .endByte(lease.getRange().getEnd())
+                .totalBytes(totalBytes)
+                .downloadedBytes(downloadedBytes)
+                .activeChunkCount(activeChunkCount)
+                .manifest(manifest)
+                .lease(lease)
+                .build());
+
+            ChunkTransfer.awaitWorkers(futures, abortHook);
+        }
+
+        assertTrue(manifest.isComplete());
+        assertEquals(totalBytes, downloadedBytes.get());
+        manifest.delete();
+    }
+
+    private static final class PageResolver extends AbstractHostResolver {
+
+        @Override
+        public String getId() {
+            return "loopback";
+        }
+
+        @Override
+        public boolean isEnabled(HostResolverContext context) {
+            return true;
+        }
+
+        @Override
+        public boolean canHandle(String url) {
+            return true;
+        }
+
+        @Override
+        public List<ResolvedFile> resolve(String url, HostResolverContext context) throws HostResolverException {
+            HttpResponse<String> response = get(context, URI.create(url), context.getRequestTimeout(), Map.of());
+            requireSuccess(response, "File lookup");
+
+            String link = text(parseJson(response).get("link"));
+
+            return List.of(ResolvedFile.builder()
+                .url(URI.create(url).resolve(link).toString())
+                .build());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package net.brlns.gdownloader;
+
+import net.brlns.gdownloader.downloader.structs.DownloadProgress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadProgressTest {
+
+    private static DownloadProgress parse(String json) {
+        DownloadProgress progress = DownloadProgress.parse(DownloadProgress.MARKER + json);
+        assertNotNull(progress);
+
+        return progress;
+    }
+
+    @Test
+    void testParseCompleteRecord() {
+        DownloadProgress progress = parse("{\"status\": \"downloading\", \"downloaded_bytes\": 2500,"
+            + " \"total_bytes\": 10000, \"speed\": 1234.5, \"eta\": 6,"
+            + " \"_default_template\": \" 25.0% of 9.77KiB at 1.21KiB/s ETA 00:06\", \"info_dict\": {}}");
+
+        assertFalse(progress.isFinished());
+        assertEquals(10000, progress.getExpectedTotalBytes());
+        assertEquals(25, progress.getPercentage(), 0.001);
+        assertEquals(1234, progress.getBytesPerSecond());
+        assertEquals(" 25.0% of 9.77KiB at 1.21KiB/s ETA 00:06", progress.getDefaultTemplate());
+    }
+
+    @Test
+    void testParseMissingAndNullFields() {
+        DownloadProgress missing = parse("{\"status\": \"downloading\", \"downloaded_bytes\": 2500}");
+        assertEquals(-1, missing.getExpectedTotalBytes());
+        assertEquals(-1, missing.getPercentage());
+        assertEquals(0, missing.getBytesPerSecond());
+
+        DownloadProgress nulls = parse("{\"status\": \"downloading\", \"downloaded_bytes\": 2500,"
+            + " \"total_bytes\": null, \"total_bytes_estimate\": 5000.0, \"speed\": null, \"eta\": null}");
+        assertEquals(5000, nulls.getExpectedTotalBytes());
+        assertEquals(50, nulls.getPercentage(), 0.001);
+        assertEquals(0, nulls.getBytesPerSecond());
+    }
+
+    @Test
+    void testParseNotAvailableFields() {
+        DownloadProgress progress = parse("{\"status\": \"downloading\", \"downloaded_bytes\": 2500,"
+            + " \"total_bytes\": \"NA\", \"speed\": \"NA\", \"eta\": \"NA\", \"fragment_index\": \"NA\"}");
+
+        assertEquals(2500, progress.getDownloadedBytes());
+        assertNull(progress.getTotalBytes());
+        assertNull(progress.getSpeed());
+        assertNull(progress.getFragmentIndex());
+        assertEquals(-1, progress.getPercentage());
+    }
+
+    @Test
+    void testParseFragmentDownload() {
+        // HLS and DASH downloads often know neither size until the last fragment
+        DownloadProgress progress = parse("{\"status\": \"downloading\", \"downloaded_bytes\": 81920,"
+            + " \"fragment_index\": 3, \"fragment_count\": 12, \"speed\": 40960.0}");
+
+        assertEquals(-1, progress.getExpectedTotalBytes());
+        assertEquals(25, progress.getPercentage(), 0.001);
+        assertEquals(40960, progress.getBytesPerSecond());
+
+        // The size estimate is preferred once yt-dlp has one
+        DownloadProgress estimated = parse("{\"status\": \"downloading\", \"downloaded_bytes\": 81920,"
+            + " \"total_bytes_estimate\": 163840.0, \"fragment_index\": 3, \"fragment_count\": 12}");
+        assertEquals(50, estimated.getPercentage(), 0.001);
+
+        DownloadProgress finished = parse("{\"status\": \"finished\", \"downloaded_bytes\": 327680,"
+            + " \"fragment_index\": 12, \"fragment_count\": 12}");
+        assertTrue(finished.isFinished());
+        assertEquals(100, finished.getPercentage());
+    }
+
+    @Test
+    void testParseRejectsOtherLines() {
+        assertNull(DownloadProgress.parse(null));
+        assertNull(DownloadProgress.parse("[download]  25.0% of 9.77KiB at 1.21KiB/s ETA 00:06"));
+        assertNull(DownloadProgress.parse(DownloadProgress.MARKER + "{not json"));
+    }
+}
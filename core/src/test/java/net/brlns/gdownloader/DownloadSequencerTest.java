@@ -0,0 +1,119 @@
+package net.brlns.gdownloader;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.brlns.gdownloader.downloader.DownloadSequencer;
+import net.brlns.gdownloader.downloader.QueueEntry;
+import org.junit.jupiter.api.Test;
+
+import static net.brlns.gdownloader.downloader.enums.QueueCategoryEnum.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadSequencerTest {
+
+    private static List<QueueEntry> addEntries(DownloadSequencer sequencer, int count) {
+        List<QueueEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QueueEntry entry = new QueueEntry(null, null, null, null, null, null, i, List.of());
+            entries.add(sequencer.addNewEntry(entry));
+        }
+
+        return entries;
+    }
+
+    private static List<Long> order(List<QueueEntry> entries) {
+        return entries.stream()
+            .map(QueueEntry::getDownloadId)
+            .toList();
+    }
+
+    @Test
+    void testReorderUpAndDown() {
+        DownloadSequencer sequencer = new DownloadSequencer();
+        List<QueueEntry> entries = addEntries(sequencer, 5);
+
+        // Moving up lands before the target
+        assertTrue(sequencer.reorderEntries(entries.get(3), entries.get(1)));
+        assertEquals(List.of(0L, 3L, 1L, 2L, 4L), order(sequencer.getSnapshot()));
+
+        // Moving down lands after the target
+        assertTrue(sequencer.reorderEntries(entries.get(0), entries.get(2)));
+        assertEquals(List.of(3L, 1L, 2L, 0L, 4L), order(sequencer.getSnapshot()));
+
+        assertTrue(sequencer.reorderEntries(entries.get(3), entries.get(4)));
+        assertEquals(List.of(1L, 2L, 0L, 4L, 3L), order(sequencer.getSnapshot()));
+    }
+
+    @Test
+    void testReorderSurvivesExhaustedGaps() {
+        DownloadSequencer sequencer = new DownloadSequencer();
+        List<QueueEntry> entries = addEntries(sequencer, 3);
+
+        // Every swap halves the gap after entry 0, eventually forcing a renumbering
+        for (int i = 0; i < 100; i++) {
+            QueueEntry toMove = sequencer.getSnapshot().get(2);
+            QueueEntry target = sequencer.getSnapshot().get(1);
+
+            assertTrue(sequencer.reorderEntries(toMove, target));
+            assertEquals(List.of(0L, toMove.getDownloadId(), target.getDownloadId()),
+                order(sequencer.getSnapshot()));
+        }
+
+        assertEquals(3, sequencer.getSnapshot().size());
+    }
+
+    @Test
+    void testPersistedSequencesAreKept() {
+        DownloadSequencer sequencer = new DownloadSequencer();
+
+        QueueEntry first = new QueueEntry(null, null, null, null, null, null, 1, List.of());
+        first.setCurrentSequence(Long.MIN_VALUE + 1);
+
+        QueueEntry second = new QueueEntry(null, null, null, null, null, null, 2, List.of());
+        second.setCurrentSequence(Long.MIN_VALUE);
+
+        sequencer.addNewEntry(first);
+        sequencer.addNewEntry(second);
+
+        assertEquals(List.of(2L, 1L), order(sequencer.getSnapshot()));
+
+        // No room between consecutive legacy sequences
+        assertTrue(sequencer.reorderEntries(first, second));
+        assertEquals(List.of(1L, 2L), order(sequencer.getSnapshot()));
+    }
+
+    @Test
+    void testCategoriesAndSnapshots() {
+        DownloadSequencer sequencer = new DownloadSequencer();
+        List<QueueEntry> entries = addEntries(sequencer, 4);
+
+        List<QueueEntry> queued = sequencer.getEntries(QUEUED);
+        assertEquals(List.of(0L, 1L, 2L, 3L), order(queued));
+        assertSame(queued, sequencer.getEntries(QUEUED));
+        assertThrows(UnsupportedOperationException.class, () -> queued.remove(0));
+
+        entries.get(0).getDownloadSkipped().set(true);
+
+        assertEquals(1L, sequencer.fetchNext().getDownloadId());
+        assertEquals(2L, sequencer.fetchNext().getDownloadId());
+
+        assertEquals(2, sequencer.getCount(QUEUED));
+        assertEquals(2, sequencer.getCount(RUNNING));
+        assertEquals(List.of(0L, 3L), order(sequencer.getEntries(QUEUED)));
+        assertEquals(List.of(1L, 2L), order(sequencer.getEntries(RUNNING)));
+
+        // Published snapshots are never modified afterwards
+        assertEquals(4, queued.size());
+
+        assertTrue(sequencer.changeCategory(entries.get(1), FAILED));
+        sequencer.requeueFailed(entry -> {
+        });
+
+        assertEquals(List.of(0L, 1L, 3L), order(sequencer.getEntries(QUEUED)));
+        assertTrue(sequencer.isEmpty(FAILED));
+
+        assertTrue(sequencer.removeEntry(entries.get(3)));
+        assertFalse(sequencer.contains(entries.get(3)));
+        assertEquals(List.of(0L, 1L, 2L), order(sequencer.getSnapshot()));
+    }
+}
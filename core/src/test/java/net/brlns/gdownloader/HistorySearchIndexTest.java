@@ -0,0 +1,75 @@
+package net.brlns.gdownloader;
+
+import java.util.List;
+import net.brlns.gdownloader.persistence.HistorySearchIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistorySearchIndexTest {
+
+    private static HistorySearchIndex createIndex() {
+        HistorySearchIndex index = new HistorySearchIndex();
+        index.put("https://www.youtube.com/watch?v=abc", "Never Gonna Give You Up", "YouTube", 300);
+        index.put("https://vimeo.com/12345", "Mountain timelapse", "Vimeo", 200);
+        index.put("https://www.youtube.com/watch?v=xyz", "Timelapse of the night sky", "YouTube", 100);
+        index.put("https://example.com/\u4e2d\u6587\u89c6\u9891", "\u4e2d\u6587\u89c6\u9891", "Example", 400);
+
+        return index;
+    }
+
+    @Test
+    void testTokenize() {
+        assertEquals(List.of("https", "www", "youtube", "com", "watch", "v", "abc"),
+            HistorySearchIndex.tokenize("https://www.YouTube.com/watch?v=abc"));
+        assertEquals(List.of("a", "\u4e2d", "\u6587", "b"), HistorySearchIndex.tokenize("a\u4e2d\u6587b"));
+        assertTrue(HistorySearchIndex.tokenize(" ?! ").isEmpty());
+    }
+
+    @Test
+    void testPrefixAndMultiTermSearch() {
+        HistorySearchIndex index = createIndex();
+
+        // Newest first
+        assertEquals(List.of("https://vimeo.com/12345", "https://www.youtube.com/watch?v=xyz"),
+            index.search("time"));
+
+        assertEquals(List.of("https://www.youtube.com/watch?v=xyz"), index.search("youtube timelapse"));
+        assertEquals(List.of("https://www.youtube.com/watch?v=abc"), index.search("gonna you"));
+        assertEquals(List.of("https://example.com/\u4e2d\u6587\u89c6\u9891"), index.search("\u89c6\u9891"));
+
+        assertTrue(index.search("lapse").isEmpty());
+        assertTrue(index.search("youtube mountain").isEmpty());
+    }
+
+    @Test
+    void testNarrowingAndWidening() {
+        HistorySearchIndex index = createIndex();
+
+        assertEquals(2, index.search("y").size());
+        assertEquals(2, index.search("you").size());
+        assertEquals(2, index.search("you n").size());
+        assertEquals(List.of("https://www.youtube.com/watch?v=xyz"), index.search("you ni"));
+        assertEquals(2, index.search("you").size());
+        assertEquals(1, index.search("vim").size());
+    }
+
+    @Test
+    void testUpdatesInvalidateResults() {
+        HistorySearchIndex index = createIndex();
+
+        assertEquals(2, index.search("timelapse").size());
+
+        index.remove("https://vimeo.com/12345");
+        assertEquals(List.of("https://www.youtube.com/watch?v=xyz"), index.search("timelapse"));
+
+        // Re-adding a url replaces its previous words
+        index.put("https://www.youtube.com/watch?v=xyz", "Aurora", "YouTube", 500);
+        assertTrue(index.search("timelapse").isEmpty());
+        assertEquals(List.of("https://www.youtube.com/watch?v=xyz"), index.search("aurora"));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertTrue(index.search("youtube").isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package net.brlns.gdownloader;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import javax.swing.JPanel;
+import net.brlns.gdownloader.ui.mediacard.MediaCardGridLayout;
+import net.brlns.gdownloader.ui.mediacard.MediaCardGridLayout.CellRange;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaCardGridLayoutTest {
+
+    private static JPanel createPanel(MediaCardGridLayout layout, int width) {
+        JPanel panel = new JPanel(layout);
+        panel.setSize(width, 600);
+
+        return panel;
+    }
+
+    @Test
+    void testPreferredSizeIsArithmetic() {
+        MediaCardGridLayout layout = new MediaCardGridLayout();
+        layout.setRowHeight(100);
+        layout.setItemCount(10_000);
+
+        // 1016px fits two 500px columns with an 8px gap
+        JPanel panel = createPanel(layout, 1016);
+
+        assertEquals(2, layout.getColumnCount(panel));
+        assertEquals(new Dimension(1016, 5000 * 100), layout.preferredLayoutSize(panel));
+    }
+
+    @Test
+    void testCellBounds() {
+        MediaCardGridLayout layout = new MediaCardGridLayout();
+        layout.setRowHeight(100);
+        layout.setItemCount(5);
+
+        JPanel panel = createPanel(layout, 1016);
+
+        assertEquals(new Rectangle(0, 0, 504, 100), layout.getCellBounds(panel, 0));
+        assertEquals(new Rectangle(512, 0, 504, 100), layout.getCellBounds(panel, 1));
+        assertEquals(new Rectangle(0, 200, 504, 100), layout.getCellBounds(panel, 4));
+    }
+
+    @Test
+    void testCellRange() {
+        MediaCardGridLayout layout = new MediaCardGridLayout();
+        layout.setRowHeight(100);
+        layout.setItemCount(25);
+
+        JPanel panel = createPanel(layout, 1016);
+
+        assertEquals(new CellRange(4, 10), layout.getCellRange(panel, 250, 450));
+        assertEquals(new CellRange(0, 2), layout.getCellRange(panel, -300, 50));
+        assertEquals(new CellRange(24, 25), layout.getCellRange(panel, 1200, 5000));
+        assertEquals(new CellRange(25, 25), layout.getCellRange(panel, 5000, 6000));
+
+        layout.setItemCount(0);
+        assertEquals(new CellRange(0, 0), layout.getCellRange(panel, 0, 600));
+    }
+}
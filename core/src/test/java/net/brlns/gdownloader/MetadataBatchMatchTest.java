@@ -0,0 +1,73 @@
+package net.brlns.gdownloader;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import net.brlns.gdownloader.downloader.QueueEntry;
+import net.brlns.gdownloader.downloader.YtDlpDownloader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetadataBatchMatchTest {
+
+    private static final String PLAYLIST_URL = "https://www.youtube.com/playlist?list=PLxxxxxxxxxxxxxxxx";
+    private static final String FIRST_VIDEO_URL = "https://www.youtube.com/watch?v=aaaaaaaaaaa";
+    private static final String SECOND_VIDEO_URL = "https://www.youtube.com/watch?v=bbbbbbbbbbb";
+
+    private static QueueEntry createEntry(String url, long downloadId) {
+        return new QueueEntry(null, null, null, null, url, url, downloadId, List.of());
+    }
+
+    private static JsonNode readLine(String json) throws Exception {
+        return GDownloader.OBJECT_MAPPER.readTree(json);
+    }
+
+    @Test
+    void testSkippedPlaylistItemLeavesItsEntryPending() throws Exception {
+        QueueEntry playlist = createEntry(PLAYLIST_URL, 1);
+        QueueEntry first = createEntry(FIRST_VIDEO_URL, 2);
+        QueueEntry second = createEntry(SECOND_VIDEO_URL, 3);
+
+        List<QueueEntry> pending = new ArrayList<>(List.of(playlist, first, second));
+
+        // The playlist's first item was private, yt-dlp printed nothing for it and moved on
+        assertSame(second, YtDlpDownloader.takePendingEntry(pending, readLine(
+            "{\"id\": \"bbbbbbbbbbb\", \"original_url\": \"" + SECOND_VIDEO_URL + "\","
+            + " \"webpage_url\": \"" + SECOND_VIDEO_URL + "\"}")));
+
+        assertSame(first, YtDlpDownloader.takePendingEntry(pending, readLine(
+            "{\"id\": \"aaaaaaaaaaa\", \"original_url\": \"" + FIRST_VIDEO_URL + "\"}")));
+
+        assertEquals(List.of(playlist), pending);
+    }
+
+    @Test
+    void testUnmatchedLinesAreDropped() throws Exception {
+        QueueEntry playlist = createEntry(PLAYLIST_URL, 1);
+        QueueEntry first = createEntry(FIRST_VIDEO_URL, 2);
+
+        List<QueueEntry> pending = new ArrayList<>(List.of(playlist, first));
+
+        // A line for a video nobody asked about must not be handed to whichever entry is first in line
+        assertNull(YtDlpDownloader.takePendingEntry(pending, readLine(
+            "{\"id\": \"ccccccccccc\", \"original_url\": \"https://www.youtube.com/watch?v=ccccccccccc\"}")));
+        assertNull(YtDlpDownloader.takePendingEntry(pending, readLine("{\"id\": \"ddddddddddd\"}")));
+
+        assertEquals(List.of(playlist, first), pending);
+    }
+
+    @Test
+    void testFlatPlaylistItemMatchesItsPlaylist() throws Exception {
+        QueueEntry playlist = createEntry(PLAYLIST_URL, 1);
+        QueueEntry first = createEntry(FIRST_VIDEO_URL, 2);
+
+        List<QueueEntry> pending = new ArrayList<>(List.of(first, playlist));
+
+        assertSame(playlist, YtDlpDownloader.takePendingEntry(pending, readLine(
+            "{\"_type\": \"url\", \"id\": \"bbbbbbbbbbb\", \"url\": \"" + SECOND_VIDEO_URL + "\","
+            + " \"playlist_webpage_url\": \"" + PLAYLIST_URL + "\"}")));
+
+        assertEquals(List.of(first), pending);
+    }
+}
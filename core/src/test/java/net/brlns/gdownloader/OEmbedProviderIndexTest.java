@@ -0,0 +1,64 @@
+package net.brlns.gdownloader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import net.brlns.gdownloader.downloader.extractors.OEmbedProviderIndex;
+import net.brlns.gdownloader.downloader.extractors.OEmbedProviderIndex.ProviderScheme;
+import net.brlns.gdownloader.downloader.extractors.OEmbedProviders.Endpoint;
+import net.brlns.gdownloader.downloader.extractors.OEmbedProviders.Provider;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OEmbedProviderIndexTest {
+
+    private static Provider provider(String name, String... schemes) {
+        Endpoint endpoint = new Endpoint(List.of(schemes), "https://" + name + ".test/oembed", List.of("json"), false);
+
+        return new Provider(name, "https://" + name + ".test", new ArrayList<>(List.of(endpoint)));
+    }
+
+    private static Optional<String> lookup(OEmbedProviderIndex index, String url) {
+        return index.find(url).map(ProviderScheme::getProvider).map(Provider::getProviderName);
+    }
+
+    @Test
+    void testHostLookups() {
+        OEmbedProviderIndex index = OEmbedProviderIndex.build(List.of(
+            provider("exact", "https://www.example.com/watch*"),
+            provider("wildcard", "https://*.tumblr.com/post/*"),
+            provider("unkeyed", "https://*-embed.test/*", "spotify:*")
+        ), "hash");
+
+        assertEquals(4, index.size());
+
+        assertEquals(Optional.of("exact"), lookup(index, "https://www.example.com/watch?v=1"));
+        assertEquals(Optional.of("wildcard"), lookup(index, "https://blog.tumblr.com/post/123"));
+        assertEquals(Optional.of("wildcard"), lookup(index, "https://a.b.tumblr.com/post/123"));
+        assertEquals(Optional.of("unkeyed"), lookup(index, "https://foo-embed.test/video"));
+        assertEquals(Optional.of("unkeyed"), lookup(index, "spotify:track:abc"));
+
+        assertEquals(Optional.empty(), lookup(index, "https://tumblr.com/post/123"));
+        assertEquals(Optional.empty(), lookup(index, "https://www.example.com/other"));
+        assertEquals(Optional.empty(), lookup(index, "https://unknown.test/"));
+    }
+
+    @Test
+    void testProviderOrderWins() {
+        OEmbedProviderIndex index = OEmbedProviderIndex.build(List.of(
+            provider("generic", "https://*/*"),
+            provider("specific", "https://www.example.com/*")
+        ), "hash");
+
+        assertEquals(Optional.of("generic"), lookup(index, "https://www.example.com/video"));
+
+        index = OEmbedProviderIndex.build(List.of(
+            provider("specific", "https://www.example.com/*"),
+            provider("generic", "https://*/*")
+        ), "hash");
+
+        assertEquals(Optional.of("specific"), lookup(index, "https://www.example.com/video"));
+        assertEquals(Optional.of("generic"), lookup(index, "https://other.test/video"));
+    }
+}
@@ -0,0 +1,47 @@
+package net.brlns.gdownloader;
+
+import net.brlns.gdownloader.process.ProgressLineScanner;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgressLineScannerTest {
+
+    @Test
+    void testFragmentedProgressLine() {
+        ProgressLineScanner scanner = new ProgressLineScanner();
+        String line = "[download]  45.3% of ~ 100.00MiB at  2.50MiB/s ETA 01:05 (frag 3/10)";
+
+        assertTrue(scanner.scan(line));
+        assertEquals(45.3, scanner.getPercent(), 0.0001);
+        assertEquals((long)(2.5 * 1024 * 1024), scanner.getBytesPerSecond());
+        assertEquals(65, scanner.getEtaSeconds());
+        assertEquals("45.3% of ~ 100.00MiB at  2.50MiB/s ETA 01:05 (frag 3/10)",
+            line.substring(scanner.getMessageStart()));
+    }
+
+    @Test
+    void testCompletedAndUnknownValues() {
+        ProgressLineScanner scanner = new ProgressLineScanner();
+
+        assertTrue(scanner.scan("[download] 100% of 12.00MiB in 01:02:03 at 800.00KB/s"));
+        assertEquals(100, scanner.getPercent(), 0.0001);
+        assertEquals(800_000, scanner.getBytesPerSecond());
+        assertEquals(-1, scanner.getEtaSeconds());
+
+        assertTrue(scanner.scan("[download]   0.0% of 1.00GiB at Unknown B/s ETA Unknown"));
+        assertEquals(-1, scanner.getBytesPerSecond());
+        assertEquals(-1, scanner.getEtaSeconds());
+    }
+
+    @Test
+    void testNonProgressLines() {
+        ProgressLineScanner scanner = new ProgressLineScanner();
+
+        assertFalse(scanner.scan("[download] Destination: video 50%.mp4"));
+        assertFalse(scanner.scan("[download] Downloading item 1 of 5"));
+        assertFalse(scanner.scan("[youtube] abc: Downloading webpage"));
+        assertFalse(scanner.scan("[download]"));
+        assertFalse(scanner.scan(""));
+    }
+}
@@ -0,0 +1,60 @@
+package net.brlns.gdownloader;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import net.brlns.gdownloader.downloader.QueueDispatcher;
+import net.brlns.gdownloader.downloader.QueueEntry;
+import net.brlns.gdownloader.downloader.enums.QueueCategoryEnum;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueDispatcherTest {
+
+    @Test
+    void testRestoredScheduledEntryIsDueImmediately() throws Exception {
+        // Resume times are not persisted, a restored SCHEDULED entry comes back without one
+        QueueEntry restored = new QueueEntry(null, null, null, null, null, null, 1, List.of());
+        restored.setCurrentQueueCategory(QueueCategoryEnum.SCHEDULED);
+
+        AtomicReference<QueueDispatcher> dispatcherRef = new AtomicReference<>();
+        List<QueueEntry> resumed = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        try (QueueDispatcher dispatcher = new QueueDispatcher(() -> {
+            List<QueueEntry> due = dispatcherRef.get().drainDue();
+            if (!due.isEmpty()) {
+                resumed.addAll(due);
+                latch.countDown();
+            }
+        })) {
+            dispatcherRef.set(dispatcher);
+            dispatcher.start();
+
+            dispatcher.schedule(restored, restored.getScheduledResumeAtMillis().get());
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(restored), resumed);
+        }
+    }
+
+    @Test
+    void testPendingAndClearedSchedules() {
+        QueueDispatcher dispatcher = new QueueDispatcher(() -> {
+        });
+
+        QueueEntry pending = new QueueEntry(null, null, null, null, null, null, 1, List.of());
+        pending.scheduleRetryLater(System.currentTimeMillis() + 60_000, "later");
+        dispatcher.schedule(pending, pending.getScheduledResumeAtMillis().get());
+
+        QueueEntry cleared = new QueueEntry(null, null, null, null, null, null, 2, List.of());
+        cleared.scheduleRetryLater(System.currentTimeMillis() - 1, "now");
+        dispatcher.schedule(cleared, cleared.getScheduledResumeAtMillis().get());
+        cleared.clearSchedule();
+
+        assertTrue(dispatcher.drainDue().isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package net.brlns.gdownloader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import net.brlns.gdownloader.util.ThumbnailCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] randomBody(int seed) {
+        byte[] body = new byte[4096];
+        new Random(seed).nextBytes(body);
+
+        return body;
+    }
+
+    private List<Path> listFiles(String subdirectory) throws IOException {
+        Path path = directory.resolve(subdirectory);
+        if (!Files.isDirectory(path)) {
+            return List.of();
+        }
+
+        try (Stream<Path> stream = Files.list(path)) {
+            return stream.toList();
+        }
+    }
+
+    private long getDiskUsage() throws IOException {
+        long total = 0;
+        for (Path path : listFiles("blobs")) {
+            total += Files.size(path);
+        }
+
+        for (Path path : listFiles("entries")) {
+            total += Files.size(path);
+        }
+
+        return total;
+    }
+
+    // Pushes every entry stored so far behind the ones that come next
+    private void ageEntries() throws IOException {
+        for (Path path : listFiles("entries")) {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() - 60_000));
+        }
+    }
+
+    @Test
+    void testMetadataEntriesCountTowardTheBudget() throws IOException {
+        ThumbnailCache cache = new ThumbnailCache(directory, () -> 4096L);
+
+        for (int i = 0; i < 200; i++) {
+            cache.storeMetadata("favicon:https://site" + i + ".example", "https://site" + i + ".example/favicon.ico", "Site " + i);
+            ageEntries();
+        }
+
+        assertTrue(getDiskUsage() <= 4096);
+        assertTrue(cache.lookup("favicon:https://site199.example").isPresent());
+        assertTrue(cache.lookup("favicon:https://site0.example").isEmpty());
+    }
+
+    @Test
+    void testEntriesAreEvictedWithTheirBlob() throws IOException {
+        ThumbnailCache cache = new ThumbnailCache(directory, () -> 10_000L);
+
+        cache.store("https://a.example/1.jpg", randomBody(1), null, null);
+        // Same content under another URL, stored once
+        cache.store("https://a.example/2.jpg", randomBody(1), null, null);
+        ageEntries();
+
+        cache.store("https://b.example/1.jpg", randomBody(2), null, null);
+        assertEquals(2, listFiles("blobs").size());
+        ageEntries();
+
+        // Looking it up makes the shared blob recently used again
+        assertTrue(cache.lookup("https://a.example/2.jpg").isPresent());
+
+        cache.store("https://c.example/1.jpg", randomBody(3), null, null);
+
+        assertTrue(cache.lookup("https://a.example/1.jpg").isEmpty());
+        assertTrue(cache.lookup("https://b.example/1.jpg").isEmpty());
+        assertTrue(cache.lookup("https://a.example/2.jpg").isPresent());
+        assertTrue(cache.lookup("https://c.example/1.jpg").isPresent());
+
+        assertEquals(2, listFiles("blobs").size());
+        assertEquals(2, listFiles("entries").size());
+        assertTrue(getDiskUsage() <= 10_000);
+    }
+
+    @Test
+    void testZeroBudgetPurgesTheDiskTier() throws IOException {
+        AtomicLong budget = new AtomicLong(1024 * 1024);
+        ThumbnailCache cache = new ThumbnailCache(directory, budget::get);
+
+        cache.store("https://a.example/1.jpg", randomBody(1), "\"etag\"", null);
+        cache.storeMetadata("favicon:https://a.example", null, "A");
+        assertTrue(getDiskUsage() > 0);
+
+        budget.set(0);
+
+        assertTrue(cache.lookup("https://a.example/1.jpg").isEmpty());
+        assertTrue(listFiles("blobs").isEmpty());
+        assertTrue(listFiles("entries").isEmpty());
+    }
+}
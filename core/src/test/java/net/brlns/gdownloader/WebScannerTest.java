@@ -0,0 +1,70 @@
+package net.brlns.gdownloader;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import net.brlns.gdownloader.downloader.webscanner.WebScanner;
+import net.brlns.gdownloader.downloader.webscanner.WebScannerExtensions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebScannerTest {
+
+    private static final String PAGE = """
+        <html>
+        <head>
+            <meta property="og:video" content="/media/trailer.mp4">
+            <meta name="twitter:image" content="https://cdn.example.com/cover.tiff">
+            <style>.hero { background: url('/media/hero.bmp'); }</style>
+        </head>
+        <body>
+            <a href="/files/album.zip">Album</a>
+            <a href="/files/album.zip">Album again</a>
+            <a href="/gallery/page2">Next page</a>
+            <img src="/static/logo.png" srcset="/media/small.heic 1x, /media/large.heic 2x">
+            <video poster="/media/poster.jpg"><source src="/media/clip.webm"></video>
+            <div style="background-image: url(/media/tile.tif)"></div>
+            <a href="https://example.com/wiki/File:Song.mp3">Description page</a>
+        </body>
+        </html>
+        """;
+
+    private static WebScanner createScanner() {
+        return new WebScanner(HttpClient.newHttpClient(), WebScannerExtensions.createDefault(),
+            1024 * 1024, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testSinglePassExtraction() {
+        List<String> streamed = Collections.synchronizedList(new ArrayList<>());
+
+        Set<String> found = createScanner().scanForMediaLinks("https://example.com/gallery/",
+            PAGE, 0, true, null, null, streamed::add);
+
+        assertEquals(Set.of(
+            "https://example.com/media/trailer.mp4",
+            "https://cdn.example.com/cover.tiff",
+            "https://example.com/media/hero.bmp",
+            "https://example.com/files/album.zip",
+            "https://example.com/media/small.heic",
+            "https://example.com/media/large.heic",
+            "https://example.com/media/clip.webm",
+            "https://example.com/media/tile.tif"
+        ), found);
+
+        // Every link is streamed exactly once, in discovery order
+        assertEquals(List.copyOf(found), streamed);
+    }
+
+    @Test
+    void testCancelledScanFindsNothing() {
+        Set<String> found = createScanner().scanForMediaLinks("https://example.com/gallery/",
+            PAGE, 2, true, () -> true);
+
+        assertTrue(found.isEmpty());
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2026 hstr0100
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.brlns.gdownloader.testing;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal HTTP/1.1 file host on loopback, with the misbehaviors real hosts throw at the downloader.
+ *
+ * Every response closes its connection, so each request is a fresh connection as far as
+ * throttling and disconnects are concerned. Shared by the core tests and the benchmarks.
+ *
+ * @author Gabriel / hstr0100 / vertx010
+ */
+public class LocalHttpTestServer implements AutoCloseable {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private static final int WRITE_SLICE_BYTES = 16 * 1024;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, ServedFile> files = new ConcurrentHashMap<>();
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+    public LocalHttpTestServer() throws IOException {
+        serverSocket = new ServerSocket(0, 64, InetAddress.getLoopbackAddress());
+
+        executor.submit(this::acceptLoop);
+    }
+
+    public ServedFile serve(String path, byte[] payload) {
+        ServedFile file = new ServedFile(payload);
+        files.put(path, file);
+
+        return file;
+    }
+
+    public URL getUrl(String path) throws IOException {
+        return URI.create("http://127.0.0.1:" + serverSocket.getLocalPort() + path).toURL();
+    }
+
+    /**
+     * Highest number of responses that were being written at the same time.
+     */
+    public int getMaxConcurrentRequests() {
+        return maxActiveRequests.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+
+                executor.submit(() -> handle(socket));
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            socket.setSoTimeout(10_000);
+
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String requestLine = readLine(in);
+            if (requestLine == null || requestLine.isEmpty()) {
+                return;
+            }
+
+            Map<String, String> requestHeaders = new LinkedHashMap<>();
+
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    requestHeaders.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        line.substring(colon + 1).trim());
+                }
+            }
+
+            String[] parts = requestLine.split(" ");
+            String method = parts[0];
+            String path = URI.create(parts[1]).getPath();
+
+            activeRequests.incrementAndGet();
+            try {
+                respond(socket, method, files.get(path), requestHeaders.get("range"));
+            } finally {
+                activeRequests.decrementAndGet();
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private void respond(Socket socket, String method, ServedFile file, String rangeHeader) throws IOException {
+        OutputStream out = socket.getOutputStream();
+
+        if (file == null) {
+            writeHead(out, 404, "Not Found", 0, Map.of());
+            return;
+        }
+
+        file.requests.incrementAndGet();
+
+        if (file.singleUse && !file.consumed.compareAndSet(false, true)) {
+            writeHead(out, 410, "Gone", 0, Map.of());
+            return;
+        }
+
+        if (takeOne(file.rateLimitedResponses)) {
+            writeHead(out, 429, "Too Many Requests", 0,
+                Map.of("Retry-After", String.valueOf(file.retryAfterSeconds)));
+            return;
+        }
+
+        byte[] payload = file.payload;
+
+        long start = 0;
+        long end = payload.length - 1;
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Content-Type", "application/octet-stream");
+        headers.put("Accept-Ranges", file.acceptRanges ? "bytes" : "none");
+
+        int status = 200;
+        String reason = "OK";
+
+        Matcher matcher = rangeHeader != null ? RANGE_PATTERN.matcher(rangeHeader) : null;
+        if (file.acceptRanges && matcher != null && matcher.matches()) {
+            start = Long.parseLong(matcher.group(1));
+            if (!matcher.group(2).isEmpty()) {
+                end = Math.min(end, Long.parseLong(matcher.group(2)));
+            }
+
+            if (start > end) {
+                writeHead(out, 416, "Range Not Satisfiable", 0,
+                    Map.of("Content-Range", "bytes */" + payload.length));
+                return;
+            }
+
+            status = 206;
+            reason = "Partial Content";
+            headers.put("Content-Range", "bytes " + start + "-" + end + "/" + payload.length);
+        }
+
+        long length = end - start + 1;
+        writeHead(out, status, reason, length, headers);
+
+        if (method.equals("HEAD")) {
+            return;
+        }
+
+        maxActiveRequests.accumulateAndGet(activeRequests.get(), Math::max);
+
+        long disconnectAfter = takeOne(file.disconnects) ? file.disconnectAfterBytes : Long.MAX_VALUE;
+        long bytesPerSecond = file.bytesPerSecond;
+
+        long startNanos = System.nanoTime();
+        long written = 0;
+
+        while (written < length) {
+            if (written >= disconnectAfter) {
+                // Reset rather than a clean close, like a dropped connection
+                socket.setSoLinger(true, 0);
+                return;
+            }
+
+            int slice = (int)Math.min(WRITE_SLICE_BYTES, Math.min(length - written, disconnectAfter - written));
+            out.write(payload, (int)(start + written), slice);
+            out.flush();
+
+            written += slice;
+
+            if (bytesPerSecond > 0) {
+                long dueNanos = startNanos + written * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+                long sleepNanos = dueNanos - System.nanoTime();
+                if (sleepNanos > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean takeOne(AtomicInteger counter) {
+        return counter.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+    }
+
+    private static void writeHead(OutputStream out, int status, String reason,
+        long contentLength, Map<String, String> headers) throws IOException {
+        StringBuilder head = new StringBuilder()
+            .append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n")
+            .append("Content-Length: ").append(contentLength).append("\r\n")
+            .append("Connection: close\r\n");
+
+        headers.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+        head.append("\r\n");
+
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                buffer.write(b);
+            }
+        }
+
+        if (b == -1 && buffer.size() == 0) {
+            return null;
+        }
+
+        return buffer.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    public static final class ServedFile {
+
+        private final byte[] payload;
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private volatile boolean acceptRanges = true;
+        private volatile long bytesPerSecond;
+
+        private final AtomicInteger rateLimitedResponses = new AtomicInteger();
+        private volatile int retryAfterSeconds;
+
+        private final AtomicInteger disconnects = new AtomicInteger();
+        private volatile long disconnectAfterBytes;
+
+        private volatile boolean singleUse;
+        private final AtomicBoolean consumed = new AtomicBoolean();
+
+        private ServedFile(byte[] payloadIn) {
+            payload = payloadIn;
+        }
+
+        public ServedFile acceptRanges(boolean accept) {
+            acceptRanges = accept;
+
+            return this;
+        }
+
+        /**
+         * Caps every connection to this many bytes per second.
+         */
+        public ServedFile throttle(long bytesPerSecondIn) {
+            bytesPerSecond = bytesPerSecondIn;
+
+            return this;
+        }
+
+        /**
+         * Answers the next requests with 429 and a Retry-After header.
+         */
+        public ServedFile rateLimit(int responses, int retryAfterSecondsIn) {
+            retryAfterSeconds = retryAfterSecondsIn;
+            rateLimitedResponses.set(responses);
+
+            return this;
+        }
+
+        /**
+         * Resets the connection of the next responses once they have sent this many body bytes.
+         */
+        public ServedFile disconnect(int responses, long afterBytes) {
+            disconnectAfterBytes = afterBytes;
+            disconnects.set(responses);
+
+            return this;
+        }
+
+        /**
+         * Serves the file once, every later request gets 410 Gone.
+         */
+        public ServedFile singleUse() {
+            singleUse = true;
+
+            return this;
+        }
+
+        public int getRequestCount() {
+            return requests.get();
+        }
+    }
+}